@@ -1,9 +1,12 @@
-CREATE TABLE tb_order (id BIGINT PRIMARY KEY GENERATED ALWAYS AS IDENTITY, totalamount DECIMAL(10, 2) NOT NULL);
-CREATE TABLE tb_product (id BIGINT PRIMARY KEY GENERATED ALWAYS AS IDENTITY,name VARCHAR(255) NOT NULL,description TEXT, price DECIMAL(10, 2)  NULL,stock INTEGER  NULL);
-CREATE TABLE order_items (id BIGINT PRIMARY KEY GENERATED ALWAYS AS IDENTITY,orderId BIGINT NOT NULL, productId BIGINT NOT NULL,quantity INTEGER NOT NULL, unitPrice DECIMAL(10, 2) NOT NULL);
-
-
-
-
-
-
+CREATE SEQUENCE tb_order_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE tb_product_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE tb_order_item_seq START WITH 1 INCREMENT BY 50;
+CREATE TABLE tb_order (id BIGINT PRIMARY KEY, totalamount DECIMAL(10, 2) NOT NULL, version BIGINT DEFAULT 0 NOT NULL);
+CREATE TABLE tb_product (id BIGINT PRIMARY KEY,name VARCHAR(255) NOT NULL,description TEXT, price DECIMAL(10, 2)  NULL,stock INTEGER  NULL, version BIGINT DEFAULT 0 NOT NULL);
+CREATE TABLE tb_order_item (id BIGINT PRIMARY KEY,order_id BIGINT NOT NULL, product_id BIGINT NOT NULL,quantity INTEGER NOT NULL, unit_price DECIMAL(10, 2) NOT NULL, version BIGINT DEFAULT 0 NOT NULL);
+CREATE INDEX idx_order_item_order_id ON tb_order_item (order_id, id);
+-- Covers the per-product sums of quantity and revenue (analytics, sales read model rebuild)
+CREATE INDEX idx_order_item_product_sales ON tb_order_item (product_id, quantity, unit_price);
+CREATE TABLE tb_product_sales (product_id BIGINT PRIMARY KEY, quantity BIGINT NOT NULL, revenue DECIMAL(19, 2) NOT NULL, order_lines BIGINT NOT NULL);
+CREATE SEQUENCE tb_outbox_event_seq START WITH 1 INCREMENT BY 50;
+CREATE TABLE tb_outbox_event (id BIGINT PRIMARY KEY, aggregate VARCHAR(16) NOT NULL, aggregate_id BIGINT NOT NULL, change_type VARCHAR(16) NOT NULL, payload TEXT, created_at TIMESTAMP WITH TIME ZONE NOT NULL);
@@ -0,0 +1,37 @@
+-- Upgrades a database created by the first init.sql (IDENTITY keys, table order_items) to the
+-- schema of the current init.sql. The postgres image runs init.sql only on an empty volume, so run
+-- this once on an existing one, before starting the new version of the application.
+BEGIN;
+
+-- The entities map order items to tb_order_item with snake_case columns; unquoted camelCase
+-- columns were created in lower case
+ALTER TABLE order_items RENAME TO tb_order_item;
+ALTER TABLE tb_order_item RENAME COLUMN orderid TO order_id;
+ALTER TABLE tb_order_item RENAME COLUMN productid TO product_id;
+ALTER TABLE tb_order_item RENAME COLUMN unitprice TO unit_price;
+
+-- IDs come from sequences now, 50 per nextval
+ALTER TABLE tb_order ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE tb_product ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE tb_order_item ALTER COLUMN id DROP IDENTITY IF EXISTS;
+CREATE SEQUENCE IF NOT EXISTS tb_order_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS tb_product_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS tb_order_item_seq START WITH 1 INCREMENT BY 50;
+
+-- Hibernate's pooled optimizer hands out the 50 IDs up to the value nextval returns, so that
+-- value must be max(id) + 50 for the first block to start right after the existing rows
+SELECT setval('tb_order_seq', coalesce(max(id), 0) + 50, false) FROM tb_order;
+SELECT setval('tb_product_seq', coalesce(max(id), 0) + 50, false) FROM tb_product;
+SELECT setval('tb_order_item_seq', coalesce(max(id), 0) + 50, false) FROM tb_order_item;
+
+-- Added since; tb_product_sales is filled from the order items when the application starts
+ALTER TABLE tb_order ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE tb_product ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE tb_order_item ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_order_item_order_id ON tb_order_item (order_id, id);
+CREATE INDEX IF NOT EXISTS idx_order_item_product_sales ON tb_order_item (product_id, quantity, unit_price);
+CREATE TABLE IF NOT EXISTS tb_product_sales (product_id BIGINT PRIMARY KEY, quantity BIGINT NOT NULL, revenue DECIMAL(19, 2) NOT NULL, order_lines BIGINT NOT NULL);
+CREATE SEQUENCE IF NOT EXISTS tb_outbox_event_seq START WITH 1 INCREMENT BY 50;
+CREATE TABLE IF NOT EXISTS tb_outbox_event (id BIGINT PRIMARY KEY, aggregate VARCHAR(16) NOT NULL, aggregate_id BIGINT NOT NULL, change_type VARCHAR(16) NOT NULL, payload TEXT, created_at TIMESTAMP WITH TIME ZONE NOT NULL);
+
+COMMIT;
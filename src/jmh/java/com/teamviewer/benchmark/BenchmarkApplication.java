@@ -0,0 +1,51 @@
+package com.teamviewer.benchmark;
+
+import com.teamviewer.EcommerceApplication;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * The application wired as {@link EcommerceApplication} wires it, on an in-memory H2 database and
+ * without the configuration classes of the unit tests that share the test classpath. Logging is
+ * raised to WARN so console output does not dominate the measurements. Hibernate and Spring need
+ * many seconds of warmup before the JIT settles, hence the long warmup on the database benchmarks.
+ */
+@Configuration
+@EnableAutoConfiguration
+@EntityScan(basePackageClasses = EcommerceApplication.class)
+@EnableJpaRepositories(basePackageClasses = EcommerceApplication.class)
+@EnableCaching
+@EnableScheduling
+@ComponentScan(
+    basePackageClasses = EcommerceApplication.class,
+    excludeFilters = {
+      @ComponentScan.Filter(
+          type = FilterType.ASSIGNABLE_TYPE,
+          classes = EcommerceApplication.class),
+      @ComponentScan.Filter(type = FilterType.REGEX, pattern = ".*Tests?(\\$.*)?")
+    })
+public class BenchmarkApplication {
+
+  static ConfigurableApplicationContext start(String database, String... args) {
+    return new SpringApplicationBuilder(BenchmarkApplication.class)
+        .properties(args)
+        .run(
+            "--server.port=0",
+            "--spring.main.banner-mode=off",
+            "--logging.level.root=WARN",
+            "--logging.level.org.hibernate.orm.deprecation=ERROR",
+            "--spring.datasource.url=jdbc:h2:mem:" + database,
+            "--spring.datasource.username=sa",
+            "--spring.datasource.password=",
+            "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+            "--spring.jpa.hibernate.ddl-auto=create-drop");
+  }
+}
@@ -0,0 +1,141 @@
+package com.teamviewer.benchmark;
+
+import com.teamviewer.controller.filter.RequestLoggingFilter;
+import com.teamviewer.entity.Order;
+import com.teamviewer.entity.OrderItem;
+import com.teamviewer.entity.Product;
+import com.teamviewer.repository.OrderItemRepository;
+import com.teamviewer.repository.OrderRepository;
+import com.teamviewer.repository.ProductRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Full request dispatch through the DispatcherServlet, message converters, controllers, services
+ * and repositories, behind the request logging filter. Requests are served by MockMvc, so socket
+ * I/O is not part of the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 10, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ControllerBenchmark {
+
+  private static final int ORDERS = 1000;
+
+  private static final int ITEMS_PER_ORDER = 20;
+
+  private ConfigurableApplicationContext context;
+
+  private MockMvc mockMvc;
+
+  private Long productId;
+
+  private Long orderId;
+
+  private String productJson;
+
+  private String orderWithItemsJson;
+
+  @Setup
+  public void setUp() {
+    context = BenchmarkApplication.start("controllers");
+    mockMvc =
+        MockMvcBuilders.webAppContextSetup((WebApplicationContext) context)
+            .addFilters(context.getBean(RequestLoggingFilter.class))
+            .build();
+
+    productId =
+        context
+            .getBean(ProductRepository.class)
+            .save(
+                Product.builder()
+                    .name("benchmark")
+                    .price(BigDecimal.TEN)
+                    .stock(1_000_000_000)
+                    .build())
+            .getId();
+    List<Order> orders = new ArrayList<>(ORDERS);
+    for (int i = 0; i < ORDERS; i++) {
+      orders.add(Order.builder().totalamount(BigDecimal.valueOf(ITEMS_PER_ORDER * 10L)).build());
+    }
+    orderId = context.getBean(OrderRepository.class).saveAll(orders).get(0).getId();
+    List<OrderItem> items = new ArrayList<>(ITEMS_PER_ORDER);
+    for (int i = 0; i < ITEMS_PER_ORDER; i++) {
+      items.add(
+          OrderItem.builder()
+              .orderId(orderId.intValue())
+              .productId(productId.intValue())
+              .quantity(1)
+              .unitPrice(BigDecimal.TEN)
+              .build());
+    }
+    context.getBean(OrderItemRepository.class).saveAll(items);
+
+    productJson = "{\"name\":\"created\",\"price\":1.50,\"stock\":10}";
+    orderWithItemsJson = "{\"items\":[{\"productId\":" + productId + ",\"quantity\":1}]}";
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public MvcResult getProduct() throws Exception {
+    return mockMvc.perform(get("/api/products/{id}", productId)).andReturn();
+  }
+
+  @Benchmark
+  public MvcResult createProduct() throws Exception {
+    return mockMvc
+        .perform(
+            post("/api/products").contentType(MediaType.APPLICATION_JSON).content(productJson))
+        .andReturn();
+  }
+
+  @Benchmark
+  public MvcResult getOrdersPage() throws Exception {
+    return mockMvc.perform(get("/api/orders").param("limit", "100")).andReturn();
+  }
+
+  @Benchmark
+  public MvcResult getOrderItems() throws Exception {
+    return mockMvc.perform(get("/api/orders/{id}/items", orderId)).andReturn();
+  }
+
+  @Benchmark
+  public MvcResult createOrderWithItems() throws Exception {
+    return mockMvc
+        .perform(
+            post("/api/orders/with-items")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(orderWithItemsJson))
+        .andReturn();
+  }
+}
@@ -0,0 +1,139 @@
+package com.teamviewer.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.teamviewer.entity.OrderItem;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.runner.IterationType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encodes {@value #ITEMS} order items in each wire format the API can negotiate, with mappers
+ * built like the ones behind the message converters. {@code json-gzip} is JSON through the same
+ * deflater Tomcat's response compression uses. The encoded size of each format is reported as the
+ * {@code bytes} secondary result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class EncodingBenchmark {
+
+  private static final int ITEMS = 10_000;
+
+  @Param({"json", "json-gzip", "smile", "cbor"})
+  private String format;
+
+  private ObjectMapper objectMapper;
+
+  private boolean gzip;
+
+  private List<OrderItem> orderItems;
+
+  @Setup
+  public void setUp() {
+    Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+    objectMapper =
+        switch (format) {
+          case "json", "json-gzip" -> builder.build();
+          case "smile" -> builder.factory(new SmileFactory()).build();
+          case "cbor" -> builder.factory(new CBORFactory()).build();
+          default -> throw new IllegalArgumentException("Unknown format " + format);
+        };
+    gzip = format.equals("json-gzip");
+    orderItems = new ArrayList<>(ITEMS);
+    for (int i = 1; i <= ITEMS; i++) {
+      orderItems.add(
+          OrderItem.builder()
+              .id((long) i)
+              .orderId(i / 10)
+              .productId(i % 1000)
+              .quantity(i % 7 + 1)
+              .unitPrice(BigDecimal.valueOf(i, 2))
+              .version(0L)
+              .build());
+    }
+  }
+
+  @Benchmark
+  public long encode(WireSize wireSize) throws IOException {
+    CountingOutputStream out = new CountingOutputStream();
+    if (gzip) {
+      try (GZIPOutputStream compressed = new GZIPOutputStream(out, 8192)) {
+        objectMapper.writeValue(compressed, orderItems);
+      }
+    } else {
+      objectMapper.writeValue(out, orderItems);
+    }
+    wireSize.record(out.count);
+    return out.count;
+  }
+
+  /**
+   * The encoded size, the same on every call. JMH adds up event counters over the iterations, so
+   * it is counted in the first measurement iteration only.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class WireSize {
+
+    public long bytes;
+
+    private boolean counting;
+
+    private boolean counted;
+
+    @Setup(Level.Iteration)
+    public void startIteration(IterationParams iteration) {
+      bytes = 0;
+      counting = iteration.getType() == IterationType.MEASUREMENT && !counted;
+    }
+
+    void record(long size) {
+      if (counting) {
+        bytes = size;
+        counted = true;
+      }
+    }
+  }
+
+  /** Discards the output, keeping only its length. */
+  private static final class CountingOutputStream extends OutputStream {
+
+    private long count;
+
+    @Override
+    public void write(int b) {
+      count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      count += len;
+    }
+  }
+}
@@ -0,0 +1,95 @@
+package com.teamviewer.benchmark;
+
+import com.teamviewer.entity.Order;
+import com.teamviewer.entity.OrderItem;
+import com.teamviewer.entity.Product;
+import com.teamviewer.service.OrderItemGroupCommitService;
+import com.teamviewer.service.OrderService;
+import com.teamviewer.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single order-item inserts from many concurrent callers, each in its own transaction or group
+ * committed. Use a file database ({@code -p database=file:./target/group-commit}) to include the
+ * cost of syncing the log on every commit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Threads(64)
+@Warmup(iterations = 10, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class GroupCommitBenchmark {
+
+  private static final int STOCK = 1_000_000_000;
+
+  @Param({"false", "true"})
+  public boolean groupCommit;
+
+  @Param({"group-commit"})
+  public String database;
+
+  private ConfigurableApplicationContext context;
+
+  private OrderItemGroupCommitService groupCommitService;
+
+  private int productId;
+
+  private int orderId;
+
+  @Setup
+  public void setUp() {
+    context =
+        BenchmarkApplication.start(
+            database,
+            "order-items.group-commit.enabled=" + groupCommit,
+            "spring.datasource.hikari.maximum-pool-size=16");
+    groupCommitService = context.getBean(OrderItemGroupCommitService.class);
+    productId =
+        context
+            .getBean(ProductService.class)
+            .createProduct(
+                Product.builder().name("benchmark").price(BigDecimal.TEN).stock(STOCK).build())
+            .getId()
+            .intValue();
+    orderId =
+        context
+            .getBean(OrderService.class)
+            .createOrder(Order.builder().totalamount(BigDecimal.ZERO).build())
+            .getId()
+            .intValue();
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public OrderItem createOrderItem() {
+    return groupCommitService.createOrderItem(
+        OrderItem.builder()
+            .orderId(orderId)
+            .productId(productId)
+            .quantity(1)
+            .unitPrice(BigDecimal.TEN)
+            .build());
+  }
+}
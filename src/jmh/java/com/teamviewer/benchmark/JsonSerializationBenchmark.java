@@ -0,0 +1,91 @@
+package com.teamviewer.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.teamviewer.entity.Order;
+import com.teamviewer.entity.OrderItem;
+import com.teamviewer.entity.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes entity lists with an {@link ObjectMapper} built the way Spring MVC builds the one
+ * behind its JSON message converter. Output is discarded so only encoding is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class JsonSerializationBenchmark {
+
+  @Param({"1000", "100000"})
+  private int size;
+
+  private ObjectMapper objectMapper;
+
+  private List<Product> products;
+
+  private List<Order> orders;
+
+  private List<OrderItem> orderItems;
+
+  @Setup
+  public void setUp() {
+    objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    products = new ArrayList<>(size);
+    orders = new ArrayList<>(size);
+    orderItems = new ArrayList<>(size);
+    for (int i = 1; i <= size; i++) {
+      products.add(
+          Product.builder()
+              .id((long) i)
+              .name("Product " + i)
+              .description("Description of product " + i)
+              .price(BigDecimal.valueOf(i, 2))
+              .stock(i)
+              .build());
+      orders.add(Order.builder().id((long) i).totalamount(BigDecimal.valueOf(i, 2)).build());
+      orderItems.add(
+          OrderItem.builder()
+              .id((long) i)
+              .orderId(i / 10)
+              .productId(i % 1000)
+              .quantity(i % 7 + 1)
+              .unitPrice(BigDecimal.valueOf(i, 2))
+              .build());
+    }
+  }
+
+  @Benchmark
+  public void products() throws IOException {
+    objectMapper.writeValue(OutputStream.nullOutputStream(), products);
+  }
+
+  @Benchmark
+  public void orders() throws IOException {
+    objectMapper.writeValue(OutputStream.nullOutputStream(), orders);
+  }
+
+  @Benchmark
+  public void orderItems() throws IOException {
+    objectMapper.writeValue(OutputStream.nullOutputStream(), orderItems);
+  }
+}
@@ -0,0 +1,121 @@
+package com.teamviewer.benchmark;
+
+import com.teamviewer.dto.OrderCreateRequest;
+import com.teamviewer.dto.OrderLineRequest;
+import com.teamviewer.dto.OrderWithItemsDto;
+import com.teamviewer.entity.Order;
+import com.teamviewer.entity.OrderItem;
+import com.teamviewer.entity.Product;
+import com.teamviewer.service.OrderItemService;
+import com.teamviewer.service.OrderService;
+import com.teamviewer.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Service-layer CRUD round trips through the real repositories and transactions. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 10, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ServiceBenchmark {
+
+  private static final int STOCK = 1_000_000_000;
+
+  private ConfigurableApplicationContext context;
+
+  private ProductService productService;
+
+  private OrderService orderService;
+
+  private OrderItemService orderItemService;
+
+  private Product product;
+
+  private Order order;
+
+  @Setup
+  public void setUp() {
+    context = BenchmarkApplication.start("services");
+    productService = context.getBean(ProductService.class);
+    orderService = context.getBean(OrderService.class);
+    orderItemService = context.getBean(OrderItemService.class);
+    product =
+        productService.createProduct(
+            Product.builder().name("benchmark").price(BigDecimal.TEN).stock(STOCK).build());
+    order = orderService.createOrder(Order.builder().totalamount(BigDecimal.ZERO).build());
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public Product productCrud() {
+    Product created =
+        productService.createProduct(
+            Product.builder().name("crud").price(BigDecimal.ONE).stock(1).build());
+    Product found = productService.findProductById(created.getId());
+    found.setPrice(BigDecimal.TEN);
+    Product updated = productService.updateProduct(found);
+    productService.deleteProduct(created.getId());
+    return updated;
+  }
+
+  @Benchmark
+  public Product productLookupCached() {
+    return productService.findProductById(product.getId());
+  }
+
+  @Benchmark
+  public Order orderCrud() {
+    Order created = orderService.createOrder(Order.builder().totalamount(BigDecimal.ONE).build());
+    Order found = orderService.findOrderById(created.getId());
+    found.setTotalamount(BigDecimal.TEN);
+    Order updated = orderService.updateOrder(found);
+    orderService.deleteOrder(created.getId());
+    return updated;
+  }
+
+  @Benchmark
+  public OrderItem orderItemCrud() {
+    OrderItem created =
+        orderItemService.createOrderItem(
+            OrderItem.builder()
+                .orderId(order.getId().intValue())
+                .productId(product.getId().intValue())
+                .quantity(1)
+                .unitPrice(BigDecimal.TEN)
+                .build());
+    OrderItem found = orderItemService.findOrderItemById(created.getId());
+    found.setUnitPrice(BigDecimal.ONE);
+    OrderItem updated = orderItemService.updateOrderItem(found);
+    orderItemService.deleteOrderItem(created.getId());
+    return updated;
+  }
+
+  @Benchmark
+  public OrderWithItemsDto createOrderWithItems() {
+    return orderService.createOrderWithItems(
+        new OrderCreateRequest(
+            List.of(
+                new OrderLineRequest(product.getId().intValue(), 1),
+                new OrderLineRequest(product.getId().intValue(), 2))));
+  }
+}
@@ -0,0 +1,313 @@
+package com.teamviewer.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.teamviewer.EcommerceApplication;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.TypeExcludeFilter;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Boots {@link EcommerceApplication} on a random port, seeds it and drives a mixed workload at a
+ * fixed request rate from a pool of worker threads.
+ *
+ * <p>The schedule is open: request {@code i} is due at {@code start + i / rate} whether or not
+ * earlier requests have finished. Latency is measured from that due time, so time spent queued
+ * behind a slow server counts against it (coordinated-omission correction); the uncorrected
+ * service time from the actual send is recorded alongside for comparison.
+ *
+ * <p>Runs against in-memory H2 unless {@code --spring.datasource.*} arguments point it at another
+ * database. Exits with status 1 when a {@code --load.max-*} gate is exceeded.
+ */
+public class LoadTest {
+
+  private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+  private static final long DONE = Long.MIN_VALUE;
+
+  private final LoadTestSettings settings;
+
+  private final Workload workload;
+
+  private final HttpClient client;
+
+  private final Map<String, Histogram> corrected = new ConcurrentHashMap<>();
+
+  private final Map<String, Histogram> uncorrected = new ConcurrentHashMap<>();
+
+  private final Map<String, AtomicLong> errors = new ConcurrentHashMap<>();
+
+  private final AtomicLong dropped = new AtomicLong();
+
+  private final AtomicLong lastCompletion = new AtomicLong(Long.MIN_VALUE);
+
+  private long measureFrom;
+
+  LoadTest(LoadTestSettings settings, Workload workload, HttpClient client) {
+    this.settings = settings;
+    this.workload = workload;
+    this.client = client;
+    for (String operation : Workload.OPERATIONS) {
+      corrected.put(operation, new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3));
+      uncorrected.put(operation, new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3));
+      errors.put(operation, new AtomicLong());
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    Map<String, String> defaults = new LinkedHashMap<>();
+    defaults.put("server.port", "0");
+    defaults.put("logging.level.root", "WARN");
+    defaults.put("spring.datasource.url", "jdbc:h2:mem:loadtest;LOCK_TIMEOUT=30000");
+    defaults.put("spring.datasource.username", "sa");
+    defaults.put("spring.datasource.password", "");
+    defaults.put("spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+    defaults.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+    for (String arg : args) {
+      defaults.remove(arg.replaceFirst("^--", "").split("=", 2)[0]);
+    }
+    List<String> applicationArgs = new ArrayList<>(List.of(args));
+    defaults.forEach((key, value) -> applicationArgs.add("--" + key + "=" + value));
+    int status;
+    try (ConfigurableApplicationContext context =
+        new SpringApplicationBuilder(EcommerceApplication.class)
+            .initializers(
+                applicationContext ->
+                    applicationContext
+                        .getBeanFactory()
+                        .registerSingleton("excludeTestClasses", new ExcludeTestClasses()))
+            .run(applicationArgs.toArray(String[]::new))) {
+      LoadTestSettings settings =
+          Binder.get(context.getEnvironment())
+              .bind("load", Bindable.ofInstance(new LoadTestSettings()))
+              .orElseGet(LoadTestSettings::new);
+      int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+      ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+      HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+      Workload workload =
+          new Workload("http://localhost:" + port, objectMapper, settings.getMix());
+      System.out.printf(
+          "Seeding %d products and %d orders%n", settings.getProducts(), settings.getOrders());
+      workload.seed(client, settings.getProducts(), settings.getOrders());
+      status = new LoadTest(settings, workload, client).run(objectMapper);
+    }
+    System.exit(status);
+  }
+
+  int run(ObjectMapper objectMapper) throws InterruptedException, IOException {
+    System.out.printf(
+        "Running %d req/s with %d workers: %ds warmup, %ds measured%n",
+        settings.getRate(),
+        settings.getConcurrency(),
+        settings.getWarmup().toSeconds(),
+        settings.getDuration().toSeconds());
+    long intervalNanos = TimeUnit.SECONDS.toNanos(1) / settings.getRate();
+    long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+    measureFrom = start + settings.getWarmup().toNanos();
+    long end = measureFrom + settings.getDuration().toNanos();
+    long drainDeadline = end + settings.getDrainTimeout().toNanos();
+
+    BlockingQueue<Long> due = new LinkedBlockingQueue<>();
+    List<Thread> workers = new ArrayList<>();
+    for (int i = 0; i < settings.getConcurrency(); i++) {
+      Thread worker = new Thread(() -> work(due, drainDeadline), "load-worker-" + i);
+      worker.start();
+      workers.add(worker);
+    }
+    for (long dueAt = start; dueAt < end; dueAt += intervalNanos) {
+      long wait = dueAt - System.nanoTime();
+      if (wait > 0) {
+        LockSupport.parkNanos(wait);
+      }
+      due.add(dueAt);
+    }
+    for (int i = 0; i < workers.size(); i++) {
+      due.add(DONE);
+    }
+    for (Thread worker : workers) {
+      worker.join();
+    }
+    return report(objectMapper);
+  }
+
+  private void work(BlockingQueue<Long> due, long drainDeadline) {
+    try {
+      for (long dueAt = due.take(); dueAt != DONE; dueAt = due.take()) {
+        boolean measured = dueAt >= measureFrom;
+        if (System.nanoTime() > drainDeadline) {
+          if (measured) {
+            dropped.incrementAndGet();
+          }
+          continue;
+        }
+        String operation = workload.nextOperation();
+        long sentAt = System.nanoTime();
+        boolean failed;
+        try {
+          HttpRequest request = workload.request(operation);
+          failed =
+              client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() >= 400;
+        } catch (IOException e) {
+          failed = true;
+        }
+        long doneAt = System.nanoTime();
+        if (measured) {
+          corrected.get(operation).recordValue(micros(doneAt - dueAt));
+          uncorrected.get(operation).recordValue(micros(doneAt - sentAt));
+          lastCompletion.accumulateAndGet(doneAt, Math::max);
+          if (failed) {
+            errors.get(operation).incrementAndGet();
+          }
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private int report(ObjectMapper objectMapper) throws IOException {
+    Histogram allCorrected = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+    Histogram allUncorrected = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+    long allErrors = 0;
+    Map<String, Object> operations = new LinkedHashMap<>();
+    System.out.printf(
+        "%-17s %9s %7s %9s %9s %9s %9s %9s %12s%n",
+        "operation", "requests", "errors", "p50 ms", "p95 ms", "p99 ms", "p99.9 ms", "max ms",
+        "raw p99 ms");
+    for (String operation : Workload.OPERATIONS) {
+      Histogram histogram = corrected.get(operation);
+      if (histogram.getTotalCount() == 0) {
+        continue;
+      }
+      long operationErrors = errors.get(operation).get();
+      allCorrected.add(histogram);
+      allUncorrected.add(uncorrected.get(operation));
+      allErrors += operationErrors;
+      operations.put(
+          operation, summary(histogram, uncorrected.get(operation), operationErrors));
+      print(operation, histogram, uncorrected.get(operation), operationErrors);
+    }
+    print("total", allCorrected, allUncorrected, allErrors);
+
+    long requests = allCorrected.getTotalCount() + dropped.get();
+    // Completed requests over the time it took to complete them, including any backlog drained
+    // after the schedule ended
+    double elapsedSeconds = (lastCompletion.get() - measureFrom) / 1e9;
+    double throughput = elapsedSeconds <= 0 ? 0 : allCorrected.getTotalCount() / elapsedSeconds;
+    double errorRate = requests == 0 ? 0 : (allErrors + dropped.get()) / (double) requests;
+    System.out.printf(
+        "throughput %.1f req/s (target %d), dropped %d, error rate %.4f%n",
+        throughput, settings.getRate(), dropped.get(), errorRate);
+
+    List<String> violations = new ArrayList<>();
+    if (errorRate > settings.getMaxErrorRate()) {
+      violations.add("error rate " + errorRate + " above " + settings.getMaxErrorRate());
+    }
+    Duration p99 = Duration.ofNanos(allCorrected.getValueAtPercentile(99) * 1000);
+    if (settings.getMaxP99() != null && p99.compareTo(settings.getMaxP99()) > 0) {
+      violations.add(
+          "p99 " + p99.toMillis() + "ms above " + settings.getMaxP99().toMillis() + "ms");
+    }
+
+    Map<String, Object> result = new LinkedHashMap<>();
+    result.put("settings", settings);
+    result.put("throughput", throughput);
+    result.put("dropped", dropped.get());
+    result.put("errorRate", errorRate);
+    result.put("total", summary(allCorrected, allUncorrected, allErrors));
+    result.put("operations", operations);
+    result.put("violations", violations);
+    File file = new File(settings.getResult());
+    if (file.getParentFile() != null) {
+      file.getParentFile().mkdirs();
+    }
+    objectMapper
+        .copy()
+        .disable(SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS)
+        .writerWithDefaultPrettyPrinter()
+        .writeValue(file, result);
+    System.out.println("Result written to " + file.getAbsolutePath());
+
+    violations.forEach(violation -> System.out.println("FAILED: " + violation));
+    return violations.isEmpty() ? 0 : 1;
+  }
+
+  private static Map<String, Object> summary(
+      Histogram corrected, Histogram uncorrected, long errors) {
+    Map<String, Object> summary = new LinkedHashMap<>();
+    summary.put("requests", corrected.getTotalCount());
+    summary.put("errors", errors);
+    summary.put("p50Ms", millis(corrected.getValueAtPercentile(50)));
+    summary.put("p95Ms", millis(corrected.getValueAtPercentile(95)));
+    summary.put("p99Ms", millis(corrected.getValueAtPercentile(99)));
+    summary.put("p999Ms", millis(corrected.getValueAtPercentile(99.9)));
+    summary.put("maxMs", millis(corrected.getMaxValue()));
+    summary.put("uncorrectedP99Ms", millis(uncorrected.getValueAtPercentile(99)));
+    return summary;
+  }
+
+  private static void print(String name, Histogram corrected, Histogram uncorrected, long errors) {
+    System.out.printf(
+        "%-17s %9d %7d %9.2f %9.2f %9.2f %9.2f %9.2f %12.2f%n",
+        name,
+        corrected.getTotalCount(),
+        errors,
+        millis(corrected.getValueAtPercentile(50)),
+        millis(corrected.getValueAtPercentile(95)),
+        millis(corrected.getValueAtPercentile(99)),
+        millis(corrected.getValueAtPercentile(99.9)),
+        millis(corrected.getMaxValue()),
+        millis(uncorrected.getValueAtPercentile(99)));
+  }
+
+  private static long micros(long nanos) {
+    return Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), HIGHEST_TRACKABLE_MICROS);
+  }
+
+  private static double millis(long micros) {
+    return micros / 1000.0;
+  }
+
+  /** Keeps the unit tests' nested configuration classes out of the application's scan. */
+  static class ExcludeTestClasses extends TypeExcludeFilter {
+
+    @Override
+    public boolean match(MetadataReader metadataReader, MetadataReaderFactory factory) {
+      return metadataReader.getClassMetadata().getClassName().matches(".*Tests?(\\$.*)?");
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj != null && getClass() == obj.getClass();
+    }
+
+    @Override
+    public int hashCode() {
+      return getClass().hashCode();
+    }
+  }
+}
@@ -0,0 +1,55 @@
+package com.teamviewer.loadtest;
+
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** Load-test knobs, bound from {@code --load.*} command-line arguments. */
+@Data
+public class LoadTestSettings {
+
+  /** Target request rate over all operations, in requests per second. */
+  private int rate = 200;
+
+  /** Worker threads, and so the maximum number of requests in flight. */
+  private int concurrency = 32;
+
+  /** Traffic before measurement starts; not recorded. */
+  private Duration warmup = Duration.ofSeconds(10);
+
+  /** Measured traffic after the warmup. */
+  private Duration duration = Duration.ofSeconds(30);
+
+  /** How long requests still queued at the end may take to complete before they are dropped. */
+  private Duration drainTimeout = Duration.ofSeconds(30);
+
+  private int products = 1000;
+
+  private int orders = 1000;
+
+  /** Relative weight of each operation; see {@link Workload} for the names. */
+  private Map<String, Integer> mix = defaultMix();
+
+  private String result = "target/load-test-result.json";
+
+  /** Fails the run when the corrected p99 over all operations is above this, if set. */
+  private Duration maxP99;
+
+  /** Fails the run when the share of failed or dropped requests is above this. */
+  private double maxErrorRate = 0.01;
+
+  private static Map<String, Integer> defaultMix() {
+    Map<String, Integer> mix = new LinkedHashMap<>();
+    mix.put("product-read", 30);
+    mix.put("product-page", 10);
+    mix.put("product-write", 5);
+    mix.put("order-read", 15);
+    mix.put("order-items", 15);
+    mix.put("order-write", 10);
+    mix.put("order-item-read", 10);
+    mix.put("order-item-write", 5);
+    return mix;
+  }
+}
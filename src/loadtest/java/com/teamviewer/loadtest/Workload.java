@@ -0,0 +1,175 @@
+package com.teamviewer.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Seeds the catalog and a set of orders over the REST API, then builds the requests of the mixed
+ * workload. Reads only target seeded rows so they keep hitting existing data however many writes
+ * run alongside them.
+ */
+class Workload {
+
+  static final List<String> OPERATIONS =
+      List.of(
+          "product-read",
+          "product-page",
+          "product-write",
+          "order-read",
+          "order-items",
+          "order-write",
+          "order-item-read",
+          "order-item-write");
+
+  private static final int STOCK = 1_000_000_000;
+
+  private static final int SEED_BATCH = 1000;
+
+  private final String baseUrl;
+
+  private final ObjectMapper objectMapper;
+
+  private final List<Long> productIds = new ArrayList<>();
+
+  private final List<BigDecimal> productPrices = new ArrayList<>();
+
+  private final List<Long> orderIds = new ArrayList<>();
+
+  private final List<Long> orderItemIds = new ArrayList<>();
+
+  private final String[] operations;
+
+  private final int[] cumulativeWeights;
+
+  Workload(String baseUrl, ObjectMapper objectMapper, Map<String, Integer> mix) {
+    this.baseUrl = baseUrl;
+    this.objectMapper = objectMapper;
+    List<String> names = new ArrayList<>();
+    List<Integer> weights = new ArrayList<>();
+    int total = 0;
+    for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+      if (!OPERATIONS.contains(entry.getKey())) {
+        throw new IllegalArgumentException(
+            "Unknown operation " + entry.getKey() + ", expected one of " + OPERATIONS);
+      }
+      if (entry.getValue() > 0) {
+        total += entry.getValue();
+        names.add(entry.getKey());
+        weights.add(total);
+      }
+    }
+    if (names.isEmpty()) {
+      throw new IllegalArgumentException("The operation mix has no positive weight");
+    }
+    this.operations = names.toArray(String[]::new);
+    this.cumulativeWeights = weights.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  void seed(HttpClient client, int products, int orders) throws IOException, InterruptedException {
+    for (int seeded = 0; seeded < products; seeded += SEED_BATCH) {
+      ArrayNode batch = objectMapper.createArrayNode();
+      for (int i = seeded; i < Math.min(products, seeded + SEED_BATCH); i++) {
+        batch.add(product("Seeded product " + i, BigDecimal.valueOf(100 + i % 900, 2)));
+      }
+      for (JsonNode product : send(client, post("/api/products/batch", batch))) {
+        productIds.add(product.get("id").asLong());
+        productPrices.add(product.get("price").decimalValue());
+      }
+    }
+    for (int i = 0; i < orders; i++) {
+      JsonNode order = send(client, orderWithItems());
+      orderIds.add(order.get("id").asLong());
+      order.get("items").forEach(item -> orderItemIds.add(item.get("id").asLong()));
+    }
+  }
+
+  String nextOperation() {
+    int pick = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+    for (int i = 0; i < cumulativeWeights.length; i++) {
+      if (pick < cumulativeWeights[i]) {
+        return operations[i];
+      }
+    }
+    throw new IllegalStateException();
+  }
+
+  HttpRequest request(String operation) throws IOException {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    return switch (operation) {
+      case "product-read" -> get("/api/products/" + pick(productIds));
+      case "product-page" -> get("/api/products?limit=50&after=" + pick(productIds));
+      case "product-write" -> post("/api/products", product("Load product", BigDecimal.ONE));
+      case "order-read" -> get("/api/orders/" + pick(orderIds));
+      case "order-items" -> get("/api/orders/" + pick(orderIds) + "/items");
+      case "order-write" -> orderWithItems();
+      case "order-item-read" -> get("/api/order-items/" + pick(orderItemIds));
+      case "order-item-write" -> {
+        int product = random.nextInt(productIds.size());
+        ObjectNode item = objectMapper.createObjectNode();
+        item.put("orderId", pick(orderIds));
+        item.put("productId", productIds.get(product));
+        item.put("quantity", 1);
+        item.put("unitPrice", productPrices.get(product));
+        yield post("/api/order-items", item);
+      }
+      default -> throw new IllegalArgumentException("Unknown operation " + operation);
+    };
+  }
+
+  private HttpRequest orderWithItems() throws IOException {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    ArrayNode items = objectMapper.createArrayNode();
+    for (int i = random.nextInt(1, 4); i > 0; i--) {
+      items.addObject().put("productId", pick(productIds)).put("quantity", 1);
+    }
+    ObjectNode order = objectMapper.createObjectNode();
+    order.set("items", items);
+    return post("/api/orders/with-items", order);
+  }
+
+  private ObjectNode product(String name, BigDecimal price) {
+    return objectMapper
+        .createObjectNode()
+        .put("name", name)
+        .put("price", price)
+        .put("stock", STOCK);
+  }
+
+  private HttpRequest get(String path) {
+    return HttpRequest.newBuilder(URI.create(baseUrl + path)).build();
+  }
+
+  private HttpRequest post(String path, JsonNode body) throws IOException {
+    return HttpRequest.newBuilder(URI.create(baseUrl + path))
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+        .build();
+  }
+
+  private JsonNode send(HttpClient client, HttpRequest request)
+      throws IOException, InterruptedException {
+    HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    if (response.statusCode() >= 400) {
+      throw new IOException(
+          "Seeding failed with " + response.statusCode() + " for " + request.uri());
+    }
+    return objectMapper.readTree(response.body());
+  }
+
+  private static long pick(List<Long> ids) {
+    return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+  }
+}
@@ -0,0 +1,228 @@
+package com.teamviewer.analytics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Units sold, revenue and order lines per product, held in memory for constant-time reads.
+ *
+ * <p>Products are keyed by their {@code long} ID in an open-addressing hash table with linear
+ * probing; the counters live in parallel {@code long} arrays next to the keys, so neither keys nor
+ * counters are boxed and a lookup touches one or two cache lines. Revenue is kept in cents. ID 0 is
+ * the empty-slot marker and cannot be stored. Entries are never removed: a product whose items are
+ * all deleted keeps zero counters. The table doubles once it is half full. Reads share a lock and
+ * writes take it exclusively.
+ */
+public final class ProductSalesCounters {
+
+  /** Counters of one product; revenue in cents. */
+  public record Sales(long productId, long quantity, long revenueCents, long orderLines) {}
+
+  public enum Ranking {
+    QUANTITY,
+    REVENUE
+  }
+
+  private static final int MIN_CAPACITY = 16;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private long[] keys;
+
+  private long[] quantities;
+
+  private long[] revenuesCents;
+
+  private long[] orderLines;
+
+  private int size;
+
+  public ProductSalesCounters() {
+    this(MIN_CAPACITY);
+  }
+
+  /** @param expectedProducts products to make room for without resizing */
+  public ProductSalesCounters(int expectedProducts) {
+    // Smallest power of two at least twice the expected size, so it stays under half full
+    int capacity = Integer.highestOneBit(Math.max(1, expectedProducts) * 4 - 1);
+    allocate(Math.max(MIN_CAPACITY, capacity));
+  }
+
+  /** Adds the deltas, which may be negative, to the product's counters. */
+  public void add(long productId, long quantity, long revenueCents, long lines) {
+    if (productId == 0) {
+      throw new IllegalArgumentException("Product ID 0 cannot be counted");
+    }
+    lock.writeLock().lock();
+    try {
+      int slot = slot(productId);
+      if (keys[slot] == 0) {
+        if (2 * (size + 1) > keys.length) {
+          resize();
+          slot = slot(productId);
+        }
+        keys[slot] = productId;
+        size++;
+      }
+      quantities[slot] += quantity;
+      revenuesCents[slot] += revenueCents;
+      orderLines[slot] += lines;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /** @return the product's counters, all zero if it has not been sold */
+  public Sales get(long productId) {
+    lock.readLock().lock();
+    try {
+      int slot = productId == 0 ? -1 : slot(productId);
+      return slot < 0 || keys[slot] == 0 ? new Sales(productId, 0, 0, 0) : sales(slot);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * @return up to {@code limit} products with the highest counter, best first, ties by lower ID;
+   *     products with nothing sold are left out
+   */
+  public List<Sales> top(Ranking ranking, int limit) {
+    if (limit <= 0) {
+      return List.of();
+    }
+    lock.readLock().lock();
+    try {
+      long[] counters = ranking == Ranking.QUANTITY ? quantities : revenuesCents;
+      // Min-heap of slots holding the best `limit` so far, worst at the root
+      int[] heap = new int[Math.min(limit, size)];
+      int heapSize = 0;
+      for (int slot = 0; slot < keys.length; slot++) {
+        if (keys[slot] == 0 || counters[slot] <= 0) {
+          continue;
+        }
+        if (heapSize < heap.length) {
+          heap[heapSize] = slot;
+          siftUp(heap, heapSize++, counters);
+        } else if (heapSize > 0 && better(slot, heap[0], counters)) {
+          heap[0] = slot;
+          siftDown(heap, heapSize, counters);
+        }
+      }
+      List<Sales> top = new ArrayList<>(heapSize);
+      while (heapSize > 0) {
+        top.add(sales(heap[0]));
+        heap[0] = heap[--heapSize];
+        siftDown(heap, heapSize, counters);
+      }
+      Collections.reverse(top);
+      return top;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** Number of products with counters. */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return size;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private Sales sales(int slot) {
+    return new Sales(keys[slot], quantities[slot], revenuesCents[slot], orderLines[slot]);
+  }
+
+  /** The slot holding {@code productId}, or the empty slot where it would go. */
+  private int slot(long productId) {
+    int mask = keys.length - 1;
+    int slot = mix(productId) & mask;
+    while (keys[slot] != 0 && keys[slot] != productId) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  /** Spreads sequential IDs over the table (the 64-bit finalizer of MurmurHash3). */
+  private static int mix(long key) {
+    long h = key;
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return (int) h;
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    quantities = new long[capacity];
+    revenuesCents = new long[capacity];
+    orderLines = new long[capacity];
+  }
+
+  private void resize() {
+    long[] oldKeys = keys;
+    long[] oldQuantities = quantities;
+    long[] oldRevenues = revenuesCents;
+    long[] oldOrderLines = orderLines;
+    allocate(oldKeys.length * 2);
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != 0) {
+        int slot = slot(oldKeys[i]);
+        keys[slot] = oldKeys[i];
+        quantities[slot] = oldQuantities[i];
+        revenuesCents[slot] = oldRevenues[i];
+        orderLines[slot] = oldOrderLines[i];
+      }
+    }
+  }
+
+  private boolean better(int slot, int other, long[] counters) {
+    return counters[slot] != counters[other]
+        ? counters[slot] > counters[other]
+        : keys[slot] < keys[other];
+  }
+
+  private void siftUp(int[] heap, int index, long[] counters) {
+    int slot = heap[index];
+    while (index > 0) {
+      int parent = (index - 1) >>> 1;
+      if (!better(heap[parent], slot, counters)) {
+        break;
+      }
+      heap[index] = heap[parent];
+      index = parent;
+    }
+    heap[index] = slot;
+  }
+
+  private void siftDown(int[] heap, int heapSize, long[] counters) {
+    if (heapSize == 0) {
+      return;
+    }
+    int slot = heap[0];
+    int index = 0;
+    while (true) {
+      int child = 2 * index + 1;
+      if (child >= heapSize) {
+        break;
+      }
+      if (child + 1 < heapSize && better(heap[child], heap[child + 1], counters)) {
+        child++;
+      }
+      if (!better(slot, heap[child], counters)) {
+        break;
+      }
+      heap[index] = heap[child];
+      index = child;
+    }
+    heap[index] = slot;
+  }
+}
@@ -0,0 +1,47 @@
+package com.teamviewer.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+
+import static com.teamviewer.util.Constants.ANALYTICS_CACHE;
+
+/**
+ * Caffeine cache manager configured from the {@code spring.cache.*} properties. Puts and evictions
+ * issued inside a transaction are deferred until it commits, so a concurrent reader cannot re-cache
+ * a row that is about to change. Analytics results are not evicted by writes, they expire after
+ * {@code analytics.cache-ttl} instead.
+ */
+@Configuration
+@EnableConfigurationProperties(CacheProperties.class)
+public class CacheConfig {
+
+  @Bean
+  public CacheManager cacheManager(
+      CacheProperties cacheProperties,
+      @Value("${analytics.cache-ttl:30s}") Duration analyticsCacheTtl) {
+    CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+    String spec = cacheProperties.getCaffeine().getSpec();
+    if (StringUtils.hasText(spec)) {
+      cacheManager.setCacheSpecification(spec);
+    }
+    cacheManager.setCacheNames(cacheProperties.getCacheNames());
+    cacheManager.registerCustomCache(
+        ANALYTICS_CACHE,
+        Caffeine.newBuilder()
+            .maximumSize(1000)
+            .expireAfterWrite(analyticsCacheTtl)
+            .recordStats()
+            .build());
+    return new TransactionAwareCacheManagerProxy(cacheManager);
+  }
+}
@@ -0,0 +1,137 @@
+package com.teamviewer.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.stat.Statistics;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Publishes the session factory's {@link Statistics} counters under the {@code hibernate.*} names
+ * used by Hibernate's own Micrometer module. Every meter reads a counter Hibernate already keeps,
+ * so nothing is computed on the request path; the counters stay at zero unless {@code
+ * hibernate.generate_statistics} is on.
+ */
+public class HibernateStatisticsMetrics implements MeterBinder {
+
+  private final Statistics statistics;
+
+  private final Tags tags;
+
+  public HibernateStatisticsMetrics(Statistics statistics, String entityManagerFactoryName) {
+    this.statistics = statistics;
+    this.tags = Tags.of("entityManagerFactory", entityManagerFactoryName);
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    counter(registry, "hibernate.sessions.open", "Sessions opened", Statistics::getSessionOpenCount);
+    counter(
+        registry,
+        "hibernate.transactions",
+        "Transactions committed",
+        Statistics::getSuccessfulTransactionCount,
+        "result",
+        "success");
+    counter(
+        registry,
+        "hibernate.transactions",
+        "Transactions rolled back",
+        s -> s.getTransactionCount() - s.getSuccessfulTransactionCount(),
+        "result",
+        "failure");
+    counter(
+        registry,
+        "hibernate.connections.obtained",
+        "JDBC connections obtained",
+        Statistics::getConnectCount);
+    counter(
+        registry,
+        "hibernate.statements",
+        "JDBC statements prepared",
+        Statistics::getPrepareStatementCount,
+        "status",
+        "prepared");
+    counter(
+        registry,
+        "hibernate.query.executions",
+        "Queries executed",
+        Statistics::getQueryExecutionCount);
+    Gauge.builder("hibernate.query.executions.max", statistics, Statistics::getQueryExecutionMaxTime)
+        .description("Slowest query execution time")
+        .baseUnit("ms")
+        .tags(tags)
+        .register(registry);
+    counter(registry, "hibernate.flushes", "Session flushes", Statistics::getFlushCount);
+    counter(
+        registry,
+        "hibernate.entities.loads",
+        "Entities loaded",
+        Statistics::getEntityLoadCount);
+    counter(
+        registry,
+        "hibernate.entities.fetches",
+        "Entities fetched lazily",
+        Statistics::getEntityFetchCount);
+    counter(
+        registry,
+        "hibernate.entities.inserts",
+        "Entities inserted",
+        Statistics::getEntityInsertCount);
+    counter(
+        registry,
+        "hibernate.entities.updates",
+        "Entities updated",
+        Statistics::getEntityUpdateCount);
+    counter(
+        registry,
+        "hibernate.entities.deletes",
+        "Entities deleted",
+        Statistics::getEntityDeleteCount);
+    counter(
+        registry,
+        "hibernate.collections.loads",
+        "Collections loaded",
+        Statistics::getCollectionLoadCount);
+    counter(
+        registry,
+        "hibernate.optimistic.failures",
+        "Optimistic lock failures",
+        Statistics::getOptimisticFailureCount);
+    counter(
+        registry,
+        "hibernate.second.level.cache.requests",
+        "Second-level cache hits",
+        Statistics::getSecondLevelCacheHitCount,
+        "result",
+        "hit");
+    counter(
+        registry,
+        "hibernate.second.level.cache.requests",
+        "Second-level cache misses",
+        Statistics::getSecondLevelCacheMissCount,
+        "result",
+        "miss");
+    counter(
+        registry,
+        "hibernate.second.level.cache.puts",
+        "Second-level cache puts",
+        Statistics::getSecondLevelCachePutCount);
+  }
+
+  private void counter(
+      MeterRegistry registry,
+      String name,
+      String description,
+      ToDoubleFunction<Statistics> count,
+      String... extraTags) {
+    FunctionCounter.builder(name, statistics, count)
+        .description(description)
+        .tags(tags)
+        .tags(extraTags)
+        .register(registry);
+  }
+}
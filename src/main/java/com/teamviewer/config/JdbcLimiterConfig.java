@@ -0,0 +1,55 @@
+package com.teamviewer.config;
+
+import com.teamviewer.jdbc.ConcurrencyLimitingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Wraps the Hikari pool in a {@link ConcurrencyLimitingDataSource} with one permit per pooled
+ * connection when request handling runs on virtual threads.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class JdbcLimiterConfig {
+
+  @Bean
+  public static BeanPostProcessor concurrencyLimitingDataSourcePostProcessor() {
+    return new ConcurrencyLimitingPostProcessor();
+  }
+
+  /** Wraps the bare pool, before any routing is put around it (see {@link ReadReplicaConfig}). */
+  private static final class ConcurrencyLimitingPostProcessor
+      implements BeanPostProcessor, Ordered {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+      if (!(bean instanceof DataSource dataSource)
+          || bean instanceof ConcurrencyLimitingDataSource) {
+        return bean;
+      }
+      try {
+        if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+          return bean;
+        }
+        HikariDataSource pool = dataSource.unwrap(HikariDataSource.class);
+        return new ConcurrencyLimitingDataSource(
+            dataSource, pool.getMaximumPoolSize(), pool.getConnectionTimeout());
+      } catch (SQLException e) {
+        throw new BeanCreationException(beanName, "Cannot size the JDBC limiter", e);
+      }
+    }
+
+    @Override
+    public int getOrder() {
+      return Ordered.HIGHEST_PRECEDENCE;
+    }
+  }
+}
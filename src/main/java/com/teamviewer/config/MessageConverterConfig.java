@@ -0,0 +1,33 @@
+package com.teamviewer.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Binary encodings of the JSON API for internal consumers: clients that send {@code Accept:
+ * application/cbor} or {@code application/x-jackson-smile} get the same documents, smaller and
+ * cheaper to encode. Both mappers come from the Boot-configured builder, so they serialize exactly
+ * like the JSON converter; JSON stays the default for {@code Accept: *}{@code /*}.
+ */
+@Configuration
+public class MessageConverterConfig {
+
+  @Bean
+  public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(
+      Jackson2ObjectMapperBuilder builder) {
+    return new MappingJackson2CborHttpMessageConverter(
+        builder.createXmlMapper(false).factory(new CBORFactory()).build());
+  }
+
+  @Bean
+  public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(
+      Jackson2ObjectMapperBuilder builder) {
+    return new MappingJackson2SmileHttpMessageConverter(
+        builder.createXmlMapper(false).factory(new SmileFactory()).build());
+  }
+}
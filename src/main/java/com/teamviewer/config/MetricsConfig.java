@@ -0,0 +1,55 @@
+package com.teamviewer.config;
+
+import com.teamviewer.service.ProductSearchService;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Timers for the {@code @Timed} controllers and services, Hibernate statistics and the size of the
+ * product search index, published next to the auto-configured HTTP and connection-pool meters.
+ * Percentile histograms are aggregated by the scraper, so the application only keeps bucket
+ * counters.
+ */
+@Configuration
+public class MetricsConfig {
+
+  @Bean
+  public TimedAspect timedAspect(MeterRegistry registry) {
+    return new TimedAspect(registry);
+  }
+
+  @Bean
+  public HibernateStatisticsMetrics hibernateStatisticsMetrics(
+      EntityManagerFactory entityManagerFactory) {
+    return new HibernateStatisticsMetrics(
+        entityManagerFactory.unwrap(SessionFactory.class).getStatistics(), "entityManagerFactory");
+  }
+
+  @Bean
+  public MeterBinder productSearchIndexMetrics(ProductSearchService productSearchService) {
+    // The index is replaced on every rebuild, so the gauges look it up each time
+    return registry -> {
+      Gauge.builder(
+              "search.products.documents",
+              productSearchService,
+              service -> service.getIndex().documents())
+          .register(registry);
+      Gauge.builder(
+              "search.products.terms", productSearchService, service -> service.getIndex().terms())
+          .register(registry);
+      Gauge.builder(
+              "search.products.size",
+              productSearchService,
+              service -> service.getIndex().estimatedBytes())
+          .baseUnit("bytes")
+          .description("Approximate heap footprint of the search index")
+          .register(registry);
+    };
+  }
+}
@@ -0,0 +1,177 @@
+package com.teamviewer.config;
+
+import com.teamviewer.jdbc.ConcurrencyLimitingDataSource;
+import com.teamviewer.jdbc.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.DestructionAwareBeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Routes read-only transactions to the replicas in {@code datasource.replicas.urls} through a
+ * {@link ReplicaRoutingDataSource} around the Hikari pool of the primary. Each replica gets its own
+ * pool with the primary's settings and credentials, opened read-only and without failing startup
+ * if the replica is down. Replicas are health-checked every {@code
+ * datasource.replicas.health-check-interval-ms}.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "datasource.replicas.urls")
+public class ReadReplicaConfig {
+
+  private final ReplicaRoutingDataSource routingDataSource;
+
+  public ReadReplicaConfig(DataSource dataSource) throws SQLException {
+    this.routingDataSource = dataSource.unwrap(ReplicaRoutingDataSource.class);
+  }
+
+  @Bean
+  public static BeanPostProcessor replicaRoutingDataSourcePostProcessor(Environment environment) {
+    return new ReplicaRoutingPostProcessor(environment);
+  }
+
+  @Scheduled(
+      fixedDelayString = "${datasource.replicas.health-check-interval-ms:5000}",
+      initialDelayString = "${datasource.replicas.health-check-interval-ms:5000}")
+  public void checkReplicas() {
+    routingDataSource.checkReplicas();
+  }
+
+  @Bean
+  public MeterBinder readReplicaMetrics() {
+    return registry -> {
+      for (DataSource replica : routingDataSource.getReplicas()) {
+        try {
+          replica
+              .unwrap(HikariDataSource.class)
+              .setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+        } catch (SQLException e) {
+          log.warn("No pool metrics for read replica: {}", e.toString());
+        }
+      }
+      Gauge.builder(
+              "datasource.replicas.healthy",
+              routingDataSource,
+              ReplicaRoutingDataSource::healthyReplicas)
+          .description("Read replicas currently in rotation")
+          .register(registry);
+    };
+  }
+
+  private static List<DataSource> createReplicas(
+      HikariDataSource primary, String[] urls, long connectionTimeoutMs, boolean limited) {
+    List<DataSource> replicas = new ArrayList<>(urls.length);
+    for (int i = 0; i < urls.length; i++) {
+      HikariConfig config = new HikariConfig();
+      primary.copyStateTo(config);
+      config.setJdbcUrl(urls[i].trim());
+      config.setPoolName(
+          primary.getPoolName() != null ? primary.getPoolName() + "-replica-" + i : "replica-" + i);
+      config.setReadOnly(true);
+      config.setConnectionTimeout(connectionTimeoutMs);
+      config.setInitializationFailTimeout(-1);
+      config.setMetricsTrackerFactory(null);
+      HikariDataSource replica = new HikariDataSource(config);
+      replicas.add(
+          limited
+              ? new ConcurrencyLimitingDataSource(
+                  replica, config.getMaximumPoolSize(), connectionTimeoutMs)
+              : replica);
+    }
+    return replicas;
+  }
+
+  /**
+   * Runs after the JDBC limiter, so a limited primary gets limited replicas alongside. The replica
+   * pools are closed together with the primary's, after everything using the data source.
+   */
+  private static final class ReplicaRoutingPostProcessor
+      implements DestructionAwareBeanPostProcessor, Ordered {
+
+    private final Environment environment;
+
+    private final Map<String, ReplicaRoutingDataSource> routingDataSources =
+        new ConcurrentHashMap<>();
+
+    private ReplicaRoutingPostProcessor(Environment environment) {
+      this.environment = environment;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+      if (!(bean instanceof DataSource dataSource)) {
+        return bean;
+      }
+      try {
+        if (!dataSource.isWrapperFor(HikariDataSource.class)
+            || dataSource.isWrapperFor(ReplicaRoutingDataSource.class)) {
+          return bean;
+        }
+        HikariDataSource primary = dataSource.unwrap(HikariDataSource.class);
+        List<DataSource> replicas =
+            createReplicas(
+                primary,
+                environment.getRequiredProperty("datasource.replicas.urls", String[].class),
+                environment.getProperty(
+                    "datasource.replicas.connection-timeout-ms", Long.class, 1000L),
+                bean instanceof ConcurrencyLimitingDataSource);
+        ReplicaRoutingDataSource routingDataSource =
+            new ReplicaRoutingDataSource(dataSource, replicas, 1);
+        routingDataSource.checkReplicas();
+        log.info(
+            "Routing read-only transactions to {} of {} read replicas",
+            routingDataSource.healthyReplicas(),
+            replicas.size());
+        routingDataSources.put(beanName, routingDataSource);
+        // Defers taking a connection until the transaction's read-only flag is known
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+      } catch (SQLException e) {
+        throw new BeanCreationException(beanName, "Cannot set up read replicas", e);
+      }
+    }
+
+    @Override
+    public boolean requiresDestruction(Object bean) {
+      return bean instanceof DataSource;
+    }
+
+    @Override
+    public void postProcessBeforeDestruction(Object bean, String beanName) {
+      ReplicaRoutingDataSource routingDataSource = routingDataSources.remove(beanName);
+      if (routingDataSource == null) {
+        return;
+      }
+      for (DataSource replica : routingDataSource.getReplicas()) {
+        try {
+          replica.unwrap(HikariDataSource.class).close();
+        } catch (SQLException e) {
+          log.warn("Cannot close read replica pool: {}", e.toString());
+        }
+      }
+    }
+
+    @Override
+    public int getOrder() {
+      return Ordered.LOWEST_PRECEDENCE;
+    }
+  }
+}
@@ -0,0 +1,80 @@
+package com.teamviewer.controller;
+
+import com.teamviewer.dto.ProductSalesDto;
+import com.teamviewer.dto.ProductSalesRebuildReport;
+import com.teamviewer.dto.RevenueBucketDto;
+import com.teamviewer.service.ProductSalesService;
+import com.teamviewer.service.SalesAnalyticsService;
+import io.micrometer.core.annotation.Timed;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static com.teamviewer.util.Constants.*;
+
+@RestController
+@Timed(value = CONTROLLER_TIMER, histogram = true)
+@RequestMapping("/api/analytics")
+public class AnalyticsController {
+
+  private final SalesAnalyticsService salesAnalyticsService;
+
+  private final ProductSalesService productSalesService;
+
+  @Autowired
+  public AnalyticsController(
+      SalesAnalyticsService salesAnalyticsService, ProductSalesService productSalesService) {
+    this.salesAnalyticsService = salesAnalyticsService;
+    this.productSalesService = productSalesService;
+  }
+
+  @GetMapping("/top-products")
+  @Operation(
+      description =
+          "Get the best-selling products by units sold ('quantity') or by revenue ('revenue')."
+              + " Results may be up to analytics.cache-ttl old",
+      tags = "Analytics")
+  @ApiResponse(responseCode = "200", description = "Successful operation")
+  @ApiResponse(responseCode = "400", description = "Unknown ranking")
+  public List<ProductSalesDto> getTopProducts(
+      @RequestParam(defaultValue = "quantity") String by,
+      @RequestParam(defaultValue = DEFAULT_TOP_PRODUCTS) Integer limit) {
+    return salesAnalyticsService.findTopProducts(by, limit);
+  }
+
+  @GetMapping("/products/{id}")
+  @Operation(
+      description =
+          "Get the units sold, revenue and order lines of a product, zero if it has not been sold",
+      tags = "Analytics")
+  @ApiResponse(responseCode = "200", description = "Successful operation")
+  public ProductSalesDto getProductSales(@PathVariable Long id) {
+    return salesAnalyticsService.getProductSales(id);
+  }
+
+  @PostMapping("/products/rebuild")
+  @Operation(
+      description = "Recompute the sales of every product from the order items",
+      tags = "Analytics")
+  @ApiResponse(responseCode = "200", description = "Number of products with sales")
+  public ProductSalesRebuildReport rebuildProductSales() {
+    return ProductSalesRebuildReport.builder().products(productSalesService.rebuild()).build();
+  }
+
+  @GetMapping("/revenue-by-order-total")
+  @Operation(
+      description =
+          "Get the number of orders and their revenue per range of order totals, 'width' wide."
+              + " Results may be up to analytics.cache-ttl old",
+      tags = "Analytics")
+  @ApiResponse(responseCode = "200", description = "Successful operation")
+  @ApiResponse(responseCode = "400", description = "Width is below 0.01 or not in cents")
+  public List<RevenueBucketDto> getRevenueByOrderTotal(
+      @RequestParam(defaultValue = DEFAULT_BUCKET_WIDTH) BigDecimal width) {
+    return salesAnalyticsService.findRevenueByOrderTotal(width);
+  }
+}
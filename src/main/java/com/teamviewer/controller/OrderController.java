@@ -1,31 +1,49 @@
 package com.teamviewer.controller;
 
+import com.teamviewer.dto.BulkDeleteReport;
+import com.teamviewer.dto.OrderCreateRequest;
+import com.teamviewer.dto.OrderTotalsReport;
+import com.teamviewer.dto.OrderWithItemsDto;
 import com.teamviewer.entity.Order;
+import com.teamviewer.repository.projection.OrderItemView;
+import com.teamviewer.service.IdempotencyService;
 import com.teamviewer.service.OrderService;
+import com.teamviewer.service.OrderTotalsService;
+import com.teamviewer.util.ETags;
+import com.teamviewer.util.Pagination;
+import io.micrometer.core.annotation.Timed;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
-import org.slf4j.MDC;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 
 import static com.teamviewer.util.Constants.*;
 
-@Slf4j
 @RestController
+@Timed(value = CONTROLLER_TIMER, histogram = true)
 @RequestMapping("/api/orders")
 @RequiredArgsConstructor
 public class OrderController {
 
   private final OrderService orderService;
 
+  private final OrderTotalsService orderTotalsService;
+
+  private final IdempotencyService idempotencyService;
+
   @GetMapping
-  @Operation(description = "Get all orders", tags = "Orders")
+  @Operation(
+      description =
+          "Get a page of orders ordered by ID. Pass the X-Next-Cursor response header as"
+              + " 'after' to fetch the next page",
+      tags = "Orders")
   @ApiResponse(
       responseCode = "200",
       description = "Successful operation",
@@ -33,11 +51,10 @@ public class OrderController {
           @Content(
               mediaType = "application/json",
               schema = @Schema(ref = "#/components/schemas/Order")))
-  public List<Order> getAllOrders() {
-    MDC.clear();
-    MDC.put(API_NAME, GET_ALL_ORDERS_API);
-    log.info("getAllOrders invoked ");
-    return orderService.findAllOrders();
+  public ResponseEntity<List<Order>> getAllOrders(
+      @RequestParam(defaultValue = "0") Long after,
+      @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) Integer limit) {
+    return Pagination.toResponse(orderService.findOrders(after, limit), Order::getId);
   }
 
   @GetMapping("/{id}")
@@ -51,18 +68,32 @@ public class OrderController {
                 @Content(
                     mediaType = "application/json",
                     schema = @Schema(ref = "#/components/schemas/Order"))),
+        @ApiResponse(responseCode = "304", description = "Order unchanged since If-None-Match"),
         @ApiResponse(responseCode = "404", description = "Order not found")
       })
-  public Order getOrderById(@PathVariable Long id) {
-    MDC.clear();
-    MDC.put(API_NAME, GET_ORDER_BY_ID);
-    MDC.put(ORDER_ID, id.toString());
-    log.info("getOrderById invoked ");
-    return orderService.findOrderById(id);
+  public ResponseEntity<Order> getOrderById(@PathVariable Long id) {
+    Order order = orderService.findOrderById(id);
+    return ETags.ok(order, order.getVersion());
+  }
+
+  @GetMapping("/{id}/items")
+  @Operation(description = "Get the items of an order ordered by ID", tags = "Orders")
+  @ApiResponses(
+      value = {
+        @ApiResponse(responseCode = "200", description = "Successful operation"),
+        @ApiResponse(responseCode = "404", description = "Order not found")
+      })
+  public List<OrderItemView> getOrderItems(@PathVariable Long id) {
+    return orderService.findOrderItems(id);
   }
 
   @PostMapping
-  @Operation(description = "Create a new order", tags = "Orders")
+  @Operation(
+      description =
+          "Create a new order without items. Its total starts at 0 and follows its items; a"
+              + " totalamount in the body is ignored. A retry with the same Idempotency-Key"
+              + " returns the original order",
+      tags = "Orders")
   @ApiResponse(
       responseCode = "200",
       description = "Order created successfully",
@@ -71,16 +102,67 @@ public class OrderController {
               mediaType = "application/json",
               schema = @Schema(ref = "#/components/schemas/Order")))
   @ApiResponse(responseCode = "400", description = "Invalid request body")
-  public Order createOrder(@RequestBody Order order) {
-    MDC.clear();
-    MDC.put(API_NAME, CREATE_ORDER_API);
-    MDC.put(ORDER_DETAILS, order.toString());
-    log.info("createOrder invoked ");
-    return orderService.createOrder(order);
+  @ApiResponse(responseCode = "422", description = "Idempotency-Key reused with another request")
+  public Order createOrder(
+      @RequestBody Order order,
+      @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+    return idempotencyService.execute(
+        "POST /api/orders", idempotencyKey, order, () -> orderService.createOrder(order));
+  }
+
+  @PostMapping("/with-items")
+  @Operation(
+      description =
+          "Create an order together with all of its items in one transaction. Unit prices and"
+              + " the order total are computed on the server. A retry with the same"
+              + " Idempotency-Key returns the original order",
+      tags = "Orders")
+  @ApiResponses(
+      value = {
+        @ApiResponse(responseCode = "200", description = "Order created successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid request body"),
+        @ApiResponse(responseCode = "404", description = "Product not found"),
+        @ApiResponse(responseCode = "409", description = "Insufficient stock"),
+        @ApiResponse(
+            responseCode = "422",
+            description = "Idempotency-Key reused with another request")
+      })
+  public OrderWithItemsDto createOrderWithItems(
+      @RequestBody OrderCreateRequest request,
+      @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+    return idempotencyService.execute(
+        "POST /api/orders/with-items",
+        idempotencyKey,
+        request,
+        () -> orderService.createOrderWithItems(request));
+  }
+
+  @PostMapping("/totals/rebuild")
+  @Operation(
+      description =
+          "Start recomputing every order total from its items in batches and correct any that"
+              + " drifted, unless a rebuild is running",
+      tags = "Orders")
+  @ApiResponse(
+      responseCode = "202",
+      description = "Status of the started or running rebuild, polled with a GET on the same path")
+  public ResponseEntity<OrderTotalsReport> rebuildOrderTotals() {
+    return ResponseEntity.accepted().body(orderTotalsService.startRebuild());
+  }
+
+  @GetMapping("/totals/rebuild")
+  @Operation(description = "Progress of the running or last order totals rebuild", tags = "Orders")
+  @ApiResponse(responseCode = "200", description = "Number of orders checked and corrected so far")
+  public OrderTotalsReport getOrderTotalsRebuild() {
+    return orderTotalsService.getRebuildStatus();
   }
 
   @PutMapping("/{id}")
-  @Operation(description = "Update an existing order", tags = "Orders")
+  @Operation(
+      description =
+          "Update an existing order. Its total follows its items and a totalamount in the body"
+              + " is ignored, so the order is returned unchanged",
+      tags = "Orders")
   @ApiResponses(
       value = {
         @ApiResponse(
@@ -91,30 +173,66 @@ public class OrderController {
                     mediaType = "application/json",
                     schema = @Schema(ref = "#/components/schemas/Order"))),
         @ApiResponse(responseCode = "400", description = "Invalid request body"),
-        @ApiResponse(responseCode = "404", description = "Order not found")
+        @ApiResponse(responseCode = "404", description = "Order not found"),
+        @ApiResponse(responseCode = "412", description = "Order changed since If-Match")
       })
-  public Order updateOrder(@PathVariable Long id, @RequestBody Order order) {
-    MDC.clear();
-    MDC.put(API_NAME, UPDATE_ORDER_API);
-    MDC.put(ORDER_ID, id.toString());
-    MDC.put(ORDER_DETAILS, order.toString());
-    log.info("updateOrder invoked ");
+  public ResponseEntity<Order> updateOrder(
+      @PathVariable Long id,
+      @RequestBody Order order,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
     order.setId(id); // Ensure ID matches path variable
-    return orderService.updateOrder(order);
+    order.setVersion(ETags.ifMatchVersion(ifMatch));
+    Order updatedOrder = orderService.updateOrder(order);
+    return ETags.ok(updatedOrder, updatedOrder.getVersion());
+  }
+
+  @PatchMapping("/{id}")
+  @Operation(
+      description =
+          "Set only the given fields of an order. It has none that can be set: its total"
+              + " follows its items, and a totalamount is refused",
+      tags = "Orders")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "204",
+            description = "Order updated. The ETag is the new version"),
+        @ApiResponse(
+            responseCode = "400",
+            description = "No field to update, or a totalamount, which cannot be set")
+      })
+  public ResponseEntity<Void> patchOrder(
+      @PathVariable Long id,
+      @RequestBody Order patch,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    return ETags.noContent(orderService.patchOrder(id, patch, ETags.ifMatchVersion(ifMatch)));
+  }
+
+  @PostMapping("/batch-delete")
+  @Operation(
+      description =
+          "Delete orders and all of their items by ID, with one set-based statement per table."
+              + " IDs that do not exist are skipped",
+      tags = "Orders")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Number of orders and order items deleted"),
+        @ApiResponse(responseCode = "400", description = "No IDs, or more than 100000")
+      })
+  public BulkDeleteReport deleteOrders(@RequestBody List<Long> ids) {
+    return orderService.deleteOrders(ids);
   }
 
   @DeleteMapping("/{id}")
-  @Operation(description = "Delete an order by ID", tags = "Orders")
+  @Operation(description = "Delete an order and its items by ID", tags = "Orders")
   @ApiResponses(
       value = {
         @ApiResponse(responseCode = "200", description = "Order deleted successfully"),
         @ApiResponse(responseCode = "404", description = "Order not found")
       })
   public void deleteOrder(@PathVariable Long id) {
-    MDC.clear();
-    MDC.put(API_NAME, DELETE_ORDER_API);
-    MDC.put(ORDER_ID, id.toString());
-    log.info("deleteOrder invoked ");
     orderService.deleteOrder(id);
   }
 }
@@ -1,31 +1,49 @@
 package com.teamviewer.controller;
 
+import com.teamviewer.dto.BulkDeleteReport;
 import com.teamviewer.entity.OrderItem;
+import com.teamviewer.service.IdempotencyService;
+import com.teamviewer.service.OrderItemExportService;
+import com.teamviewer.service.OrderItemGroupCommitService;
 import com.teamviewer.service.OrderItemService;
+import com.teamviewer.util.ETags;
+import com.teamviewer.util.Pagination;
+import io.micrometer.core.annotation.Timed;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
-import org.slf4j.MDC;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
 import static com.teamviewer.util.Constants.*;
 
-@Slf4j
 @RestController
+@Timed(value = CONTROLLER_TIMER, histogram = true)
 @RequestMapping("/api/order-items")
 @RequiredArgsConstructor
 public class OrderItemController {
 
   private final OrderItemService orderItemService;
 
+  private final OrderItemExportService orderItemExportService;
+
+  private final IdempotencyService idempotencyService;
+
+  private final OrderItemGroupCommitService orderItemGroupCommitService;
+
   @GetMapping
-  @Operation(summary = "Get all order items", tags = "Order Items")
+  @Operation(
+      summary = "Get a page of order items ordered by ID",
+      description = "Pass the X-Next-Cursor response header as 'after' to fetch the next page",
+      tags = "Order Items")
   @ApiResponse(
       responseCode = "200",
       description = "Successful operation",
@@ -34,11 +52,28 @@ public class OrderItemController {
               mediaType = "application/json",
               schema = @Schema(ref = "#/components/schemas/OrderItem")))
   @ApiResponse(responseCode = "401", description = "Unauthorized")
-  public List<OrderItem> getAllOrderItems() {
-    log.info("getAllOrderItems invoked ");
-    MDC.clear();
-    MDC.put(API_NAME, GET_ALL_ORDER_ITEM_API);
-    return orderItemService.findAllOrderItems();
+  public ResponseEntity<List<OrderItem>> getAllOrderItems(
+      @RequestParam(defaultValue = "0") Long after,
+      @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) Integer limit) {
+    return Pagination.toResponse(
+        orderItemService.findOrderItems(after, limit), OrderItem::getId);
+  }
+
+  @GetMapping(value = "/export", produces = NDJSON_VALUE)
+  @Operation(
+      summary = "Export all order items",
+      description = "Streams every order item as newline-delimited JSON, one object per line",
+      tags = "Order Items")
+  @ApiResponse(
+      responseCode = "200",
+      description = "Successful operation",
+      content =
+          @Content(
+              mediaType = NDJSON_VALUE,
+              schema = @Schema(ref = "#/components/schemas/OrderItem")))
+  public ResponseEntity<StreamingResponseBody> exportOrderItems() {
+    StreamingResponseBody body = orderItemExportService::exportOrderItems;
+    return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON_VALUE)).body(body);
   }
 
   @GetMapping("/{id}")
@@ -52,18 +87,21 @@ public class OrderItemController {
                 @Content(
                     mediaType = "application/json",
                     schema = @Schema(ref = "#/components/schemas/OrderItem"))),
+        @ApiResponse(
+            responseCode = "304",
+            description = "Order item unchanged since If-None-Match"),
         @ApiResponse(responseCode = "404", description = "Order item not found")
       })
-  public OrderItem getOrderItemById(@PathVariable Long id) {
-    MDC.clear();
-    MDC.put(API_NAME, GET_ORDER_ITEM_BY_ID);
-    MDC.put(ORDER_ITEM_ID, id.toString());
-    log.info("getOrderItemById invoked " + id);
-    return orderItemService.findOrderItemById(id);
+  public ResponseEntity<OrderItem> getOrderItemById(@PathVariable Long id) {
+    OrderItem orderItem = orderItemService.findOrderItemById(id);
+    return ETags.ok(orderItem, orderItem.getVersion());
   }
 
   @PostMapping
-  @Operation(summary = "Create a new order item", tags = "Order Items")
+  @Operation(
+      summary = "Create a new order item",
+      description = "A retry with the same Idempotency-Key returns the original order item",
+      tags = "Order Items")
   @ApiResponse(
       responseCode = "200",
       description = "Order item created successfully",
@@ -72,12 +110,39 @@ public class OrderItemController {
               mediaType = "application/json",
               schema = @Schema(ref = "#/components/schemas/OrderItem")))
   @ApiResponse(responseCode = "400", description = "Invalid request body")
-  public OrderItem createOrderItem(@RequestBody OrderItem orderItem) {
-    MDC.clear();
-    MDC.put(API_NAME, CREATE_ORDER_ITEM_API);
-    MDC.put(ORDER_ITEM_DETAILS, orderItem.toString());
-    log.info("createOrderItem invoked " + orderItem);
-    return orderItemService.createOrderItem(orderItem);
+  @ApiResponse(responseCode = "422", description = "Idempotency-Key reused with another request")
+  public OrderItem createOrderItem(
+      @RequestBody OrderItem orderItem,
+      @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+    return idempotencyService.execute(
+        "POST /api/order-items",
+        idempotencyKey,
+        orderItem,
+        () -> orderItemGroupCommitService.createOrderItem(orderItem));
+  }
+
+  @PostMapping("/batch")
+  @Operation(
+      summary = "Create many order items in one transaction",
+      description = "A retry with the same Idempotency-Key returns the original order items",
+      tags = "Order Items")
+  @ApiResponse(
+      responseCode = "200",
+      description = "Order items created successfully",
+      content =
+          @Content(
+              mediaType = "application/json",
+              schema = @Schema(ref = "#/components/schemas/OrderItem")))
+  @ApiResponse(responseCode = "400", description = "Invalid request body or batch too large")
+  @ApiResponse(responseCode = "422", description = "Idempotency-Key reused with another request")
+  public List<OrderItem> createOrderItems(
+      @RequestBody List<OrderItem> orderItems,
+      @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+    return idempotencyService.execute(
+        "POST /api/order-items/batch",
+        idempotencyKey,
+        orderItems,
+        () -> orderItemService.createOrderItems(orderItems));
   }
 
   @PutMapping("/{id}")
@@ -92,15 +157,60 @@ public class OrderItemController {
                     mediaType = "application/json",
                     schema = @Schema(ref = "#/components/schemas/OrderItem"))),
         @ApiResponse(responseCode = "400", description = "Invalid request body"),
-        @ApiResponse(responseCode = "404", description = "Order item not found")
+        @ApiResponse(responseCode = "404", description = "Order item not found"),
+        @ApiResponse(responseCode = "409", description = "Order item changed concurrently"),
+        @ApiResponse(responseCode = "412", description = "Order item changed since If-Match")
       })
-  public OrderItem updateOrderItem(@PathVariable Long id, @RequestBody OrderItem orderItem) {
-    MDC.clear();
-    MDC.put(API_NAME, UPDATE_ORDER_ITEM_API);
-    MDC.put(ORDER_ITEM_ID, id.toString());
-    log.info("updateOrderItem invoked for id " + id + " with updatedOrderItem " + orderItem);
+  public ResponseEntity<OrderItem> updateOrderItem(
+      @PathVariable Long id,
+      @RequestBody OrderItem orderItem,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
     orderItem.setId(id); // Ensure ID matches path variable
-    return orderItemService.updateOrderItem(orderItem);
+    orderItem.setVersion(ETags.ifMatchVersion(ifMatch));
+    OrderItem updatedOrderItem = orderItemService.updateOrderItem(orderItem);
+    return ETags.ok(updatedOrderItem, updatedOrderItem.getVersion());
+  }
+
+  @PatchMapping("/{id}")
+  @Operation(
+      summary = "Set only the given fields of an order item in a single UPDATE",
+      description =
+          "productId, quantity and unitPrice can be set. Missing or null fields are left"
+              + " unchanged. The order total follows a new quantity or unit price",
+      tags = "Order Items")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "204",
+            description = "Order item updated. The ETag is the new version"),
+        @ApiResponse(
+            responseCode = "400",
+            description = "No field to update, or quantity is not positive"),
+        @ApiResponse(responseCode = "404", description = "Order item not found"),
+        @ApiResponse(responseCode = "409", description = "Order item changed concurrently"),
+        @ApiResponse(responseCode = "412", description = "Order item changed since If-Match")
+      })
+  public ResponseEntity<Void> patchOrderItem(
+      @PathVariable Long id,
+      @RequestBody OrderItem patch,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    return ETags.noContent(
+        orderItemService.patchOrderItem(id, patch, ETags.ifMatchVersion(ifMatch)));
+  }
+
+  @PostMapping("/batch-delete")
+  @Operation(
+      description =
+          "Delete order items by ID with one set-based statement, after taking their line"
+              + " totals off their orders. IDs that do not exist are skipped",
+      tags = "Order Items")
+  @ApiResponses(
+      value = {
+        @ApiResponse(responseCode = "200", description = "Number of order items deleted"),
+        @ApiResponse(responseCode = "400", description = "No IDs, or more than 100000")
+      })
+  public BulkDeleteReport deleteOrderItems(@RequestBody List<Long> ids) {
+    return orderItemService.deleteOrderItems(ids);
   }
 
   @DeleteMapping("/{id}")
@@ -111,12 +221,6 @@ public class OrderItemController {
         @ApiResponse(responseCode = "404", description = "Order item not found")
       })
   public void deleteOrderItem(@PathVariable Long id) {
-    MDC.clear();
-    MDC.put(API_NAME, DELETE_ORDER_ITEM_API);
-    MDC.put(ORDER_ITEM_ID, id.toString());
-
-    log.info("deleteOrderItem invoked for id " + id);
-
     orderItemService.deleteOrderItem(id);
   }
 }
@@ -1,35 +1,59 @@
 package com.teamviewer.controller;
 
+import com.teamviewer.dto.BulkDeleteReport;
 import com.teamviewer.entity.Product;
+import com.teamviewer.service.HotInventoryService;
+import com.teamviewer.service.InventoryService;
+import com.teamviewer.service.ProductSearchService;
 import com.teamviewer.service.ProductService;
+import com.teamviewer.util.ETags;
+import com.teamviewer.util.Pagination;
+import io.micrometer.core.annotation.Timed;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
-import lombok.extern.slf4j.Slf4j;
-import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 
 import static com.teamviewer.util.Constants.*;
 
-@Slf4j
 @RestController
+@Timed(value = CONTROLLER_TIMER, histogram = true)
 @RequestMapping("/api/products")
 public class ProductController {
 
   private final ProductService productService;
 
+  private final InventoryService inventoryService;
+
+  private final HotInventoryService hotInventoryService;
+
+  private final ProductSearchService productSearchService;
+
   @Autowired
-  public ProductController(ProductService productService) {
+  public ProductController(
+      ProductService productService,
+      InventoryService inventoryService,
+      HotInventoryService hotInventoryService,
+      ProductSearchService productSearchService) {
     this.productService = productService;
+    this.inventoryService = inventoryService;
+    this.hotInventoryService = hotInventoryService;
+    this.productSearchService = productSearchService;
   }
 
   @GetMapping
-  @Operation(description = "Get all products", tags = "Products")
+  @Operation(
+      description =
+          "Get a page of products ordered by ID. Pass the X-Next-Cursor response header as"
+              + " 'after' to fetch the next page",
+      tags = "Products")
   @ApiResponse(
       responseCode = "200",
       description = "Successful operation",
@@ -38,12 +62,29 @@ public class ProductController {
               mediaType = "application/json",
               schema = @Schema(ref = "#/components/schemas/Product")))
   @ApiResponse(responseCode = "401", description = "Unauthorized")
-  public List<Product> getAllProducts() {
-    MDC.clear();
-    MDC.put(API_NAME, GET_ALL_PRODUCTS_API);
-    log.info("getAllProducts invoked  ");
+  public ResponseEntity<List<Product>> getAllProducts(
+      @RequestParam(defaultValue = "0") Long after,
+      @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) Integer limit) {
+    return Pagination.toResponse(productService.findProducts(after, limit), Product::getId);
+  }
 
-    return productService.findAllProducts();
+  @GetMapping("/search")
+  @Operation(
+      description =
+          "Search products by name and description. Every word of the query must match a word of"
+              + " the product or the start of one; results are ranked by relevance",
+      tags = "Products")
+  @ApiResponse(
+      responseCode = "200",
+      description = "Successful operation",
+      content =
+          @Content(
+              mediaType = "application/json",
+              schema = @Schema(ref = "#/components/schemas/Product")))
+  @ApiResponse(responseCode = "400", description = "Query is blank")
+  public List<Product> searchProducts(
+      @RequestParam String q, @RequestParam(defaultValue = DEFAULT_SEARCH_LIMIT) Integer limit) {
+    return productSearchService.search(q, limit);
   }
 
   @GetMapping("/{id}")
@@ -57,14 +98,12 @@ public class ProductController {
                 @Content(
                     mediaType = "application/json",
                     schema = @Schema(ref = "#/components/schemas/Product"))),
+        @ApiResponse(responseCode = "304", description = "Product unchanged since If-None-Match"),
         @ApiResponse(responseCode = "404", description = "Product not found")
       })
-  public Product getProductById(@PathVariable Long id) {
-    MDC.clear();
-    MDC.put(API_NAME, GET_PRODUCTS_BY_ID);
-    MDC.put(PRODUCT_ID, id.toString());
-    log.info("getProductById invoked  " + id);
-    return productService.findProductById(id);
+  public ResponseEntity<Product> getProductById(@PathVariable Long id) {
+    Product product = productService.findProductById(id);
+    return ETags.ok(product, product.getVersion());
   }
 
   @PostMapping
@@ -78,13 +117,23 @@ public class ProductController {
               schema = @Schema(ref = "#/components/schemas/Product")))
   @ApiResponse(responseCode = "400", description = "Invalid request body")
   public Product createProduct(@RequestBody Product product) {
-    MDC.clear();
-    MDC.put(API_NAME, CREATE_PRODUCT_API);
-    MDC.put(PRODUCT_DETAILS, product.toString());
-    log.info("createProduct invoked  " + product);
     return productService.createProduct(product);
   }
 
+  @PostMapping("/batch")
+  @Operation(description = "Create many products in one transaction", tags = "Products")
+  @ApiResponse(
+      responseCode = "200",
+      description = "Products created successfully",
+      content =
+          @Content(
+              mediaType = "application/json",
+              schema = @Schema(ref = "#/components/schemas/Product")))
+  @ApiResponse(responseCode = "400", description = "Invalid request body or batch too large")
+  public List<Product> createProducts(@RequestBody List<Product> products) {
+    return productService.createProducts(products);
+  }
+
   @PutMapping("/{id}")
   @Operation(description = "Update an existing product", tags = "Products")
   @ApiResponses(
@@ -97,15 +146,109 @@ public class ProductController {
                     mediaType = "application/json",
                     schema = @Schema(ref = "#/components/schemas/Product"))),
         @ApiResponse(responseCode = "400", description = "Invalid request body"),
-        @ApiResponse(responseCode = "404", description = "Product not found")
+        @ApiResponse(responseCode = "404", description = "Product not found"),
+        @ApiResponse(responseCode = "409", description = "Product changed concurrently"),
+        @ApiResponse(responseCode = "412", description = "Product changed since If-Match")
       })
-  public Product updateProduct(@PathVariable Long id, @RequestBody Product product) {
-    MDC.clear();
-    MDC.put(API_NAME, UPDATE_PRODUCT_API);
-    MDC.put(PRODUCT_ID, id.toString());
+  public ResponseEntity<Product> updateProduct(
+      @PathVariable Long id,
+      @RequestBody Product product,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
     product.setId(id); // Ensure ID matches path variable
-    log.info("updateProduct invoked  " + id + " product " + product);
-    return productService.updateProduct(product);
+    product.setVersion(ETags.ifMatchVersion(ifMatch));
+    Product updatedProduct = productService.updateProduct(product);
+    return ETags.ok(updatedProduct, updatedProduct.getVersion());
+  }
+
+  @PatchMapping("/{id}")
+  @Operation(
+      description =
+          "Set only the given fields of a product (name, description, price, stock) in a single"
+              + " UPDATE. Missing or null fields are left unchanged",
+      tags = "Products")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "204",
+            description = "Product updated. The ETag is the new version"),
+        @ApiResponse(
+            responseCode = "400",
+            description = "No field to update, or stock of a product in hot inventory mode"),
+        @ApiResponse(responseCode = "404", description = "Product not found"),
+        @ApiResponse(responseCode = "409", description = "Product changed concurrently"),
+        @ApiResponse(responseCode = "412", description = "Product changed since If-Match")
+      })
+  public ResponseEntity<Void> patchProduct(
+      @PathVariable Long id,
+      @RequestBody Product patch,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    return ETags.noContent(
+        productService.patchProduct(id, patch, ETags.ifMatchVersion(ifMatch)));
+  }
+
+  @PostMapping("/{id}/reserve")
+  @Operation(description = "Atomically take units out of a product's stock", tags = "Products")
+  @ApiResponses(
+      value = {
+        @ApiResponse(responseCode = "200", description = "Stock reserved successfully"),
+        @ApiResponse(responseCode = "400", description = "Quantity is not positive"),
+        @ApiResponse(responseCode = "404", description = "Product not found"),
+        @ApiResponse(responseCode = "409", description = "Insufficient stock")
+      })
+  public void reserveStock(@PathVariable Long id, @RequestParam int quantity) {
+    inventoryService.reserve(id, quantity);
+  }
+
+  @PostMapping("/{id}/release")
+  @Operation(description = "Return reserved units to a product's stock", tags = "Products")
+  @ApiResponses(
+      value = {
+        @ApiResponse(responseCode = "200", description = "Stock released successfully"),
+        @ApiResponse(responseCode = "400", description = "Quantity is not positive"),
+        @ApiResponse(responseCode = "404", description = "Product not found")
+      })
+  public void releaseStock(@PathVariable Long id, @RequestParam int quantity) {
+    inventoryService.release(id, quantity);
+  }
+
+  @PostMapping("/{id}/hot-inventory")
+  @Operation(
+      description =
+          "Serve reservations for this product from striped in-memory counters (flash-sale mode)."
+              + " Held by this instance only: other instances keep reserving from the database and"
+              + " can oversell, and reservations not yet written back are lost on a crash",
+      tags = "Products")
+  @ApiResponses(
+      value = {
+        @ApiResponse(responseCode = "200", description = "Hot inventory enabled"),
+        @ApiResponse(responseCode = "404", description = "Product not found")
+      })
+  public void enableHotInventory(@PathVariable Long id) {
+    hotInventoryService.enable(id);
+  }
+
+  @DeleteMapping("/{id}/hot-inventory")
+  @Operation(
+      description = "Write back in-memory stock and return the product to database mode",
+      tags = "Products")
+  @ApiResponse(responseCode = "200", description = "Hot inventory disabled")
+  public void disableHotInventory(@PathVariable Long id) {
+    hotInventoryService.disable(id);
+  }
+
+  @PostMapping("/batch-delete")
+  @Operation(
+      description =
+          "Delete products by ID with one set-based statement. IDs that do not exist are"
+              + " skipped",
+      tags = "Products")
+  @ApiResponses(
+      value = {
+        @ApiResponse(responseCode = "200", description = "Number of products deleted"),
+        @ApiResponse(responseCode = "400", description = "No IDs, or more than 100000")
+      })
+  public BulkDeleteReport deleteProducts(@RequestBody List<Long> ids) {
+    return productService.deleteProducts(ids);
   }
 
   @DeleteMapping("/{id}")
@@ -116,10 +259,6 @@ public class ProductController {
         @ApiResponse(responseCode = "404", description = "Product not found")
       })
   public void deleteProduct(@PathVariable Long id) {
-    MDC.clear();
-    MDC.put(API_NAME, DELETE_PRODUCT_API);
-    MDC.put(PRODUCT_ID, id.toString());
-    log.info("deleteProduct invoked  " + id);
     productService.deleteProduct(id);
   }
 }
@@ -1,9 +1,14 @@
 package com.teamviewer.controller.advice;
 
+import com.teamviewer.exception.IdempotencyKeyReusedException;
+import com.teamviewer.exception.InsufficientStockException;
+import com.teamviewer.exception.InvalidRequestException;
+import com.teamviewer.exception.PreconditionFailedException;
 import com.teamviewer.exception.ResourceNotFoundException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -28,4 +33,43 @@ public class DefaultRestControllerAdvice {
 
     return ApiErrorDto.builder().message(ex.getMessage()).build();
   }
+
+  @ExceptionHandler(InsufficientStockException.class)
+  @ResponseStatus(HttpStatus.CONFLICT)
+  public ApiErrorDto handleInsufficientStock(InsufficientStockException ex) {
+
+    return ApiErrorDto.builder().message(ex.getMessage()).build();
+  }
+
+  @ExceptionHandler(InvalidRequestException.class)
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public ApiErrorDto handleInvalidRequest(InvalidRequestException ex) {
+
+    return ApiErrorDto.builder().message(ex.getMessage()).build();
+  }
+
+  @ExceptionHandler(PreconditionFailedException.class)
+  @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+  public ApiErrorDto handlePreconditionFailed(PreconditionFailedException ex) {
+
+    return ApiErrorDto.builder().message(ex.getMessage()).build();
+  }
+
+  @ExceptionHandler(IdempotencyKeyReusedException.class)
+  @ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+  public ApiErrorDto handleIdempotencyKeyReused(IdempotencyKeyReusedException ex) {
+
+    return ApiErrorDto.builder().message(ex.getMessage()).build();
+  }
+
+  /**
+   * A concurrent writer got in first. Not {@code 412}: that is for a failed {@code If-Match}, see
+   * {@link #handlePreconditionFailed}, and this may happen without one.
+   */
+  @ExceptionHandler(OptimisticLockingFailureException.class)
+  @ResponseStatus(HttpStatus.CONFLICT)
+  public ApiErrorDto handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+
+    return ApiErrorDto.builder().message("Resource was modified concurrently").build();
+  }
 }
@@ -0,0 +1,83 @@
+package com.teamviewer.controller.filter;
+
+import com.teamviewer.jdbc.ReplicaRoutingDataSource;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+import static com.teamviewer.util.Constants.PRIMARY_PIN_COOKIE;
+
+/**
+ * Read-your-writes on top of replica routing. A write request pins its client to the primary for
+ * {@code datasource.replicas.read-your-writes-ms}: the response carries a cookie with the time the
+ * pin expires, and requests that send it back before then read from the primary as well, so the
+ * client sees its own writes however far the replicas lag behind.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@ConditionalOnProperty(name = "datasource.replicas.urls")
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+  private final long windowMs;
+
+  public ReadYourWritesFilter(
+      @Value("${datasource.replicas.read-your-writes-ms:5000}") long windowMs) {
+    this.windowMs = windowMs;
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    long now = System.currentTimeMillis();
+    boolean write = !isRead(request.getMethod());
+    if (write && windowMs > 0) {
+      Cookie cookie = new Cookie(PRIMARY_PIN_COOKIE, Long.toString(now + windowMs));
+      cookie.setPath("/");
+      cookie.setHttpOnly(true);
+      cookie.setMaxAge((int) Math.max(1, (windowMs + 999) / 1000));
+      response.addCookie(cookie);
+    }
+    if (!write && pinnedUntil(request) <= now) {
+      filterChain.doFilter(request, response);
+      return;
+    }
+    ReplicaRoutingDataSource.pinToPrimary();
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      ReplicaRoutingDataSource.unpin();
+    }
+  }
+
+  private static boolean isRead(String method) {
+    return "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method);
+  }
+
+  private static long pinnedUntil(HttpServletRequest request) {
+    Cookie[] cookies = request.getCookies();
+    if (cookies == null) {
+      return 0;
+    }
+    for (Cookie cookie : cookies) {
+      if (PRIMARY_PIN_COOKIE.equals(cookie.getName())) {
+        try {
+          return Long.parseLong(cookie.getValue());
+        } catch (NumberFormatException e) {
+          return 0;
+        }
+      }
+    }
+    return 0;
+  }
+}
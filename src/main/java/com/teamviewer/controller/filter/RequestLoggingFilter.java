@@ -0,0 +1,119 @@
+package com.teamviewer.controller.filter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import static com.teamviewer.util.Constants.REQUEST_ID_HEADER;
+import static com.teamviewer.util.Constants.REQUEST_ID_MDC;
+
+/**
+ * Sets up the logging context of a request and writes one access line when it completes. The
+ * request ID is taken from {@code X-Request-Id} if it is a plain token of up to 64 letters, digits,
+ * dots, dashes and underscores, and generated otherwise; it is put in the MDC for every log line of
+ * the request and echoed in the response. Successful GET and HEAD requests are sampled at
+ * {@code logging.access.read-sample-rate}; writes, errors and slow requests are always logged.
+ *
+ * <p>A request that goes async, such as a streamed export, is logged by the async dispatch that
+ * completes it, so the line carries its final status and full duration.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestLoggingFilter extends OncePerRequestFilter {
+
+  /** No CR, LF or other characters that could forge log lines or response headers. */
+  private static final Pattern VALID_REQUEST_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+  private static final String START_ATTRIBUTE = RequestLoggingFilter.class.getName() + ".start";
+
+  private static final String REQUEST_ID_ATTRIBUTE =
+      RequestLoggingFilter.class.getName() + ".requestId";
+
+  private final double readSampleRate;
+
+  private final long slowRequestNanos;
+
+  public RequestLoggingFilter(
+      @Value("${logging.access.read-sample-rate:1.0}") double readSampleRate,
+      @Value("${logging.access.slow-request-ms:1000}") long slowRequestMs) {
+    this.readSampleRate = readSampleRate;
+    this.slowRequestNanos = TimeUnit.MILLISECONDS.toNanos(slowRequestMs);
+  }
+
+  @Override
+  protected boolean shouldNotFilterAsyncDispatch() {
+    return false;
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    Long asyncStart =
+        isAsyncDispatch(request) ? (Long) request.getAttribute(START_ATTRIBUTE) : null;
+    String requestId;
+    long start;
+    if (asyncStart != null) {
+      requestId = (String) request.getAttribute(REQUEST_ID_ATTRIBUTE);
+      start = asyncStart;
+    } else {
+      requestId = request.getHeader(REQUEST_ID_HEADER);
+      if (requestId == null || !VALID_REQUEST_ID.matcher(requestId).matches()) {
+        requestId = Long.toHexString(ThreadLocalRandom.current().nextLong());
+      }
+      response.setHeader(REQUEST_ID_HEADER, requestId);
+      start = System.nanoTime();
+    }
+    MDC.put(REQUEST_ID_MDC, requestId);
+    int status = HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+    try {
+      filterChain.doFilter(request, response);
+      status = response.getStatus();
+    } finally {
+      long elapsed = System.nanoTime() - start;
+      if (isAsyncStarted(request)) {
+        request.setAttribute(START_ATTRIBUTE, start);
+        request.setAttribute(REQUEST_ID_ATTRIBUTE, requestId);
+      } else if (log.isInfoEnabled() && shouldLog(request.getMethod(), status, elapsed)) {
+        log.info(
+            "{} {} {} {}ms",
+            request.getMethod(),
+            route(request),
+            status,
+            TimeUnit.NANOSECONDS.toMillis(elapsed));
+      }
+      MDC.remove(REQUEST_ID_MDC);
+    }
+  }
+
+  private boolean shouldLog(String method, int status, long elapsedNanos) {
+    if (status >= HttpServletResponse.SC_BAD_REQUEST || elapsedNanos >= slowRequestNanos) {
+      return true;
+    }
+    if (!"GET".equals(method) && !"HEAD".equals(method)) {
+      return true;
+    }
+    return readSampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < readSampleRate;
+  }
+
+  /** The matched handler pattern, so sampled lines group by endpoint rather than by ID. */
+  private static Object route(HttpServletRequest request) {
+    Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+    return pattern != null ? pattern : request.getRequestURI();
+  }
+}
@@ -0,0 +1,21 @@
+package com.teamviewer.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkDeleteReport {
+
+  /** Rows deleted; IDs that did not exist are not counted. */
+  private int deleted;
+
+  /** Order items deleted along with their orders, for order deletes only. */
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private Integer deletedItems;
+}
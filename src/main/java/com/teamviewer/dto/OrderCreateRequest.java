@@ -0,0 +1,17 @@
+package com.teamviewer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderCreateRequest {
+
+  private List<OrderLineRequest> items;
+}
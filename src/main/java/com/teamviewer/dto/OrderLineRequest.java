@@ -0,0 +1,17 @@
+package com.teamviewer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderLineRequest {
+
+  private Integer productId;
+
+  private Integer quantity;
+}
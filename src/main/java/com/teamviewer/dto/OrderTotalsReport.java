@@ -0,0 +1,29 @@
+package com.teamviewer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Builder(toBuilder = true)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderTotalsReport {
+
+  private long checked;
+
+  private long corrected;
+
+  /** Whether the rebuild is still going; the counts are then those of the batches done so far. */
+  private boolean running;
+
+  private Instant startedAt;
+
+  private Instant finishedAt;
+
+  /** Why the rebuild stopped before the last order, if it did. */
+  private String failure;
+}
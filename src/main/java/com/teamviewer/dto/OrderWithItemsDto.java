@@ -0,0 +1,23 @@
+package com.teamviewer.dto;
+
+import com.teamviewer.entity.OrderItem;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderWithItemsDto {
+
+  private Long id;
+
+  private BigDecimal totalamount;
+
+  private List<OrderItem> items;
+}
@@ -0,0 +1,29 @@
+package com.teamviewer.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSalesDto {
+
+  private Long productId;
+
+  /** Left out once the product has been deleted. */
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private String name;
+
+  private long quantity;
+
+  private BigDecimal revenue;
+
+  /** Order items of the product; an order counts once per line holding the product. */
+  private long orderLines;
+}
@@ -0,0 +1,16 @@
+package com.teamviewer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSalesRebuildReport {
+
+  /** Products with at least one order item. */
+  private int products;
+}
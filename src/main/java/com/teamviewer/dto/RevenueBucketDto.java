@@ -0,0 +1,25 @@
+package com.teamviewer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevenueBucketDto {
+
+  /** Lower bound of the order totals in this bucket, inclusive. */
+  private BigDecimal from;
+
+  /** Upper bound of the order totals in this bucket, exclusive. */
+  private BigDecimal to;
+
+  private long orders;
+
+  private BigDecimal revenue;
+}
@@ -1,7 +1,10 @@
 package com.teamviewer.entity;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 
@@ -15,8 +18,18 @@ import java.math.BigDecimal;
 public class Order {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tb_order_seq")
+  @SequenceGenerator(name = "tb_order_seq", sequenceName = "tb_order_seq", allocationSize = 50)
   private Long id;
 
+  /** Sum of the order's item lines, maintained by the server; ignored or refused on input. */
+  @Schema(accessMode = Schema.AccessMode.READ_ONLY)
   private BigDecimal totalamount;
+
+  /** Bumped on every change; exposed as the resource's ETag and checked against If-Match. */
+  @Version
+  @ColumnDefault("0")
+  @Column(nullable = false)
+  @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+  private Long version;
 }
@@ -1,22 +1,30 @@
 package com.teamviewer.entity;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "tb_order_item")
+@Table(
+    name = "tb_order_item",
+    indexes = {
+      @Index(name = "idx_order_item_order_id", columnList = "orderId, id"),
+      @Index(name = "idx_order_item_product_sales", columnList = "productId, quantity, unitPrice")
+    })
 @Builder
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class OrderItem {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tb_order_item_seq")
+  @SequenceGenerator(name = "tb_order_item_seq", sequenceName = "tb_order_item_seq", allocationSize = 50)
   private Long id;
 
   private Integer orderId;
@@ -26,4 +34,11 @@ public class OrderItem {
   private Integer quantity;
 
   private BigDecimal unitPrice;
+
+  /** Bumped on every change; exposed as the resource's ETag and checked against If-Match. */
+  @Version
+  @ColumnDefault("0")
+  @Column(nullable = false)
+  @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+  private Long version;
 }
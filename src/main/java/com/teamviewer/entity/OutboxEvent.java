@@ -0,0 +1,61 @@
+package com.teamviewer.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.Length;
+
+import java.time.Instant;
+
+/**
+ * A change to a product, order or order item, written by {@code OutboxService} in the same
+ * transaction as the change itself and removed once {@code OutboxRelayService} has published it.
+ */
+@Entity
+@Table(name = "tb_outbox_event")
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+
+  public enum Aggregate {
+    PRODUCT,
+    ORDER,
+    ORDER_ITEM
+  }
+
+  public enum ChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+  }
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tb_outbox_event_seq")
+  @SequenceGenerator(
+      name = "tb_outbox_event_seq",
+      sequenceName = "tb_outbox_event_seq",
+      allocationSize = 50)
+  private Long id;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, length = 16)
+  private Aggregate aggregate;
+
+  @Column(nullable = false)
+  private Long aggregateId;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, length = 16)
+  private ChangeType changeType;
+
+  /** The changed fields as JSON, with the new version when known; {@code null} for deletes. */
+  @Column(length = Length.LONG32)
+  private String payload;
+
+  @Column(nullable = false)
+  private Instant createdAt;
+}
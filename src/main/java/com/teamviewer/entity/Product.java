@@ -1,7 +1,9 @@
 package com.teamviewer.entity;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 
@@ -14,7 +16,8 @@ import java.math.BigDecimal;
 @ToString
 public class Product {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tb_product_seq")
+  @SequenceGenerator(name = "tb_product_seq", sequenceName = "tb_product_seq", allocationSize = 50)
   private Long id;
 
   private String name;
@@ -24,4 +27,11 @@ public class Product {
   private Integer stock;
 
   private BigDecimal price;
+
+  /** Bumped on every change; exposed as the resource's ETag and checked against If-Match. */
+  @Version
+  @ColumnDefault("0")
+  @Column(nullable = false)
+  @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+  private Long version;
 }
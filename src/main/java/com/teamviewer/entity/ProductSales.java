@@ -0,0 +1,31 @@
+package com.teamviewer.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Sales counters of one product, the read model behind the sales dashboards. Maintained by {@code
+ * ProductSalesService} in the same transaction as every order item change.
+ */
+@Entity
+@Table(name = "tb_product_sales")
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSales {
+  @Id private Long productId;
+
+  /** Units sold. */
+  private long quantity;
+
+  private BigDecimal revenue;
+
+  /** Order items of the product; an order counts once per line holding the product. */
+  private long orderLines;
+}
@@ -0,0 +1,143 @@
+package com.teamviewer.inventory;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free stock counter for a single product, split across several cache-line padded stripes.
+ * Each thread reserves from its own home stripe with a single CAS, so reservations on the same
+ * product scale with cores instead of serializing on one memory location.
+ *
+ * <p>When no single stripe can satisfy a request, the slow path drains all stripes under the
+ * counter's monitor, takes the units from the total and spreads the remainder back. The same
+ * monitor guards {@link #available()} and {@link #close()}, so both see a consistent total.
+ */
+public final class StripedStockCounter {
+
+  /** Outcome of a reservation attempt. */
+  public enum Result {
+    RESERVED,
+    INSUFFICIENT,
+    CLOSED
+  }
+
+  /** Marks a stripe of a closed counter. Far below any real stock, so every reservation fails. */
+  private static final long CLOSED = Long.MIN_VALUE;
+
+  /** 16 longs = 128 bytes between stripes, clear of adjacent-line prefetching. */
+  private static final int PADDING = 16;
+
+  private final AtomicLongArray cells;
+
+  private final int mask;
+
+  private boolean closed;
+
+  /**
+   * @param initialStock units available when the counter is created
+   * @param stripes requested stripe count, rounded up to a power of two
+   */
+  public StripedStockCounter(long initialStock, int stripes) {
+    int size = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+    this.mask = size - 1;
+    this.cells = new AtomicLongArray(size * PADDING);
+    spread(Math.max(0, initialStock));
+  }
+
+  public Result tryReserve(long quantity) {
+    int home = homeStripe();
+    for (int i = 0; i <= mask; i++) {
+      int index = ((home + i) & mask) * PADDING;
+      long current = cells.get(index);
+      while (current >= quantity) {
+        if (cells.compareAndSet(index, current, current - quantity)) {
+          return Result.RESERVED;
+        }
+        current = cells.get(index);
+      }
+      if (current == CLOSED) {
+        return Result.CLOSED;
+      }
+    }
+    return reserveAcrossStripes(quantity);
+  }
+
+  /** @return {@code false} if the counter is closed and the units were not returned */
+  public boolean release(long quantity) {
+    int index = homeStripe() * PADDING;
+    long current = cells.get(index);
+    while (current != CLOSED) {
+      if (cells.compareAndSet(index, current, current + quantity)) {
+        return true;
+      }
+      current = cells.get(index);
+    }
+    return false;
+  }
+
+  /** @return units currently available, or 0 once closed */
+  public synchronized long available() {
+    if (closed) {
+      return 0;
+    }
+    long total = 0;
+    for (int i = 0; i <= mask; i++) {
+      total += cells.get(i * PADDING);
+    }
+    return total;
+  }
+
+  /**
+   * Stops all further reservations and releases.
+   *
+   * @return the units that were still available
+   */
+  public synchronized long close() {
+    if (closed) {
+      return 0;
+    }
+    long remaining = 0;
+    for (int i = 0; i <= mask; i++) {
+      remaining += cells.getAndSet(i * PADDING, CLOSED);
+    }
+    closed = true;
+    return remaining;
+  }
+
+  public synchronized boolean isClosed() {
+    return closed;
+  }
+
+  private synchronized Result reserveAcrossStripes(long quantity) {
+    if (closed) {
+      return Result.CLOSED;
+    }
+    long total = 0;
+    for (int i = 0; i <= mask; i++) {
+      total += cells.getAndSet(i * PADDING, 0);
+    }
+    if (total < quantity) {
+      spread(total);
+      return Result.INSUFFICIENT;
+    }
+    spread(total - quantity);
+    return Result.RESERVED;
+  }
+
+  /** Adds {@code units} evenly across the stripes, preserving any racing releases. */
+  private void spread(long units) {
+    int stripes = mask + 1;
+    long share = units / stripes;
+    long remainder = units % stripes;
+    for (int i = 0; i < stripes; i++) {
+      long add = share + (i < remainder ? 1 : 0);
+      if (add != 0) {
+        cells.addAndGet(i * PADDING, add);
+      }
+    }
+  }
+
+  private int homeStripe() {
+    long id = Thread.currentThread().getId();
+    return (int) ((id * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+  }
+}
@@ -0,0 +1,141 @@
+package com.teamviewer.jdbc;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Sends connections for read-only transactions to the read replicas, round-robin over those that
+ * passed their last health check, and everything else to the primary (the target data source).
+ * If a replica fails to hand out a connection, the caller gets a primary connection instead. The
+ * replica is only taken out of rotation, until the next successful {@link #checkReplicas()}, when
+ * the failure is at the connection level (SQLState class 08): a pool that merely timed out under
+ * load stays in rotation.
+ *
+ * <p>The read-only flag of a transaction is only known after its connection would normally have
+ * been taken, so this data source must sit behind a {@code LazyConnectionDataSourceProxy}. A
+ * thread that {@link #pinToPrimary() pinned itself} to the primary reads from it too, e.g. to see
+ * its client's own recent writes.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends DelegatingDataSource {
+
+  private static final ThreadLocal<Boolean> PINNED_TO_PRIMARY = new ThreadLocal<>();
+
+  private final List<DataSource> replicas;
+
+  private final int validationTimeoutSeconds;
+
+  /** 1 while a replica is in rotation, 0 while it is down. */
+  private final AtomicIntegerArray healthy;
+
+  private final AtomicInteger next = new AtomicInteger();
+
+  public ReplicaRoutingDataSource(
+      DataSource primary, List<DataSource> replicas, int validationTimeoutSeconds) {
+    super(primary);
+    this.replicas = List.copyOf(replicas);
+    this.validationTimeoutSeconds = validationTimeoutSeconds;
+    this.healthy = new AtomicIntegerArray(replicas.size());
+  }
+
+  /** Routes read-only transactions of the current thread to the primary until {@link #unpin}. */
+  public static void pinToPrimary() {
+    PINNED_TO_PRIMARY.set(Boolean.TRUE);
+  }
+
+  public static void unpin() {
+    PINNED_TO_PRIMARY.remove();
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    int replica = chooseReplica();
+    if (replica >= 0) {
+      try {
+        return replicas.get(replica).getConnection();
+      } catch (SQLException e) {
+        if (isConnectionFailure(e)) {
+          markDown(replica, e);
+        } else {
+          log.debug("Read replica {} is busy, reading from the primary: {}", replica, e.toString());
+        }
+      }
+    }
+    return obtainTargetDataSource().getConnection();
+  }
+
+  /** Validates a connection of every replica and updates the rotation. */
+  public void checkReplicas() {
+    for (int i = 0; i < replicas.size(); i++) {
+      try (Connection connection = replicas.get(i).getConnection()) {
+        if (connection.isValid(validationTimeoutSeconds)) {
+          if (healthy.getAndSet(i, 1) == 0) {
+            log.info("Read replica {} is in rotation", i);
+          }
+        } else {
+          markDown(i, null);
+        }
+      } catch (SQLException e) {
+        markDown(i, e);
+      }
+    }
+  }
+
+  public int healthyReplicas() {
+    int count = 0;
+    for (int i = 0; i < healthy.length(); i++) {
+      count += healthy.get(i);
+    }
+    return count;
+  }
+
+  public List<DataSource> getReplicas() {
+    return replicas;
+  }
+
+  /** @return index of the replica to use, or -1 for the primary */
+  private int chooseReplica() {
+    if (replicas.isEmpty()
+        || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+        || PINNED_TO_PRIMARY.get() != null) {
+      return -1;
+    }
+    int start = next.getAndIncrement();
+    for (int i = 0; i < replicas.size(); i++) {
+      int replica = Math.floorMod(start + i, replicas.size());
+      if (healthy.get(replica) == 1) {
+        return replica;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * SQLState class 08 on the exception or on one of its causes, e.g. a refused connection, also
+   * when a pool reports it as the reason for a {@code SQLTransientConnectionException}.
+   */
+  static boolean isConnectionFailure(SQLException e) {
+    for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+      if (cause instanceof SQLException sqlException
+          && sqlException.getSQLState() != null
+          && sqlException.getSQLState().startsWith("08")) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void markDown(int replica, SQLException cause) {
+    if (healthy.getAndSet(replica, 0) == 1) {
+      log.warn("Read replica {} is out of rotation: {}", replica, cause != null ? cause : "invalid");
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package com.teamviewer.outbox;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.teamviewer.entity.OutboxEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends every event as one JSON line to {@code outbox.sink.file}, e.g. {@code {"id":51,
+ * "aggregate":"PRODUCT","aggregateId":7,"changeType":"UPDATED","createdAt":"...","payload":{...}}}.
+ * A batch is one write, forced to disk before {@link #publish} returns. Consumers tail the file.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "outbox.sink", havingValue = "file", matchIfMissing = true)
+public class FileOutboxSink implements OutboxSink {
+
+  private final Path file;
+
+  private final ObjectMapper objectMapper;
+
+  public FileOutboxSink(
+      @Value("${outbox.sink.file:outbox/events.jsonl}") Path file, ObjectMapper objectMapper) {
+    this.file = file.toAbsolutePath();
+    this.objectMapper = objectMapper;
+  }
+
+  @Override
+  public synchronized void publish(List<OutboxEvent> events) {
+    try {
+      ByteArrayOutputStream lines = new ByteArrayOutputStream(events.size() * 128);
+      for (OutboxEvent event : events) {
+        writeLine(event, lines);
+      }
+      Files.createDirectories(file.getParent());
+      try (FileChannel channel =
+          FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+        ByteBuffer buffer = ByteBuffer.wrap(lines.toByteArray());
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+        channel.force(false);
+      }
+      log.debug("Appended {} outbox events to {}", events.size(), file);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot append outbox events to " + file, e);
+    }
+  }
+
+  /** The payload is JSON already and is copied into the line as it is. */
+  private void writeLine(OutboxEvent event, ByteArrayOutputStream out) throws IOException {
+    try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+      generator.writeStartObject();
+      generator.writeNumberField("id", event.getId());
+      generator.writeStringField("aggregate", event.getAggregate().name());
+      generator.writeNumberField("aggregateId", event.getAggregateId());
+      generator.writeStringField("changeType", event.getChangeType().name());
+      generator.writeStringField("createdAt", event.getCreatedAt().toString());
+      generator.writeFieldName("payload");
+      if (event.getPayload() != null) {
+        generator.writeRawValue(event.getPayload());
+      } else {
+        generator.writeNull();
+      }
+      generator.writeEndObject();
+    }
+    out.write('\n');
+  }
+}
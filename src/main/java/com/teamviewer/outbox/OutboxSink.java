@@ -0,0 +1,18 @@
+package com.teamviewer.outbox;
+
+import com.teamviewer.entity.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * Where {@code OutboxRelayService} publishes change events, one batch at a time and in ID order.
+ * The relay deletes a batch once {@link #publish} returns, so an implementation must only return
+ * once the events are safely handed over. If it throws, the batch is kept and offered again on the
+ * next run: a sink can see an event more than once, and consumers skip event IDs they have seen.
+ *
+ * <p>The sink is picked by {@code outbox.sink}; {@link FileOutboxSink} is the default.
+ */
+public interface OutboxSink {
+
+  void publish(List<OutboxEvent> events);
+}
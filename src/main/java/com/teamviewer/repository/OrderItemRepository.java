@@ -1,8 +1,116 @@
 package com.teamviewer.repository;
 
 import com.teamviewer.entity.OrderItem;
+import com.teamviewer.repository.projection.OrderItemLineView;
+import com.teamviewer.repository.projection.OrderItemView;
+import com.teamviewer.repository.projection.OrderTotalView;
+import com.teamviewer.repository.projection.ProductSalesView;
+import com.teamviewer.repository.projection.RevenueBucketView;
+import com.teamviewer.repository.projection.VersionView;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
 @Repository
-public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {}
+public interface OrderItemRepository
+    extends JpaRepository<OrderItem, Long>, PartialUpdateRepository {
+
+  Slice<OrderItem> findByIdGreaterThanOrderByIdAsc(Long after, Pageable pageable);
+
+  Optional<OrderItemLineView> findLineById(Long id);
+
+  /**
+   * Locks the existing items among {@code ids}, in ID order, so their sales can be summed before
+   * they are deleted without a concurrent change slipping in between.
+   */
+  @Query(
+      value = "select id, version from tb_order_item where id = any(?1) order by id for update",
+      nativeQuery = true)
+  List<VersionView> findVersionsForUpdate(Long[] ids);
+
+  /** As {@link #findVersionsForUpdate}, for all items of the given orders. */
+  @Query(
+      value = "select id from tb_order_item where order_id = any(?1) order by id for update",
+      nativeQuery = true)
+  List<Long> lockByOrderIds(Long[] orderIds);
+
+  @Modifying
+  @Query(value = "delete from tb_order_item where id = any(?1)", nativeQuery = true)
+  int deleteAllByIds(Long[] ids);
+
+  /** One set-based DELETE for the items of all the given orders. */
+  @Modifying
+  @Query(value = "delete from tb_order_item where order_id = any(?1)", nativeQuery = true)
+  int deleteAllByOrderIds(Long[] orderIds);
+
+  /** Range scan over {@code idx_order_item_order_id}, already ordered by the index. */
+  List<OrderItemView> findByOrderIdOrderByIdAsc(Integer orderId);
+
+  /**
+   * Forward-only cursor over all order items. Must be consumed inside a transaction so the
+   * PostgreSQL driver honours the fetch size instead of buffering the whole result set.
+   */
+  @Query("select i from OrderItem i order by i.id")
+  @QueryHints({
+    @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+    @QueryHint(name = HINT_READ_ONLY, value = "true"),
+    @QueryHint(name = HINT_CACHEABLE, value = "false")
+  })
+  Stream<OrderItem> streamAll();
+
+  @Query(
+      "select i.orderId as orderId, sum(i.unitPrice * i.quantity) as total from OrderItem i"
+          + " where i.orderId in :orderIds group by i.orderId")
+  List<OrderTotalView> sumTotalsByOrderIds(@Param("orderIds") Collection<Integer> orderIds);
+
+  /** Sales of the given order items per product, to take off the read model before a delete. */
+  @Query(
+      value =
+          "select product_id as productId, sum(quantity) as quantity,"
+              + " coalesce(sum(unit_price * quantity), 0) as revenue, count(*) as orderLines"
+              + " from tb_order_item where id = any(?1) and product_id is not null"
+              + " group by product_id",
+      nativeQuery = true)
+  List<ProductSalesView> sumSalesByIds(Long[] ids);
+
+  /** As {@link #sumSalesByIds}, for all items of the given orders. */
+  @Query(
+      value =
+          "select product_id as productId, sum(quantity) as quantity,"
+              + " coalesce(sum(unit_price * quantity), 0) as revenue, count(*) as orderLines"
+              + " from tb_order_item where order_id = any(?1) and product_id is not null"
+              + " group by product_id",
+      nativeQuery = true)
+  List<ProductSalesView> sumSalesByOrderIds(Long[] orderIds);
+
+  /**
+   * Orders grouped by their total into buckets of the given width (in cents precision), lowest
+   * first, at most {@code limit} buckets. Totals are summed from the items, orders without items
+   * are not counted.
+   */
+  @Query(
+      value =
+          "select t.bucket as bucket, count(*) as orders, sum(t.total) as revenue"
+              + " from (select floor(sum(unit_price * quantity) / cast(?1 as decimal(19, 2)))"
+              + " as bucket,"
+              + " sum(unit_price * quantity) as total from tb_order_item group by order_id) t"
+              + " group by t.bucket order by t.bucket limit ?2",
+      nativeQuery = true)
+  List<RevenueBucketView> sumRevenueByOrderTotalBucket(BigDecimal width, int limit);
+}
@@ -1,8 +1,66 @@
 package com.teamviewer.repository;
 
 import com.teamviewer.entity.Order;
+import com.teamviewer.repository.projection.VersionView;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.List;
+
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {}
+public interface OrderRepository extends JpaRepository<Order, Long>, PartialUpdateRepository {
+
+  Slice<Order> findByIdGreaterThanOrderByIdAsc(Long after, Pageable pageable);
+
+  /**
+   * Locks the next batch of orders so item changes cannot apply a delta between reading a total and
+   * correcting it.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select o from Order o where o.id > :after order by o.id")
+  Slice<Order> findBatchForUpdate(@Param("after") Long after, Pageable pageable);
+
+  /**
+   * Adds {@code delta} to the stored total in place, so concurrent item changes on the same order
+   * never overwrite each other.
+   *
+   * @return 1 if the order exists, 0 otherwise
+   */
+  @Modifying
+  @Query(
+      "update Order o set o.totalamount = coalesce(o.totalamount, 0) + :delta,"
+          + " o.version = o.version + 1 where o.id = :id")
+  int addToTotal(@Param("id") Long id, @Param("delta") BigDecimal delta);
+
+  /** Takes the line totals of the given items off their orders' totals, before they are deleted. */
+  @Modifying
+  @Query(
+      value =
+          "update tb_order o set totalamount = coalesce(o.totalamount, 0) - coalesce(("
+              + "select sum(i.unit_price * i.quantity) from tb_order_item i"
+              + " where i.order_id = o.id and i.id = any(?1)), 0), version = o.version + 1"
+              + " where o.id in (select i.order_id from tb_order_item i where i.id = any(?1))",
+      nativeQuery = true)
+  int subtractItemTotals(Long[] itemIds);
+
+  /**
+   * Locks the existing orders among {@code ids}, in ID order. New items of a locked order wait for
+   * the lock, since adding them updates the order's total.
+   */
+  @Query(
+      value = "select id, version from tb_order where id = any(?1) order by id for update",
+      nativeQuery = true)
+  List<VersionView> findVersionsForUpdate(Long[] ids);
+
+  @Modifying
+  @Query(value = "delete from tb_order where id = any(?1)", nativeQuery = true)
+  int deleteAllByIds(Long[] ids);
+}
@@ -0,0 +1,37 @@
+package com.teamviewer.repository;
+
+import com.teamviewer.entity.OutboxEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+import static org.hibernate.jpa.SpecHints.HINT_SPEC_LOCK_TIMEOUT;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+  /** {@code LockOptions.SKIP_LOCKED} as a lock timeout hint. */
+  String SKIP_LOCKED = "-2";
+
+  /**
+   * Locks the oldest events that no other relay has locked ({@code FOR UPDATE SKIP LOCKED} on
+   * PostgreSQL), so relays on several instances publish different batches side by side instead of
+   * waiting for each other or publishing a batch twice.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @QueryHints(@QueryHint(name = HINT_SPEC_LOCK_TIMEOUT, value = SKIP_LOCKED))
+  @Query("select e from OutboxEvent e order by e.id")
+  List<OutboxEvent> findOldestForUpdate(Pageable pageable);
+
+  @Modifying
+  @Query(value = "delete from tb_outbox_event where id = any(?1)", nativeQuery = true)
+  int deleteAllByIds(Long[] ids);
+}
@@ -0,0 +1,27 @@
+package com.teamviewer.repository;
+
+import java.util.Map;
+
+/**
+ * Partial updates in a single UPDATE statement: only the given attributes are written and the
+ * version is bumped in the same statement, without loading the entity first. Like any bulk
+ * update it bypasses the persistence context and the entity's cache entries.
+ */
+public interface PartialUpdateRepository {
+
+  /**
+   * @param version the version the row must still have, or {@code null} to update any version
+   * @param values new values by attribute name, in the order they are set
+   * @return 1 if the row was updated, 0 if it does not exist or has another version
+   */
+  <T> int updatePartially(Class<T> entityType, Long id, Long version, Map<String, Object> values);
+
+  /**
+   * As {@link #updatePartially} for any version, returning the version the UPDATE wrote from the
+   * same statement rather than reading it back.
+   *
+   * @return the new version, or {@code null} if the row does not exist
+   */
+  <T> Long updatePartiallyReturningVersion(
+      Class<T> entityType, Long id, Map<String, Object> values);
+}
@@ -0,0 +1,73 @@
+package com.teamviewer.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+class PartialUpdateRepositoryImpl implements PartialUpdateRepository {
+
+  private final EntityManager entityManager;
+
+  @Override
+  public <T> int updatePartially(
+      Class<T> entityType, Long id, Long version, Map<String, Object> values) {
+    CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+    CriteriaUpdate<T> update = cb.createCriteriaUpdate(entityType);
+    Root<T> root = update.from(entityType);
+    values.forEach(update::set);
+    update.set(root.<Long>get("version"), cb.sum(root.<Long>get("version"), 1L));
+    update.where(
+        version == null
+            ? cb.equal(root.get("id"), id)
+            : cb.and(cb.equal(root.get("id"), id), cb.equal(root.get("version"), version)));
+    return entityManager.createQuery(update).executeUpdate();
+  }
+
+  /**
+   * Native SQL, as JPQL has no way to return what an UPDATE wrote: {@code UPDATE ... RETURNING} on
+   * PostgreSQL, and the standard data change delta table {@code SELECT ... FROM FINAL TABLE
+   * (UPDATE ...)} elsewhere, for H2 in the tests.
+   */
+  @Override
+  public <T> Long updatePartiallyReturningVersion(
+      Class<T> entityType, Long id, Map<String, Object> values) {
+    SessionFactoryImplementor sessionFactory =
+        entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class);
+    AbstractEntityPersister persister =
+        (AbstractEntityPersister)
+            sessionFactory.getMappingMetamodel().getEntityDescriptor(entityType);
+    String versionColumn = persister.getVersionColumnName();
+    StringBuilder update = new StringBuilder("update ").append(persister.getTableName());
+    int position = 1;
+    for (String attribute : values.keySet()) {
+      update.append(position == 1 ? " set " : ", ");
+      update.append(persister.getPropertyColumnNames(attribute)[0]).append(" = ?").append(position);
+      position++;
+    }
+    update.append(", ").append(versionColumn).append(" = ").append(versionColumn).append(" + 1");
+    update.append(" where ").append(persister.getIdentifierColumnNames()[0]);
+    update.append(" = ?").append(position);
+    String sql =
+        sessionFactory.getJdbcServices().getDialect() instanceof PostgreSQLDialect
+            ? update + " returning " + versionColumn
+            : "select " + versionColumn + " from final table (" + update + ")";
+    Query query = entityManager.createNativeQuery(sql);
+    position = 1;
+    for (Object value : values.values()) {
+      query.setParameter(position++, value);
+    }
+    query.setParameter(position, id);
+    List<?> versions = query.getResultList();
+    return versions.isEmpty() ? null : ((Number) versions.get(0)).longValue();
+  }
+}
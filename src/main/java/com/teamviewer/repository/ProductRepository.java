@@ -1,8 +1,91 @@
 package com.teamviewer.repository;
 
 import com.teamviewer.entity.Product;
+import com.teamviewer.repository.projection.ProductTextView;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {}
+public interface ProductRepository
+    extends JpaRepository<Product, Long>, PartialUpdateRepository {
+
+  Slice<Product> findByIdGreaterThanOrderByIdAsc(Long after, Pageable pageable);
+
+  Optional<ProductTextView> findTextById(Long id);
+
+  @Query(
+      value = "select id, name, description, version from tb_product where id = any(?1)",
+      nativeQuery = true)
+  List<ProductTextView> findTextByIds(Long[] ids);
+
+  /** Locks the products, in ID order, so their text and version stay as read until they go. */
+  @Query(
+      value =
+          "select id, name, description, version from tb_product where id = any(?1)"
+              + " order by id for update",
+      nativeQuery = true)
+  List<ProductTextView> findTextByIdsForUpdate(Long[] ids);
+
+  @Modifying
+  @Query(value = "delete from tb_product where id = any(?1)", nativeQuery = true)
+  int deleteAllByIds(Long[] ids);
+
+  /**
+   * Takes {@code quantity} units in a single conditional UPDATE, so concurrent callers never
+   * oversell.
+   *
+   * @return 1 if the stock was decremented, 0 if the product is missing or has too little stock
+   */
+  @Modifying
+  @Query(
+      "update Product p set p.stock = p.stock - :quantity, p.version = p.version + 1"
+          + " where p.id = :id and p.stock >= :quantity")
+  int decrementStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+  /** Applies a net stock change computed elsewhere, e.g. by the hot inventory flush. */
+  @Modifying
+  @Query(
+      "update Product p set p.stock = coalesce(p.stock, 0) - :delta, p.version = p.version + 1"
+          + " where p.id = :id")
+  int subtractStock(@Param("id") Long id, @Param("delta") int delta);
+
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select p from Product p where p.id = :id")
+  Optional<Product> findByIdForUpdate(@Param("id") Long id);
+
+  /** @return 1 if the stock was incremented, 0 if the product is missing */
+  @Modifying
+  @Query(
+      "update Product p set p.stock = coalesce(p.stock, 0) + :quantity, p.version = p.version + 1"
+          + " where p.id = :id")
+  int incrementStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+  /**
+   * Forward-only cursor over the searchable text of all products in ID order. Must be consumed
+   * inside a transaction so the PostgreSQL driver honours the fetch size.
+   */
+  @Query(
+      "select p.id as id, p.name as name, p.description as description, p.version as version"
+          + " from Product p order by p.id")
+  @QueryHints({
+    @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+    @QueryHint(name = HINT_READ_ONLY, value = "true")
+  })
+  Stream<ProductTextView> streamAllText();
+}
@@ -0,0 +1,47 @@
+package com.teamviewer.repository;
+
+import com.teamviewer.entity.ProductSales;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+@Repository
+public interface ProductSalesRepository
+    extends JpaRepository<ProductSales, Long>, SalesUpsertRepository {
+
+  @Modifying
+  @Query(value = "delete from tb_product_sales", nativeQuery = true)
+  int deleteAllSales();
+
+  /**
+   * Recomputes all counters from the order items in one set-based statement, aggregated over the
+   * covering {@code idx_order_item_product_sales}. The table must be empty.
+   */
+  @Modifying
+  @Query(
+      value =
+          "insert into tb_product_sales (product_id, quantity, revenue, order_lines)"
+              + " select product_id, coalesce(sum(quantity), 0),"
+              + " coalesce(sum(unit_price * quantity), 0), count(*) from tb_order_item"
+              + " where product_id is not null group by product_id",
+      nativeQuery = true)
+  int insertFromOrderItems();
+
+  /** Forward-only cursor over all counters, see {@link OrderItemRepository#streamAll()}. */
+  @Query("select s from ProductSales s")
+  @QueryHints({
+    @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+    @QueryHint(name = HINT_READ_ONLY, value = "true"),
+    @QueryHint(name = HINT_CACHEABLE, value = "false")
+  })
+  Stream<ProductSales> streamAll();
+}
@@ -0,0 +1,16 @@
+package com.teamviewer.repository;
+
+import java.math.BigDecimal;
+
+/** Adds sales to {@code tb_product_sales} in one atomic statement, see {@link #upsertSales}. */
+public interface SalesUpsertRepository {
+
+  /**
+   * Adds the deltas to the product's counters, creating them if the product has none yet. A single
+   * upsert, so concurrent first sales of a product neither collide on the key nor overwrite each
+   * other.
+   *
+   * @return the number of rows written, always 1
+   */
+  int upsertSales(Long productId, long quantity, BigDecimal revenue, long orderLines);
+}
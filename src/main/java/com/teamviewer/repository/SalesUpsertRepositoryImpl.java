@@ -0,0 +1,53 @@
+package com.teamviewer.repository;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import java.math.BigDecimal;
+
+@RequiredArgsConstructor
+class SalesUpsertRepositoryImpl implements SalesUpsertRepository {
+
+  /** Row-locks the existing counters, or waits for a concurrent insert of them and updates then. */
+  private static final String POSTGRESQL_UPSERT =
+      "insert into tb_product_sales (product_id, quantity, revenue, order_lines)"
+          + " values (?1, ?2, ?3, ?4) on conflict (product_id) do update"
+          + " set quantity = tb_product_sales.quantity + excluded.quantity,"
+          + " revenue = tb_product_sales.revenue + excluded.revenue,"
+          + " order_lines = tb_product_sales.order_lines + excluded.order_lines";
+
+  /** Standard MERGE, for H2 in the tests. */
+  private static final String MERGE_UPSERT =
+      "merge into tb_product_sales s"
+          + " using (values (cast(?1 as bigint), cast(?2 as bigint), cast(?3 as numeric(19, 2)),"
+          + " cast(?4 as bigint))) v (product_id, quantity, revenue, order_lines)"
+          + " on s.product_id = v.product_id"
+          + " when matched then update set quantity = s.quantity + v.quantity,"
+          + " revenue = s.revenue + v.revenue, order_lines = s.order_lines + v.order_lines"
+          + " when not matched then insert (product_id, quantity, revenue, order_lines)"
+          + " values (v.product_id, v.quantity, v.revenue, v.order_lines)";
+
+  private final EntityManager entityManager;
+
+  @Override
+  public int upsertSales(Long productId, long quantity, BigDecimal revenue, long orderLines) {
+    return entityManager
+        .createNativeQuery(isPostgreSql() ? POSTGRESQL_UPSERT : MERGE_UPSERT)
+        .setParameter(1, productId)
+        .setParameter(2, quantity)
+        .setParameter(3, revenue)
+        .setParameter(4, orderLines)
+        .executeUpdate();
+  }
+
+  private boolean isPostgreSql() {
+    return entityManager
+            .getEntityManagerFactory()
+            .unwrap(SessionFactoryImplementor.class)
+            .getJdbcServices()
+            .getDialect()
+        instanceof PostgreSQLDialect;
+  }
+}
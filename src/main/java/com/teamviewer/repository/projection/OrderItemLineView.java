@@ -0,0 +1,20 @@
+package com.teamviewer.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * What an order item contributes to its order's total and its product's sales, as of {@link
+ * #getVersion()}.
+ */
+public interface OrderItemLineView {
+
+  Integer getOrderId();
+
+  Integer getProductId();
+
+  Integer getQuantity();
+
+  BigDecimal getUnitPrice();
+
+  Long getVersion();
+}
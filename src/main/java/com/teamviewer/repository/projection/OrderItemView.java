@@ -0,0 +1,15 @@
+package com.teamviewer.repository.projection;
+
+import java.math.BigDecimal;
+
+/** Read-only line of an order; selects only these columns and is never attached to a session. */
+public interface OrderItemView {
+
+  Long getId();
+
+  Integer getProductId();
+
+  Integer getQuantity();
+
+  BigDecimal getUnitPrice();
+}
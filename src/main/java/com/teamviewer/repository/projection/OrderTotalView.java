@@ -0,0 +1,11 @@
+package com.teamviewer.repository.projection;
+
+import java.math.BigDecimal;
+
+/** Sum of {@code unitPrice * quantity} over the items of one order. */
+public interface OrderTotalView {
+
+  Integer getOrderId();
+
+  BigDecimal getTotal();
+}
@@ -0,0 +1,15 @@
+package com.teamviewer.repository.projection;
+
+import java.math.BigDecimal;
+
+/** Units, revenue and number of a set of order items of one product. */
+public interface ProductSalesView {
+
+  Long getProductId();
+
+  Long getQuantity();
+
+  BigDecimal getRevenue();
+
+  Long getOrderLines();
+}
@@ -0,0 +1,16 @@
+package com.teamviewer.repository.projection;
+
+/**
+ * The searchable text of a product as of {@link #getVersion()}, for maintaining the search index
+ * without loading entities.
+ */
+public interface ProductTextView {
+
+  Long getId();
+
+  String getName();
+
+  String getDescription();
+
+  Long getVersion();
+}
@@ -0,0 +1,13 @@
+package com.teamviewer.repository.projection;
+
+import java.math.BigDecimal;
+
+/** Orders whose total is in {@code [bucket * width, (bucket + 1) * width)}, and their revenue. */
+public interface RevenueBucketView {
+
+  BigDecimal getBucket();
+
+  Long getOrders();
+
+  BigDecimal getRevenue();
+}
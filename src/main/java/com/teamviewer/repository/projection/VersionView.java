@@ -0,0 +1,9 @@
+package com.teamviewer.repository.projection;
+
+/** The ID and current version of a row, e.g. for the DELETED event of a row about to go. */
+public interface VersionView {
+
+  Long getId();
+
+  Long getVersion();
+}
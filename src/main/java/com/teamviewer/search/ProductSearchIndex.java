@@ -0,0 +1,599 @@
+package com.teamviewer.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Inverted index over product names and descriptions, held entirely in memory.
+ *
+ * <p>Text is split on anything that is not a letter or digit and lower-cased; tokens shorter than
+ * two characters and a few English stop words are dropped, except a stop word ending a query: it
+ * may be the start of a longer word. Each term maps to a postings list of (product ID, weight)
+ * pairs sorted by ID and stored as a byte array: the ID as a varint delta from the previous one,
+ * the weight as one byte holding the capped term frequency in the name (high nibble) and in the
+ * description (low nibble). With sequence-generated IDs a posting takes two to four bytes, so a
+ * million-SKU catalog with a dozen distinct terms per product fits in a few tens of megabytes.
+ * Products indexed in ascending ID order (the startup scan, new products) are appended; anything
+ * else rewrites the postings of the affected terms.
+ *
+ * <p>Every query token must match a term either exactly or as a prefix. Matches are ranked by a
+ * BM25-style score: inverse document frequency times saturated term frequency, with name matches
+ * counting {@value #NAME_BOOST} times as much as description matches and prefix matches half as
+ * much as exact ones. A prefix matching more than {@value #MAX_EXPANSIONS} terms is expanded to
+ * the most frequent of them. Reads share a lock and writes take it exclusively.
+ */
+public final class ProductSearchIndex {
+
+  /** A matching product and its relevance; higher scores rank first. */
+  public record Hit(long id, float score) {}
+
+  static final int MIN_TOKEN_LENGTH = 2;
+
+  static final int MAX_TOKEN_LENGTH = 32;
+
+  /**
+   * Most terms a single query prefix is expanded to: the exact term, if any, and the ones found in
+   * the most products.
+   */
+  static final int MAX_EXPANSIONS = 64;
+
+  private static final float NAME_BOOST = 3f;
+
+  private static final float PREFIX_FACTOR = 0.5f;
+
+  private static final float K1 = 1.2f;
+
+  private static final int MAX_TF = 15;
+
+  /** Best first: higher score, then lower ID. */
+  private static final Comparator<Hit> RANKING =
+      Comparator.comparingDouble(Hit::score).reversed().thenComparingLong(Hit::id);
+
+  /** Rough per-term heap cost besides the postings bytes: map entries, string and holder. */
+  private static final int TERM_OVERHEAD_BYTES = 160;
+
+  private static final Set<String> STOP_WORDS =
+      Set.of(
+          "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is", "it", "of", "on",
+          "or", "the", "to", "with");
+
+  /** Exact lookups while indexing. */
+  private final Map<String, Postings> terms = new HashMap<>();
+
+  /** The same postings in term order, for expanding query prefixes. */
+  private final NavigableMap<String, Postings> sortedTerms = new TreeMap<>();
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private int documents;
+
+  /** Adds a product that is not in the index yet. */
+  public void add(long id, String name, String description) {
+    Map<String, Integer> weights = weigh(name, description);
+    lock.writeLock().lock();
+    try {
+      weights.forEach((term, weight) -> postingsOf(term).put(id, weight));
+      documents++;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Re-indexes a product whose text changed from the old to the new values. Only terms whose
+   * weight differs are touched, so an update that leaves the text alone costs nothing.
+   */
+  public void update(
+      long id, String oldName, String oldDescription, String name, String description) {
+    Map<String, Integer> before = weigh(oldName, oldDescription);
+    Map<String, Integer> after = weigh(name, description);
+    if (before.equals(after)) {
+      return;
+    }
+    lock.writeLock().lock();
+    try {
+      before.keySet().stream()
+          .filter(term -> !after.containsKey(term))
+          .forEach(term -> removePosting(term, id));
+      after.forEach(
+          (term, weight) -> {
+            if (!weight.equals(before.get(term))) {
+              postingsOf(term).put(id, weight);
+            }
+          });
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /** Removes a product, given the text it was last indexed with. */
+  public void remove(long id, String name, String description) {
+    Map<String, Integer> weights = weigh(name, description);
+    lock.writeLock().lock();
+    try {
+      weights.keySet().forEach(term -> removePosting(term, id));
+      documents = Math.max(0, documents - 1);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /** Removes products whatever text they were indexed with, by scanning every postings list. */
+  public void removeAll(Set<Long> ids) {
+    if (ids.isEmpty()) {
+      return;
+    }
+    lock.writeLock().lock();
+    try {
+      removeAllLocked(ids);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Gives products the postings they have in {@code source}, dropping the ones they have here. Used
+   * to carry recent changes over to an index rebuilt from a snapshot that may predate them.
+   */
+  public void copy(ProductSearchIndex source, Set<Long> ids) {
+    if (ids.isEmpty()) {
+      return;
+    }
+    Map<String, Map<Long, Integer>> copied = new HashMap<>();
+    source.lock.readLock().lock();
+    try {
+      source.terms.forEach(
+          (term, postings) ->
+              postings.forEach(
+                  (id, weight) -> {
+                    if (ids.contains(id)) {
+                      copied.computeIfAbsent(term, key -> new HashMap<>()).put(id, weight);
+                    }
+                  }));
+    } finally {
+      source.lock.readLock().unlock();
+    }
+    Set<Long> present = new HashSet<>();
+    copied.values().forEach(weights -> present.addAll(weights.keySet()));
+    lock.writeLock().lock();
+    try {
+      removeAllLocked(ids);
+      copied.forEach((term, weights) -> weights.forEach(postingsOf(term)::put));
+      documents += present.size();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /** @return at most {@code limit} products matching every token of the query, best first */
+  public List<Hit> search(String query, int limit) {
+    Set<String> tokens = new LinkedHashSet<>();
+    tokenize(query, true, tokens::add);
+    if (tokens.isEmpty() || limit <= 0) {
+      return List.of();
+    }
+    Scored matches = null;
+    lock.readLock().lock();
+    try {
+      for (String token : tokens) {
+        Scored tokenMatches = match(token);
+        if (tokenMatches.size == 0 && STOP_WORDS.contains(token)) {
+          // A stop word still being typed that turned out not to start any term
+          continue;
+        }
+        matches = matches == null ? tokenMatches : matches.intersect(tokenMatches);
+        if (matches.size == 0) {
+          return List.of();
+        }
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    return matches == null ? List.of() : matches.top(limit);
+  }
+
+  /** Releases the spare capacity of every postings list, e.g. after the initial bulk load. */
+  public void trimToSize() {
+    lock.writeLock().lock();
+    try {
+      terms.values().forEach(Postings::trimToSize);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public int documents() {
+    lock.readLock().lock();
+    try {
+      return documents;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public int terms() {
+    lock.readLock().lock();
+    try {
+      return terms.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** @return approximate heap footprint of the dictionary and postings */
+  public long estimatedBytes() {
+    lock.readLock().lock();
+    try {
+      long bytes = 0;
+      for (Map.Entry<String, Postings> entry : terms.entrySet()) {
+        bytes += TERM_OVERHEAD_BYTES + entry.getKey().length() + entry.getValue().data.length;
+      }
+      return bytes;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private Postings postingsOf(String term) {
+    Postings postings = terms.get(term);
+    if (postings == null) {
+      postings = new Postings();
+      terms.put(term, postings);
+      sortedTerms.put(term, postings);
+    }
+    return postings;
+  }
+
+  private void removeAllLocked(Set<Long> ids) {
+    Set<Long> removed = new HashSet<>();
+    terms.entrySet().removeIf(
+        entry -> {
+          Postings postings = entry.getValue();
+          if (!postings.removeAll(ids, removed) || postings.count > 0) {
+            return false;
+          }
+          sortedTerms.remove(entry.getKey());
+          return true;
+        });
+    documents = Math.max(0, documents - removed.size());
+  }
+
+  private void removePosting(String term, long id) {
+    Postings postings = terms.get(term);
+    if (postings != null && postings.remove(id) && postings.count == 0) {
+      terms.remove(term);
+      sortedTerms.remove(term);
+    }
+  }
+
+  /** Union of the postings of every term starting with {@code token}, at its best score per ID. */
+  private Scored match(String token) {
+    List<Scored> lists = new ArrayList<>();
+    for (Map.Entry<String, Postings> entry : expand(token)) {
+      Postings postings = entry.getValue();
+      float idf = (float) Math.log(1 + (documents - postings.count + 0.5) / (postings.count + 0.5));
+      float factor = entry.getKey().length() == token.length() ? 1f : PREFIX_FACTOR;
+      lists.add(postings.decode(idf * factor));
+    }
+    if (lists.isEmpty()) {
+      return new Scored(0);
+    }
+    while (lists.size() > 1) {
+      List<Scored> merged = new ArrayList<>((lists.size() + 1) / 2);
+      for (int i = 0; i < lists.size(); i += 2) {
+        merged.add(i + 1 < lists.size() ? lists.get(i).union(lists.get(i + 1)) : lists.get(i));
+      }
+      lists = merged;
+    }
+    return lists.get(0);
+  }
+
+  /**
+   * The terms starting with {@code token}, at most {@link #MAX_EXPANSIONS} of them. Past that the
+   * rarest are left out: they add the fewest matches, and a longer prefix still reaches them.
+   */
+  private Collection<Map.Entry<String, Postings>> expand(String token) {
+    NavigableMap<String, Postings> matching =
+        sortedTerms.subMap(token, true, token + Character.MAX_VALUE, false);
+    if (matching.size() <= MAX_EXPANSIONS) {
+      return matching.entrySet();
+    }
+    List<Map.Entry<String, Postings>> expansions = new ArrayList<>(MAX_EXPANSIONS);
+    Postings exact = terms.get(token);
+    if (exact != null) {
+      expansions.add(Map.entry(token, exact));
+    }
+    int slots = MAX_EXPANSIONS - expansions.size();
+    PriorityQueue<Map.Entry<String, Postings>> rarestFirst =
+        new PriorityQueue<>(
+            slots + 1,
+            Comparator.comparingInt((Map.Entry<String, Postings> entry) -> entry.getValue().count));
+    for (Map.Entry<String, Postings> entry : matching.tailMap(token, false).entrySet()) {
+      rarestFirst.add(entry);
+      if (rarestFirst.size() > slots) {
+        rarestFirst.poll();
+      }
+    }
+    expansions.addAll(rarestFirst);
+    return expansions;
+  }
+
+  private static Map<String, Integer> weigh(String name, String description) {
+    Map<String, Integer> weights = new HashMap<>();
+    tokenize(name, term -> weights.merge(term, 1 << 4, ProductSearchIndex::addWeights));
+    tokenize(description, term -> weights.merge(term, 1, ProductSearchIndex::addWeights));
+    return weights;
+  }
+
+  private static int addWeights(int a, int b) {
+    int nameTf = Math.min(MAX_TF, (a >>> 4) + (b >>> 4));
+    int descriptionTf = Math.min(MAX_TF, (a & MAX_TF) + (b & MAX_TF));
+    return nameTf << 4 | descriptionTf;
+  }
+
+  private static float score(int weight) {
+    return NAME_BOOST * saturate(weight >>> 4) + saturate(weight & MAX_TF);
+  }
+
+  private static float saturate(int tf) {
+    return tf * (K1 + 1) / (tf + K1);
+  }
+
+  static void tokenize(String text, Consumer<String> sink) {
+    tokenize(text, false, sink);
+  }
+
+  /**
+   * @param typing whether the text is a query that may end in a word still being typed: a stop word
+   *     there is passed on, as it may be the start of a longer word such as "toaster"
+   */
+  private static void tokenize(String text, boolean typing, Consumer<String> sink) {
+    if (text == null) {
+      return;
+    }
+    StringBuilder token = new StringBuilder(MAX_TOKEN_LENGTH);
+    for (int i = 0; i <= text.length(); i++) {
+      char c = i < text.length() ? text.charAt(i) : ' ';
+      if (Character.isLetterOrDigit(c)) {
+        if (token.length() < MAX_TOKEN_LENGTH) {
+          token.append(Character.toLowerCase(c));
+        }
+      } else if (!token.isEmpty()) {
+        String term = token.toString();
+        boolean last = typing && i == text.length();
+        if (term.length() >= MIN_TOKEN_LENGTH && (last || !STOP_WORDS.contains(term))) {
+          sink.accept(term);
+        }
+        token.setLength(0);
+      }
+    }
+  }
+
+  /** Delta-varint encoded (ID, weight) pairs in ascending ID order. */
+  private static final class Postings {
+
+    private byte[] data = new byte[8];
+
+    private int length;
+
+    private int count;
+
+    private long lastId;
+
+    void put(long id, int weight) {
+      if (count == 0 || id > lastId) {
+        append(id, weight);
+        return;
+      }
+      rewrite(id, weight);
+    }
+
+    /** @return {@code true} if the ID was present */
+    boolean remove(long id) {
+      if (count == 0 || id > lastId) {
+        return false;
+      }
+      int before = count;
+      rewrite(id, -1);
+      return count < before;
+    }
+
+    /**
+     * Drops the postings of the given IDs, adding them to {@code removed}.
+     *
+     * @return {@code true} if any was present
+     */
+    boolean removeAll(Set<Long> ids, Set<Long> removed) {
+      Postings kept = new Postings();
+      kept.data = new byte[data.length];
+      forEach(
+          (id, weight) -> {
+            if (ids.contains(id)) {
+              removed.add(id);
+            } else {
+              kept.append(id, weight);
+            }
+          });
+      if (kept.count == count) {
+        return false;
+      }
+      data = kept.data;
+      length = kept.length;
+      count = kept.count;
+      lastId = kept.lastId;
+      return true;
+    }
+
+    void forEach(PostingConsumer consumer) {
+      long current = 0;
+      int position = 0;
+      while (position < length) {
+        long delta = 0;
+        int shift = 0;
+        byte b;
+        do {
+          b = data[position++];
+          delta |= (long) (b & 0x7F) << shift;
+          shift += 7;
+        } while (b < 0);
+        current += delta;
+        consumer.accept(current, data[position++] & 0xFF);
+      }
+    }
+
+    /** Re-encodes the list with {@code id} set to {@code weight}, or dropped if it is negative. */
+    private void rewrite(long id, int weight) {
+      Postings rewritten = new Postings();
+      rewritten.data = new byte[data.length + 16];
+      boolean written = weight < 0;
+      long current = 0;
+      int position = 0;
+      while (position < length) {
+        long delta = 0;
+        int shift = 0;
+        byte b;
+        do {
+          b = data[position++];
+          delta |= (long) (b & 0x7F) << shift;
+          shift += 7;
+        } while (b < 0);
+        current += delta;
+        int currentWeight = data[position++] & 0xFF;
+        if (!written && current >= id) {
+          rewritten.append(id, weight);
+          written = true;
+        }
+        if (current != id) {
+          rewritten.append(current, currentWeight);
+        }
+      }
+      if (!written) {
+        rewritten.append(id, weight);
+      }
+      data = rewritten.data;
+      length = rewritten.length;
+      count = rewritten.count;
+      lastId = rewritten.lastId;
+    }
+
+    private void append(long id, int weight) {
+      if (length + 11 > data.length) {
+        data = Arrays.copyOf(data, Math.max(length + 11, data.length + (data.length >> 1)));
+      }
+      long delta = id - lastId;
+      while ((delta & ~0x7FL) != 0) {
+        data[length++] = (byte) ((delta & 0x7F) | 0x80);
+        delta >>>= 7;
+      }
+      data[length++] = (byte) delta;
+      data[length++] = (byte) weight;
+      lastId = id;
+      count++;
+    }
+
+    Scored decode(float boost) {
+      Scored scored = new Scored(count);
+      forEach((id, weight) -> scored.add(id, boost * score(weight)));
+      return scored;
+    }
+
+    void trimToSize() {
+      if (data.length > length) {
+        data = Arrays.copyOf(data, length);
+      }
+    }
+  }
+
+  @FunctionalInterface
+  private interface PostingConsumer {
+
+    void accept(long id, int weight);
+  }
+
+  /** Product IDs in ascending order with a score each. */
+  private static final class Scored {
+
+    private final long[] ids;
+
+    private final float[] scores;
+
+    private int size;
+
+    Scored(int capacity) {
+      ids = new long[capacity];
+      scores = new float[capacity];
+    }
+
+    void add(long id, float score) {
+      ids[size] = id;
+      scores[size++] = score;
+    }
+
+    /** IDs in either list, keeping the higher score. */
+    Scored union(Scored other) {
+      Scored result = new Scored(size + other.size);
+      int i = 0;
+      int j = 0;
+      while (i < size || j < other.size) {
+        if (j == other.size || (i < size && ids[i] < other.ids[j])) {
+          result.add(ids[i], scores[i++]);
+        } else if (i == size || other.ids[j] < ids[i]) {
+          result.add(other.ids[j], other.scores[j++]);
+        } else {
+          result.add(ids[i], Math.max(scores[i++], other.scores[j++]));
+        }
+      }
+      return result;
+    }
+
+    /** IDs in both lists, adding up the scores. */
+    Scored intersect(Scored other) {
+      Scored result = new Scored(Math.min(size, other.size));
+      int i = 0;
+      int j = 0;
+      while (i < size && j < other.size) {
+        if (ids[i] < other.ids[j]) {
+          i++;
+        } else if (other.ids[j] < ids[i]) {
+          j++;
+        } else {
+          result.add(ids[i], scores[i++] + other.scores[j++]);
+        }
+      }
+      return result;
+    }
+
+    /** The {@code limit} best hits in {@link #RANKING} order. */
+    List<Hit> top(int limit) {
+      PriorityQueue<Hit> worstFirst =
+          new PriorityQueue<>(Math.min(limit, Math.max(1, size)), RANKING.reversed());
+      for (int i = 0; i < size; i++) {
+        if (worstFirst.size() < limit) {
+          worstFirst.add(new Hit(ids[i], scores[i]));
+        } else if (scores[i] > worstFirst.peek().score()) {
+          worstFirst.poll();
+          worstFirst.add(new Hit(ids[i], scores[i]));
+        }
+      }
+      Hit[] hits = new Hit[worstFirst.size()];
+      for (int i = hits.length - 1; i >= 0; i--) {
+        hits[i] = worstFirst.poll();
+      }
+      return List.of(hits);
+    }
+  }
+}
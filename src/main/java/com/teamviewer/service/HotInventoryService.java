@@ -0,0 +1,280 @@
+package com.teamviewer.service;
+
+import com.teamviewer.entity.Product;
+import com.teamviewer.exception.InsufficientStockException;
+import com.teamviewer.exception.ResourceNotFoundException;
+import com.teamviewer.inventory.StripedStockCounter;
+import com.teamviewer.repository.ProductRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.teamviewer.util.Constants.PRODUCTS_CACHE;
+import static com.teamviewer.util.Constants.SERVICE_TIMER;
+
+/**
+ * Flash-sale ("hot inventory") mode. Stock of a flagged product is held in a {@link
+ * StripedStockCounter} and reservations never touch its database row; the net change is written
+ * back to {@code tb_product} by a periodic flush.
+ *
+ * <p>Switching a product in or out of hot mode happens while holding its row lock, and the map
+ * entry is published (or removed) before that lock is released. A database-mode reservation that
+ * raced with the switch therefore sees the new mode as soon as its own UPDATE returns, and {@link
+ * InventoryService} uses {@link #isHot} to detect and undo it.
+ *
+ * <p>Deleting a product drops it from hot mode under the DELETE's row lock, see {@link
+ * #productDeleted}. A product that disappears anyway, i.e. whose row a flush finds gone, is dropped
+ * as well, so its units are never sold from memory after it is deleted.
+ *
+ * <p>Hot mode lives in this instance's memory only. Other instances keep reserving from the row,
+ * unseen by the counters, so running it with more than one instance can oversell; reservations not
+ * yet flushed are lost on a crash.
+ */
+@Slf4j
+@Service
+@Timed(value = SERVICE_TIMER, histogram = true)
+public class HotInventoryService {
+
+  private final ProductRepository productRepository;
+
+  private final TransactionTemplate transactionTemplate;
+
+  private final CacheManager cacheManager;
+
+  private final int stripes;
+
+  private final Map<Long, HotStock> hotStocks = new ConcurrentHashMap<>();
+
+  @Autowired
+  public HotInventoryService(
+      ProductRepository productRepository,
+      PlatformTransactionManager transactionManager,
+      CacheManager cacheManager,
+      @Value("${inventory.hot.stripes:0}") int stripes) {
+    this.productRepository = productRepository;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.transactionTemplate.setPropagationBehavior(
+        TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    this.cacheManager = cacheManager;
+    this.stripes = stripes > 0 ? stripes : 2 * Runtime.getRuntime().availableProcessors();
+  }
+
+  /**
+   * @return {@code true} if the units were reserved in memory, {@code false} if the product is
+   *     not in hot mode and the caller has to reserve in the database
+   * @throws InsufficientStockException if the product is hot and sold out for this quantity
+   */
+  public boolean tryReserve(Long productId, int quantity) {
+    HotStock hotStock = hotStocks.get(productId);
+    if (hotStock == null) {
+      return false;
+    }
+    switch (hotStock.counter.tryReserve(quantity)) {
+      case RESERVED:
+        return true;
+      case INSUFFICIENT:
+        throw new InsufficientStockException(
+            "Insufficient stock for product " + productId + ", requested " + quantity);
+      default:
+        return false;
+    }
+  }
+
+  /** @return {@code true} if the units went back to the in-memory counter */
+  public boolean tryRelease(Long productId, int quantity) {
+    HotStock hotStock = hotStocks.get(productId);
+    return hotStock != null && hotStock.counter.release(quantity);
+  }
+
+  public boolean isHot(Long productId) {
+    HotStock hotStock = hotStocks.get(productId);
+    return hotStock != null && !hotStock.counter.isClosed();
+  }
+
+  /** Moves the product to hot mode, seeding the counter with its current database stock. */
+  public void enable(Long productId) {
+    log.info("enable hot inventory for product {}", productId);
+    transactionTemplate.executeWithoutResult(
+        status -> {
+          Product product =
+              productRepository
+                  .findByIdForUpdate(productId)
+                  .orElseThrow(
+                      () ->
+                          new ResourceNotFoundException(
+                              "Product not found with id: " + productId));
+          if (hotStocks.containsKey(productId)) {
+            return;
+          }
+          long stock = product.getStock() == null ? 0 : product.getStock();
+          HotStock hotStock = new HotStock(new StripedStockCounter(stock, stripes), stock);
+          hotStocks.put(productId, hotStock);
+          TransactionSynchronizationManager.registerSynchronization(
+              new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                  if (status != STATUS_COMMITTED) {
+                    hotStocks.remove(productId, hotStock);
+                  }
+                }
+              });
+        });
+  }
+
+  /**
+   * Hands the product back to database mode: stops the counter, writes the final net change and
+   * removes the product from hot mode, all under its row lock.
+   */
+  public void disable(Long productId) {
+    log.info("disable hot inventory for product {}", productId);
+    transactionTemplate.executeWithoutResult(
+        status -> {
+          productRepository.findByIdForUpdate(productId);
+          HotStock hotStock = hotStocks.get(productId);
+          if (hotStock == null) {
+            return;
+          }
+          synchronized (hotStock) {
+            long remaining = hotStock.counter.close();
+            writeBack(productId, hotStock.flushedStock - remaining);
+            hotStocks.remove(productId);
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                  @Override
+                  public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                      hotStocks.put(
+                          productId,
+                          new HotStock(
+                              new StripedStockCounter(remaining, stripes),
+                              hotStock.flushedStock));
+                    }
+                  }
+                });
+          }
+        });
+  }
+
+  /**
+   * Drops a deleted product from hot mode, without writing its stock back. Called in the deleting
+   * transaction once its DELETE holds the row lock; the product goes back to hot mode if that
+   * transaction rolls back.
+   */
+  public void productDeleted(Long productId) {
+    HotStock hotStock = hotStocks.get(productId);
+    if (hotStock == null) {
+      return;
+    }
+    log.info("drop deleted product {} from hot inventory", productId);
+    synchronized (hotStock) {
+      long remaining = hotStock.counter.close();
+      hotStocks.remove(productId, hotStock);
+      if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+        return;
+      }
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+              if (status != STATUS_COMMITTED) {
+                hotStocks.put(
+                    productId,
+                    new HotStock(
+                        new StripedStockCounter(remaining, stripes), hotStock.flushedStock));
+              }
+            }
+          });
+    }
+  }
+
+  /** Writes the net stock change of every hot product back to the database. */
+  @Scheduled(fixedDelayString = "${inventory.hot.flush-interval-ms:1000}")
+  public void flush() {
+    hotStocks.forEach(this::flush);
+  }
+
+  @PreDestroy
+  public void disableAll() {
+    List.copyOf(hotStocks.keySet()).forEach(this::disable);
+  }
+
+  private void flush(Long productId, HotStock hotStock) {
+    try {
+      transactionTemplate.executeWithoutResult(
+          status -> {
+            // Same lock order as disable(): row lock first, then the entry's monitor
+            boolean exists = productRepository.findByIdForUpdate(productId).isPresent();
+            synchronized (hotStock) {
+              if (hotStock.counter.isClosed()) {
+                return;
+              }
+              long flushedStock = hotStock.flushedStock;
+              long available = hotStock.counter.available();
+              if (!exists || !writeBack(productId, flushedStock - available)) {
+                log.warn("Product {} is gone, dropping it from hot inventory", productId);
+                hotStock.counter.close();
+                hotStocks.remove(productId, hotStock);
+                return;
+              }
+              hotStock.flushedStock = available;
+              TransactionSynchronizationManager.registerSynchronization(
+                  new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                      if (status != STATUS_COMMITTED) {
+                        synchronized (hotStock) {
+                          hotStock.flushedStock = flushedStock;
+                        }
+                      }
+                    }
+                  });
+            }
+          });
+    } catch (RuntimeException ex) {
+      log.error("Failed to flush hot inventory for product {}", productId, ex);
+    }
+  }
+
+  /** @return {@code false} if the product row is gone */
+  private boolean writeBack(Long productId, long delta) {
+    if (delta == 0) {
+      return true;
+    }
+    if (productRepository.subtractStock(productId, Math.toIntExact(delta)) == 0) {
+      return false;
+    }
+    Cache cache = cacheManager.getCache(PRODUCTS_CACHE);
+    if (cache != null) {
+      cache.evict(productId);
+    }
+    return true;
+  }
+
+  private static final class HotStock {
+
+    private final StripedStockCounter counter;
+
+    /** Stock as last written to the database; guarded by this object's monitor. */
+    private long flushedStock;
+
+    private HotStock(StripedStockCounter counter, long flushedStock) {
+      this.counter = counter;
+      this.flushedStock = flushedStock;
+    }
+  }
+}
@@ -0,0 +1,120 @@
+package com.teamviewer.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.teamviewer.exception.IdempotencyKeyReusedException;
+import com.teamviewer.exception.InvalidRequestException;
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+import static com.teamviewer.util.Constants.SERVICE_TIMER;
+
+/**
+ * Remembers the responses of create requests by their {@code Idempotency-Key}, so a client retry
+ * gets the original response instead of creating a duplicate. Keys are kept in memory, bounded by
+ * {@code idempotency.max-keys} and expiring {@code idempotency.ttl} after first use; a retry that
+ * reaches another instance, or arrives after its key was evicted, is executed again.
+ *
+ * <p>A request arriving while the first one with its key is still running waits for, and shares,
+ * that result. Failed requests are not remembered, so they can be retried with the same key.
+ *
+ * <p>Requests are told apart by the SHA-256 of their body, serialized as JSON with properties and
+ * map entries sorted, so equal bodies match however they were built.
+ */
+@Slf4j
+@Service
+@Timed(value = SERVICE_TIMER, histogram = true)
+public class IdempotencyService {
+
+  private static final int MAX_KEY_LENGTH = 255;
+
+  private final Cache<String, Execution> executions;
+
+  private final ObjectMapper canonicalMapper;
+
+  public IdempotencyService(
+      ObjectMapper objectMapper,
+      @Value("${idempotency.max-keys:100000}") long maxKeys,
+      @Value("${idempotency.ttl:24h}") Duration ttl) {
+    this.executions = Caffeine.newBuilder().maximumSize(maxKeys).expireAfterWrite(ttl).build();
+    this.canonicalMapper = objectMapper.copy();
+    canonicalMapper.setConfig(
+        canonicalMapper
+            .getSerializationConfig()
+            .with(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+            .with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS));
+  }
+
+  /**
+   * Runs {@code action} once per {@code scope} and {@code key}, or always when there is no key.
+   *
+   * @param request the request body, which must be the same for every use of a key
+   * @throws IdempotencyKeyReusedException if the key was used with a different request body
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T execute(String scope, String key, Object request, Supplier<T> action) {
+    if (key == null) {
+      return action.get();
+    }
+    if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+      throw new InvalidRequestException(
+          "Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+    }
+    String cacheKey = scope + ' ' + key;
+    // Fingerprint the body before the action runs, as services fill in IDs on what they are given
+    Execution execution = new Execution(fingerprint(request), new CompletableFuture<>());
+    Execution previous = executions.asMap().putIfAbsent(cacheKey, execution);
+    if (previous == null) {
+      return (T) run(cacheKey, execution, action);
+    }
+    if (!MessageDigest.isEqual(previous.fingerprint(), execution.fingerprint())) {
+      throw new IdempotencyKeyReusedException(
+          "Idempotency-Key was already used with a different request");
+    }
+    log.debug("Replaying response for idempotency key {}", key);
+    try {
+      return (T) previous.response().join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  private byte[] fingerprint(Object request) {
+    try {
+      return MessageDigest.getInstance("SHA-256")
+          .digest(canonicalMapper.writeValueAsBytes(request));
+    } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+      throw new IllegalStateException("Cannot fingerprint the request", e);
+    }
+  }
+
+  private Object run(String cacheKey, Execution execution, Supplier<?> action) {
+    try {
+      Object response = action.get();
+      execution.response().complete(response);
+      return response;
+    } catch (RuntimeException | Error e) {
+      executions.asMap().remove(cacheKey, execution);
+      execution.response().completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  private record Execution(byte[] fingerprint, CompletableFuture<Object> response) {}
+}
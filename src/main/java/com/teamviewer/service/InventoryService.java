@@ -0,0 +1,126 @@
+package com.teamviewer.service;
+
+import com.teamviewer.exception.InsufficientStockException;
+import com.teamviewer.exception.InvalidRequestException;
+import com.teamviewer.exception.ResourceNotFoundException;
+import com.teamviewer.repository.ProductRepository;
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static com.teamviewer.util.Constants.PRODUCTS_CACHE;
+import static com.teamviewer.util.Constants.SERVICE_TIMER;
+
+/**
+ * Reserves and releases product stock. In database mode each call is one conditional UPDATE on
+ * the product row, so it never reads stock and writes it back. Products in flash-sale mode are
+ * served from memory by {@link HotInventoryService}.
+ */
+@Slf4j
+@Service
+@Timed(value = SERVICE_TIMER, histogram = true)
+public class InventoryService {
+
+  private final ProductRepository productRepository;
+
+  private final HotInventoryService hotInventoryService;
+
+  private final TransactionTemplate requiresNewTransaction;
+
+  @Autowired
+  public InventoryService(
+      ProductRepository productRepository,
+      HotInventoryService hotInventoryService,
+      PlatformTransactionManager transactionManager) {
+    this.productRepository = productRepository;
+    this.hotInventoryService = hotInventoryService;
+    this.requiresNewTransaction = new TransactionTemplate(transactionManager);
+    this.requiresNewTransaction.setPropagationBehavior(
+        TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+  }
+
+  @Transactional
+  @CacheEvict(cacheNames = PRODUCTS_CACHE, key = "#productId")
+  public void reserve(Long productId, int quantity) {
+    log.debug("reserve invoked for product {} quantity {}", productId, quantity);
+    requirePositive(quantity);
+    while (true) {
+      if (hotInventoryService.tryReserve(productId, quantity)) {
+        releaseOnRollback(productId, quantity);
+        return;
+      }
+      boolean reserved = productRepository.decrementStock(productId, quantity) == 1;
+      if (!hotInventoryService.isHot(productId)) {
+        if (reserved) {
+          return;
+        }
+        if (!productRepository.existsById(productId)) {
+          throw new ResourceNotFoundException("Product not found with id: " + productId);
+        }
+        throw new InsufficientStockException(
+            "Insufficient stock for product " + productId + ", requested " + quantity);
+      }
+      // The product went hot while our UPDATE waited on its row lock: undo and retry in memory.
+      if (reserved) {
+        productRepository.incrementStock(productId, quantity);
+      }
+    }
+  }
+
+  @Transactional
+  @CacheEvict(cacheNames = PRODUCTS_CACHE, key = "#productId")
+  public void release(Long productId, int quantity) {
+    log.debug("release invoked for product {} quantity {}", productId, quantity);
+    requirePositive(quantity);
+    returnUnits(productId, quantity);
+  }
+
+  private void returnUnits(Long productId, int quantity) {
+    while (true) {
+      if (hotInventoryService.tryRelease(productId, quantity)) {
+        return;
+      }
+      boolean released = productRepository.incrementStock(productId, quantity) == 1;
+      if (!hotInventoryService.isHot(productId)) {
+        if (!released) {
+          throw new ResourceNotFoundException("Product not found with id: " + productId);
+        }
+        return;
+      }
+      if (released) {
+        productRepository.subtractStock(productId, quantity);
+      }
+    }
+  }
+
+  /** In-memory reservations are not undone by a database rollback, so undo them explicitly. */
+  private void releaseOnRollback(Long productId, int quantity) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCompletion(int status) {
+            if (status == STATUS_ROLLED_BACK) {
+              requiresNewTransaction.executeWithoutResult(
+                  transaction -> returnUnits(productId, quantity));
+            }
+          }
+        });
+  }
+
+  private static void requirePositive(int quantity) {
+    if (quantity <= 0) {
+      throw new InvalidRequestException("Quantity must be positive");
+    }
+  }
+}
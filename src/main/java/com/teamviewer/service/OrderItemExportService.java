@@ -0,0 +1,72 @@
+package com.teamviewer.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.teamviewer.entity.OrderItem;
+import com.teamviewer.repository.OrderItemRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import static com.teamviewer.util.Constants.SERVICE_TIMER;
+
+@Slf4j
+@Service
+@Timed(value = SERVICE_TIMER, histogram = true)
+@RequiredArgsConstructor
+public class OrderItemExportService {
+
+  private static final int FLUSH_EVERY = 1000;
+
+  private final OrderItemRepository orderItemRepository;
+
+  private final EntityManager entityManager;
+
+  private final ObjectMapper objectMapper;
+
+  /**
+   * Writes every order item to {@code out} as newline-delimited JSON while the rows are still
+   * being read, detaching each entity once written so the persistence context stays empty.
+   *
+   * @return the number of order items written
+   */
+  @Transactional(readOnly = true)
+  public long exportOrderItems(OutputStream out) throws IOException {
+    log.info("exportOrderItems invoked");
+    ObjectWriter writer =
+        objectMapper
+            .writerFor(OrderItem.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    long count = 0;
+    try (Stream<OrderItem> orderItems = orderItemRepository.streamAll();
+        JsonGenerator generator =
+            objectMapper
+                .getFactory()
+                .createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .setRootValueSeparator(null)) {
+      Iterator<OrderItem> iterator = orderItems.iterator();
+      while (iterator.hasNext()) {
+        OrderItem orderItem = iterator.next();
+        writer.writeValue(generator, orderItem);
+        generator.writeRaw('\n');
+        entityManager.detach(orderItem);
+        if (++count == 1 || count % FLUSH_EVERY == 0) {
+          generator.flush();
+        }
+      }
+    }
+    log.info("exportOrderItems wrote {} order items", count);
+    return count;
+  }
+}
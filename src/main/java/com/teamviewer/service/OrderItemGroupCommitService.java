@@ -0,0 +1,212 @@
+package com.teamviewer.service;
+
+import com.teamviewer.entity.OrderItem;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.teamviewer.util.Constants.MAX_BATCH_SIZE;
+import static com.teamviewer.util.Constants.SERVICE_TIMER;
+
+/**
+ * Group commit for single order-item inserts ({@code order-items.group-commit.enabled}).
+ * Concurrent {@link #createOrderItem} calls are queued, and one writer thread inserts them
+ * together through {@link OrderItemService#createOrderItems}: one transaction, one commit and one
+ * JDBC batch, which {@code reWriteBatchedInserts} turns into multi-row INSERTs on PostgreSQL. A
+ * batch is written once it holds {@code max-batch-size} items or its oldest item has waited {@code
+ * max-delay-ms}, so that is the most a caller waits in the queue.
+ *
+ * <p>Items are validated before they are queued. If a batch still fails, e.g. because one of its
+ * products is sold out, its items are handed back and every caller inserts its own item, in its
+ * own thread: the writer moves on to the next batch at once, so a caller waits at most {@code
+ * max-delay-ms} plus one batch longer than without group commit. With the mode off, or while the
+ * queue is full, callers insert their item themselves. A caller whose item is still queued after
+ * {@code wait-timeout-ms} takes it back and inserts it directly.
+ */
+@Slf4j
+@Service
+@Timed(value = SERVICE_TIMER, histogram = true)
+public class OrderItemGroupCommitService {
+
+  private static final long IDLE_POLL_MS = 100;
+
+  private final OrderItemService orderItemService;
+
+  private final boolean enabled;
+
+  private final int maxBatchSize;
+
+  private final long maxDelayNanos;
+
+  private final long waitTimeoutMs;
+
+  private final BlockingQueue<PendingOrderItem> queue;
+
+  private volatile boolean running;
+
+  private Thread writer;
+
+  @Autowired
+  public OrderItemGroupCommitService(
+      OrderItemService orderItemService,
+      @Value("${order-items.group-commit.enabled:false}") boolean enabled,
+      @Value("${order-items.group-commit.max-batch-size:500}") int maxBatchSize,
+      @Value("${order-items.group-commit.max-delay-ms:5}") long maxDelayMs,
+      @Value("${order-items.group-commit.queue-capacity:10000}") int queueCapacity,
+      @Value("${order-items.group-commit.wait-timeout-ms:30000}") long waitTimeoutMs) {
+    this.orderItemService = orderItemService;
+    this.enabled = enabled;
+    this.maxBatchSize = Math.max(1, Math.min(maxBatchSize, MAX_BATCH_SIZE));
+    this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+    this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+    this.waitTimeoutMs = waitTimeoutMs;
+  }
+
+  @PostConstruct
+  public void start() {
+    if (!enabled) {
+      return;
+    }
+    running = true;
+    writer = new Thread(this::writeLoop, "order-item-group-commit");
+    writer.setDaemon(true);
+    writer.start();
+    log.info(
+        "Group commit of order items: up to {} items or {} ms per batch",
+        maxBatchSize,
+        TimeUnit.NANOSECONDS.toMillis(maxDelayNanos));
+  }
+
+  /** Writes what is still queued before the data source goes away. */
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    running = false;
+    if (writer == null) {
+      return;
+    }
+    writer.join(TimeUnit.SECONDS.toMillis(30));
+    List<PendingOrderItem> batch = new ArrayList<>();
+    while (queue.drainTo(batch, maxBatchSize) > 0) {
+      write(batch);
+      batch.clear();
+    }
+  }
+
+  /** Same contract as {@link OrderItemService#createOrderItem}, committed with other inserts. */
+  public OrderItem createOrderItem(OrderItem orderItem) {
+    if (!running) {
+      return orderItemService.createOrderItem(orderItem);
+    }
+    OrderItemService.validate(orderItem);
+    PendingOrderItem pending =
+        new PendingOrderItem(orderItem, System.nanoTime(), new CompletableFuture<>());
+    if (!queue.offer(pending)) {
+      log.debug("Group commit queue is full, inserting order item directly");
+      return orderItemService.createOrderItem(orderItem);
+    }
+    // stop() may have drained the queue before the offer; nobody would write the item then
+    if (!running && queue.remove(pending)) {
+      return orderItemService.createOrderItem(orderItem);
+    }
+    OrderItem created = await(pending);
+    if (created == null) {
+      // The batch rolled back, which already assigned an ID and version
+      orderItem.setId(null);
+      orderItem.setVersion(null);
+      return orderItemService.createOrderItem(orderItem);
+    }
+    return created;
+  }
+
+  private OrderItem await(PendingOrderItem pending) {
+    try {
+      return pending.result().get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw new IllegalStateException(e.getCause());
+    } catch (TimeoutException e) {
+      if (queue.remove(pending)) {
+        log.warn("Order item waited {} ms for group commit, inserting it directly", waitTimeoutMs);
+        return null;
+      }
+      throw new TransientDataAccessResourceException(
+          "Group commit did not finish within " + waitTimeoutMs + "ms", e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new TransientDataAccessResourceException(
+          "Interrupted while waiting for group commit", e);
+    }
+  }
+
+  private void writeLoop() {
+    List<PendingOrderItem> batch = new ArrayList<>(maxBatchSize);
+    while (running) {
+      try {
+        PendingOrderItem first = queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        long deadline = first.enqueuedAt() + maxDelayNanos;
+        while (batch.size() < maxBatchSize) {
+          if (queue.drainTo(batch, maxBatchSize - batch.size()) > 0) {
+            continue;
+          }
+          PendingOrderItem next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+          if (next == null) {
+            break;
+          }
+          batch.add(next);
+        }
+        write(batch);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (RuntimeException | Error e) {
+        log.error("Group commit of {} order items failed", batch.size(), e);
+        batch.forEach(pending -> pending.result().completeExceptionally(e));
+      } finally {
+        batch.clear();
+      }
+    }
+  }
+
+  private void write(List<PendingOrderItem> batch) {
+    List<OrderItem> savedOrderItems;
+    try {
+      savedOrderItems =
+          orderItemService.createOrderItems(
+              batch.stream().map(PendingOrderItem::orderItem).toList());
+    } catch (RuntimeException e) {
+      log.debug(
+          "Group commit of {} order items rolled back, callers insert them alone: {}",
+          batch.size(),
+          e.toString());
+      batch.forEach(pending -> pending.result().complete(null));
+      return;
+    }
+    for (int i = 0; i < batch.size(); i++) {
+      batch.get(i).result().complete(savedOrderItems.get(i));
+    }
+  }
+
+  /** {@code result} completes with the saved item, or with {@code null} to insert it alone. */
+  private record PendingOrderItem(
+      OrderItem orderItem, long enqueuedAt, CompletableFuture<OrderItem> result) {}
+}
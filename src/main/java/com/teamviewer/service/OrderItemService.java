@@ -1,55 +1,305 @@
 package com.teamviewer.service;
 
+import com.teamviewer.dto.BulkDeleteReport;
 import com.teamviewer.entity.OrderItem;
+import com.teamviewer.entity.OutboxEvent;
+import com.teamviewer.exception.InvalidRequestException;
+import com.teamviewer.exception.PreconditionFailedException;
 import com.teamviewer.exception.ResourceNotFoundException;
 import com.teamviewer.repository.OrderItemRepository;
+import com.teamviewer.repository.OrderRepository;
+import com.teamviewer.repository.projection.OrderItemLineView;
+import com.teamviewer.repository.projection.VersionView;
+import com.teamviewer.util.BatchIds;
+import com.teamviewer.util.Pagination;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import static com.teamviewer.util.Constants.MAX_BATCH_SIZE;
+import static com.teamviewer.util.Constants.SERVICE_TIMER;
 
 @Slf4j
 @Service
+@Timed(value = SERVICE_TIMER, histogram = true)
 @RequiredArgsConstructor
 public class OrderItemService {
 
   private final OrderItemRepository orderItemRepository;
 
+  private final OrderRepository orderRepository;
+
+  private final InventoryService inventoryService;
+
+  private final ProductSalesService productSalesService;
+
+  private final OutboxService outboxService;
+
+  @Transactional(readOnly = true)
   public List<OrderItem> findAllOrderItems() {
-    log.info("findAllOrderItems invoked");
+    log.debug("findAllOrderItems invoked");
     return orderItemRepository.findAll();
   }
 
+  @Transactional(readOnly = true)
+  public Slice<OrderItem> findOrderItems(Long after, int limit) {
+    log.debug("findOrderItems invoked after {} limit {}", after, limit);
+    return orderItemRepository.findByIdGreaterThanOrderByIdAsc(
+        after, Pagination.firstPage(limit));
+  }
+
+  @Transactional(readOnly = true)
   public OrderItem findOrderItemById(Long id) {
-    log.info("findOrderItemById invoked" + id);
+    log.debug("findOrderItemById invoked {}", id);
 
     return orderItemRepository
         .findById(id)
         .orElseThrow(() -> new ResourceNotFoundException("Order item not found with id: " + id));
   }
 
+  @Transactional
   public OrderItem createOrderItem(OrderItem orderItem) {
-    log.info("createOrderItem invoked");
+    log.debug("createOrderItem invoked");
+
+    reserveStock(orderItem);
+    OrderItem savedOrderItem = orderItemRepository.save(orderItem);
+    addToOrderTotal(orderItem.getOrderId(), lineTotal(orderItem));
+    productSalesService.itemsAdded(List.of(orderItem));
+    outboxService.record(
+        OutboxEvent.Aggregate.ORDER_ITEM,
+        orderItem.getId(),
+        OutboxEvent.ChangeType.CREATED,
+        orderItem);
+    return savedOrderItem;
+  }
+
+  /**
+   * Inserts all order items in one transaction. IDs come from the pooled sequence, so Hibernate
+   * can group the inserts into JDBC batches. Stock is reserved once per product for the summed
+   * quantity, in product order, so batches touching the same products cannot deadlock.
+   */
+  @Transactional
+  public List<OrderItem> createOrderItems(List<OrderItem> orderItems) {
+    log.debug("createOrderItems invoked for {} order items", orderItems.size());
+    if (orderItems.size() > MAX_BATCH_SIZE) {
+      throw new InvalidRequestException("At most " + MAX_BATCH_SIZE + " order items per batch");
+    }
+    Map<Integer, Integer> quantityByProduct = new TreeMap<>();
+    Map<Integer, BigDecimal> deltaByOrder = new TreeMap<>();
+    orderItems.forEach(
+        orderItem -> {
+          orderItem.setId(null);
+          validate(orderItem);
+          quantityByProduct.merge(orderItem.getProductId(), orderItem.getQuantity(), Integer::sum);
+          deltaByOrder.merge(orderItem.getOrderId(), lineTotal(orderItem), BigDecimal::add);
+        });
+    quantityByProduct.forEach(
+        (productId, quantity) -> inventoryService.reserve(productId.longValue(), quantity));
+    List<OrderItem> savedOrderItems = orderItemRepository.saveAll(orderItems);
+    deltaByOrder.forEach(this::addToOrderTotal);
+    productSalesService.itemsAdded(savedOrderItems);
+    outboxService.recordAll(
+        OutboxEvent.Aggregate.ORDER_ITEM,
+        OutboxEvent.ChangeType.CREATED,
+        savedOrderItems,
+        OrderItem::getId);
+    return savedOrderItems;
+  }
+
+  private void reserveStock(OrderItem orderItem) {
+    validate(orderItem);
+    inventoryService.reserve(orderItem.getProductId().longValue(), orderItem.getQuantity());
+  }
 
-    return orderItemRepository.save(orderItem);
+  /** Also used by {@link OrderItemGroupCommitService} before an item joins a batch. */
+  static void validate(OrderItem orderItem) {
+    if (orderItem.getOrderId() == null
+        || orderItem.getProductId() == null
+        || orderItem.getQuantity() == null
+        || orderItem.getUnitPrice() == null) {
+      throw new InvalidRequestException(
+          "Order item needs an orderId, a productId, a quantity and a unitPrice");
+    }
+    if (orderItem.getQuantity() <= 0) {
+      throw new InvalidRequestException("Quantity must be positive");
+    }
   }
 
+  /** Applies a delta to the parent order's total in place, in the caller's transaction. */
+  private void addToOrderTotal(Integer orderId, BigDecimal delta) {
+    if (orderId == null || delta.signum() == 0) {
+      return;
+    }
+    if (orderRepository.addToTotal(orderId.longValue(), delta) == 0) {
+      throw new ResourceNotFoundException("Order not found with id: " + orderId);
+    }
+  }
+
+  private static BigDecimal lineTotal(OrderItem orderItem) {
+    return lineTotal(orderItem.getQuantity(), orderItem.getUnitPrice());
+  }
+
+  private static BigDecimal lineTotal(Integer quantity, BigDecimal unitPrice) {
+    if (unitPrice == null || quantity == null) {
+      return BigDecimal.ZERO;
+    }
+    return unitPrice.multiply(BigDecimal.valueOf(quantity));
+  }
+
+  /**
+   * Updates the stored item and moves the order total by the change in its line total. A non-null
+   * {@code orderItem.version} must still be the current version, see {@link
+   * ProductService#updateProduct}.
+   */
+  @Transactional
   public OrderItem updateOrderItem(OrderItem orderItem) {
-    log.info("updateOrderItem invoked");
+    log.debug("updateOrderItem invoked");
 
     OrderItem existingOrderItem =
         findOrderItemById(orderItem.getId()); // Ensure order item exists before updating
+    if (orderItem.getVersion() != null
+        && !orderItem.getVersion().equals(existingOrderItem.getVersion())) {
+      throw new PreconditionFailedException(
+          "Order item "
+              + orderItem.getId()
+              + " has changed since version "
+              + orderItem.getVersion());
+    }
+    BigDecimal previousLineTotal = lineTotal(existingOrderItem);
+    Integer previousProductId = existingOrderItem.getProductId();
+    Integer previousQuantity = existingOrderItem.getQuantity();
+    BigDecimal previousUnitPrice = existingOrderItem.getUnitPrice();
     // Update relevant fields
     existingOrderItem.setProductId(orderItem.getProductId());
     existingOrderItem.setQuantity(orderItem.getQuantity());
     existingOrderItem.setUnitPrice(orderItem.getUnitPrice());
-    return orderItemRepository.save(existingOrderItem);
+    OrderItem savedOrderItem = orderItemRepository.saveAndFlush(existingOrderItem);
+    addToOrderTotal(
+        existingOrderItem.getOrderId(),
+        lineTotal(existingOrderItem).subtract(previousLineTotal));
+    productSalesService.itemChanged(
+        previousProductId,
+        previousQuantity,
+        previousUnitPrice,
+        existingOrderItem.getProductId(),
+        existingOrderItem.getQuantity(),
+        existingOrderItem.getUnitPrice());
+    outboxService.record(
+        OutboxEvent.Aggregate.ORDER_ITEM,
+        orderItem.getId(),
+        OutboxEvent.ChangeType.UPDATED,
+        savedOrderItem);
+    return savedOrderItem;
+  }
+
+  /**
+   * Writes only the non-null fields of {@code patch} in one versioned UPDATE, without loading the
+   * whole order item. Every field moves the order total or the product sales, so the item's current
+   * line is read first and the UPDATE is conditioned on its version. Like {@link
+   * #updateOrderItem}, this does not reserve or release stock.
+   *
+   * @param version the version the caller last saw, or {@code null} to patch any version
+   * @return the new version
+   */
+  @Transactional
+  public Long patchOrderItem(Long id, OrderItem patch, Long version) {
+    log.debug("patchOrderItem invoked {}", id);
+    if (patch.getQuantity() != null && patch.getQuantity() <= 0) {
+      throw new InvalidRequestException("Quantity must be positive");
+    }
+    Map<String, Object> values = new LinkedHashMap<>();
+    putIfPresent(values, "productId", patch.getProductId());
+    putIfPresent(values, "quantity", patch.getQuantity());
+    putIfPresent(values, "unitPrice", patch.getUnitPrice());
+    if (values.isEmpty()) {
+      throw new InvalidRequestException("Patch must set at least one field");
+    }
+    OrderItemLineView line =
+        orderItemRepository
+            .findLineById(id)
+            .orElseThrow(
+                () -> new ResourceNotFoundException("Order item not found with id: " + id));
+    Long expectedVersion = version != null ? version : line.getVersion();
+    if (orderItemRepository.updatePartially(OrderItem.class, id, expectedVersion, values) == 0) {
+      if (!orderItemRepository.existsById(id)) {
+        throw new ResourceNotFoundException("Order item not found with id: " + id);
+      }
+      if (version != null) {
+        throw new PreconditionFailedException(
+            "Order item " + id + " has changed since version " + version);
+      }
+      throw new OptimisticLockingFailureException(
+          "Order item " + id + " was modified concurrently");
+    }
+    Integer productId = patch.getProductId() != null ? patch.getProductId() : line.getProductId();
+    Integer quantity = patch.getQuantity() != null ? patch.getQuantity() : line.getQuantity();
+    BigDecimal unitPrice =
+        patch.getUnitPrice() != null ? patch.getUnitPrice() : line.getUnitPrice();
+    BigDecimal previousTotal = lineTotal(line.getQuantity(), line.getUnitPrice());
+    addToOrderTotal(line.getOrderId(), lineTotal(quantity, unitPrice).subtract(previousTotal));
+    productSalesService.itemChanged(
+        line.getProductId(),
+        line.getQuantity(),
+        line.getUnitPrice(),
+        productId,
+        quantity,
+        unitPrice);
+    outboxService.recordPatch(OutboxEvent.Aggregate.ORDER_ITEM, id, values, expectedVersion + 1);
+    return expectedVersion + 1;
+  }
+
+  private static void putIfPresent(Map<String, Object> values, String attribute, Object value) {
+    if (value != null) {
+      values.put(attribute, value);
+    }
+  }
+
+  /**
+   * Deletes the order items with one set-based DELETE per {@link BatchIds#chunks chunk}, without
+   * loading them. They are locked first; then their line totals are taken off their orders' totals
+   * by one UPDATE, and their sales off the products' sales. IDs that do not exist are skipped.
+   */
+  @Transactional
+  public BulkDeleteReport deleteOrderItems(List<Long> ids) {
+    log.debug("deleteOrderItems invoked for {} order items", ids != null ? ids.size() : 0);
+    int deleted = 0;
+    for (Long[] orderItemIds : BatchIds.chunks(ids)) {
+      List<VersionView> existing = orderItemRepository.findVersionsForUpdate(orderItemIds);
+      orderRepository.subtractItemTotals(orderItemIds);
+      productSalesService.salesRemoved(orderItemRepository.sumSalesByIds(orderItemIds));
+      outboxService.recordDeleted(
+          OutboxEvent.Aggregate.ORDER_ITEM, existing, VersionView::getId, VersionView::getVersion);
+      deleted += orderItemRepository.deleteAllByIds(orderItemIds);
+    }
+    return BulkDeleteReport.builder().deleted(deleted).build();
   }
 
+  @Transactional
   public void deleteOrderItem(Long id) {
-    log.info("deleteOrderItem invoked" + id);
+    log.debug("deleteOrderItem invoked {}", id);
 
+    Optional<OrderItem> existingOrderItem = orderItemRepository.findById(id);
     orderItemRepository.deleteById(id);
+    existingOrderItem.ifPresent(
+        orderItem -> {
+          addToOrderTotal(orderItem.getOrderId(), lineTotal(orderItem).negate());
+          productSalesService.itemRemoved(orderItem);
+          outboxService.recordDeleted(
+              OutboxEvent.Aggregate.ORDER_ITEM,
+              List.of(orderItem),
+              OrderItem::getId,
+              OrderItem::getVersion);
+        });
   }
 }
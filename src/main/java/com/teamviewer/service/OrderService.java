@@ -1,47 +1,262 @@
 package com.teamviewer.service;
 
+import com.teamviewer.dto.BulkDeleteReport;
+import com.teamviewer.dto.OrderCreateRequest;
+import com.teamviewer.dto.OrderLineRequest;
+import com.teamviewer.dto.OrderWithItemsDto;
 import com.teamviewer.entity.Order;
+import com.teamviewer.entity.OrderItem;
+import com.teamviewer.entity.OutboxEvent;
+import com.teamviewer.entity.Product;
+import com.teamviewer.exception.InvalidRequestException;
+import com.teamviewer.exception.PreconditionFailedException;
 import com.teamviewer.exception.ResourceNotFoundException;
+import com.teamviewer.repository.OrderItemRepository;
 import com.teamviewer.repository.OrderRepository;
+import com.teamviewer.repository.ProductRepository;
+import com.teamviewer.repository.projection.OrderItemView;
+import com.teamviewer.repository.projection.VersionView;
+import com.teamviewer.util.BatchIds;
+import com.teamviewer.util.Pagination;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.teamviewer.util.Constants.MAX_BATCH_SIZE;
+import static com.teamviewer.util.Constants.SERVICE_TIMER;
 
 @Service
+@Timed(value = SERVICE_TIMER, histogram = true)
 @Slf4j
 @RequiredArgsConstructor
 public class OrderService {
 
   private final OrderRepository orderRepository;
 
+  private final OrderItemRepository orderItemRepository;
+
+  private final ProductRepository productRepository;
+
+  private final InventoryService inventoryService;
+
+  private final ProductSalesService productSalesService;
+
+  private final OutboxService outboxService;
+
+  @Transactional(readOnly = true)
   public List<Order> findAllOrders() {
     return orderRepository.findAll();
   }
 
+  @Transactional(readOnly = true)
+  public Slice<Order> findOrders(Long after, int limit) {
+    log.debug("findOrders after {} limit {}", after, limit);
+    return orderRepository.findByIdGreaterThanOrderByIdAsc(after, Pagination.firstPage(limit));
+  }
+
+  @Transactional(readOnly = true)
   public Order findOrderById(Long id) {
-    log.info("findOrderById " + id);
+    log.debug("findOrderById {}", id);
     return orderRepository
         .findById(id)
         .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + id));
   }
 
+  /**
+   * Returns the lines of an order as read-only projections. The order itself is only looked up
+   * when it has no lines, to tell an empty order from a missing one.
+   */
+  @Transactional(readOnly = true)
+  public List<OrderItemView> findOrderItems(Long id) {
+    log.debug("findOrderItems {}", id);
+    List<OrderItemView> items = orderItemRepository.findByOrderIdOrderByIdAsc(id.intValue());
+    if (items.isEmpty() && !orderRepository.existsById(id)) {
+      throw new ResourceNotFoundException("Order not found with id: " + id);
+    }
+    return items;
+  }
+
+  /**
+   * Creates an order without items. Its total is maintained from its items, so it starts at zero
+   * whatever the client sent.
+   */
+  @Transactional
   public Order createOrder(Order order) {
-    log.info("createOrder " + order);
-    return orderRepository.save(order);
+    log.debug("createOrder {}", order);
+    order.setTotalamount(BigDecimal.ZERO);
+    Order createdOrder = orderRepository.save(order);
+    outboxService.record(
+        OutboxEvent.Aggregate.ORDER,
+        createdOrder.getId(),
+        OutboxEvent.ChangeType.CREATED,
+        createdOrder);
+    return createdOrder;
   }
 
+  /**
+   * Creates an order and all of its lines in one transaction. Products are loaded in a single
+   * query, unit prices and the total are taken from the catalog rather than the client, and stock
+   * is reserved per product in ascending ID order so concurrent checkouts cannot deadlock.
+   */
+  @Transactional
+  public OrderWithItemsDto createOrderWithItems(OrderCreateRequest request) {
+    List<OrderLineRequest> lines = request.getItems();
+    log.debug("createOrderWithItems invoked for {} lines", lines == null ? 0 : lines.size());
+    validateLines(lines);
+
+    Map<Long, Integer> quantityByProduct = new TreeMap<>();
+    lines.forEach(
+        line ->
+            quantityByProduct.merge(
+                line.getProductId().longValue(), line.getQuantity(), Integer::sum));
+    Map<Long, Product> products =
+        productRepository.findAllById(quantityByProduct.keySet()).stream()
+            .collect(Collectors.toMap(Product::getId, Function.identity()));
+    for (Long productId : quantityByProduct.keySet()) {
+      Product product = products.get(productId);
+      if (product == null) {
+        throw new ResourceNotFoundException("Product not found with id: " + productId);
+      }
+      if (product.getPrice() == null) {
+        throw new InvalidRequestException("Product " + productId + " has no price");
+      }
+    }
+
+    BigDecimal totalamount = BigDecimal.ZERO;
+    for (OrderLineRequest line : lines) {
+      BigDecimal unitPrice = products.get(line.getProductId().longValue()).getPrice();
+      totalamount = totalamount.add(unitPrice.multiply(BigDecimal.valueOf(line.getQuantity())));
+    }
+    quantityByProduct.forEach(inventoryService::reserve);
+
+    Order order = orderRepository.save(Order.builder().totalamount(totalamount).build());
+    List<OrderItem> items = new ArrayList<>(lines.size());
+    for (OrderLineRequest line : lines) {
+      items.add(
+          OrderItem.builder()
+              .orderId(order.getId().intValue())
+              .productId(line.getProductId())
+              .quantity(line.getQuantity())
+              .unitPrice(products.get(line.getProductId().longValue()).getPrice())
+              .build());
+    }
+    List<OrderItem> savedItems = orderItemRepository.saveAll(items);
+    productSalesService.itemsAdded(savedItems);
+    outboxService.record(
+        OutboxEvent.Aggregate.ORDER, order.getId(), OutboxEvent.ChangeType.CREATED, order);
+    outboxService.recordAll(
+        OutboxEvent.Aggregate.ORDER_ITEM,
+        OutboxEvent.ChangeType.CREATED,
+        savedItems,
+        OrderItem::getId);
+    return OrderWithItemsDto.builder()
+        .id(order.getId())
+        .totalamount(order.getTotalamount())
+        .items(savedItems)
+        .build();
+  }
+
+  private static void validateLines(List<OrderLineRequest> lines) {
+    if (lines == null || lines.isEmpty()) {
+      throw new InvalidRequestException("Order needs at least one item");
+    }
+    if (lines.size() > MAX_BATCH_SIZE) {
+      throw new InvalidRequestException("At most " + MAX_BATCH_SIZE + " items per order");
+    }
+    for (OrderLineRequest line : lines) {
+      if (line.getProductId() == null || line.getQuantity() == null || line.getQuantity() <= 0) {
+        throw new InvalidRequestException("Each item needs a productId and a positive quantity");
+      }
+    }
+  }
+
+  /**
+   * Returns the stored order. Its total is maintained from its items and the client's is ignored,
+   * which leaves nothing to update. A non-null {@code order.version} must still be the current
+   * version, see {@link ProductService#updateProduct}.
+   */
+  @Transactional
   public Order updateOrder(Order order) {
     Order existingOrder = findOrderById(order.getId()); // Ensure order exists before updating
-    log.info("updateOrder invoked " + existingOrder);
-    // update existingOrder with order
-    existingOrder.setTotalamount(order.getTotalamount());
-    return orderRepository.save(existingOrder);
+    if (order.getVersion() != null && !order.getVersion().equals(existingOrder.getVersion())) {
+      throw new PreconditionFailedException(
+          "Order " + order.getId() + " has changed since version " + order.getVersion());
+    }
+    log.debug("updateOrder invoked {}", existingOrder);
+    return existingOrder;
   }
 
+  /**
+   * Refuses every patch: the total, the only field of an order, is maintained from its items.
+   *
+   * @param version the version the caller last saw, or {@code null} to patch any version
+   * @return never
+   */
+  @Transactional
+  public Long patchOrder(Long id, Order patch, Long version) {
+    log.debug("patchOrder invoked {}", id);
+    if (patch.getTotalamount() != null) {
+      throw new InvalidRequestException(
+          "The total of an order is maintained from its items and cannot be set");
+    }
+    throw new InvalidRequestException("Patch must set at least one field");
+  }
+
+  /** Deletes the order and its items, see {@link #deleteOrders}. */
+  @Transactional
   public void deleteOrder(Long id) {
-    log.info("deleteOrder invoked for " + id);
-    orderRepository.deleteById(id);
+    log.debug("deleteOrder invoked for {}", id);
+    Long[] ids = {id};
+    List<VersionView> existing = lockForDelete(ids);
+    productSalesService.salesRemoved(orderItemRepository.sumSalesByOrderIds(ids));
+    orderItemRepository.deleteAllByOrderIds(ids);
+    orderRepository.deleteAllByIds(ids);
+    outboxService.recordDeleted(
+        OutboxEvent.Aggregate.ORDER, existing, VersionView::getId, VersionView::getVersion);
+  }
+
+  /**
+   * Deletes the orders and all of their items with one set-based DELETE per table and {@link
+   * BatchIds#chunks chunk}, without loading either. The items' sales are summed per product first,
+   * once the items and orders are locked, and taken off the product sales. IDs that do not exist
+   * are skipped. One DELETED event is written per order; it stands for the order's items too.
+   */
+  @Transactional
+  public BulkDeleteReport deleteOrders(List<Long> ids) {
+    log.debug("deleteOrders invoked for {} orders", ids != null ? ids.size() : 0);
+    int deleted = 0;
+    int deletedItems = 0;
+    for (Long[] orderIds : BatchIds.chunks(ids)) {
+      List<VersionView> existing = lockForDelete(orderIds);
+      productSalesService.salesRemoved(orderItemRepository.sumSalesByOrderIds(orderIds));
+      outboxService.recordDeleted(
+          OutboxEvent.Aggregate.ORDER, existing, VersionView::getId, VersionView::getVersion);
+      deletedItems += orderItemRepository.deleteAllByOrderIds(orderIds);
+      deleted += orderRepository.deleteAllByIds(orderIds);
+    }
+    return BulkDeleteReport.builder().deleted(deleted).deletedItems(deletedItems).build();
+  }
+
+  /**
+   * Locks the orders' items, then the orders, the same order item changes lock them in. Until the
+   * DELETE, no item of these orders can be changed, and none can be added, so the summed sales are
+   * exactly those deleted.
+   *
+   * @return the orders that exist, with their last version
+   */
+  private List<VersionView> lockForDelete(Long[] orderIds) {
+    orderItemRepository.lockByOrderIds(orderIds);
+    return orderRepository.findVersionsForUpdate(orderIds);
   }
 }
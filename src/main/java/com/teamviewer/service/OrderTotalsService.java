@@ -0,0 +1,193 @@
+package com.teamviewer.service;
+
+import com.teamviewer.dto.OrderTotalsReport;
+import com.teamviewer.entity.Order;
+import com.teamviewer.repository.OrderItemRepository;
+import com.teamviewer.repository.OrderRepository;
+import com.teamviewer.repository.projection.OrderTotalView;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static com.teamviewer.util.Constants.SERVICE_TIMER;
+
+/**
+ * Verifies the incrementally maintained {@link Order#getTotalamount()} against the order lines and
+ * repairs any drift. Orders are walked by ID in fixed-size batches, each locked and summed in its
+ * own short transaction, so the job never blocks or loads the whole table at once.
+ *
+ * <p>One rebuild runs at a time. Requested over HTTP it runs on a background thread, see {@link
+ * #startRebuild()}, and its progress is published after every batch.
+ */
+@Service
+@Timed(value = SERVICE_TIMER, histogram = true)
+@Slf4j
+public class OrderTotalsService {
+
+  static final int BATCH_SIZE = 500;
+
+  private final OrderRepository orderRepository;
+
+  private final OrderItemRepository orderItemRepository;
+
+  private final TransactionTemplate transactionTemplate;
+
+  private final AtomicBoolean running = new AtomicBoolean();
+
+  /** The running or last rebuild, replaced after every batch. */
+  private volatile OrderTotalsReport status = new OrderTotalsReport();
+
+  private volatile boolean stopping;
+
+  private Thread rebuildThread;
+
+  public OrderTotalsService(
+      OrderRepository orderRepository,
+      OrderItemRepository orderItemRepository,
+      PlatformTransactionManager transactionManager) {
+    this.orderRepository = orderRepository;
+    this.orderItemRepository = orderItemRepository;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+  }
+
+  /**
+   * Rebuilds on the calling thread.
+   *
+   * @return the finished rebuild, or the status of the one already running
+   */
+  @Scheduled(cron = "${orders.totals.verify-cron:-}")
+  public OrderTotalsReport rebuildTotals() {
+    log.info("rebuildTotals invoked");
+    if (!running.compareAndSet(false, true)) {
+      log.info("rebuildTotals skipped, a rebuild is running");
+      return status;
+    }
+    try {
+      return rebuild();
+    } finally {
+      running.set(false);
+    }
+  }
+
+  /**
+   * Starts a rebuild on a background thread unless one is running.
+   *
+   * @return the status of the started or running rebuild
+   */
+  public synchronized OrderTotalsReport startRebuild() {
+    log.info("startRebuild invoked");
+    if (!running.compareAndSet(false, true)) {
+      return status;
+    }
+    status = OrderTotalsReport.builder().running(true).startedAt(Instant.now()).build();
+    rebuildThread =
+        new Thread(
+            () -> {
+              try {
+                rebuild();
+              } catch (RuntimeException e) {
+                // Logged and kept in the status by rebuild()
+              } finally {
+                running.set(false);
+              }
+            },
+            "order-totals-rebuild");
+    rebuildThread.setDaemon(true);
+    rebuildThread.start();
+    return status;
+  }
+
+  /** @return the running or last rebuild; all zeros if there has been none */
+  public OrderTotalsReport getRebuildStatus() {
+    return status;
+  }
+
+  /** Lets a running rebuild finish its batch before the data source goes away. */
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    stopping = true;
+    Thread thread;
+    synchronized (this) {
+      thread = rebuildThread;
+    }
+    if (thread != null) {
+      thread.join(TimeUnit.SECONDS.toMillis(30));
+    }
+  }
+
+  private OrderTotalsReport rebuild() {
+    OrderTotalsReport report =
+        OrderTotalsReport.builder().running(true).startedAt(Instant.now()).build();
+    status = copy(report);
+    try {
+      long after = 0L;
+      boolean hasNext = true;
+      while (hasNext) {
+        if (stopping) {
+          throw new IllegalStateException("Stopped by shutdown");
+        }
+        long cursor = after;
+        Slice<Order> batch = transactionTemplate.execute(tx -> rebuildBatch(cursor, report));
+        List<Order> orders = batch.getContent();
+        if (!orders.isEmpty()) {
+          after = orders.get(orders.size() - 1).getId();
+        }
+        hasNext = batch.hasNext();
+        status = copy(report);
+      }
+    } catch (RuntimeException e) {
+      log.error("rebuildTotals failed after checking {} orders", report.getChecked(), e);
+      report.setFailure(e.getMessage());
+      throw e;
+    } finally {
+      report.setRunning(false);
+      report.setFinishedAt(Instant.now());
+      status = copy(report);
+    }
+    log.info(
+        "rebuildTotals checked {} corrected {}", report.getChecked(), report.getCorrected());
+    return report;
+  }
+
+  private static OrderTotalsReport copy(OrderTotalsReport report) {
+    return report.toBuilder().build();
+  }
+
+  private Slice<Order> rebuildBatch(long after, OrderTotalsReport report) {
+    Slice<Order> batch = orderRepository.findBatchForUpdate(after, PageRequest.of(0, BATCH_SIZE));
+    if (batch.isEmpty()) {
+      return batch;
+    }
+    List<Integer> orderIds =
+        batch.getContent().stream().map(order -> order.getId().intValue()).toList();
+    Map<Integer, BigDecimal> totals =
+        orderItemRepository.sumTotalsByOrderIds(orderIds).stream()
+            .filter(view -> view.getTotal() != null)
+            .collect(Collectors.toMap(OrderTotalView::getOrderId, OrderTotalView::getTotal));
+    for (Order order : batch) {
+      BigDecimal expected = totals.getOrDefault(order.getId().intValue(), BigDecimal.ZERO);
+      BigDecimal stored = order.getTotalamount();
+      report.setChecked(report.getChecked() + 1);
+      if (stored == null || stored.compareTo(expected) != 0) {
+        log.info("Correcting order {} total {} -> {}", order.getId(), stored, expected);
+        order.setTotalamount(expected);
+        report.setCorrected(report.getCorrected() + 1);
+      }
+    }
+    return batch;
+  }
+}
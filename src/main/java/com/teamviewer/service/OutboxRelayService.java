@@ -0,0 +1,100 @@
+package com.teamviewer.service;
+
+import com.teamviewer.entity.OutboxEvent;
+import com.teamviewer.outbox.OutboxSink;
+import com.teamviewer.repository.OutboxEventRepository;
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static com.teamviewer.util.Constants.MAX_BATCH_SIZE;
+import static com.teamviewer.util.Constants.SERVICE_TIMER;
+
+/**
+ * Drains {@code tb_outbox_event} into the {@link OutboxSink} every {@code
+ * outbox.relay.interval-ms}. Each batch of up to {@code outbox.relay.batch-size} events is read
+ * oldest first, locked, published and deleted in one transaction, and batches follow each other
+ * until the table is empty. Relays on several instances skip the events another relay has locked
+ * and publish other batches meanwhile, so a batch is published once unless the sink or the commit
+ * fails after publishing it.
+ *
+ * <p>Event IDs come from a pooled sequence and are not in commit order across transactions.
+ * Consumers order the events of one entity by the version in their payload.
+ */
+@Slf4j
+@Service
+@Timed(value = SERVICE_TIMER, histogram = true)
+public class OutboxRelayService {
+
+  private final OutboxEventRepository outboxEventRepository;
+
+  private final OutboxSink outboxSink;
+
+  private final TransactionTemplate transactionTemplate;
+
+  private final boolean enabled;
+
+  private final int batchSize;
+
+  @Autowired
+  public OutboxRelayService(
+      OutboxEventRepository outboxEventRepository,
+      OutboxSink outboxSink,
+      PlatformTransactionManager transactionManager,
+      @Value("${outbox.relay.enabled:true}") boolean enabled,
+      @Value("${outbox.relay.batch-size:500}") int batchSize) {
+    this.outboxEventRepository = outboxEventRepository;
+    this.outboxSink = outboxSink;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.enabled = enabled;
+    this.batchSize = Math.max(1, Math.min(batchSize, MAX_BATCH_SIZE));
+  }
+
+  @Scheduled(
+      fixedDelayString = "${outbox.relay.interval-ms:1000}",
+      initialDelayString = "${outbox.relay.interval-ms:1000}")
+  public void relayScheduled() {
+    if (!enabled) {
+      return;
+    }
+    try {
+      relay();
+    } catch (RuntimeException e) {
+      log.warn("Outbox relay failed, retrying on the next run: {}", e.toString());
+    }
+  }
+
+  /** @return the number of events published */
+  public int relay() {
+    int published = 0;
+    int batch;
+    do {
+      batch = transactionTemplate.execute(status -> relayBatch());
+      published += batch;
+    } while (batch == batchSize);
+    if (published > 0) {
+      log.debug("Published {} outbox events", published);
+    }
+    return published;
+  }
+
+  private int relayBatch() {
+    List<OutboxEvent> events =
+        outboxEventRepository.findOldestForUpdate(PageRequest.ofSize(batchSize));
+    if (events.isEmpty()) {
+      return 0;
+    }
+    outboxSink.publish(events);
+    outboxEventRepository.deleteAllByIds(
+        events.stream().map(OutboxEvent::getId).toArray(Long[]::new));
+    return events.size();
+  }
+}
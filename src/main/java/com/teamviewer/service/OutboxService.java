@@ -0,0 +1,116 @@
+package com.teamviewer.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.teamviewer.entity.OutboxEvent;
+import com.teamviewer.repository.OutboxEventRepository;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static com.teamviewer.util.Constants.SERVICE_TIMER;
+
+/**
+ * Writes change events to {@code tb_outbox_event} in the caller's transaction, so an event exists
+ * exactly when its change was committed. {@link OutboxRelayService} publishes them later.
+ */
+@Slf4j
+@Service
+@Timed(value = SERVICE_TIMER, histogram = true)
+@RequiredArgsConstructor
+public class OutboxService {
+
+  private final OutboxEventRepository outboxEventRepository;
+
+  private final ObjectMapper objectMapper;
+
+  /** @param payload serialized as JSON; an entity, or a map of the changed fields */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void record(
+      OutboxEvent.Aggregate aggregate,
+      Long aggregateId,
+      OutboxEvent.ChangeType changeType,
+      Object payload) {
+    outboxEventRepository.save(event(aggregate, aggregateId, changeType, payload, Instant.now()));
+  }
+
+  /**
+   * An UPDATED event for a partial update, with the changed fields and the new version as its
+   * payload.
+   */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void recordPatch(
+      OutboxEvent.Aggregate aggregate, Long aggregateId, Map<String, Object> values, Long version) {
+    Map<String, Object> payload = new LinkedHashMap<>(values);
+    payload.put("version", version);
+    record(aggregate, aggregateId, OutboxEvent.ChangeType.UPDATED, payload);
+  }
+
+  /** One event per entity, inserted in one JDBC batch. */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public <T> void recordAll(
+      OutboxEvent.Aggregate aggregate,
+      OutboxEvent.ChangeType changeType,
+      Collection<T> entities,
+      Function<T, Long> idOf) {
+    Instant now = Instant.now();
+    List<OutboxEvent> events = new ArrayList<>(entities.size());
+    entities.forEach(
+        entity -> events.add(event(aggregate, idOf.apply(entity), changeType, entity, now)));
+    outboxEventRepository.saveAll(events);
+  }
+
+  /**
+   * One DELETED event per entity, with the last version it had as its payload, so consumers can
+   * order it after the entity's other events.
+   */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public <T> void recordDeleted(
+      OutboxEvent.Aggregate aggregate,
+      Collection<T> entities,
+      Function<T, Long> idOf,
+      Function<T, Long> versionOf) {
+    Instant now = Instant.now();
+    List<OutboxEvent> events = new ArrayList<>(entities.size());
+    entities.forEach(
+        entity ->
+            events.add(
+                event(
+                    aggregate,
+                    idOf.apply(entity),
+                    OutboxEvent.ChangeType.DELETED,
+                    Map.of("version", versionOf.apply(entity)),
+                    now)));
+    outboxEventRepository.saveAll(events);
+  }
+
+  private OutboxEvent event(
+      OutboxEvent.Aggregate aggregate,
+      Long aggregateId,
+      OutboxEvent.ChangeType changeType,
+      Object payload,
+      Instant createdAt) {
+    try {
+      return OutboxEvent.builder()
+          .aggregate(aggregate)
+          .aggregateId(aggregateId)
+          .changeType(changeType)
+          .payload(payload != null ? objectMapper.writeValueAsString(payload) : null)
+          .createdAt(createdAt)
+          .build();
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Cannot serialize " + aggregate + " " + aggregateId, e);
+    }
+  }
+}
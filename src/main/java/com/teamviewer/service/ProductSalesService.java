@@ -0,0 +1,382 @@
+package com.teamviewer.service;
+
+import com.teamviewer.analytics.ProductSalesCounters;
+import com.teamviewer.entity.OrderItem;
+import com.teamviewer.entity.ProductSales;
+import com.teamviewer.repository.ProductSalesRepository;
+import com.teamviewer.repository.projection.ProductSalesView;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import static com.teamviewer.util.Constants.SERVICE_TIMER;
+
+/**
+ * Read model of units sold, revenue and order lines per product. {@code tb_product_sales} holds
+ * the counters and is upserted, in the same transaction as the order item change. Reads are served
+ * from a {@link ProductSalesCounters} in memory, which gets a transaction's changes once it
+ * commits. The table and the counters are rebuilt from scratch by {@link #rebuild()}.
+ *
+ * <p>Upserting takes the product's row lock until commit, which would serialize the sales of a
+ * product in {@link HotInventoryService hot inventory mode} again. Their changes skip the table:
+ * once committed they are buffered in memory and written by a periodic {@link #flush()}, the way
+ * hot stock is. What is not flushed yet is lost on a crash, until the next rebuild.
+ *
+ * <p>Changes made on other instances reach the counters on the next {@link #reload()}, by default
+ * within 10 seconds. A reload streams the table into new counters while transactions keep
+ * committing, then replays the changes committed on this instance since it began and swaps the new
+ * counters in. No lock is held across a transaction. A change whose transaction commits just before
+ * the table is read but is applied after the reload began is counted twice until the next reload.
+ */
+@Slf4j
+@Service
+@Timed(value = SERVICE_TIMER, histogram = true)
+public class ProductSalesService {
+
+  private final ProductSalesRepository productSalesRepository;
+
+  private final HotInventoryService hotInventoryService;
+
+  /** Not read-only: reloads must see the rows just written, not a lagging read replica. */
+  private final TransactionTemplate transactionTemplate;
+
+  /** Runs one rebuild, reload or flush at a time. */
+  private final Lock reloadLock = new ReentrantLock();
+
+  /**
+   * Guards swapping {@link #counters}, {@link #replay} and {@link #unflushed}; held for in-memory
+   * work only.
+   */
+  private final Object countersMonitor = new Object();
+
+  private volatile ProductSalesCounters counters = new ProductSalesCounters();
+
+  /**
+   * Deltas written to the table and committed since the running reload began, or {@code null} if
+   * none is running.
+   */
+  private List<Map<Long, Delta>> replay;
+
+  /** Committed deltas of hot products that are not in the table yet. */
+  private Map<Long, Delta> unflushed = new TreeMap<>();
+
+  public ProductSalesService(
+      ProductSalesRepository productSalesRepository,
+      HotInventoryService hotInventoryService,
+      PlatformTransactionManager transactionManager) {
+    this.productSalesRepository = productSalesRepository;
+    this.hotInventoryService = hotInventoryService;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+  }
+
+  /** Loads the counters, building the table first if it is empty, e.g. on the first deployment. */
+  @PostConstruct
+  public void load() {
+    if (productSalesRepository.count() == 0) {
+      rebuild();
+    } else {
+      reload();
+    }
+  }
+
+  /** @return the product's counters, all zero if it has not been sold; revenue in cents */
+  public ProductSalesCounters.Sales getSales(long productId) {
+    return counters.get(productId);
+  }
+
+  /** @return up to {@code limit} products with the most units sold or revenue, best first */
+  public List<ProductSalesCounters.Sales> findTop(ProductSalesCounters.Ranking ranking, int limit) {
+    return counters.top(ranking, limit);
+  }
+
+  public void itemsAdded(List<OrderItem> items) {
+    Map<Long, Delta> deltas = new TreeMap<>();
+    items.forEach(
+        item -> merge(deltas, item.getProductId(), item.getQuantity(), item.getUnitPrice(), 1));
+    record(deltas);
+  }
+
+  public void itemRemoved(OrderItem item) {
+    Map<Long, Delta> deltas = new TreeMap<>();
+    merge(deltas, item.getProductId(), item.getQuantity(), item.getUnitPrice(), -1);
+    record(deltas);
+  }
+
+  /** Moves the sales of an order item that changed from the old line to the new one. */
+  public void itemChanged(
+      Integer oldProductId,
+      Integer oldQuantity,
+      BigDecimal oldUnitPrice,
+      Integer productId,
+      Integer quantity,
+      BigDecimal unitPrice) {
+    Map<Long, Delta> deltas = new TreeMap<>();
+    merge(deltas, oldProductId, oldQuantity, oldUnitPrice, -1);
+    merge(deltas, productId, quantity, unitPrice, 1);
+    record(deltas);
+  }
+
+  /** Takes sales summed by {@code OrderItemRepository#sumSalesBy...} off the counters. */
+  public void salesRemoved(List<ProductSalesView> sales) {
+    Map<Long, Delta> deltas = new TreeMap<>();
+    sales.forEach(
+        view ->
+            deltas.merge(
+                view.getProductId(),
+                new Delta(
+                    -view.getQuantity(), -toCents(view.getRevenue()), -view.getOrderLines()),
+                Delta::plus));
+    record(deltas);
+  }
+
+  /**
+   * Recomputes the table from the order items with one set-based statement, then reloads the
+   * counters. Buffered deltas of hot products are dropped, as the order items already hold them; a
+   * hot sale committed while the table is recomputed may be counted twice.
+   *
+   * @return the number of products with counters
+   */
+  public int rebuild() {
+    log.info("rebuild invoked");
+    long start = System.nanoTime();
+    reloadLock.lock();
+    try {
+      int products =
+          transactionTemplate.execute(
+              status -> {
+                synchronized (countersMonitor) {
+                  unflushed = new TreeMap<>();
+                }
+                productSalesRepository.deleteAllSales();
+                return productSalesRepository.insertFromOrderItems();
+              });
+      reloadLocked();
+      log.info(
+          "Rebuilt sales of {} products in {} ms",
+          products,
+          (System.nanoTime() - start) / 1_000_000);
+      return products;
+    } finally {
+      reloadLock.unlock();
+    }
+  }
+
+  /** Replaces the counters with a streamed read of the table, picking up other instances' sales. */
+  @Scheduled(cron = "${sales.read-model.reload-cron:*/10 * * * * *}")
+  public void reload() {
+    reloadLock.lock();
+    try {
+      reloadLocked();
+    } finally {
+      reloadLock.unlock();
+    }
+  }
+
+  private void reloadLocked() {
+    synchronized (countersMonitor) {
+      replay = new ArrayList<>();
+    }
+    try {
+      ProductSalesCounters loaded =
+          transactionTemplate.execute(
+              status -> {
+                ProductSalesCounters rows =
+                    new ProductSalesCounters((int) productSalesRepository.count());
+                try (Stream<ProductSales> stream = productSalesRepository.streamAll()) {
+                  stream.forEach(
+                      row ->
+                          rows.add(
+                              row.getProductId(),
+                              row.getQuantity(),
+                              toCents(row.getRevenue()),
+                              row.getOrderLines()));
+                }
+                return rows;
+              });
+      synchronized (countersMonitor) {
+        replay.forEach(deltas -> add(loaded, deltas));
+        add(loaded, unflushed);
+        counters = loaded;
+      }
+      log.debug("Loaded sales of {} products", loaded.size());
+    } finally {
+      synchronized (countersMonitor) {
+        replay = null;
+      }
+    }
+  }
+
+  /** Writes the buffered deltas of hot products to the table, in one transaction. */
+  @Scheduled(fixedDelayString = "${sales.read-model.flush-interval-ms:1000}")
+  @PreDestroy
+  public void flush() {
+    reloadLock.lock();
+    try {
+      Map<Long, Delta> batch;
+      synchronized (countersMonitor) {
+        if (unflushed.isEmpty()) {
+          return;
+        }
+        batch = unflushed;
+        unflushed = new TreeMap<>();
+      }
+      try {
+        transactionTemplate.executeWithoutResult(status -> upsert(batch));
+      } catch (RuntimeException ex) {
+        log.error("Failed to flush sales of {} hot products", batch.size(), ex);
+        synchronized (countersMonitor) {
+          mergeInto(unflushed, batch);
+        }
+      }
+    } finally {
+      reloadLock.unlock();
+    }
+  }
+
+  /**
+   * Applies the deltas to the table, in product order so concurrent transactions cannot deadlock,
+   * or buffers those of hot products for {@link #flush()}; either way to the counters once the
+   * caller's transaction commits.
+   */
+  private void record(Map<Long, Delta> deltas) {
+    deltas.values().removeIf(Delta::isZero);
+    if (deltas.isEmpty()) {
+      return;
+    }
+    Map<Long, Delta> written = new TreeMap<>();
+    Map<Long, Delta> buffered = new TreeMap<>();
+    deltas.forEach(
+        (productId, delta) ->
+            (hotInventoryService.isHot(productId) ? buffered : written).put(productId, delta));
+    upsert(written);
+    Pending pending = pendingInTransaction();
+    if (pending != null) {
+      mergeInto(pending.written(), written);
+      mergeInto(pending.buffered(), buffered);
+    } else {
+      apply(written, buffered);
+    }
+  }
+
+  private void upsert(Map<Long, Delta> deltas) {
+    deltas.forEach(
+        (productId, delta) ->
+            productSalesRepository.upsertSales(
+                productId,
+                delta.quantity(),
+                BigDecimal.valueOf(delta.revenueCents(), 2),
+                delta.orderLines()));
+  }
+
+  /**
+   * @return the deltas the current transaction has recorded so far, to be applied when it commits,
+   *     or {@code null} outside a transaction
+   */
+  private Pending pendingInTransaction() {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      return null;
+    }
+    Pending pending = (Pending) TransactionSynchronizationManager.getResource(this);
+    if (pending != null) {
+      return pending;
+    }
+    Pending created = new Pending(new TreeMap<>(), new TreeMap<>());
+    TransactionSynchronizationManager.bindResource(this, created);
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCommit() {
+            apply(created.written(), created.buffered());
+          }
+
+          @Override
+          public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(ProductSalesService.this);
+          }
+        });
+    return created;
+  }
+
+  /**
+   * Adds committed deltas to the counters. Those written to the table are kept for a running reload
+   * to replay, the others are buffered for {@link #flush()}.
+   */
+  private void apply(Map<Long, Delta> written, Map<Long, Delta> buffered) {
+    synchronized (countersMonitor) {
+      add(counters, written);
+      add(counters, buffered);
+      if (replay != null) {
+        replay.add(written);
+      }
+      mergeInto(unflushed, buffered);
+    }
+  }
+
+  private static void mergeInto(Map<Long, Delta> target, Map<Long, Delta> deltas) {
+    deltas.forEach((productId, delta) -> target.merge(productId, delta, Delta::plus));
+  }
+
+  private static void add(ProductSalesCounters target, Map<Long, Delta> deltas) {
+    deltas.forEach(
+        (productId, delta) ->
+            target.add(productId, delta.quantity(), delta.revenueCents(), delta.orderLines()));
+  }
+
+  private static void merge(
+      Map<Long, Delta> deltas,
+      Integer productId,
+      Integer quantity,
+      BigDecimal unitPrice,
+      int sign) {
+    if (productId == null || quantity == null) {
+      return;
+    }
+    long revenueCents =
+        unitPrice == null ? 0 : Math.multiplyExact(toCents(unitPrice), quantity.longValue());
+    deltas.merge(
+        productId.longValue(),
+        new Delta(sign * quantity.longValue(), sign * revenueCents, sign),
+        Delta::plus);
+  }
+
+  /** Amounts are stored with two decimals, see {@code OrderItem#unitPrice}. */
+  private static long toCents(BigDecimal amount) {
+    return amount == null
+        ? 0
+        : amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+  }
+
+  /** Deltas of the current transaction, by whether they were written to the table. */
+  private record Pending(Map<Long, Delta> written, Map<Long, Delta> buffered) {}
+
+  private record Delta(long quantity, long revenueCents, long orderLines) {
+
+    Delta plus(Delta other) {
+      return new Delta(
+          quantity + other.quantity,
+          revenueCents + other.revenueCents,
+          orderLines + other.orderLines);
+    }
+
+    boolean isZero() {
+      return quantity == 0 && revenueCents == 0 && orderLines == 0;
+    }
+  }
+}
@@ -0,0 +1,276 @@
+package com.teamviewer.service;
+
+import com.teamviewer.entity.Product;
+import com.teamviewer.exception.InvalidRequestException;
+import com.teamviewer.repository.ProductRepository;
+import com.teamviewer.repository.projection.ProductTextView;
+import com.teamviewer.search.ProductSearchIndex;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.teamviewer.util.Constants.MAX_PAGE_SIZE;
+import static com.teamviewer.util.Constants.SERVICE_TIMER;
+
+/**
+ * Full-text product search over an in-process {@link ProductSearchIndex}. The index is built from
+ * a streamed scan of {@code tb_product} while the context starts, before any request is served,
+ * and {@link ProductService} keeps it current: changes are applied once their transaction commits,
+ * so a rolled-back write never shows up in search results.
+ *
+ * <p>A change is diffed against the text the product had when its transaction read it. That is the
+ * indexed text only if the changes of a product are applied in the order they committed, so each
+ * product has a queue of its changes. A change joins it after its transaction has written the
+ * product or read the version it deletes, and writes are versioned, so the changes that commit are
+ * queued in commit order. A change is applied once it and every change ahead of it have completed;
+ * one whose callback runs ahead of an earlier transaction's is left for that one to apply.
+ *
+ * <p>Other instances' changes only reach the index through {@link #rebuildIndex()}, which scans
+ * the table on the primary into a new index and swaps it in. A product changed here while that
+ * runs may have been read before the change; it is re-read once the scan is done, and the ones
+ * changed after that get the postings they have in the index being replaced.
+ */
+@Slf4j
+@Service
+@Timed(value = SERVICE_TIMER, histogram = true)
+public class ProductSearchService {
+
+  private final ProductRepository productRepository;
+
+  private final TransactionTemplate readOnlyTransaction;
+
+  /** Not read-only, so it is routed to the primary and sees every commit applied here. */
+  private final TransactionTemplate primaryTransaction;
+
+  /** Applying changes takes it shared, swapping in a rebuilt index exclusively. */
+  private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+
+  private volatile ProductSearchIndex index = new ProductSearchIndex();
+
+  /**
+   * Products whose changes were applied since the running rebuild began or last took them, or
+   * {@code null} if no rebuild is running. Replaced under the write lock of {@link #swapLock}.
+   */
+  private Set<Long> touched;
+
+  /** Changes of each product that are in flight or wait for one ahead of them, oldest first. */
+  private final Map<Long, Deque<Change>> pending = new ConcurrentHashMap<>();
+
+  public ProductSearchService(
+      ProductRepository productRepository, PlatformTransactionManager transactionManager) {
+    this.productRepository = productRepository;
+    this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+    this.readOnlyTransaction.setReadOnly(true);
+    this.primaryTransaction = new TransactionTemplate(transactionManager);
+  }
+
+  @PostConstruct
+  public void buildIndex() {
+    long start = System.nanoTime();
+    readOnlyTransaction.executeWithoutResult(status -> scan(index));
+    index.trimToSize();
+    logBuilt(index, start);
+  }
+
+  /** Replaces the index with a scan of the table, picking up other instances' changes. */
+  @Scheduled(cron = "${search.products.rebuild-cron:0 */5 * * * *}")
+  public synchronized void rebuildIndex() {
+    long start = System.nanoTime();
+    ProductSearchIndex rebuilt = new ProductSearchIndex();
+    swapTouched(ConcurrentHashMap.newKeySet());
+    try {
+      primaryTransaction.executeWithoutResult(status -> scan(rebuilt));
+      Set<Long> changed = swapTouched(ConcurrentHashMap.newKeySet());
+      if (!changed.isEmpty()) {
+        rebuilt.removeAll(changed);
+        primaryTransaction.executeWithoutResult(
+            status ->
+                productRepository
+                    .findTextByIds(changed.toArray(Long[]::new))
+                    .forEach(
+                        product ->
+                            rebuilt.add(
+                                product.getId(), product.getName(), product.getDescription())));
+      }
+      rebuilt.trimToSize();
+      swapLock.writeLock().lock();
+      try {
+        rebuilt.copy(index, touched);
+        index = rebuilt;
+      } finally {
+        swapLock.writeLock().unlock();
+      }
+    } finally {
+      swapTouched(null);
+    }
+    logBuilt(rebuilt, start);
+  }
+
+  /**
+   * @return up to {@code limit} products (clamped to {@code [1, MAX_PAGE_SIZE]}) whose name or
+   *     description contains every word of the query, or a word starting with it, best match first
+   */
+  @Transactional(readOnly = true)
+  public List<Product> search(String query, int limit) {
+    log.debug("search invoked limit {}", limit);
+    if (query == null || query.isBlank()) {
+      throw new InvalidRequestException("Search query must not be blank");
+    }
+    List<ProductSearchIndex.Hit> hits =
+        index.search(query, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+    if (hits.isEmpty()) {
+      return List.of();
+    }
+    Map<Long, Product> products =
+        productRepository.findAllById(hits.stream().map(ProductSearchIndex.Hit::id).toList())
+            .stream()
+            .collect(Collectors.toMap(Product::getId, Function.identity()));
+    List<Product> ranked = new ArrayList<>(hits.size());
+    for (ProductSearchIndex.Hit hit : hits) {
+      Product product = products.get(hit.id());
+      if (product != null) {
+        ranked.add(product);
+      }
+    }
+    return ranked;
+  }
+
+  public void productCreated(Product product) {
+    long id = product.getId();
+    String name = product.getName();
+    String description = product.getDescription();
+    afterCommit(id, () -> index.add(id, name, description));
+  }
+
+  /** Called after the versioned UPDATE, so the old text is the one the product had committed. */
+  public void productUpdated(Product product, String oldName, String oldDescription) {
+    long id = product.getId();
+    String name = product.getName();
+    String description = product.getDescription();
+    afterCommit(id, () -> index.update(id, oldName, oldDescription, name, description));
+  }
+
+  public void productDeleted(Product product) {
+    long id = product.getId();
+    String name = product.getName();
+    String description = product.getDescription();
+    afterCommit(id, () -> index.remove(id, name, description));
+  }
+
+  public ProductSearchIndex getIndex() {
+    return index;
+  }
+
+  private void scan(ProductSearchIndex target) {
+    try (Stream<ProductTextView> products = productRepository.streamAllText()) {
+      products.forEach(
+          product -> target.add(product.getId(), product.getName(), product.getDescription()));
+    }
+  }
+
+  private void logBuilt(ProductSearchIndex built, long start) {
+    log.info(
+        "Indexed {} products, {} terms, ~{} KB in {} ms",
+        built.documents(),
+        built.terms(),
+        built.estimatedBytes() / 1024,
+        (System.nanoTime() - start) / 1_000_000);
+  }
+
+  /** @return the products touched since the last call */
+  private Set<Long> swapTouched(Set<Long> next) {
+    swapLock.writeLock().lock();
+    try {
+      Set<Long> previous = touched;
+      touched = next;
+      return previous;
+    } finally {
+      swapLock.writeLock().unlock();
+    }
+  }
+
+  private void afterCommit(long id, Runnable apply) {
+    Change change = new Change(apply);
+    pending.compute(
+        id,
+        (key, changes) -> {
+          Deque<Change> queue = changes != null ? changes : new ArrayDeque<>();
+          queue.addLast(change);
+          return queue;
+        });
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      complete(id, change, true);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCompletion(int status) {
+            complete(id, change, status == STATUS_COMMITTED);
+          }
+        });
+  }
+
+  /** Applies the completed changes at the head of the product's queue, in commit order. */
+  private void complete(long id, Change change, boolean committed) {
+    pending.computeIfPresent(
+        id,
+        (key, changes) -> {
+          change.completed = true;
+          change.committed = committed;
+          while (!changes.isEmpty() && changes.peekFirst().completed) {
+            Change head = changes.pollFirst();
+            if (head.committed) {
+              apply(id, head.apply);
+            }
+          }
+          return changes.isEmpty() ? null : changes;
+        });
+  }
+
+  private void apply(long id, Runnable apply) {
+    swapLock.readLock().lock();
+    try {
+      apply.run();
+      if (touched != null) {
+        touched.add(id);
+      }
+    } finally {
+      swapLock.readLock().unlock();
+    }
+  }
+
+  /** Guarded by the {@link #pending} entry of its product. */
+  private static final class Change {
+
+    private final Runnable apply;
+
+    private boolean completed;
+
+    private boolean committed;
+
+    Change(Runnable apply) {
+      this.apply = apply;
+    }
+  }
+}
@@ -1,59 +1,293 @@
 package com.teamviewer.service;
 
+import com.teamviewer.dto.BulkDeleteReport;
+import com.teamviewer.entity.OutboxEvent;
 import com.teamviewer.entity.Product;
+import com.teamviewer.exception.InvalidRequestException;
+import com.teamviewer.exception.PreconditionFailedException;
 import com.teamviewer.exception.ResourceNotFoundException;
 import com.teamviewer.repository.ProductRepository;
+import com.teamviewer.repository.projection.ProductTextView;
+import com.teamviewer.util.BatchIds;
+import com.teamviewer.util.Pagination;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+import static com.teamviewer.util.Constants.MAX_BATCH_SIZE;
+import static com.teamviewer.util.Constants.PRODUCTS_CACHE;
+import static com.teamviewer.util.Constants.SERVICE_TIMER;
 
 @Slf4j
 @Service
+@Timed(value = SERVICE_TIMER, histogram = true)
 @RequiredArgsConstructor
 public class ProductService {
 
   private final ProductRepository productRepository;
 
+  private final ProductSearchService productSearchService;
+
+  private final HotInventoryService hotInventoryService;
+
+  private final OutboxService outboxService;
+
+  @Transactional(readOnly = true)
   public List<Product> findAllProducts() {
-    log.info("findAllProducts invoked ");
+    log.debug("findAllProducts invoked");
 
     return productRepository.findAll();
   }
 
+  @Transactional(readOnly = true)
+  public Slice<Product> findProducts(Long after, int limit) {
+    log.debug("findProducts invoked after {} limit {}", after, limit);
+
+    return productRepository.findByIdGreaterThanOrderByIdAsc(after, Pagination.firstPage(limit));
+  }
+
+  /**
+   * Not read-only, so a cache miss is loaded from the primary: a miss usually follows the eviction
+   * by a write, and a lagging replica would put the old product back in the cache for every
+   * client until it expires.
+   */
+  @Cacheable(cacheNames = PRODUCTS_CACHE, key = "#id")
+  @Transactional
   public Product getProductById(Long id) {
-    log.info("getProductById invoked " + id.toString());
+    log.debug("getProductById invoked {}", id);
     return productRepository
         .findById(id)
         .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
   }
 
+  @Transactional
   public Product createProduct(Product product) {
-    log.info("createProduct invoked ");
+    log.debug("createProduct invoked");
 
-    return productRepository.save(product);
+    Product createdProduct = productRepository.save(product);
+    productSearchService.productCreated(createdProduct);
+    outboxService.record(
+        OutboxEvent.Aggregate.PRODUCT,
+        createdProduct.getId(),
+        OutboxEvent.ChangeType.CREATED,
+        createdProduct);
+    return createdProduct;
   }
 
+  /**
+   * Inserts all products in one transaction. IDs come from the pooled sequence, so Hibernate can
+   * group the inserts into JDBC batches.
+   */
+  @Transactional
+  public List<Product> createProducts(List<Product> products) {
+    log.debug("createProducts invoked for {} products", products.size());
+    if (products.size() > MAX_BATCH_SIZE) {
+      throw new InvalidRequestException("At most " + MAX_BATCH_SIZE + " products per batch");
+    }
+    products.forEach(product -> product.setId(null));
+    List<Product> createdProducts = productRepository.saveAll(products);
+    createdProducts.forEach(productSearchService::productCreated);
+    outboxService.recordAll(
+        OutboxEvent.Aggregate.PRODUCT,
+        OutboxEvent.ChangeType.CREATED,
+        createdProducts,
+        Product::getId);
+    return createdProducts;
+  }
+
+  /**
+   * Copies the editable fields onto the stored product. A non-null {@code product.version} is the
+   * version the caller last saw: the update is refused if the product has moved on since, and the
+   * versioned UPDATE refuses it if another writer gets in between. The UPDATE is flushed right
+   * away so the change event carries the new version. The stock of a product in hot inventory
+   * mode is held in memory and must be sent unchanged.
+   */
+  @Transactional
+  @CacheEvict(cacheNames = PRODUCTS_CACHE, key = "#product.id")
   public Product updateProduct(Product product) {
-    log.info("updateProduct invoked ");
+    log.debug("updateProduct invoked");
     Product existingProduct =
         getProductById(product.getId()); // Ensure product exists before updating
+    if (product.getVersion() != null
+        && !product.getVersion().equals(existingProduct.getVersion())) {
+      throw new PreconditionFailedException(
+          "Product " + product.getId() + " has changed since version " + product.getVersion());
+    }
+    String oldName = existingProduct.getName();
+    String oldDescription = existingProduct.getDescription();
+    Integer oldStock = existingProduct.getStock();
     existingProduct.setName(product.getName()); // Update relevant fields
     existingProduct.setDescription(product.getDescription());
     existingProduct.setPrice(product.getPrice());
     existingProduct.setStock(product.getStock());
-    return productRepository.save(existingProduct);
+    Product updatedProduct = productRepository.saveAndFlush(existingProduct);
+    // Checked after the UPDATE took the row lock, see HotInventoryService
+    if (!Objects.equals(oldStock, product.getStock())
+        && hotInventoryService.isHot(product.getId())) {
+      throw new InvalidRequestException(
+          "Stock of product "
+              + product.getId()
+              + " is held in hot inventory mode and cannot be set");
+    }
+    productSearchService.productUpdated(updatedProduct, oldName, oldDescription);
+    outboxService.record(
+        OutboxEvent.Aggregate.PRODUCT,
+        updatedProduct.getId(),
+        OutboxEvent.ChangeType.UPDATED,
+        updatedProduct);
+    return updatedProduct;
+  }
+
+  /**
+   * Writes only the non-null fields of {@code patch}, in one versioned UPDATE and without loading
+   * the product. A new name or description is the exception: the old text is read first, for the
+   * search index, and the UPDATE is conditioned on its version. The stock of a product in hot
+   * inventory mode is held in memory and cannot be set this way.
+   *
+   * @param version the version the caller last saw, or {@code null} to patch any version
+   * @return the new version; returned by the UPDATE itself if neither {@code version} nor the old
+   *     text gave the one updated
+   */
+  @Transactional
+  @CacheEvict(cacheNames = PRODUCTS_CACHE, key = "#id")
+  public Long patchProduct(Long id, Product patch, Long version) {
+    log.debug("patchProduct invoked {}", id);
+    Map<String, Object> values = new LinkedHashMap<>();
+    putIfPresent(values, "name", patch.getName());
+    putIfPresent(values, "description", patch.getDescription());
+    putIfPresent(values, "price", patch.getPrice());
+    putIfPresent(values, "stock", patch.getStock());
+    if (values.isEmpty()) {
+      throw new InvalidRequestException("Patch must set at least one field");
+    }
+    ProductTextView oldText = null;
+    Long expectedVersion = version;
+    if (patch.getName() != null || patch.getDescription() != null) {
+      oldText =
+          productRepository
+              .findTextById(id)
+              .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
+      expectedVersion = version != null ? version : oldText.getVersion();
+    }
+    Long newVersion;
+    if (expectedVersion != null) {
+      newVersion =
+          productRepository.updatePartially(Product.class, id, expectedVersion, values) == 1
+              ? expectedVersion + 1
+              : null;
+    } else {
+      newVersion = productRepository.updatePartiallyReturningVersion(Product.class, id, values);
+    }
+    if (newVersion == null) {
+      if (!productRepository.existsById(id)) {
+        throw new ResourceNotFoundException("Product not found with id: " + id);
+      }
+      if (version != null) {
+        throw new PreconditionFailedException(
+            "Product " + id + " has changed since version " + version);
+      }
+      throw new OptimisticLockingFailureException("Product " + id + " was modified concurrently");
+    }
+    // Checked after the UPDATE took the row lock, see HotInventoryService
+    if (patch.getStock() != null && hotInventoryService.isHot(id)) {
+      throw new InvalidRequestException(
+          "Stock of product " + id + " is held in hot inventory mode and cannot be set");
+    }
+    if (oldText != null) {
+      productSearchService.productUpdated(
+          Product.builder()
+              .id(id)
+              .name(patch.getName() != null ? patch.getName() : oldText.getName())
+              .description(
+                  patch.getDescription() != null
+                      ? patch.getDescription()
+                      : oldText.getDescription())
+              .build(),
+          oldText.getName(),
+          oldText.getDescription());
+    }
+    outboxService.recordPatch(OutboxEvent.Aggregate.PRODUCT, id, values, newVersion);
+    return newVersion;
   }
 
+  private static void putIfPresent(Map<String, Object> values, String attribute, Object value) {
+    if (value != null) {
+      values.put(attribute, value);
+    }
+  }
+
+  /**
+   * Loads the product first so its text can be dropped from the search index. The DELETE is
+   * flushed right away, so the product leaves hot inventory mode under its row lock.
+   */
+  @Transactional
+  @CacheEvict(cacheNames = PRODUCTS_CACHE, key = "#id")
   public void deleteProduct(Long id) {
-    log.info("deleteProduct invoked ");
+    log.debug("deleteProduct invoked");
 
+    Optional<Product> product = productRepository.findById(id);
     productRepository.deleteById(id);
+    productRepository.flush();
+    product.ifPresent(
+        deletedProduct -> {
+          hotInventoryService.productDeleted(id);
+          productSearchService.productDeleted(deletedProduct);
+          outboxService.recordDeleted(
+              OutboxEvent.Aggregate.PRODUCT,
+              List.of(deletedProduct),
+              Product::getId,
+              Product::getVersion);
+        });
+  }
+
+  /**
+   * Deletes the products with one set-based DELETE per {@link BatchIds#chunks chunk}, without
+   * loading them; only their text and version are read first, under a row lock, to drop the text
+   * from the search index and version the DELETED events. IDs that do not exist are skipped.
+   */
+  @Transactional
+  @CacheEvict(cacheNames = PRODUCTS_CACHE, allEntries = true)
+  public BulkDeleteReport deleteProducts(List<Long> ids) {
+    log.debug("deleteProducts invoked for {} products", ids != null ? ids.size() : 0);
+    int deleted = 0;
+    for (Long[] productIds : BatchIds.chunks(ids)) {
+      List<ProductTextView> texts = productRepository.findTextByIdsForUpdate(productIds);
+      deleted += productRepository.deleteAllByIds(productIds);
+      texts.forEach(text -> hotInventoryService.productDeleted(text.getId()));
+      texts.forEach(
+          text ->
+              productSearchService.productDeleted(
+                  Product.builder()
+                      .id(text.getId())
+                      .name(text.getName())
+                      .description(text.getDescription())
+                      .build()));
+      outboxService.recordDeleted(
+          OutboxEvent.Aggregate.PRODUCT,
+          texts,
+          ProductTextView::getId,
+          ProductTextView::getVersion);
+    }
+    return BulkDeleteReport.builder().deleted(deleted).build();
   }
 
+  /** Loaded from the primary, see {@link #getProductById}. */
+  @Cacheable(cacheNames = PRODUCTS_CACHE, key = "#id")
+  @Transactional
   public Product findProductById(Long id) {
-    log.info("findProductById invoked " + id.toString());
+    log.debug("findProductById invoked {}", id);
 
     return productRepository
         .findById(id)
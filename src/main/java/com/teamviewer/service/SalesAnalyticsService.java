@@ -0,0 +1,126 @@
+package com.teamviewer.service;
+
+import com.teamviewer.analytics.ProductSalesCounters;
+import com.teamviewer.dto.ProductSalesDto;
+import com.teamviewer.dto.RevenueBucketDto;
+import com.teamviewer.exception.InvalidRequestException;
+import com.teamviewer.repository.OrderItemRepository;
+import com.teamviewer.repository.ProductRepository;
+import com.teamviewer.repository.projection.ProductTextView;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static com.teamviewer.util.Constants.ANALYTICS_CACHE;
+import static com.teamviewer.util.Constants.MAX_PAGE_SIZE;
+import static com.teamviewer.util.Constants.SERVICE_TIMER;
+
+/**
+ * Sales figures for dashboards. Product rankings and per-product sales come from the {@link
+ * ProductSalesService} read model and never scan {@code tb_order_item}; order total buckets are
+ * aggregated by the database. Rankings and buckets are cached for {@code analytics.cache-ttl} and
+ * may lag the latest orders by that much; when one expires, concurrent requests for it compute it
+ * once.
+ */
+@Slf4j
+@Service
+@Timed(value = SERVICE_TIMER, histogram = true)
+@RequiredArgsConstructor
+public class SalesAnalyticsService {
+
+  private static final BigDecimal MIN_BUCKET_WIDTH = new BigDecimal("0.01");
+
+  private final OrderItemRepository orderItemRepository;
+
+  private final ProductRepository productRepository;
+
+  private final ProductSalesService productSalesService;
+
+  /**
+   * @param by {@code quantity} or {@code revenue}
+   * @return up to {@code limit} products (clamped to {@code [1, MAX_PAGE_SIZE]}) with the most
+   *     units sold or revenue, best first
+   */
+  @Cacheable(
+      cacheNames = ANALYTICS_CACHE,
+      key = "'top-products:' + #by + ':' + #limit",
+      sync = true)
+  @Transactional(readOnly = true)
+  public List<ProductSalesDto> findTopProducts(String by, int limit) {
+    log.debug("findTopProducts invoked by {} limit {}", by, limit);
+    ProductSalesCounters.Ranking ranking =
+        switch (String.valueOf(by)) {
+          case "quantity" -> ProductSalesCounters.Ranking.QUANTITY;
+          case "revenue" -> ProductSalesCounters.Ranking.REVENUE;
+          default -> throw new InvalidRequestException(
+              "Unknown ranking '" + by + "', expected quantity or revenue");
+        };
+    List<ProductSalesCounters.Sales> top =
+        productSalesService.findTop(ranking, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+    if (top.isEmpty()) {
+      return List.of();
+    }
+    Map<Long, String> names =
+        findNames(top.stream().map(ProductSalesCounters.Sales::productId).toArray(Long[]::new));
+    return top.stream().map(sales -> toDto(sales, names.get(sales.productId()))).toList();
+  }
+
+  /** Sales in constant time from memory, the name by primary key; not cached. */
+  @Transactional(readOnly = true)
+  public ProductSalesDto getProductSales(Long productId) {
+    return toDto(
+        productSalesService.getSales(productId), findNames(new Long[] {productId}).get(productId));
+  }
+
+  /**
+   * @return orders and their revenue per range of order totals {@code width} wide, lowest first,
+   *     leaving out empty ranges; at most {@code MAX_PAGE_SIZE} ranges
+   */
+  @Cacheable(cacheNames = ANALYTICS_CACHE, key = "'revenue-buckets:' + #width", sync = true)
+  @Transactional(readOnly = true)
+  public List<RevenueBucketDto> findRevenueByOrderTotal(BigDecimal width) {
+    log.debug("findRevenueByOrderTotal invoked width {}", width);
+    if (width == null
+        || width.compareTo(MIN_BUCKET_WIDTH) < 0
+        || width.stripTrailingZeros().scale() > 2) {
+      throw new InvalidRequestException("Bucket width must be a multiple of 0.01, at least 0.01");
+    }
+    return orderItemRepository.sumRevenueByOrderTotalBucket(width, MAX_PAGE_SIZE).stream()
+        .map(
+            bucket -> {
+              BigDecimal from = bucket.getBucket().multiply(width);
+              return RevenueBucketDto.builder()
+                  .from(from)
+                  .to(from.add(width))
+                  .orders(bucket.getOrders())
+                  .revenue(bucket.getRevenue())
+                  .build();
+            })
+        .toList();
+  }
+
+  /** @return the names of the products that exist and have one */
+  private Map<Long, String> findNames(Long[] productIds) {
+    return productRepository.findTextByIds(productIds).stream()
+        .filter(product -> product.getName() != null)
+        .collect(Collectors.toMap(ProductTextView::getId, ProductTextView::getName));
+  }
+
+  private static ProductSalesDto toDto(ProductSalesCounters.Sales sales, String name) {
+    return ProductSalesDto.builder()
+        .productId(sales.productId())
+        .name(name)
+        .quantity(sales.quantity())
+        .revenue(BigDecimal.valueOf(sales.revenueCents(), 2))
+        .orderLines(sales.orderLines())
+        .build();
+  }
+}
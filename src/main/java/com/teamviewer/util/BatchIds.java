@@ -0,0 +1,42 @@
+package com.teamviewer.util;
+
+import com.teamviewer.exception.InvalidRequestException;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.teamviewer.util.Constants.DELETE_CHUNK_SIZE;
+import static com.teamviewer.util.Constants.MAX_DELETE_BATCH_SIZE;
+
+/**
+ * IDs for set-based statements of the form {@code id = any(?)}: each chunk is bound as one array
+ * parameter, so neither the statement text nor the bind parameter count grow with the batch.
+ * Chunks stay well below the array size limits of the databases (65536 elements on H2), and
+ * small enough that H2 still matches each row against the array cheaply.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class BatchIds {
+
+  public static List<Long[]> chunks(List<Long> ids) {
+    if (ids == null || ids.isEmpty()) {
+      throw new InvalidRequestException("At least one ID is required");
+    }
+    if (ids.size() > MAX_DELETE_BATCH_SIZE) {
+      throw new InvalidRequestException("At most " + MAX_DELETE_BATCH_SIZE + " IDs per batch");
+    }
+    List<Long[]> chunks = new ArrayList<>((ids.size() - 1) / DELETE_CHUNK_SIZE + 1);
+    for (int from = 0; from < ids.size(); from += DELETE_CHUNK_SIZE) {
+      Long[] chunk =
+          ids.subList(from, Math.min(from + DELETE_CHUNK_SIZE, ids.size())).toArray(Long[]::new);
+      for (Long id : chunk) {
+        if (id == null) {
+          throw new InvalidRequestException("IDs must not be null");
+        }
+      }
+      chunks.add(chunk);
+    }
+    return chunks;
+  }
+}
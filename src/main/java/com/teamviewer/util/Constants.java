@@ -6,42 +6,39 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class Constants {
 
-  public static final String PRODUCT_ID = "Product ID";
-  public static final String ORDER_ITEM_ID = "Order Item ID";
+  public static final String REQUEST_ID_HEADER = "X-Request-Id";
 
-  public static final String PRODUCT_DETAILS = "Product Details";
-  public static final String API_NAME = "API NAME";
-  public static final String GET_PRODUCTS_BY_ID = "GET PRODUCTS BY ID";
+  public static final String REQUEST_ID_MDC = "requestId";
 
-  public static final String CREATE_PRODUCT_API = "Create PRODUCT API";
+  public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
 
-  public static final String UPDATE_PRODUCT_API = "UPDATE PRODUCT API";
+  public static final String PRIMARY_PIN_COOKIE = "primary-until";
 
-  public static final String DELETE_PRODUCT_API = "Delete PRODUCT API";
+  public static final String NDJSON_VALUE = "application/x-ndjson";
 
-  public static final String GET_ALL_PRODUCTS_API = "Get All PRODUCTS API";
+  public static final String PRODUCTS_CACHE = "products";
 
-  public static final String ORDER_ID = "Order ID";
+  public static final String ANALYTICS_CACHE = "analytics";
 
-  public static final String ORDER_DETAILS = "Order Details";
-  public static final String GET_ORDER_BY_ID = "GET Order BY ID";
+  public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
 
-  public static final String CREATE_ORDER_API = "Create Order API";
+  public static final String DEFAULT_PAGE_SIZE = "100";
 
-  public static final String UPDATE_ORDER_API = "UPDATE Order API";
+  public static final int MAX_PAGE_SIZE = 1000;
 
-  public static final String DELETE_ORDER_API = "Delete Order API";
+  public static final String DEFAULT_SEARCH_LIMIT = "20";
 
-  public static final String GET_ALL_ORDERS_API = "Get All Orders API";
+  public static final String DEFAULT_TOP_PRODUCTS = "10";
 
-  public static final String ORDER_ITEM_DETAILS = "Order Item Details";
-  public static final String GET_ORDER_ITEM_BY_ID = "GET Order Item BY ID";
+  public static final String DEFAULT_BUCKET_WIDTH = "100";
 
-  public static final String CREATE_ORDER_ITEM_API = "Create Order Item API";
+  public static final int MAX_BATCH_SIZE = 10000;
 
-  public static final String UPDATE_ORDER_ITEM_API = "UPDATE Order Item API";
+  public static final int MAX_DELETE_BATCH_SIZE = 100_000;
 
-  public static final String DELETE_ORDER_ITEM_API = "Delete Order Item API";
+  public static final int DELETE_CHUNK_SIZE = 1_000;
 
-  public static final String GET_ALL_ORDER_ITEM_API = "Get All Order Item API";
+  public static final String CONTROLLER_TIMER = "app.controller";
+
+  public static final String SERVICE_TIMER = "app.service";
 }
@@ -0,0 +1,59 @@
+package com.teamviewer.util;
+
+import com.teamviewer.exception.PreconditionFailedException;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Strong entity tags derived from the entities' {@code @Version} column. A 200 response carrying
+ * an ETag is turned into a 304 by Spring MVC when it matches {@code If-None-Match}, before the
+ * body is serialized.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class ETags {
+
+  public static String of(long version) {
+    return "\"" + version + "\"";
+  }
+
+  /** Wraps the body in a 200 response tagged with its version, if it has one. */
+  public static <T> ResponseEntity<T> ok(T body, Long version) {
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+    if (version != null) {
+      response.eTag(of(version));
+    }
+    return response.body(body);
+  }
+
+  /** An empty 204 response tagged with the new version, if it is known. */
+  public static ResponseEntity<Void> noContent(Long version) {
+    ResponseEntity.HeadersBuilder<?> response = ResponseEntity.noContent();
+    if (version != null) {
+      response.eTag(of(version));
+    }
+    return response.build();
+  }
+
+  /**
+   * The version a client requires with {@code If-Match}, or {@code null} when any version is
+   * acceptable (no header, or {@code *}). Weak and malformed tags can never match.
+   */
+  public static Long ifMatchVersion(String ifMatch) {
+    if (ifMatch == null || ifMatch.isBlank()) {
+      return null;
+    }
+    String tag = ifMatch.trim();
+    if (tag.equals("*")) {
+      return null;
+    }
+    if (tag.length() < 3 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"') {
+      throw new PreconditionFailedException("If-Match must be a single strong ETag");
+    }
+    try {
+      return Long.valueOf(tag.substring(1, tag.length() - 1));
+    } catch (NumberFormatException ex) {
+      throw new PreconditionFailedException("If-Match does not match the current version");
+    }
+  }
+}
@@ -0,0 +1,40 @@
+package com.teamviewer.util;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.function.Function;
+
+import static com.teamviewer.util.Constants.MAX_PAGE_SIZE;
+import static com.teamviewer.util.Constants.NEXT_CURSOR_HEADER;
+
+/**
+ * Helpers for keyset (cursor) pagination. Pages are addressed by the last id seen ({@code after})
+ * rather than an offset, so every page is an index range scan on the primary key.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class Pagination {
+
+  /** Page request of the given size, clamped to {@code [1, MAX_PAGE_SIZE]}. */
+  public static Pageable firstPage(int limit) {
+    return PageRequest.ofSize(Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+  }
+
+  /**
+   * Wraps the slice content in a 200 response, exposing the id of its last element as the next
+   * cursor when more rows follow.
+   */
+  public static <T> ResponseEntity<List<T>> toResponse(Slice<T> slice, Function<T, Long> idOf) {
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+    if (slice.hasNext()) {
+      T last = slice.getContent().get(slice.getNumberOfElements() - 1);
+      response.header(NEXT_CURSOR_HEADER, String.valueOf(idOf.apply(last)));
+    }
+    return response.body(slice.getContent());
+  }
+}
@@ -0,0 +1,76 @@
+package com.teamviewer.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductSalesCountersTest {
+
+  @Test
+  void shouldAddDeltasPerProduct() {
+    ProductSalesCounters counters = new ProductSalesCounters();
+
+    counters.add(7, 3, 3000, 1);
+    counters.add(7, 2, 500, 1);
+    counters.add(8, 1, 100, 1);
+    counters.add(7, -1, -250, -1);
+
+    assertEquals(new ProductSalesCounters.Sales(7, 4, 3250, 1), counters.get(7));
+    assertEquals(new ProductSalesCounters.Sales(8, 1, 100, 1), counters.get(8));
+    assertEquals(2, counters.size());
+  }
+
+  @Test
+  void shouldReturnZerosForUnknownProduct() {
+    ProductSalesCounters counters = new ProductSalesCounters();
+
+    assertEquals(new ProductSalesCounters.Sales(9, 0, 0, 0), counters.get(9));
+    assertEquals(new ProductSalesCounters.Sales(0, 0, 0, 0), counters.get(0));
+  }
+
+  @Test
+  void shouldRejectProductIdZero() {
+    ProductSalesCounters counters = new ProductSalesCounters();
+
+    assertThrows(IllegalArgumentException.class, () -> counters.add(0, 1, 1, 1));
+  }
+
+  @Test
+  void shouldKeepCountersWhenTableGrows() {
+    ProductSalesCounters counters = new ProductSalesCounters(1);
+
+    for (long id = 1; id <= 10_000; id++) {
+      counters.add(id, id, 2 * id, 1);
+    }
+
+    assertEquals(10_000, counters.size());
+    for (long id = 1; id <= 10_000; id++) {
+      assertEquals(new ProductSalesCounters.Sales(id, id, 2 * id, 1), counters.get(id));
+    }
+  }
+
+  @Test
+  void shouldRankBestFirstAndTiesByLowerId() {
+    ProductSalesCounters counters = new ProductSalesCounters();
+    counters.add(5, 10, 100, 1);
+    counters.add(3, 10, 900, 1);
+    counters.add(9, 40, 200, 1);
+    counters.add(1, 1, 1000, 1);
+    counters.add(2, 0, 0, 0);
+
+    List<Long> byQuantity =
+        counters.top(ProductSalesCounters.Ranking.QUANTITY, 3).stream()
+            .map(ProductSalesCounters.Sales::productId)
+            .toList();
+    List<Long> byRevenue =
+        counters.top(ProductSalesCounters.Ranking.REVENUE, 10).stream()
+            .map(ProductSalesCounters.Sales::productId)
+            .toList();
+
+    assertEquals(List.of(9L, 3L, 5L), byQuantity);
+    assertEquals(List.of(1L, 3L, 9L, 5L), byRevenue);
+    assertEquals(List.of(), counters.top(ProductSalesCounters.Ranking.QUANTITY, 0));
+  }
+}
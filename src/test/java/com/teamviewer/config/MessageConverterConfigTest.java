@@ -0,0 +1,109 @@
+package com.teamviewer.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.teamviewer.controller.OrderItemController;
+import com.teamviewer.entity.OrderItem;
+import com.teamviewer.service.IdempotencyService;
+import com.teamviewer.service.OrderItemExportService;
+import com.teamviewer.service.OrderItemGroupCommitService;
+import com.teamviewer.service.OrderItemService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class MessageConverterConfigTest {
+
+  private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+  private final MessageConverterConfig messageConverterConfig = new MessageConverterConfig();
+
+  private MappingJackson2CborHttpMessageConverter cborConverter;
+
+  private MockMvc mockMvc;
+
+  private OrderItem orderItem;
+
+  @BeforeEach
+  void setUp() {
+    OrderItemService orderItemService = Mockito.mock(OrderItemService.class);
+    orderItem =
+        OrderItem.builder()
+            .id(1L)
+            .orderId(123)
+            .productId(7)
+            .quantity(2)
+            .unitPrice(BigDecimal.TEN)
+            .version(3L)
+            .build();
+    Mockito.when(orderItemService.findOrderItemById(1L)).thenReturn(orderItem);
+    cborConverter =
+        messageConverterConfig.cborHttpMessageConverter(Jackson2ObjectMapperBuilder.json());
+    HttpMessageConverter<?>[] converters = {
+      new MappingJackson2HttpMessageConverter(),
+      messageConverterConfig.smileHttpMessageConverter(Jackson2ObjectMapperBuilder.json()),
+      cborConverter
+    };
+    mockMvc =
+        MockMvcBuilders.standaloneSetup(
+                new OrderItemController(
+                    orderItemService,
+                    Mockito.mock(OrderItemExportService.class),
+                    Mockito.mock(IdempotencyService.class),
+                    Mockito.mock(OrderItemGroupCommitService.class)))
+            .setMessageConverters(converters)
+            .build();
+  }
+
+  @Test
+  void shouldEncodeAsCborWhenAccepted() throws Exception {
+    // Act
+    MvcResult result =
+        mockMvc
+            .perform(get("/api/order-items/1").accept(MediaType.APPLICATION_CBOR))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+            .andReturn();
+
+    // Assert
+    ObjectMapper cborMapper = cborConverter.getObjectMapper();
+    OrderItem decoded =
+        cborMapper.readValue(result.getResponse().getContentAsByteArray(), OrderItem.class);
+    assertEquals(orderItem.getOrderId(), decoded.getOrderId());
+    assertEquals(orderItem.getQuantity(), decoded.getQuantity());
+    assertEquals(0, orderItem.getUnitPrice().compareTo(decoded.getUnitPrice()));
+  }
+
+  @Test
+  void shouldEncodeAsSmileWhenAccepted() throws Exception {
+    // Act & Assert
+    mockMvc
+        .perform(get("/api/order-items/1").accept(SMILE))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(SMILE));
+  }
+
+  @Test
+  void shouldDefaultToJson() throws Exception {
+    // Act & Assert
+    mockMvc
+        .perform(get("/api/order-items/1"))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+        .andExpect(content().json("{\"id\":1,\"orderId\":123,\"version\":3}"));
+  }
+}
@@ -0,0 +1,110 @@
+package com.teamviewer.config;
+
+import com.teamviewer.entity.Product;
+import com.teamviewer.repository.ProductRepository;
+import com.teamviewer.service.HotInventoryService;
+import com.teamviewer.service.OutboxService;
+import com.teamviewer.service.ProductSearchService;
+import com.teamviewer.service.ProductService;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.Optional;
+
+import static com.teamviewer.util.Constants.SERVICE_TIMER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+class MetricsConfigTest {
+
+  private SimpleMeterRegistry registry;
+
+  private MetricsConfig metricsConfig;
+
+  @BeforeEach
+  void setUp() {
+    registry = new SimpleMeterRegistry();
+    metricsConfig = new MetricsConfig();
+  }
+
+  @Test
+  void shouldTimeEveryMethodOfATimedService() {
+    // Arrange
+    PrometheusMeterRegistry prometheus = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+    ProductRepository productRepository = Mockito.mock(ProductRepository.class);
+    when(productRepository.findById(1L)).thenReturn(Optional.of(new Product()));
+    AspectJProxyFactory factory =
+        new AspectJProxyFactory(
+            new ProductService(
+                productRepository,
+                Mockito.mock(ProductSearchService.class),
+                Mockito.mock(HotInventoryService.class),
+                Mockito.mock(OutboxService.class)));
+    factory.setProxyTargetClass(true);
+    factory.addAspect(metricsConfig.timedAspect(prometheus));
+    ProductService productService = factory.getProxy();
+
+    // Act
+    productService.getProductById(1L);
+    productService.getProductById(1L);
+
+    // Assert
+    Timer timer =
+        prometheus
+            .get(SERVICE_TIMER)
+            .tag("class", ProductService.class.getName())
+            .tag("method", "getProductById")
+            .timer();
+    assertEquals(2, timer.count());
+    assertTrue(prometheus.scrape().contains("app_service_seconds_bucket{"));
+  }
+
+  @Test
+  void shouldPublishHibernateStatisticsAsCounters() {
+    // Arrange
+    Statistics statistics = Mockito.mock(Statistics.class);
+    when(statistics.getQueryExecutionCount()).thenReturn(7L);
+    when(statistics.getEntityLoadCount()).thenReturn(5L);
+    when(statistics.getFlushCount()).thenReturn(3L);
+    when(statistics.getSecondLevelCacheHitCount()).thenReturn(2L);
+    when(statistics.getSecondLevelCacheMissCount()).thenReturn(1L);
+
+    // Act
+    new HibernateStatisticsMetrics(statistics, "entityManagerFactory").bindTo(registry);
+
+    // Assert
+    assertEquals(7, count("hibernate.query.executions"));
+    assertEquals(5, count("hibernate.entities.loads"));
+    assertEquals(3, count("hibernate.flushes"));
+    assertEquals(
+        2,
+        registry
+            .get("hibernate.second.level.cache.requests")
+            .tag("result", "hit")
+            .functionCounter()
+            .count());
+    assertEquals(
+        1,
+        registry
+            .get("hibernate.second.level.cache.requests")
+            .tag("result", "miss")
+            .functionCounter()
+            .count());
+  }
+
+  private double count(String name) {
+    return registry
+        .get(name)
+        .tag("entityManagerFactory", "entityManagerFactory")
+        .functionCounter()
+        .count();
+  }
+}
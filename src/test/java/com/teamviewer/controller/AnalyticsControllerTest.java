@@ -0,0 +1,121 @@
+package com.teamviewer.controller;
+
+import com.teamviewer.dto.ProductSalesDto;
+import com.teamviewer.dto.RevenueBucketDto;
+import com.teamviewer.service.ProductSalesService;
+import com.teamviewer.service.SalesAnalyticsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.mockito.Mockito;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.mockito.Mockito.reset;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestInstance(value = TestInstance.Lifecycle.PER_CLASS)
+class AnalyticsControllerTest {
+
+  private SalesAnalyticsService salesAnalyticsService;
+
+  private ProductSalesService productSalesService;
+
+  private MockMvc mockMvc;
+
+  @BeforeAll
+  void setUp() {
+    salesAnalyticsService = Mockito.mock(SalesAnalyticsService.class);
+    productSalesService = Mockito.mock(ProductSalesService.class);
+    mockMvc =
+        MockMvcBuilders.standaloneSetup(
+                new AnalyticsController(salesAnalyticsService, productSalesService))
+            .build();
+  }
+
+  @AfterEach
+  void afterEach() {
+    reset(salesAnalyticsService, productSalesService);
+  }
+
+  @Test
+  void shouldReturnTopProductsByQuantityByDefault() throws Exception {
+    // Arrange
+    Mockito.when(salesAnalyticsService.findTopProducts("quantity", 10))
+        .thenReturn(
+            List.of(
+                ProductSalesDto.builder()
+                    .productId(1L)
+                    .name("test-name")
+                    .quantity(5)
+                    .revenue(BigDecimal.TEN)
+                    .build()));
+
+    // Act & Assert
+    mockMvc
+        .perform(get("/api/analytics/top-products"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].productId").value(1))
+        .andExpect(jsonPath("$[0].quantity").value(5));
+  }
+
+  @Test
+  void shouldReturnSalesOfOneProductWithoutName() throws Exception {
+    // Arrange
+    Mockito.when(salesAnalyticsService.getProductSales(3L))
+        .thenReturn(
+            ProductSalesDto.builder()
+                .productId(3L)
+                .quantity(4)
+                .revenue(new BigDecimal("8.00"))
+                .orderLines(2)
+                .build());
+
+    // Act & Assert
+    mockMvc
+        .perform(get("/api/analytics/products/3"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.orderLines").value(2))
+        .andExpect(jsonPath("$.name").doesNotExist());
+  }
+
+  @Test
+  void shouldRebuildProductSales() throws Exception {
+    // Arrange
+    Mockito.when(productSalesService.rebuild()).thenReturn(42);
+
+    // Act & Assert
+    mockMvc
+        .perform(post("/api/analytics/products/rebuild"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.products").value(42));
+  }
+
+  @Test
+  void shouldReturnRevenueByOrderTotal() throws Exception {
+    // Arrange
+    Mockito.when(salesAnalyticsService.findRevenueByOrderTotal(new BigDecimal("25")))
+        .thenReturn(
+            List.of(
+                RevenueBucketDto.builder()
+                    .from(BigDecimal.ZERO)
+                    .to(new BigDecimal("25"))
+                    .orders(2)
+                    .revenue(new BigDecimal("30"))
+                    .build()));
+
+    // Act & Assert
+    mockMvc
+        .perform(get("/api/analytics/revenue-by-order-total").param("width", "25"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].to").value(25))
+        .andExpect(jsonPath("$[0].orders").value(2));
+  }
+}
@@ -1,23 +1,38 @@
 package com.teamviewer.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.teamviewer.dto.OrderCreateRequest;
+import com.teamviewer.dto.OrderLineRequest;
+import com.teamviewer.dto.OrderTotalsReport;
+import com.teamviewer.dto.OrderWithItemsDto;
 import com.teamviewer.entity.Order;
+import com.teamviewer.entity.OrderItem;
+import com.teamviewer.repository.projection.OrderItemView;
+import com.teamviewer.service.IdempotencyService;
 import com.teamviewer.service.OrderService;
+import com.teamviewer.service.OrderTotalsService;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.mockito.Mockito;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.times;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -28,6 +43,8 @@ class OrderControllerTest {
 
   private OrderService orderService;
 
+  private OrderTotalsService orderTotalsService;
+
   private OrderController orderController;
 
   private ObjectMapper objectMapper;
@@ -35,13 +52,18 @@ class OrderControllerTest {
   @BeforeAll
   void setUp() {
     orderService = Mockito.mock(OrderService.class);
-    orderController = new OrderController(orderService);
-    objectMapper = new ObjectMapper();
+    orderTotalsService = Mockito.mock(OrderTotalsService.class);
+    orderController =
+        new OrderController(
+            orderService,
+            orderTotalsService,
+            new IdempotencyService(new ObjectMapper(), 100, Duration.ofHours(1)));
+    objectMapper = new ObjectMapper().findAndRegisterModules();
   }
 
   @AfterEach
   void afterEach() {
-    reset(orderService);
+    reset(orderService, orderTotalsService);
   }
 
   @Test
@@ -51,7 +73,8 @@ class OrderControllerTest {
     List<Order> expectedOrders =
         Collections.singletonList(
             Order.builder().id(id).totalamount(BigDecimal.TEN).build()); // Set up expected orders
-    Mockito.when(orderService.findAllOrders()).thenReturn(expectedOrders);
+    Mockito.when(orderService.findOrders(0L, 100))
+        .thenReturn(new SliceImpl<>(expectedOrders, PageRequest.ofSize(100), false));
 
     // Act
     MockMvc mockMvc = MockMvcBuilders.standaloneSetup(orderController).build();
@@ -62,6 +85,113 @@ class OrderControllerTest {
     List actualOrders =
         objectMapper.readValue(jsonResponse, List.class); // Extract orders from response
     assertEquals(expectedOrders.size(), actualOrders.size());
+    assertNull(result.getResponse().getHeader("X-Next-Cursor"));
+  }
+
+  @Test
+  void shouldReturnNextCursorWhenMoreOrdersExist() throws Exception {
+    // Arrange
+    List<Order> expectedOrders =
+        List.of(
+            Order.builder().id(11L).totalamount(BigDecimal.TEN).build(),
+            Order.builder().id(12L).totalamount(BigDecimal.ONE).build());
+    Mockito.when(orderService.findOrders(10L, 2))
+        .thenReturn(new SliceImpl<>(expectedOrders, PageRequest.ofSize(2), true));
+
+    // Act
+    MockMvc mockMvc = MockMvcBuilders.standaloneSetup(orderController).build();
+    MvcResult result =
+        mockMvc
+            .perform(get("/api/orders").param("after", "10").param("limit", "2"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // Assert
+    List actualOrders =
+        objectMapper.readValue(result.getResponse().getContentAsString(), List.class);
+    assertEquals(2, actualOrders.size());
+    assertEquals("12", result.getResponse().getHeader("X-Next-Cursor"));
+  }
+
+  @Test
+  void shouldCreateOrderWithItems() throws Exception {
+    // Arrange
+    OrderCreateRequest request =
+        OrderCreateRequest.builder()
+            .items(List.of(OrderLineRequest.builder().productId(3).quantity(2).build()))
+            .build();
+    OrderWithItemsDto expected =
+        OrderWithItemsDto.builder()
+            .id(1L)
+            .totalamount(BigDecimal.TEN)
+            .items(
+                List.of(
+                    OrderItem.builder()
+                        .id(5L)
+                        .orderId(1)
+                        .productId(3)
+                        .quantity(2)
+                        .unitPrice(new BigDecimal("5"))
+                        .build()))
+            .build();
+    Mockito.when(orderService.createOrderWithItems(request)).thenReturn(expected);
+
+    // Act
+    MockMvc mockMvc = MockMvcBuilders.standaloneSetup(orderController).build();
+    MvcResult result =
+        mockMvc
+            .perform(
+                post("/api/orders/with-items")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(request)))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // Assert
+    OrderWithItemsDto actual =
+        objectMapper.readValue(
+            result.getResponse().getContentAsString(), OrderWithItemsDto.class);
+    assertEquals(expected, actual);
+  }
+
+  @Test
+  void shouldStartOrderTotalsRebuild() throws Exception {
+    // Arrange
+    OrderTotalsReport expected =
+        OrderTotalsReport.builder().running(true).startedAt(Instant.ofEpochSecond(60)).build();
+    Mockito.when(orderTotalsService.startRebuild()).thenReturn(expected);
+
+    // Act
+    MockMvc mockMvc = MockMvcBuilders.standaloneSetup(orderController).build();
+    MvcResult result =
+        mockMvc
+            .perform(post("/api/orders/totals/rebuild"))
+            .andExpect(status().isAccepted())
+            .andReturn();
+
+    // Assert
+    OrderTotalsReport actual =
+        objectMapper.readValue(
+            result.getResponse().getContentAsString(), OrderTotalsReport.class);
+    assertEquals(expected, actual);
+  }
+
+  @Test
+  void shouldReturnOrderTotalsRebuildStatus() throws Exception {
+    // Arrange
+    OrderTotalsReport expected = OrderTotalsReport.builder().checked(3).corrected(1).build();
+    Mockito.when(orderTotalsService.getRebuildStatus()).thenReturn(expected);
+
+    // Act
+    MockMvc mockMvc = MockMvcBuilders.standaloneSetup(orderController).build();
+    MvcResult result =
+        mockMvc.perform(get("/api/orders/totals/rebuild")).andExpect(status().isOk()).andReturn();
+
+    // Assert
+    OrderTotalsReport actual =
+        objectMapper.readValue(
+            result.getResponse().getContentAsString(), OrderTotalsReport.class);
+    assertEquals(expected, actual);
   }
 
   @Test
@@ -84,6 +214,29 @@ class OrderControllerTest {
     assertEquals(expectedOrder, actualOrder);
   }
 
+  @Test
+  void shouldReturnItemsOfOrder() throws Exception {
+    // Arrange
+    Long id = 1L;
+    OrderItemView item =
+        new SpelAwareProxyProjectionFactory()
+            .createProjection(
+                OrderItemView.class,
+                Map.of("id", 5L, "productId", 7, "quantity", 2, "unitPrice", BigDecimal.TEN));
+    Mockito.when(orderService.findOrderItems(id)).thenReturn(List.of(item));
+
+    // Act
+    MockMvc mockMvc = MockMvcBuilders.standaloneSetup(orderController).build();
+    MvcResult result =
+        mockMvc.perform(get("/api/orders/{id}/items", id)).andExpect(status().isOk()).andReturn();
+
+    // Assert
+    List<Map<String, Object>> actualItems =
+        objectMapper.readValue(result.getResponse().getContentAsString(), List.class);
+    assertEquals(
+        List.of(Map.of("id", 5, "productId", 7, "quantity", 2, "unitPrice", 10)), actualItems);
+  }
+
   @Test
   void shouldCreateOrder() throws Exception {
     // Arrange
@@ -112,6 +265,37 @@ class OrderControllerTest {
     assertEquals(expectedOrder, actualOrder);
   }
 
+  @Test
+  void shouldReplayOrderCreatedWithSameIdempotencyKey() throws Exception {
+    // Arrange
+    Order orderCreate = Order.builder().totalamount(BigDecimal.TEN).build();
+    Order expectedOrder = Order.builder().id(1L).totalamount(BigDecimal.TEN).build();
+    Mockito.when(orderService.createOrder(orderCreate)).thenReturn(expectedOrder);
+    String jsonString = objectMapper.writeValueAsString(orderCreate);
+    MockMvc mockMvc = MockMvcBuilders.standaloneSetup(orderController).build();
+
+    // Act
+    String[] responses = new String[2];
+    for (int i = 0; i < responses.length; i++) {
+      responses[i] =
+          mockMvc
+              .perform(
+                  post("/api/orders")
+                      .header("Idempotency-Key", "order-retry-1")
+                      .contentType(MediaType.APPLICATION_JSON)
+                      .content(jsonString))
+              .andExpect(status().isOk())
+              .andReturn()
+              .getResponse()
+              .getContentAsString();
+    }
+
+    // Assert
+    Mockito.verify(orderService, times(1)).createOrder(orderCreate);
+    assertEquals(expectedOrder, objectMapper.readValue(responses[0], Order.class));
+    assertEquals(responses[0], responses[1]);
+  }
+
   @Test
   void shouldUpdateOrder() throws Exception {
     // Arrange
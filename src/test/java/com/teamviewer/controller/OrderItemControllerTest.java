@@ -2,6 +2,9 @@ package com.teamviewer.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.teamviewer.entity.OrderItem;
+import com.teamviewer.service.IdempotencyService;
+import com.teamviewer.service.OrderItemExportService;
+import com.teamviewer.service.OrderItemGroupCommitService;
 import com.teamviewer.service.OrderItemService;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
@@ -9,12 +12,17 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.junit.platform.commons.util.StringUtils;
 import org.mockito.Mockito;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 
@@ -22,6 +30,8 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.times;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @TestInstance(value = TestInstance.Lifecycle.PER_CLASS)
@@ -29,6 +39,8 @@ class OrderItemControllerTest {
 
   private OrderItemService orderItemService;
 
+  private OrderItemExportService orderItemExportService;
+
   private OrderItemController orderItemController;
 
   private ObjectMapper objectMapper;
@@ -36,13 +48,19 @@ class OrderItemControllerTest {
   @BeforeAll
   void setUp() {
     orderItemService = Mockito.mock(OrderItemService.class);
-    orderItemController = new OrderItemController(orderItemService);
+    orderItemExportService = Mockito.mock(OrderItemExportService.class);
+    orderItemController =
+        new OrderItemController(
+            orderItemService,
+            orderItemExportService,
+            new IdempotencyService(new ObjectMapper(), 100, Duration.ofHours(1)),
+            new OrderItemGroupCommitService(orderItemService, false, 500, 5, 100, 1000));
     objectMapper = new ObjectMapper();
   }
 
   @AfterEach
   void afterEach() {
-    reset(orderItemService);
+    reset(orderItemService, orderItemExportService);
   }
 
   @Test
@@ -58,12 +76,17 @@ class OrderItemControllerTest {
                 .unitPrice(BigDecimal.ONE)
                 .id(id)
                 .build()); // Set up expected order items
-    Mockito.when(orderItemService.findAllOrderItems()).thenReturn(expectedOrderItems);
+    Mockito.when(orderItemService.findOrderItems(5L, 1))
+        .thenReturn(new SliceImpl<>(expectedOrderItems, PageRequest.ofSize(1), true));
 
     // Act
     MockMvc mockMvc = MockMvcBuilders.standaloneSetup(orderItemController).build();
     MvcResult result =
-        mockMvc.perform(get("/api/order-items")).andExpect(status().isOk()).andReturn();
+        mockMvc
+            .perform(get("/api/order-items").param("after", "5").param("limit", "1"))
+            .andExpect(status().isOk())
+            .andReturn();
+    assertEquals(id.toString(), result.getResponse().getHeader("X-Next-Cursor"));
 
     // Assert
     String jsonResponse = result.getResponse().getContentAsString();
@@ -72,6 +95,73 @@ class OrderItemControllerTest {
     assertEquals(expectedOrderItems.size(), actualOrderItems.size());
   }
 
+  @Test
+  void shouldStreamOrderItemsAsNdjson() throws Exception {
+    // Arrange
+    Mockito.when(orderItemExportService.exportOrderItems(Mockito.any()))
+        .thenAnswer(
+            invocation -> {
+              OutputStream out = invocation.getArgument(0);
+              out.write("{\"id\":1}\n{\"id\":2}\n".getBytes(StandardCharsets.UTF_8));
+              return 2L;
+            });
+
+    // Act
+    MockMvc mockMvc = MockMvcBuilders.standaloneSetup(orderItemController).build();
+    MvcResult result =
+        mockMvc
+            .perform(get("/api/order-items/export"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    // Assert
+    mockMvc
+        .perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType("application/x-ndjson"))
+        .andExpect(content().string("{\"id\":1}\n{\"id\":2}\n"));
+  }
+
+  @Test
+  void shouldCreateOrderItemsInBatch() throws Exception {
+    // Arrange
+    List<OrderItem> orderItemsCreate =
+        List.of(
+            OrderItem.builder()
+                .orderId(123)
+                .productId(123)
+                .quantity(1)
+                .unitPrice(BigDecimal.ONE)
+                .build());
+    List<OrderItem> expectedOrderItems =
+        List.of(
+            OrderItem.builder()
+                .id(1L)
+                .orderId(123)
+                .productId(123)
+                .quantity(1)
+                .unitPrice(BigDecimal.ONE)
+                .build());
+    Mockito.when(orderItemService.createOrderItems(orderItemsCreate))
+        .thenReturn(expectedOrderItems);
+
+    // Act
+    MockMvc mockMvc = MockMvcBuilders.standaloneSetup(orderItemController).build();
+    MvcResult result =
+        mockMvc
+            .perform(
+                post("/api/order-items/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(orderItemsCreate)))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // Assert
+    OrderItem[] actualOrderItems =
+        objectMapper.readValue(result.getResponse().getContentAsString(), OrderItem[].class);
+    assertEquals(expectedOrderItems, List.of(actualOrderItems));
+  }
+
   @Test
   void shouldReturnOrderItemById() throws Exception {
     // Arrange
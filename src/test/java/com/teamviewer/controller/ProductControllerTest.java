@@ -2,6 +2,9 @@ package com.teamviewer.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.teamviewer.entity.Product;
+import com.teamviewer.service.HotInventoryService;
+import com.teamviewer.service.InventoryService;
+import com.teamviewer.service.ProductSearchService;
 import com.teamviewer.service.ProductService;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
@@ -9,11 +12,15 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.junit.platform.commons.util.StringUtils;
 import org.mockito.Mockito;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.List;
 
@@ -28,19 +35,30 @@ class ProductControllerTest {
 
   private ProductService productService;
 
+  private InventoryService inventoryService;
+
+  private HotInventoryService hotInventoryService;
+
+  private ProductSearchService productSearchService;
+
   private ProductController productController;
   private ObjectMapper objectMapper;
 
   @BeforeAll
   void setUp() {
     productService = Mockito.mock(ProductService.class);
-    productController = new ProductController(productService);
+    inventoryService = Mockito.mock(InventoryService.class);
+    hotInventoryService = Mockito.mock(HotInventoryService.class);
+    productSearchService = Mockito.mock(ProductSearchService.class);
+    productController =
+        new ProductController(
+            productService, inventoryService, hotInventoryService, productSearchService);
     objectMapper = new ObjectMapper();
   }
 
   @AfterEach
   void afterEach() {
-    reset(productService);
+    reset(productService, inventoryService, hotInventoryService, productSearchService);
   }
 
   @Test
@@ -56,7 +74,8 @@ class ProductControllerTest {
                 .name("test-name-2")
                 .description("test-description-2")
                 .build()); // Set up expected products
-    Mockito.when(productService.findAllProducts()).thenReturn(expectedProducts);
+    Mockito.when(productService.findProducts(0L, 100))
+        .thenReturn(new SliceImpl<>(expectedProducts, PageRequest.ofSize(100), true));
 
     // Act
     MockMvc mockMvc = MockMvcBuilders.standaloneSetup(productController).build();
@@ -66,6 +85,28 @@ class ProductControllerTest {
     String jsonResponse = result.getResponse().getContentAsString();
     List actualProducts = objectMapper.readValue(jsonResponse, List.class);
     assertEquals(expectedProducts.size(), actualProducts.size());
+    assertEquals(id2.toString(), result.getResponse().getHeader("X-Next-Cursor"));
+  }
+
+  @Test
+  void shouldSearchProducts() throws Exception {
+    // Arrange
+    List<Product> expectedProducts =
+        List.of(Product.builder().id(7L).name("Wireless mouse").description("2.4GHz").build());
+    Mockito.when(productSearchService.search("wireless mou", 20)).thenReturn(expectedProducts);
+
+    // Act
+    MockMvc mockMvc = MockMvcBuilders.standaloneSetup(productController).build();
+    MvcResult result =
+        mockMvc
+            .perform(get("/api/products/search").param("q", "wireless mou"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // Assert
+    List actualProducts =
+        objectMapper.readValue(result.getResponse().getContentAsString(), List.class);
+    assertEquals(1, actualProducts.size());
   }
 
   @Test
@@ -92,6 +133,54 @@ class ProductControllerTest {
     assertEquals(expectedProduct, actualProduct);
   }
 
+  @Test
+  void shouldAnswerMatchingIfNoneMatchWithNotModified() throws Exception {
+    // Arrange
+    Long id = 1L;
+    Product product = Product.builder().id(id).name("test-name").version(3L).build();
+    Mockito.when(productService.findProductById(id)).thenReturn(product);
+    MockMvc mockMvc = MockMvcBuilders.standaloneSetup(productController).build();
+
+    // Act
+    MvcResult fresh =
+        mockMvc.perform(get("/api/products/{id}", id)).andExpect(status().isOk()).andReturn();
+    MvcResult cached =
+        mockMvc
+            .perform(get("/api/products/{id}", id).header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+            .andExpect(status().isNotModified())
+            .andReturn();
+
+    // Assert
+    assertEquals("\"3\"", fresh.getResponse().getHeader(HttpHeaders.ETAG));
+    assertEquals("\"3\"", cached.getResponse().getHeader(HttpHeaders.ETAG));
+    assertEquals(0, cached.getResponse().getContentLength());
+  }
+
+  @Test
+  void shouldPassIfMatchVersionToUpdate() throws Exception {
+    // Arrange
+    Long id = 1L;
+    Product expectedUpdate = Product.builder().id(id).name("renamed").version(3L).build();
+    Mockito.when(productService.updateProduct(expectedUpdate))
+        .thenReturn(Product.builder().id(id).name("renamed").version(4L).build());
+    MockMvc mockMvc = MockMvcBuilders.standaloneSetup(productController).build();
+
+    // Act
+    MvcResult result =
+        mockMvc
+            .perform(
+                put("/api/products/{id}", id)
+                    .header(HttpHeaders.IF_MATCH, "\"3\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"name\":\"renamed\",\"version\":99}"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // Assert
+    Mockito.verify(productService).updateProduct(expectedUpdate);
+    assertEquals("\"4\"", result.getResponse().getHeader(HttpHeaders.ETAG));
+  }
+
   @Test
   void shouldCreateProduct() throws Exception {
     // Arrange
@@ -128,12 +217,46 @@ class ProductControllerTest {
     assertEquals(expectedProduct, actualProduct);
   }
 
+  @Test
+  void shouldCreateProductsInBatch() throws Exception {
+    // Arrange
+    List<Product> productsCreate =
+        List.of(
+            Product.builder().name("test-name").description("test-description").build(),
+            Product.builder().name("test-name-2").description("test-description-2").build());
+    List<Product> expectedProducts =
+        List.of(
+            Product.builder().id(1L).name("test-name").description("test-description").build(),
+            Product.builder()
+                .id(2L)
+                .name("test-name-2")
+                .description("test-description-2")
+                .build());
+    Mockito.when(productService.createProducts(productsCreate)).thenReturn(expectedProducts);
+
+    // Act
+    MockMvc mockMvc = MockMvcBuilders.standaloneSetup(productController).build();
+    MvcResult result =
+        mockMvc
+            .perform(
+                post("/api/products/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(productsCreate)))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // Assert
+    Product[] actualProducts =
+        objectMapper.readValue(result.getResponse().getContentAsString(), Product[].class);
+    assertEquals(expectedProducts, Arrays.asList(actualProducts));
+  }
+
   @Test
   void shouldUpdateProduct() throws Exception {
     // Arrange
     Long id = 1L;
-    Product productUpdate = Product.builder().build(); // Set up product update data
-    Product expectedProduct = Product.builder().build(); // Set up expected product
+    Product productUpdate = Product.builder().id(id).build(); // Set up product update data
+    Product expectedProduct = Product.builder().id(id).name("updated").build();
     Mockito.when(productService.updateProduct(productUpdate)).thenReturn(expectedProduct);
 
     String jsonString = objectMapper.writeValueAsString(productUpdate);
@@ -159,6 +282,74 @@ class ProductControllerTest {
     }
   }
 
+  @Test
+  void shouldPatchProduct() throws Exception {
+    // Arrange
+    Long id = 1L;
+    Product patch = Product.builder().price(BigDecimal.ONE).build();
+    Mockito.when(productService.patchProduct(id, patch, 3L)).thenReturn(4L);
+
+    // Act
+    MockMvc mockMvc = MockMvcBuilders.standaloneSetup(productController).build();
+    MvcResult result =
+        mockMvc
+            .perform(
+                patch("/api/products/{id}", id)
+                    .header("If-Match", "\"3\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"price\":1}"))
+            .andExpect(status().isNoContent())
+            .andReturn();
+
+    // Assert
+    assertEquals("\"4\"", result.getResponse().getHeader("ETag"));
+  }
+
+  @Test
+  void shouldReserveStock() throws Exception {
+    // Arrange
+    Long id = 1L;
+
+    // Act
+    MockMvc mockMvc = MockMvcBuilders.standaloneSetup(productController).build();
+    mockMvc
+        .perform(post("/api/products/{id}/reserve", id).param("quantity", "3"))
+        .andExpect(status().isOk());
+
+    // Assert
+    Mockito.verify(inventoryService, times(1)).reserve(id, 3);
+  }
+
+  @Test
+  void shouldReleaseStock() throws Exception {
+    // Arrange
+    Long id = 1L;
+
+    // Act
+    MockMvc mockMvc = MockMvcBuilders.standaloneSetup(productController).build();
+    mockMvc
+        .perform(post("/api/products/{id}/release", id).param("quantity", "2"))
+        .andExpect(status().isOk());
+
+    // Assert
+    Mockito.verify(inventoryService, times(1)).release(id, 2);
+  }
+
+  @Test
+  void shouldToggleHotInventory() throws Exception {
+    // Arrange
+    Long id = 1L;
+
+    // Act
+    MockMvc mockMvc = MockMvcBuilders.standaloneSetup(productController).build();
+    mockMvc.perform(post("/api/products/{id}/hot-inventory", id)).andExpect(status().isOk());
+    mockMvc.perform(delete("/api/products/{id}/hot-inventory", id)).andExpect(status().isOk());
+
+    // Assert
+    Mockito.verify(hotInventoryService, times(1)).enable(id);
+    Mockito.verify(hotInventoryService, times(1)).disable(id);
+  }
+
   @Test
   void shouldDeleteProduct() throws Exception {
     // Arrange
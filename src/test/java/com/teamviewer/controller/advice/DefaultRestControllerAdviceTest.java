@@ -1,5 +1,9 @@
 package com.teamviewer.controller.advice;
 
+import com.teamviewer.exception.IdempotencyKeyReusedException;
+import com.teamviewer.exception.InsufficientStockException;
+import com.teamviewer.exception.InvalidRequestException;
+import com.teamviewer.exception.PreconditionFailedException;
 import com.teamviewer.exception.ResourceNotFoundException;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
@@ -7,7 +11,11 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.annotation.ResponseStatus;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.reset;
@@ -43,4 +51,46 @@ class DefaultRestControllerAdviceTest {
     ApiErrorDto response = advice.handleResourceNotFound(ex);
     assertEquals("Resource not found", response.getMessage());
   }
+
+  @Test
+  void handleInsufficientStock() {
+    InsufficientStockException ex = new InsufficientStockException("Insufficient stock");
+    ApiErrorDto response = advice.handleInsufficientStock(ex);
+    assertEquals("Insufficient stock", response.getMessage());
+  }
+
+  @Test
+  void handleInvalidRequest() {
+    InvalidRequestException ex = new InvalidRequestException("Batch too large");
+    ApiErrorDto response = advice.handleInvalidRequest(ex);
+    assertEquals("Batch too large", response.getMessage());
+  }
+
+  @Test
+  void handleIdempotencyKeyReused() {
+    IdempotencyKeyReusedException ex = new IdempotencyKeyReusedException("Key reused");
+    ApiErrorDto response = advice.handleIdempotencyKeyReused(ex);
+    assertEquals("Key reused", response.getMessage());
+  }
+
+  @Test
+  void handlePreconditionFailed() {
+    PreconditionFailedException ex = new PreconditionFailedException("Version mismatch");
+    ApiErrorDto response = advice.handlePreconditionFailed(ex);
+    assertEquals("Version mismatch", response.getMessage());
+  }
+
+  @Test
+  void handleOptimisticLockingFailureAsConflict() throws NoSuchMethodException {
+    ObjectOptimisticLockingFailureException ex =
+        new ObjectOptimisticLockingFailureException("Product", 1L);
+    ApiErrorDto response = advice.handleOptimisticLockingFailure(ex);
+    assertEquals("Resource was modified concurrently", response.getMessage());
+    assertEquals(
+        HttpStatus.CONFLICT,
+        DefaultRestControllerAdvice.class
+            .getMethod("handleOptimisticLockingFailure", OptimisticLockingFailureException.class)
+            .getAnnotation(ResponseStatus.class)
+            .value());
+  }
 }
@@ -0,0 +1,110 @@
+package com.teamviewer.controller.filter;
+
+import com.teamviewer.jdbc.ReplicaRoutingDataSource;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.teamviewer.util.Constants.PRIMARY_PIN_COOKIE;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+class ReadYourWritesFilterTest {
+
+  private final ReadYourWritesFilter filter = new ReadYourWritesFilter(5000);
+
+  @Test
+  void shouldSetPinCookieOnWrite() throws Exception {
+    // Arrange
+    MockHttpServletRequest request = new MockHttpServletRequest("PUT", "/api/products/1");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    long before = System.currentTimeMillis();
+
+    // Act
+    filter.doFilter(request, response, (req, res) -> {});
+
+    // Assert
+    Cookie cookie = response.getCookie(PRIMARY_PIN_COOKIE);
+    assertNotNull(cookie);
+    assertTrue(Long.parseLong(cookie.getValue()) >= before + 5000);
+  }
+
+  @Test
+  void shouldReadFromPrimaryWhilePinned() throws Exception {
+    // Arrange
+    Connection primary = Mockito.mock(Connection.class);
+    ReplicaRoutingDataSource dataSource = routingDataSource(primary);
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products/1");
+    request.setCookies(
+        new Cookie(PRIMARY_PIN_COOKIE, Long.toString(System.currentTimeMillis() + 5000)));
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    AtomicReference<Connection> used = new AtomicReference<>();
+
+    // Act
+    filter.doFilter(request, response, readOnly(dataSource, used));
+
+    // Assert
+    assertSame(primary, used.get());
+    assertNull(response.getCookie(PRIMARY_PIN_COOKIE));
+  }
+
+  @Test
+  void shouldReadFromReplicaOncePinExpired() throws Exception {
+    // Arrange
+    Connection primary = Mockito.mock(Connection.class);
+    ReplicaRoutingDataSource dataSource = routingDataSource(primary);
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products/1");
+    request.setCookies(
+        new Cookie(PRIMARY_PIN_COOKIE, Long.toString(System.currentTimeMillis() - 1)));
+    AtomicReference<Connection> used = new AtomicReference<>();
+
+    // Act
+    filter.doFilter(request, new MockHttpServletResponse(), readOnly(dataSource, used));
+
+    // Assert
+    assertNotNull(used.get());
+    assertNotSame(primary, used.get());
+  }
+
+  private static ReplicaRoutingDataSource routingDataSource(Connection primaryConnection)
+      throws Exception {
+    DataSource primary = Mockito.mock(DataSource.class);
+    DataSource replica = Mockito.mock(DataSource.class);
+    Connection replicaConnection = Mockito.mock(Connection.class);
+    when(primary.getConnection()).thenReturn(primaryConnection);
+    when(replica.getConnection()).thenReturn(replicaConnection);
+    when(replicaConnection.isValid(1)).thenReturn(true);
+    ReplicaRoutingDataSource dataSource =
+        new ReplicaRoutingDataSource(primary, List.of(replica), 1);
+    dataSource.checkReplicas();
+    return dataSource;
+  }
+
+  /** Takes a connection the way a read-only service method would. */
+  private static FilterChain readOnly(
+      ReplicaRoutingDataSource dataSource, AtomicReference<Connection> used) {
+    return (req, res) -> {
+      TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+      try {
+        used.set(dataSource.getConnection());
+      } catch (Exception e) {
+        throw new IllegalStateException(e);
+      } finally {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+      }
+    };
+  }
+}
@@ -0,0 +1,117 @@
+package com.teamviewer.controller.filter;
+
+import jakarta.servlet.DispatcherType;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.teamviewer.util.Constants.REQUEST_ID_HEADER;
+import static com.teamviewer.util.Constants.REQUEST_ID_MDC;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestLoggingFilterTest {
+
+  private final RequestLoggingFilter filter = new RequestLoggingFilter(0.0, 1000);
+
+  @Test
+  void shouldPropagateIncomingRequestIdThroughMdcAndResponse() throws Exception {
+    // Arrange
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products/1");
+    request.addHeader(REQUEST_ID_HEADER, "abc-123");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    AtomicReference<String> seen = new AtomicReference<>();
+
+    // Act
+    filter.doFilter(request, response, (req, res) -> seen.set(MDC.get(REQUEST_ID_MDC)));
+
+    // Assert
+    assertEquals("abc-123", seen.get());
+    assertEquals("abc-123", response.getHeader(REQUEST_ID_HEADER));
+    assertNull(MDC.get(REQUEST_ID_MDC));
+  }
+
+  @Test
+  void shouldReplaceRequestIdThatCouldForgeLogLinesOrHeaders() throws Exception {
+    // Arrange
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products/1");
+    request.addHeader(REQUEST_ID_HEADER, "abc\r\nSet-Cookie: x=1");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    // Act
+    filter.doFilter(request, response, new MockFilterChain());
+
+    // Assert
+    assertTrue(response.getHeader(REQUEST_ID_HEADER).matches("[0-9a-f]+"));
+  }
+
+  @Test
+  void shouldKeepRequestIdAcrossAsyncDispatch() throws Exception {
+    // Arrange
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/order-items/export");
+    request.setAsyncSupported(true);
+    request.addHeader(REQUEST_ID_HEADER, "abc-123");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    filter.doFilter(
+        request,
+        response,
+        (req, res) -> {
+          StandardServletAsyncWebRequest asyncWebRequest =
+              new StandardServletAsyncWebRequest(request, response);
+          WebAsyncUtils.getAsyncManager(request).setAsyncWebRequest(asyncWebRequest);
+          asyncWebRequest.startAsync();
+        });
+    request.setAsyncStarted(false);
+    request.setDispatcherType(DispatcherType.ASYNC);
+    AtomicReference<String> seen = new AtomicReference<>();
+
+    // Act
+    filter.doFilter(request, response, (req, res) -> seen.set(MDC.get(REQUEST_ID_MDC)));
+
+    // Assert
+    assertEquals("abc-123", seen.get());
+    assertNull(MDC.get(REQUEST_ID_MDC));
+  }
+
+  @Test
+  void shouldGenerateRequestIdWhenNoneIsSent() throws Exception {
+    // Arrange
+    MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/orders");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    // Act
+    filter.doFilter(request, response, new MockFilterChain());
+
+    // Assert
+    assertNotNull(response.getHeader(REQUEST_ID_HEADER));
+    assertNull(MDC.get(REQUEST_ID_MDC));
+  }
+
+  @Test
+  void shouldClearMdcWhenChainFails() {
+    // Arrange
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/orders/1");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    // Act & Assert
+    assertThrows(
+        IllegalStateException.class,
+        () ->
+            filter.doFilter(
+                request,
+                response,
+                (req, res) -> {
+                  throw new IllegalStateException("boom");
+                }));
+    assertNull(MDC.get(REQUEST_ID_MDC));
+  }
+}
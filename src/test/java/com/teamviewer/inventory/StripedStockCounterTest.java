@@ -0,0 +1,98 @@
+package com.teamviewer.inventory;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedStockCounterTest {
+
+  @Test
+  void shouldReserveUntilSoldOut() {
+    StripedStockCounter counter = new StripedStockCounter(10, 4);
+
+    assertEquals(StripedStockCounter.Result.RESERVED, counter.tryReserve(4));
+    assertEquals(StripedStockCounter.Result.RESERVED, counter.tryReserve(6));
+    assertEquals(StripedStockCounter.Result.INSUFFICIENT, counter.tryReserve(1));
+    assertEquals(0, counter.available());
+  }
+
+  @Test
+  void shouldReserveAcrossStripesWhenNoSingleStripeHasEnough() {
+    // 8 stripes hold 1 unit each, so 7 units must be gathered from several stripes
+    StripedStockCounter counter = new StripedStockCounter(8, 8);
+
+    assertEquals(StripedStockCounter.Result.RESERVED, counter.tryReserve(7));
+    assertEquals(1, counter.available());
+    assertEquals(StripedStockCounter.Result.INSUFFICIENT, counter.tryReserve(2));
+    assertEquals(1, counter.available());
+  }
+
+  @Test
+  void shouldReturnReleasedUnits() {
+    StripedStockCounter counter = new StripedStockCounter(5, 2);
+
+    counter.tryReserve(5);
+    assertTrue(counter.release(3));
+
+    assertEquals(3, counter.available());
+  }
+
+  @Test
+  void shouldRejectEverythingOnceClosed() {
+    StripedStockCounter counter = new StripedStockCounter(20, 4);
+    counter.tryReserve(5);
+
+    assertEquals(15, counter.close());
+    assertTrue(counter.isClosed());
+    assertEquals(StripedStockCounter.Result.CLOSED, counter.tryReserve(1));
+    assertFalse(counter.release(1));
+    assertEquals(0, counter.available());
+    assertEquals(0, counter.close());
+  }
+
+  @Test
+  void shouldNeverOversellUnderContention() throws Exception {
+    int threads = 16;
+    long initialStock = 100_000;
+    StripedStockCounter counter = new StripedStockCounter(initialStock, threads);
+    AtomicLong reserved = new AtomicLong();
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> futures = new ArrayList<>();
+    try {
+      for (int t = 0; t < threads; t++) {
+        int quantity = t % 3 + 1;
+        futures.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  while (counter.tryReserve(quantity) == StripedStockCounter.Result.RESERVED) {
+                    reserved.addAndGet(quantity);
+                    if (reserved.get() % 7 == 0 && counter.release(1)) {
+                      reserved.decrementAndGet();
+                    }
+                  }
+                  return null;
+                }));
+      }
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get(60, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertTrue(counter.available() < 3);
+    assertEquals(initialStock, reserved.get() + counter.available());
+  }
+}
@@ -0,0 +1,63 @@
+package com.teamviewer.jdbc;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ConcurrencyLimitingDataSourceTest {
+
+  private DataSource target;
+
+  private ConcurrencyLimitingDataSource dataSource;
+
+  @BeforeEach
+  void setUp() throws SQLException {
+    target = Mockito.mock(DataSource.class);
+    when(target.getConnection()).thenAnswer(invocation -> Mockito.mock(Connection.class));
+    dataSource = new ConcurrencyLimitingDataSource(target, 2, 50);
+  }
+
+  @Test
+  void shouldReturnPermitOnceWhenConnectionIsClosed() throws SQLException {
+    // Act
+    Connection connection = dataSource.getConnection();
+    assertEquals(1, dataSource.availablePermits());
+    connection.close();
+    connection.close();
+
+    // Assert
+    assertEquals(2, dataSource.availablePermits());
+  }
+
+  @Test
+  void shouldTimeOutWhenAllPermitsAreTaken() throws SQLException {
+    // Arrange
+    dataSource.getConnection();
+    dataSource.getConnection();
+
+    // Assert
+    assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+    verify(target, times(2)).getConnection();
+  }
+
+  @Test
+  void shouldReturnPermitWhenPoolFails() throws SQLException {
+    // Arrange
+    when(target.getConnection()).thenThrow(new SQLException("pool exhausted"));
+
+    // Assert
+    assertThrows(SQLException.class, dataSource::getConnection);
+    assertEquals(2, dataSource.availablePermits());
+  }
+}
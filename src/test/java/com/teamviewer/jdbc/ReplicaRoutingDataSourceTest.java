@@ -0,0 +1,128 @@
+package com.teamviewer.jdbc;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.when;
+
+class ReplicaRoutingDataSourceTest {
+
+  private final Connection primaryConnection = Mockito.mock(Connection.class);
+
+  private final Connection firstReplicaConnection = Mockito.mock(Connection.class);
+
+  private final Connection secondReplicaConnection = Mockito.mock(Connection.class);
+
+  private DataSource secondReplica;
+
+  private ReplicaRoutingDataSource dataSource;
+
+  @BeforeEach
+  void setUp() throws SQLException {
+    DataSource primary = Mockito.mock(DataSource.class);
+    DataSource firstReplica = Mockito.mock(DataSource.class);
+    secondReplica = Mockito.mock(DataSource.class);
+    when(primary.getConnection()).thenReturn(primaryConnection);
+    when(firstReplica.getConnection()).thenReturn(firstReplicaConnection);
+    when(secondReplica.getConnection()).thenReturn(secondReplicaConnection);
+    when(firstReplicaConnection.isValid(1)).thenReturn(true);
+    when(secondReplicaConnection.isValid(1)).thenReturn(true);
+    dataSource = new ReplicaRoutingDataSource(primary, List.of(firstReplica, secondReplica), 1);
+    dataSource.checkReplicas();
+  }
+
+  @AfterEach
+  void afterEach() {
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    ReplicaRoutingDataSource.unpin();
+  }
+
+  @Test
+  void shouldSendReadOnlyTransactionsRoundRobinToReplicas() throws SQLException {
+    // Arrange
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+    // Act & Assert
+    assertSame(firstReplicaConnection, dataSource.getConnection());
+    assertSame(secondReplicaConnection, dataSource.getConnection());
+    assertSame(firstReplicaConnection, dataSource.getConnection());
+  }
+
+  @Test
+  void shouldSendWritesToPrimary() throws SQLException {
+    // Act & Assert
+    assertSame(primaryConnection, dataSource.getConnection());
+  }
+
+  @Test
+  void shouldSendPinnedReadsToPrimary() throws SQLException {
+    // Arrange
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+    ReplicaRoutingDataSource.pinToPrimary();
+
+    // Act & Assert
+    assertSame(primaryConnection, dataSource.getConnection());
+  }
+
+  @Test
+  void shouldSkipReplicaThatFailedHealthCheck() throws SQLException {
+    // Arrange
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+    when(firstReplicaConnection.isValid(1)).thenReturn(false);
+    dataSource.checkReplicas();
+
+    // Act & Assert
+    assertEquals(1, dataSource.healthyReplicas());
+    assertSame(secondReplicaConnection, dataSource.getConnection());
+    assertSame(secondReplicaConnection, dataSource.getConnection());
+  }
+
+  @Test
+  void shouldFallBackToPrimaryWhenReplicaFails() throws SQLException {
+    // Arrange
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+    when(secondReplica.getConnection())
+        .thenThrow(
+            new SQLTransientConnectionException(
+                "pool timed out", "08001", new SQLException("connection refused", "08001")));
+    dataSource.getConnection();
+
+    // Act
+    Connection connection = dataSource.getConnection();
+
+    // Assert
+    assertSame(primaryConnection, connection);
+    assertEquals(1, dataSource.healthyReplicas());
+  }
+
+  @Test
+  void shouldKeepBusyReplicaInRotation() throws SQLException {
+    // Arrange
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+    when(secondReplica.getConnection())
+        .thenThrow(new SQLTransientConnectionException("Connection is not available"))
+        .thenReturn(secondReplicaConnection);
+    dataSource.getConnection();
+
+    // Act
+    Connection fallback = dataSource.getConnection();
+    dataSource.getConnection();
+    Connection retried = dataSource.getConnection();
+
+    // Assert
+    assertSame(primaryConnection, fallback);
+    assertSame(secondReplicaConnection, retried);
+    assertEquals(2, dataSource.healthyReplicas());
+  }
+}
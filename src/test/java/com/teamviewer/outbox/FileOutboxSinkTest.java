@@ -0,0 +1,50 @@
+package com.teamviewer.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.teamviewer.entity.OutboxEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileOutboxSinkTest {
+
+  @TempDir Path directory;
+
+  @Test
+  void shouldAppendOneJsonLinePerEvent() throws Exception {
+    Path file = directory.resolve("outbox/events.jsonl");
+    FileOutboxSink sink = new FileOutboxSink(file, new ObjectMapper());
+
+    String payload = "{\"price\":7.5,\"version\":3}";
+
+    sink.publish(List.of(event(1, OutboxEvent.ChangeType.UPDATED, payload)));
+    sink.publish(List.of(event(2, OutboxEvent.ChangeType.DELETED, null)));
+
+    assertEquals(
+        List.of(
+            "{\"id\":1,\"aggregate\":\"PRODUCT\",\"aggregateId\":7,\"changeType\":\"UPDATED\","
+                + "\"createdAt\":\"1970-01-01T00:00:00Z\",\"payload\":"
+                + payload
+                + "}",
+            "{\"id\":2,\"aggregate\":\"PRODUCT\",\"aggregateId\":7,\"changeType\":\"DELETED\","
+                + "\"createdAt\":\"1970-01-01T00:00:00Z\",\"payload\":null}"),
+        Files.readAllLines(file));
+  }
+
+  private static OutboxEvent event(long id, OutboxEvent.ChangeType changeType, String payload) {
+    return OutboxEvent.builder()
+        .id(id)
+        .aggregate(OutboxEvent.Aggregate.PRODUCT)
+        .aggregateId(7L)
+        .changeType(changeType)
+        .payload(payload)
+        .createdAt(Instant.EPOCH)
+        .build();
+  }
+}
@@ -0,0 +1,240 @@
+package com.teamviewer.repository;
+
+import com.teamviewer.entity.Order;
+import com.teamviewer.entity.OrderItem;
+import com.teamviewer.repository.projection.OrderItemLineView;
+import com.teamviewer.repository.projection.OrderItemView;
+import com.teamviewer.repository.projection.ProductSalesView;
+import com.teamviewer.repository.projection.RevenueBucketView;
+import com.teamviewer.repository.projection.VersionView;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@DataJpaTest(
+    properties = {
+      "spring.datasource.url=jdbc:h2:mem:order-items",
+      "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+    })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class OrderItemRepositoryTest {
+
+  @Autowired private OrderItemRepository orderItemRepository;
+
+  @Autowired private OrderRepository orderRepository;
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @Test
+  void shouldReturnOnlyItemsOfTheOrderInIdOrder() {
+    // Arrange
+    orderItemRepository.saveAll(
+        List.of(item(2, 10), item(1, 11), item(2, 12), item(3, 13), item(2, 14)));
+
+    // Act
+    List<OrderItemView> items = orderItemRepository.findByOrderIdOrderByIdAsc(2);
+
+    // Assert
+    assertEquals(List.of(10, 12, 14), items.stream().map(OrderItemView::getProductId).toList());
+    assertEquals(
+        items.stream().map(OrderItemView::getId).sorted().toList(),
+        items.stream().map(OrderItemView::getId).toList());
+  }
+
+  @Test
+  void shouldUpdateOnlyGivenAttributesAndBumpVersion() {
+    // Arrange
+    OrderItem saved = orderItemRepository.saveAndFlush(item(2, 10));
+
+    // Act
+    int updated =
+        orderItemRepository.updatePartially(
+            OrderItem.class, saved.getId(), saved.getVersion(), Map.of("quantity", 7));
+    int stale =
+        orderItemRepository.updatePartially(
+            OrderItem.class, saved.getId(), saved.getVersion(), Map.of("quantity", 8));
+
+    // Assert
+    assertEquals(1, updated);
+    assertEquals(0, stale);
+    OrderItemLineView line = orderItemRepository.findLineById(saved.getId()).orElseThrow();
+    assertEquals(7, line.getQuantity());
+    assertEquals(saved.getVersion() + 1, line.getVersion());
+    assertEquals(2, line.getOrderId());
+    assertEquals(0, saved.getUnitPrice().compareTo(line.getUnitPrice()));
+  }
+
+  @Test
+  void shouldReturnVersionWrittenByUpdate() {
+    // Arrange
+    OrderItem saved = orderItemRepository.saveAndFlush(item(2, 10));
+
+    // Act
+    Long version =
+        orderItemRepository.updatePartiallyReturningVersion(
+            OrderItem.class, saved.getId(), Map.of("unitPrice", BigDecimal.TEN, "quantity", 4));
+    Long missing =
+        orderItemRepository.updatePartiallyReturningVersion(
+            OrderItem.class, -1L, Map.of("quantity", 4));
+
+    // Assert
+    assertEquals(saved.getVersion() + 1, version);
+    assertNull(missing);
+    OrderItemLineView line = orderItemRepository.findLineById(saved.getId()).orElseThrow();
+    assertEquals(version, line.getVersion());
+    assertEquals(4, line.getQuantity());
+    assertEquals(0, BigDecimal.TEN.compareTo(line.getUnitPrice()));
+  }
+
+  @Test
+  void shouldDeleteItemsOfOrdersAndItemsByIdInOneStatementEach() {
+    // Arrange
+    orderItemRepository.saveAllAndFlush(
+        List.of(item(1, 10), item(2, 11), item(2, 12), item(3, 13), item(4, 14)));
+    Long itemOfOrder3 = orderItemRepository.findByOrderIdOrderByIdAsc(3).get(0).getId();
+
+    // Act
+    int deletedByOrder = orderItemRepository.deleteAllByOrderIds(new Long[] {2L, 4L, 99L});
+    int deletedById = orderItemRepository.deleteAllByIds(new Long[] {itemOfOrder3, -1L});
+
+    // Assert
+    assertEquals(3, deletedByOrder);
+    assertEquals(1, deletedById);
+    assertEquals(1, orderItemRepository.count());
+  }
+
+  @Test
+  void shouldLockExistingItemsByIdAndByOrder() {
+    // Arrange
+    List<OrderItem> items =
+        orderItemRepository.saveAllAndFlush(List.of(item(1, 10), item(2, 11), item(2, 12)));
+
+    // Act
+    List<VersionView> byId =
+        orderItemRepository.findVersionsForUpdate(new Long[] {items.get(0).getId(), -1L});
+    List<Long> byOrder = orderItemRepository.lockByOrderIds(new Long[] {2L, 99L});
+
+    // Assert
+    assertEquals(1, byId.size());
+    assertEquals(items.get(0).getId(), byId.get(0).getId());
+    assertEquals(items.get(0).getVersion(), byId.get(0).getVersion());
+    assertEquals(List.of(items.get(1).getId(), items.get(2).getId()), byOrder);
+  }
+
+  @Test
+  void shouldSubtractLineTotalsOfItemsFromTheirOrders() {
+    // Arrange
+    Order order =
+        orderRepository.saveAndFlush(Order.builder().totalamount(new BigDecimal("10")).build());
+    int orderId = order.getId().intValue();
+    List<OrderItem> items =
+        orderItemRepository.saveAllAndFlush(
+            List.of(item(orderId, 10), item(orderId, 11), item(orderId, 12)));
+
+    // Act
+    int updated =
+        orderRepository.subtractItemTotals(
+            new Long[] {items.get(0).getId(), items.get(2).getId()});
+
+    // Assert
+    assertEquals(1, updated);
+    assertEquals(
+        0,
+        new BigDecimal("8")
+            .compareTo(
+                jdbcTemplate.queryForObject(
+                    "select totalamount from tb_order where id = ?",
+                    BigDecimal.class,
+                    order.getId())));
+  }
+
+  @Test
+  void shouldSumSalesPerProductOfItemsAndOfOrders() {
+    // Arrange
+    List<OrderItem> items =
+        orderItemRepository.saveAllAndFlush(
+            List.of(
+                item(1, 10, 3, "1.50"),
+                item(2, 10, 2, "1.00"),
+                item(1, 11, 1, "20.00"),
+                item(3, 12, 4, "2.00")));
+
+    // Act
+    List<ProductSalesView> byItems =
+        orderItemRepository.sumSalesByIds(
+            new Long[] {items.get(0).getId(), items.get(1).getId(), items.get(3).getId()});
+    List<ProductSalesView> byOrders = orderItemRepository.sumSalesByOrderIds(new Long[] {1L});
+
+    // Assert
+    Map<Long, ProductSalesView> sales =
+        byItems.stream().collect(Collectors.toMap(ProductSalesView::getProductId, view -> view));
+    assertEquals(2, sales.size());
+    assertEquals(5L, sales.get(10L).getQuantity());
+    assertEquals(0, new BigDecimal("6.50").compareTo(sales.get(10L).getRevenue()));
+    assertEquals(2L, sales.get(10L).getOrderLines());
+    assertEquals(1L, sales.get(12L).getOrderLines());
+    assertEquals(
+        List.of(10L, 11L),
+        byOrders.stream().map(ProductSalesView::getProductId).sorted().toList());
+  }
+
+  @Test
+  void shouldGroupOrdersIntoBucketsByTotal() {
+    // Arrange
+    orderItemRepository.saveAllAndFlush(
+        List.of(
+            item(1, 10, 1, "30.00"),
+            item(1, 11, 2, "10.00"),
+            item(2, 10, 1, "120.00"),
+            item(3, 10, 1, "99.99"),
+            item(4, 10, 5, "1.00")));
+
+    // Act
+    List<RevenueBucketView> buckets =
+        orderItemRepository.sumRevenueByOrderTotalBucket(new BigDecimal("100"), 10);
+
+    // Assert
+    assertEquals(2, buckets.size());
+    assertEquals(0, BigDecimal.ZERO.compareTo(buckets.get(0).getBucket()));
+    assertEquals(3L, buckets.get(0).getOrders());
+    assertEquals(0, new BigDecimal("154.99").compareTo(buckets.get(0).getRevenue()));
+    assertEquals(0, BigDecimal.ONE.compareTo(buckets.get(1).getBucket()));
+    assertEquals(1L, buckets.get(1).getOrders());
+  }
+
+  @Test
+  void shouldCreateOrderIdIndex() {
+    List<String> indexes =
+        jdbcTemplate.queryForList(
+            "select index_name from information_schema.indexes"
+                + " where table_name = 'TB_ORDER_ITEM'"
+                + " and index_name = 'IDX_ORDER_ITEM_ORDER_ID'",
+            String.class);
+
+    assertFalse(indexes.isEmpty());
+  }
+
+  private static OrderItem item(int orderId, int productId) {
+    return item(orderId, productId, 1, "1");
+  }
+
+  private static OrderItem item(int orderId, int productId, int quantity, String unitPrice) {
+    return OrderItem.builder()
+        .orderId(orderId)
+        .productId(productId)
+        .quantity(quantity)
+        .unitPrice(new BigDecimal(unitPrice))
+        .build();
+  }
+}
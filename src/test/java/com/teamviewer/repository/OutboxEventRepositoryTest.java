@@ -0,0 +1,57 @@
+package com.teamviewer.repository;
+
+import com.teamviewer.entity.OutboxEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(
+    properties = {
+      "spring.datasource.url=jdbc:h2:mem:outbox",
+      "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+    })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class OutboxEventRepositoryTest {
+
+  @Autowired private OutboxEventRepository outboxEventRepository;
+
+  @Test
+  void shouldReturnOldestEventsFirstAndDeleteThemById() {
+    // Arrange
+    String description = "x".repeat(20_000);
+    List<OutboxEvent> saved =
+        outboxEventRepository.saveAllAndFlush(
+            IntStream.range(0, 5)
+                .mapToObj(
+                    i ->
+                        OutboxEvent.builder()
+                            .aggregate(OutboxEvent.Aggregate.PRODUCT)
+                            .aggregateId((long) i)
+                            .changeType(OutboxEvent.ChangeType.CREATED)
+                            .payload("{\"description\":\"" + description + "\"}")
+                            .createdAt(Instant.now())
+                            .build())
+                .toList());
+
+    // Act
+    List<OutboxEvent> oldest = outboxEventRepository.findOldestForUpdate(PageRequest.ofSize(3));
+    int deleted =
+        outboxEventRepository.deleteAllByIds(
+            oldest.stream().map(OutboxEvent::getId).toArray(Long[]::new));
+
+    // Assert
+    assertEquals(
+        saved.subList(0, 3).stream().map(OutboxEvent::getId).toList(),
+        oldest.stream().map(OutboxEvent::getId).toList());
+    assertEquals(3, deleted);
+    assertEquals(2, outboxEventRepository.count());
+  }
+}
@@ -0,0 +1,92 @@
+package com.teamviewer.repository;
+
+import com.teamviewer.entity.OrderItem;
+import com.teamviewer.entity.ProductSales;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(
+    properties = {
+      "spring.datasource.url=jdbc:h2:mem:product-sales",
+      "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+    })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ProductSalesRepositoryTest {
+
+  @Autowired private ProductSalesRepository productSalesRepository;
+
+  @Autowired private OrderItemRepository orderItemRepository;
+
+  @Autowired private TestEntityManager entityManager;
+
+  @Test
+  void shouldRebuildSalesFromOrderItems() {
+    // Arrange
+    orderItemRepository.saveAllAndFlush(
+        List.of(item(10, 2, "1.50"), item(11, 1, "4.00"), item(10, 3, "2.00")));
+    productSalesRepository.upsertSales(99L, 1, BigDecimal.ONE, 1);
+
+    // Act
+    productSalesRepository.deleteAllSales();
+    int products = productSalesRepository.insertFromOrderItems();
+
+    // Assert
+    assertEquals(2, products);
+    assertEquals(
+        List.of(sales(10, 5, "9.00", 2), sales(11, 1, "4.00", 1)), streamSortedByProduct());
+  }
+
+  @Test
+  void shouldCreateMissingCountersAndAddToExistingOnes() {
+    // Act
+    productSalesRepository.upsertSales(10L, 5, new BigDecimal("9.00"), 2);
+    productSalesRepository.upsertSales(10L, -2, new BigDecimal("-3.00"), -1);
+    productSalesRepository.upsertSales(11L, 1, BigDecimal.ONE, 1);
+
+    // Assert
+    entityManager.clear();
+    assertEquals(
+        List.of(sales(10, 3, "6.00", 1), sales(11, 1, "1.00", 1)), streamSortedByProduct());
+  }
+
+  private List<ProductSales> streamSortedByProduct() {
+    try (Stream<ProductSales> rows = productSalesRepository.streamAll()) {
+      return rows.sorted((a, b) -> a.getProductId().compareTo(b.getProductId()))
+          .map(
+              row ->
+                  sales(
+                      row.getProductId(),
+                      row.getQuantity(),
+                      row.getRevenue().setScale(2).toPlainString(),
+                      row.getOrderLines()))
+          .toList();
+    }
+  }
+
+  private static ProductSales sales(long productId, long quantity, String revenue, long lines) {
+    return ProductSales.builder()
+        .productId(productId)
+        .quantity(quantity)
+        .revenue(new BigDecimal(revenue))
+        .orderLines(lines)
+        .build();
+  }
+
+  private static OrderItem item(int productId, int quantity, String unitPrice) {
+    return OrderItem.builder()
+        .orderId(1)
+        .productId(productId)
+        .quantity(quantity)
+        .unitPrice(new BigDecimal(unitPrice))
+        .build();
+  }
+}
@@ -0,0 +1,156 @@
+package com.teamviewer.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductSearchIndexTest {
+
+  private static List<Long> ids(List<ProductSearchIndex.Hit> hits) {
+    return hits.stream().map(ProductSearchIndex.Hit::id).toList();
+  }
+
+  @Test
+  void shouldRankNameMatchesAboveDescriptionMatches() {
+    ProductSearchIndex index = new ProductSearchIndex();
+    index.add(1, "USB cable", "Works with any keyboard");
+    index.add(2, "Mechanical keyboard", "Brown switches");
+    index.add(3, "Monitor stand", "Aluminium");
+
+    assertEquals(List.of(2L, 1L), ids(index.search("Keyboard", 10)));
+  }
+
+  @Test
+  void shouldRequireEveryQueryWord() {
+    ProductSearchIndex index = new ProductSearchIndex();
+    index.add(1, "Wireless mouse", null);
+    index.add(2, "Wireless keyboard", null);
+    index.add(3, "Wired mouse", null);
+
+    assertEquals(List.of(1L), ids(index.search("wireless mouse", 10)));
+    assertEquals(List.of(), index.search("wireless headset", 10));
+  }
+
+  @Test
+  void shouldMatchPrefixesBelowExactWords() {
+    ProductSearchIndex index = new ProductSearchIndex();
+    index.add(1, "Keyboard tray", null);
+    index.add(2, "Key ring", null);
+    index.add(3, "Monitor", null);
+
+    assertEquals(List.of(2L, 1L), ids(index.search("key", 10)));
+    assertEquals(List.of(1L), ids(index.search("keyb", 10)));
+  }
+
+  @Test
+  void shouldExpandBroadPrefixesToTheMostFrequentTerms() {
+    ProductSearchIndex index = new ProductSearchIndex();
+    for (long id = 1; id <= ProductSearchIndex.MAX_EXPANSIONS + 6; id++) {
+      index.add(id, "Kea" + (char) ('a' + id / 26) + (char) ('a' + id % 26), null);
+    }
+    index.add(100, "Kettle", null);
+    index.add(101, "Electric kettle", null);
+
+    List<Long> hits = ids(index.search("ke", 200));
+
+    assertEquals(ProductSearchIndex.MAX_EXPANSIONS + 1, hits.size());
+    assertTrue(hits.containsAll(List.of(100L, 101L)));
+  }
+
+  @Test
+  void shouldIgnoreStopWordsAndSingleCharacters() {
+    ProductSearchIndex index = new ProductSearchIndex();
+    index.add(1, "The cable for a TV", null);
+
+    assertEquals(List.of(1L), ids(index.search("the cable", 10)));
+    assertEquals(List.of(), index.search("the a", 10));
+    assertEquals(2, index.terms());
+  }
+
+  @Test
+  void shouldTreatStopWordEndingQueryAsPrefix() {
+    ProductSearchIndex index = new ProductSearchIndex();
+    index.add(1, "Toaster", null);
+    index.add(2, "Inline skates", null);
+    index.add(3, "Kettle", null);
+
+    assertEquals(List.of(1L), ids(index.search("to", 10)));
+    assertEquals(List.of(2L), ids(index.search("in", 10)));
+    assertEquals(List.of(3L), ids(index.search("kettle for", 10)));
+    assertEquals(List.of(), index.search("to ", 10));
+  }
+
+  @Test
+  void shouldLimitResults() {
+    ProductSearchIndex index = new ProductSearchIndex();
+    for (long id = 1; id <= 50; id++) {
+      index.add(id, "Cable " + id, null);
+    }
+
+    List<ProductSearchIndex.Hit> hits = index.search("cable", 5);
+
+    assertEquals(List.of(1L, 2L, 3L, 4L, 5L), ids(hits));
+  }
+
+  @Test
+  void shouldKeepPostingsSortedWhenIdsArriveOutOfOrder() {
+    ProductSearchIndex index = new ProductSearchIndex();
+    index.add(1_000_000, "Desk lamp", null);
+    index.add(3, "Desk", null);
+    index.add(400, "Desk mat", null);
+
+    assertEquals(List.of(3L, 400L, 1_000_000L), ids(index.search("desk", 10)));
+  }
+
+  @Test
+  void shouldMoveProductToItsNewTermsOnUpdate() {
+    ProductSearchIndex index = new ProductSearchIndex();
+    index.add(1, "Office chair", "Black");
+    index.add(2, "Office desk", "Black");
+
+    index.update(1, "Office chair", "Black", "Office chair", "Grey");
+
+    assertEquals(List.of(2L), ids(index.search("black", 10)));
+    assertEquals(List.of(1L), ids(index.search("grey", 10)));
+    assertEquals(List.of(1L, 2L), ids(index.search("office", 10)));
+  }
+
+  @Test
+  void shouldCopyProductsFromAnotherIndex() {
+    ProductSearchIndex index = new ProductSearchIndex();
+    index.add(1, "Laptop sleeve", null);
+    index.add(2, "Laptop stand", null);
+    ProductSearchIndex source = new ProductSearchIndex();
+    source.add(1, "Laptop bag", "Padded");
+
+    index.copy(source, Set.of(1L, 3L));
+
+    assertEquals(List.of(1L), ids(index.search("bag", 10)));
+    assertEquals(List.of(1L), ids(index.search("padded", 10)));
+    assertEquals(List.of(), index.search("sleeve", 10));
+    assertEquals(2, index.documents());
+
+    index.removeAll(Set.of(1L));
+
+    assertEquals(List.of(2L), ids(index.search("laptop", 10)));
+    assertEquals(1, index.documents());
+    assertEquals(2, index.terms());
+  }
+
+  @Test
+  void shouldForgetRemovedProducts() {
+    ProductSearchIndex index = new ProductSearchIndex();
+    index.add(1, "Laptop sleeve", null);
+    index.add(2, "Laptop stand", null);
+
+    index.remove(1, "Laptop sleeve", null);
+
+    assertEquals(List.of(2L), ids(index.search("laptop", 10)));
+    assertEquals(List.of(), index.search("sleeve", 10));
+    assertEquals(1, index.documents());
+    assertEquals(2, index.terms());
+  }
+}
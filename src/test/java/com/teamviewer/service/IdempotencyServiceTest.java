@@ -0,0 +1,193 @@
+package com.teamviewer.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.teamviewer.exception.IdempotencyKeyReusedException;
+import com.teamviewer.exception.InsufficientStockException;
+import com.teamviewer.exception.InvalidRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdempotencyServiceTest {
+
+  private static final String SCOPE = "POST /api/orders";
+
+  private final IdempotencyService idempotencyService =
+      new IdempotencyService(new ObjectMapper(), 100, Duration.ofHours(1));
+
+  @Test
+  void shouldReturnOriginalResponseForSameKey() {
+    // Arrange
+    AtomicInteger executions = new AtomicInteger();
+
+    // Act
+    Object first = idempotencyService.execute(SCOPE, "k1", "body", executions::incrementAndGet);
+    Object second = idempotencyService.execute(SCOPE, "k1", "body", executions::incrementAndGet);
+
+    // Assert
+    assertEquals(1, executions.get());
+    assertSame(first, second);
+  }
+
+  @Test
+  void shouldExecuteEveryRequestWithoutKey() {
+    // Arrange
+    AtomicInteger executions = new AtomicInteger();
+
+    // Act
+    idempotencyService.execute(SCOPE, null, "body", executions::incrementAndGet);
+    idempotencyService.execute(SCOPE, null, "body", executions::incrementAndGet);
+
+    // Assert
+    assertEquals(2, executions.get());
+  }
+
+  @Test
+  void shouldKeepKeysOfDifferentScopesApart() {
+    // Arrange
+    AtomicInteger executions = new AtomicInteger();
+
+    // Act
+    idempotencyService.execute(SCOPE, "k1", "body", executions::incrementAndGet);
+    idempotencyService.execute("POST /api/order-items", "k1", "body", executions::incrementAndGet);
+
+    // Assert
+    assertEquals(2, executions.get());
+  }
+
+  @Test
+  void shouldRejectKeyReusedWithDifferentRequest() {
+    // Arrange
+    idempotencyService.execute(SCOPE, "k1", "body", () -> 1);
+
+    // Act & Assert
+    assertThrows(
+        IdempotencyKeyReusedException.class,
+        () -> idempotencyService.execute(SCOPE, "k1", "other body", () -> 2));
+  }
+
+  @Test
+  void shouldRejectKeyReusedWithRequestOfSameHashCode() {
+    // Arrange
+    idempotencyService.execute(SCOPE, "k1", Map.of("name", "Aa"), () -> 1);
+
+    // Act & Assert
+    assertThrows(
+        IdempotencyKeyReusedException.class,
+        () -> idempotencyService.execute(SCOPE, "k1", Map.of("name", "BB"), () -> 2));
+  }
+
+  @Test
+  void shouldMatchEqualRequestsBuiltInAnotherOrder() {
+    // Arrange
+    Map<String, Object> first = new LinkedHashMap<>();
+    first.put("a", 1);
+    first.put("b", 2);
+    Map<String, Object> second = new LinkedHashMap<>();
+    second.put("b", 2);
+    second.put("a", 1);
+    idempotencyService.execute(SCOPE, "k1", first, () -> 1);
+
+    // Act
+    Object response = idempotencyService.execute(SCOPE, "k1", second, () -> 2);
+
+    // Assert
+    assertEquals(1, response);
+  }
+
+  @Test
+  void shouldRejectOverlongKey() {
+    // Act & Assert
+    assertThrows(
+        InvalidRequestException.class,
+        () -> idempotencyService.execute(SCOPE, "k".repeat(256), "body", () -> 1));
+  }
+
+  @Test
+  void shouldNotRememberFailedRequest() {
+    // Arrange
+    assertThrows(
+        InsufficientStockException.class,
+        () ->
+            idempotencyService.execute(
+                SCOPE,
+                "k1",
+                "body",
+                () -> {
+                  throw new InsufficientStockException("out of stock");
+                }));
+
+    // Act
+    Object response = idempotencyService.execute(SCOPE, "k1", "body", () -> 42);
+
+    // Assert
+    assertEquals(42, response);
+  }
+
+  @Test
+  void shouldCoalesceConcurrentDuplicates() throws Exception {
+    // Arrange
+    int threads = 16;
+    AtomicInteger executions = new AtomicInteger();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    List<Future<Object>> responses = new ArrayList<>();
+
+    // Act
+    try {
+      responses.add(
+          executor.submit(
+              () ->
+                  idempotencyService.execute(
+                      SCOPE,
+                      "k1",
+                      "body",
+                      () -> {
+                        started.countDown();
+                        await(release);
+                        return executions.incrementAndGet();
+                      })));
+      assertTrue(started.await(10, TimeUnit.SECONDS));
+      for (int i = 1; i < threads; i++) {
+        responses.add(
+            executor.submit(
+                () ->
+                    idempotencyService.execute(
+                        SCOPE, "k1", "body", executions::incrementAndGet)));
+      }
+      release.countDown();
+
+      // Assert
+      for (Future<Object> response : responses) {
+        assertEquals(1, response.get(10, TimeUnit.SECONDS));
+      }
+      assertEquals(1, executions.get());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
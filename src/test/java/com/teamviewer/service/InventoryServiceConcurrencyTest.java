@@ -0,0 +1,237 @@
+package com.teamviewer.service;
+
+import com.teamviewer.entity.Product;
+import com.teamviewer.exception.InsufficientStockException;
+import com.teamviewer.exception.ResourceNotFoundException;
+import com.teamviewer.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Hammers a single product row from many threads against an embedded database. */
+@DataJpaTest(
+    properties = {
+      "spring.datasource.url=jdbc:h2:mem:inventory;LOCK_TIMEOUT=30000",
+      "spring.datasource.hikari.maximum-pool-size=32",
+      "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+    })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({InventoryService.class, HotInventoryService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InventoryServiceConcurrencyTest {
+
+  private static final int THREADS = 200;
+
+  @Autowired private InventoryService inventoryService;
+
+  @Autowired private HotInventoryService hotInventoryService;
+
+  @Autowired private ProductRepository productRepository;
+
+  @AfterEach
+  void afterEach() {
+    productRepository.deleteAll();
+  }
+
+  @Test
+  void shouldNeverOversellUnderContention() throws Exception {
+    // Arrange
+    int initialStock = 100;
+    Long id = createProduct(initialStock);
+    AtomicInteger reserved = new AtomicInteger();
+    AtomicInteger rejected = new AtomicInteger();
+
+    // Act
+    runConcurrently(
+        () -> {
+          try {
+            inventoryService.reserve(id, 1);
+            reserved.incrementAndGet();
+          } catch (InsufficientStockException ex) {
+            rejected.incrementAndGet();
+          }
+        });
+
+    // Assert
+    assertEquals(initialStock, reserved.get());
+    assertEquals(THREADS - initialStock, rejected.get());
+    Product product = productRepository.findById(id).orElseThrow();
+    assertEquals(0, product.getStock());
+    // Every successful reservation is a new version of the row, so ETags change with the stock
+    assertEquals(initialStock, product.getVersion());
+  }
+
+  @Test
+  void shouldKeepStockConsistentWithMixedQuantities() throws Exception {
+    // Arrange
+    int initialStock = 500;
+    Long id = createProduct(initialStock);
+    AtomicInteger reserved = new AtomicInteger();
+
+    // Act
+    runConcurrently(
+        () -> {
+          int quantity = ThreadLocalRandom.current().nextInt(1, 8);
+          try {
+            inventoryService.reserve(id, quantity);
+            reserved.addAndGet(quantity);
+          } catch (InsufficientStockException ex) {
+            // sold out for this quantity
+          }
+        });
+
+    // Assert
+    int stock = productRepository.findById(id).orElseThrow().getStock();
+    assertTrue(stock >= 0);
+    assertEquals(initialStock, stock + reserved.get());
+  }
+
+  @Test
+  void shouldNeverOversellInHotMode() throws Exception {
+    // Arrange
+    int initialStock = 150;
+    Long id = createProduct(initialStock);
+    hotInventoryService.enable(id);
+    AtomicInteger reserved = new AtomicInteger();
+
+    // Act
+    runConcurrently(
+        () -> {
+          try {
+            inventoryService.reserve(id, 1);
+            reserved.incrementAndGet();
+          } catch (InsufficientStockException ex) {
+            // sold out
+          }
+        });
+    hotInventoryService.flush();
+    int flushedStock = productRepository.findById(id).orElseThrow().getStock();
+    hotInventoryService.disable(id);
+
+    // Assert
+    assertEquals(initialStock, reserved.get());
+    assertEquals(0, flushedStock);
+    assertEquals(0, productRepository.findById(id).orElseThrow().getStock());
+    assertFalse(hotInventoryService.isHot(id));
+  }
+
+  @Test
+  void shouldHandOverCleanlyWhileReservationsAreRunning() throws Exception {
+    // Arrange
+    int initialStock = 1000;
+    Long id = createProduct(initialStock);
+    AtomicInteger reserved = new AtomicInteger();
+    AtomicInteger counter = new AtomicInteger();
+
+    // Act: a few threads toggle the mode while the rest keep reserving
+    runConcurrently(
+        () -> {
+          int n = counter.incrementAndGet();
+          for (int i = 0; i < 5; i++) {
+            if (n % 50 == 0) {
+              hotInventoryService.enable(id);
+              hotInventoryService.flush();
+              hotInventoryService.disable(id);
+            } else {
+              try {
+                inventoryService.reserve(id, 1);
+                reserved.incrementAndGet();
+                if (n % 3 == 0) {
+                  inventoryService.release(id, 1);
+                  reserved.decrementAndGet();
+                }
+              } catch (InsufficientStockException ex) {
+                // sold out
+              }
+            }
+          }
+        });
+    hotInventoryService.disable(id);
+
+    // Assert
+    int stock = productRepository.findById(id).orElseThrow().getStock();
+    assertTrue(stock >= 0);
+    assertEquals(initialStock, stock + reserved.get());
+  }
+
+  @Test
+  void shouldStopSellingDeletedHotProduct() {
+    // Arrange
+    Long id = createProduct(10);
+    hotInventoryService.enable(id);
+
+    // Act
+    productRepository.deleteById(id);
+    hotInventoryService.productDeleted(id);
+
+    // Assert
+    assertFalse(hotInventoryService.isHot(id));
+    assertThrows(ResourceNotFoundException.class, () -> inventoryService.reserve(id, 1));
+  }
+
+  @Test
+  void shouldDropHotProductWhoseRowIsGoneOnFlush() {
+    // Arrange
+    Long id = createProduct(10);
+    hotInventoryService.enable(id);
+    inventoryService.reserve(id, 1);
+
+    // Act
+    productRepository.deleteById(id);
+    hotInventoryService.flush();
+
+    // Assert
+    assertFalse(hotInventoryService.isHot(id));
+    assertThrows(ResourceNotFoundException.class, () -> inventoryService.reserve(id, 1));
+  }
+
+  private Long createProduct(int stock) {
+    return productRepository
+        .save(Product.builder().name("hot-sku").price(BigDecimal.TEN).stock(stock).build())
+        .getId();
+  }
+
+  private void runConcurrently(Runnable task) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> futures = new ArrayList<>();
+    try {
+      for (int i = 0; i < THREADS; i++) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  task.run();
+                  return null;
+                }));
+      }
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get(60, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,129 @@
+package com.teamviewer.service;
+
+import com.teamviewer.exception.InsufficientStockException;
+import com.teamviewer.exception.InvalidRequestException;
+import com.teamviewer.exception.ResourceNotFoundException;
+import com.teamviewer.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@TestInstance(value = TestInstance.Lifecycle.PER_CLASS)
+class InventoryServiceTest {
+
+  private ProductRepository productRepository;
+
+  private HotInventoryService hotInventoryService;
+
+  private InventoryService inventoryService;
+
+  @BeforeAll
+  void setUp() {
+    productRepository = Mockito.mock(ProductRepository.class);
+    hotInventoryService = Mockito.mock(HotInventoryService.class);
+    inventoryService =
+        new InventoryService(
+            productRepository,
+            hotInventoryService,
+            Mockito.mock(PlatformTransactionManager.class));
+  }
+
+  @AfterEach
+  void afterEach() {
+    reset(productRepository, hotInventoryService);
+  }
+
+  @Test
+  void shouldReserveStockWithConditionalUpdate() {
+    // Arrange
+    when(productRepository.decrementStock(1L, 3)).thenReturn(1);
+
+    // Act
+    inventoryService.reserve(1L, 3);
+
+    // Assert
+    verify(productRepository).decrementStock(1L, 3);
+    verify(productRepository, never()).findById(any());
+  }
+
+  @Test
+  void shouldReserveHotProductInMemory() {
+    // Arrange
+    when(hotInventoryService.tryReserve(1L, 3)).thenReturn(true);
+
+    // Act
+    inventoryService.reserve(1L, 3);
+
+    // Assert
+    verifyNoInteractions(productRepository);
+  }
+
+  @Test
+  void shouldUndoDatabaseReservationWhenProductTurnedHot() {
+    // Arrange
+    when(hotInventoryService.tryReserve(1L, 3)).thenReturn(false, true);
+    when(hotInventoryService.isHot(1L)).thenReturn(true);
+    when(productRepository.decrementStock(1L, 3)).thenReturn(1);
+
+    // Act
+    inventoryService.reserve(1L, 3);
+
+    // Assert
+    verify(productRepository).incrementStock(1L, 3);
+    verify(hotInventoryService, times(2)).tryReserve(1L, 3);
+  }
+
+  @Test
+  void shouldThrowWhenStockIsInsufficient() {
+    // Arrange
+    when(productRepository.decrementStock(1L, 3)).thenReturn(0);
+    when(productRepository.existsById(1L)).thenReturn(true);
+
+    // Assert
+    assertThrows(InsufficientStockException.class, () -> inventoryService.reserve(1L, 3));
+  }
+
+  @Test
+  void shouldThrowWhenReservingUnknownProduct() {
+    // Arrange
+    when(productRepository.decrementStock(1L, 3)).thenReturn(0);
+    when(productRepository.existsById(1L)).thenReturn(false);
+
+    // Assert
+    assertThrows(ResourceNotFoundException.class, () -> inventoryService.reserve(1L, 3));
+  }
+
+  @Test
+  void shouldRejectNonPositiveQuantity() {
+    assertThrows(InvalidRequestException.class, () -> inventoryService.reserve(1L, 0));
+    assertThrows(InvalidRequestException.class, () -> inventoryService.release(1L, -1));
+    verifyNoInteractions(productRepository);
+  }
+
+  @Test
+  void shouldReleaseStock() {
+    // Arrange
+    when(productRepository.incrementStock(1L, 2)).thenReturn(1);
+
+    // Act
+    inventoryService.release(1L, 2);
+
+    // Assert
+    verify(productRepository).incrementStock(1L, 2);
+  }
+
+  @Test
+  void shouldThrowWhenReleasingUnknownProduct() {
+    // Arrange
+    when(productRepository.incrementStock(1L, 2)).thenReturn(0);
+
+    // Assert
+    assertThrows(ResourceNotFoundException.class, () -> inventoryService.release(1L, 2));
+  }
+}
@@ -0,0 +1,99 @@
+package com.teamviewer.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.teamviewer.entity.OrderItem;
+import com.teamviewer.repository.OrderItemRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.mockito.Mockito;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+@TestInstance(value = TestInstance.Lifecycle.PER_CLASS)
+class OrderItemExportServiceTest {
+
+  private OrderItemRepository orderItemRepository;
+
+  private EntityManager entityManager;
+
+  private OrderItemExportService orderItemExportService;
+
+  @BeforeAll
+  void setUp() {
+    orderItemRepository = Mockito.mock(OrderItemRepository.class);
+    entityManager = Mockito.mock(EntityManager.class);
+    orderItemExportService =
+        new OrderItemExportService(orderItemRepository, entityManager, new ObjectMapper());
+  }
+
+  @AfterEach
+  void afterEach() {
+    reset(orderItemRepository, entityManager);
+  }
+
+  @Test
+  void shouldWriteOneJsonObjectPerLineAndDetachEachItem() throws Exception {
+    // Arrange
+    OrderItem first =
+        OrderItem.builder()
+            .id(1L)
+            .orderId(10)
+            .productId(20)
+            .quantity(3)
+            .unitPrice(BigDecimal.TEN)
+            .version(0L)
+            .build();
+    OrderItem second =
+        OrderItem.builder()
+            .id(2L)
+            .orderId(10)
+            .productId(21)
+            .quantity(1)
+            .unitPrice(BigDecimal.ONE)
+            .version(0L)
+            .build();
+    when(orderItemRepository.streamAll()).thenReturn(Stream.of(first, second));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    // Act
+    long count = orderItemExportService.exportOrderItems(out);
+
+    // Assert
+    assertEquals(2, count);
+    String[] lines = out.toString(StandardCharsets.UTF_8).split("\n", -1);
+    assertEquals(3, lines.length);
+    assertEquals(
+        "{\"id\":1,\"orderId\":10,\"productId\":20,\"quantity\":3,\"unitPrice\":10,\"version\":0}",
+        lines[0]);
+    assertEquals(
+        "{\"id\":2,\"orderId\":10,\"productId\":21,\"quantity\":1,\"unitPrice\":1,\"version\":0}",
+        lines[1]);
+    assertTrue(lines[2].isEmpty());
+    verify(entityManager).detach(first);
+    verify(entityManager).detach(second);
+  }
+
+  @Test
+  void shouldWriteNothingForEmptyTable() throws Exception {
+    // Arrange
+    when(orderItemRepository.streamAll()).thenReturn(Stream.empty());
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    // Act
+    long count = orderItemExportService.exportOrderItems(out);
+
+    // Assert
+    assertEquals(0, count);
+    assertEquals(0, out.size());
+  }
+}
@@ -0,0 +1,192 @@
+package com.teamviewer.service;
+
+import com.teamviewer.entity.OrderItem;
+import com.teamviewer.exception.InsufficientStockException;
+import com.teamviewer.exception.InvalidRequestException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.dao.TransientDataAccessResourceException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class OrderItemGroupCommitServiceTest {
+
+  private final OrderItemService orderItemService = Mockito.mock(OrderItemService.class);
+
+  private final AtomicLong ids = new AtomicLong();
+
+  private OrderItemGroupCommitService groupCommitService;
+
+  @AfterEach
+  void afterEach() throws InterruptedException {
+    groupCommitService.stop();
+  }
+
+  @Test
+  void shouldInsertDirectlyWhenDisabled() {
+    // Arrange
+    groupCommitService =
+        new OrderItemGroupCommitService(orderItemService, false, 100, 5, 100, 1000);
+    groupCommitService.start();
+    OrderItem orderItem = orderItem(1);
+    when(orderItemService.createOrderItem(orderItem)).thenReturn(orderItem);
+
+    // Act
+    OrderItem created = groupCommitService.createOrderItem(orderItem);
+
+    // Assert
+    assertSame(orderItem, created);
+    verify(orderItemService, never()).createOrderItems(anyList());
+  }
+
+  @Test
+  void shouldInsertConcurrentCallsInBatches() throws Exception {
+    // Arrange
+    int callers = 64;
+    groupCommitService =
+        new OrderItemGroupCommitService(orderItemService, true, 100, 50, 1000, 30_000);
+    groupCommitService.start();
+    when(orderItemService.createOrderItems(anyList())).thenAnswer(call -> assignIds(call));
+    ExecutorService executor = Executors.newFixedThreadPool(callers);
+    List<Future<OrderItem>> created = new ArrayList<>();
+
+    // Act
+    try {
+      for (int i = 0; i < callers; i++) {
+        OrderItem orderItem = orderItem(i + 1);
+        created.add(executor.submit(() -> groupCommitService.createOrderItem(orderItem)));
+      }
+
+      // Assert
+      for (int i = 0; i < callers; i++) {
+        OrderItem orderItem = created.get(i).get(10, TimeUnit.SECONDS);
+        assertNotNull(orderItem.getId());
+        assertEquals(i + 1, orderItem.getQuantity());
+      }
+      verify(orderItemService, atMost(callers / 2)).createOrderItems(anyList());
+      verify(orderItemService, never()).createOrderItem(any());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void shouldLetCallersInsertAloneWhenBatchFails() throws Exception {
+    // Arrange
+    groupCommitService =
+        new OrderItemGroupCommitService(orderItemService, true, 100, 50, 1000, 30_000);
+    groupCommitService.start();
+    OrderItem soldOut = orderItem(1);
+    OrderItem available = orderItem(2);
+    when(orderItemService.createOrderItems(anyList()))
+        .thenThrow(new InsufficientStockException("Sold out"));
+    when(orderItemService.createOrderItem(soldOut))
+        .thenThrow(new InsufficientStockException("Sold out"));
+    when(orderItemService.createOrderItem(available)).thenReturn(available);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    // Act
+    try {
+      Future<OrderItem> first = executor.submit(() -> groupCommitService.createOrderItem(soldOut));
+      Future<OrderItem> second =
+          executor.submit(() -> groupCommitService.createOrderItem(available));
+
+      // Assert
+      Exception failure = assertThrows(Exception.class, () -> first.get(10, TimeUnit.SECONDS));
+      assertTrue(failure.getCause() instanceof InsufficientStockException);
+      assertSame(available, second.get(10, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void shouldRejectInvalidItemBeforeQueueing() {
+    // Arrange
+    groupCommitService =
+        new OrderItemGroupCommitService(orderItemService, true, 100, 50, 1000, 30_000);
+    groupCommitService.start();
+
+    // Act & Assert
+    assertThrows(
+        InvalidRequestException.class,
+        () -> groupCommitService.createOrderItem(OrderItem.builder().orderId(1).build()));
+    verifyNoInteractions(orderItemService);
+  }
+
+  @Test
+  void shouldInsertDirectlyWhenQueuedItemTimesOut() throws Exception {
+    // Arrange
+    groupCommitService = new OrderItemGroupCommitService(orderItemService, true, 1, 0, 10, 200);
+    groupCommitService.start();
+    CountDownLatch writing = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    when(orderItemService.createOrderItems(anyList()))
+        .thenAnswer(
+            call -> {
+              writing.countDown();
+              release.await();
+              return assignIds(call);
+            });
+    OrderItem queued = orderItem(2);
+    when(orderItemService.createOrderItem(queued)).thenReturn(queued);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    // Act
+    try {
+      Future<OrderItem> stuck =
+          executor.submit(() -> groupCommitService.createOrderItem(orderItem(1)));
+      assertTrue(writing.await(10, TimeUnit.SECONDS));
+      OrderItem created = groupCommitService.createOrderItem(queued);
+
+      // Assert
+      assertSame(queued, created);
+      ExecutionException e =
+          assertThrows(ExecutionException.class, () -> stuck.get(10, TimeUnit.SECONDS));
+      assertInstanceOf(TransientDataAccessResourceException.class, e.getCause());
+    } finally {
+      release.countDown();
+      executor.shutdownNow();
+    }
+  }
+
+  private List<OrderItem> assignIds(InvocationOnMock call) {
+    List<OrderItem> orderItems = call.getArgument(0);
+    orderItems.forEach(orderItem -> orderItem.setId(ids.incrementAndGet()));
+    return orderItems;
+  }
+
+  private static OrderItem orderItem(int quantity) {
+    return OrderItem.builder()
+        .orderId(1)
+        .productId(1)
+        .quantity(quantity)
+        .unitPrice(BigDecimal.ONE)
+        .build();
+  }
+}
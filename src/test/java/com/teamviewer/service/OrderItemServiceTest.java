@@ -1,19 +1,34 @@
 package com.teamviewer.service;
 
+import com.teamviewer.dto.BulkDeleteReport;
 import com.teamviewer.entity.OrderItem;
+import com.teamviewer.entity.OutboxEvent;
+import com.teamviewer.exception.InsufficientStockException;
+import com.teamviewer.exception.InvalidRequestException;
 import com.teamviewer.exception.ResourceNotFoundException;
 import com.teamviewer.repository.OrderItemRepository;
+import com.teamviewer.repository.OrderRepository;
+import com.teamviewer.repository.projection.OrderItemLineView;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
+import org.mockito.InOrder;
 import org.mockito.Mockito;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 
 import java.math.BigDecimal;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalMatchers.aryEq;
 import static org.mockito.Mockito.*;
 
 @TestInstance(value = TestInstance.Lifecycle.PER_CLASS)
@@ -21,17 +36,45 @@ class OrderItemServiceTest {
 
   private OrderItemRepository orderItemRepository;
 
+  private OrderRepository orderRepository;
+
+  private InventoryService inventoryService;
+
+  private ProductSalesService productSalesService;
+
+  private OutboxService outboxService;
+
   private OrderItemService orderItemService;
 
   @BeforeAll
   void setUp() {
     orderItemRepository = Mockito.mock(OrderItemRepository.class);
-    orderItemService = new OrderItemService(orderItemRepository);
+    orderRepository = Mockito.mock(OrderRepository.class);
+    inventoryService = Mockito.mock(InventoryService.class);
+    productSalesService = Mockito.mock(ProductSalesService.class);
+    outboxService = Mockito.mock(OutboxService.class);
+    orderItemService =
+        new OrderItemService(
+            orderItemRepository,
+            orderRepository,
+            inventoryService,
+            productSalesService,
+            outboxService);
+  }
+
+  @BeforeEach
+  void beforeEach() {
+    when(orderRepository.addToTotal(anyLong(), any())).thenReturn(1);
   }
 
   @AfterEach
   void afterEach() {
-    reset(orderItemRepository);
+    reset(
+        orderItemRepository,
+        orderRepository,
+        inventoryService,
+        productSalesService,
+        outboxService);
   }
 
   @Test
@@ -50,7 +93,124 @@ class OrderItemServiceTest {
     orderItemService.createOrderItem(orderItem);
 
     // Assert
+    verify(inventoryService).reserve(123L, 123);
     verify(orderItemRepository).save(orderItem);
+    verify(orderRepository).addToTotal(123L, new BigDecimal("1230"));
+    verify(productSalesService).itemsAdded(List.of(orderItem));
+  }
+
+  @Test
+  public void shouldFailWhenParentOrderIsMissing() {
+    // Arrange
+    OrderItem orderItem =
+        OrderItem.builder().orderId(9).productId(7).quantity(1).unitPrice(BigDecimal.TEN).build();
+    when(orderRepository.addToTotal(9L, BigDecimal.TEN)).thenReturn(0);
+
+    // Assert
+    assertThrows(
+        ResourceNotFoundException.class, () -> orderItemService.createOrderItem(orderItem));
+  }
+
+  @Test
+  public void shouldNotSaveOrderItemWhenStockIsInsufficient() {
+    // Arrange
+    OrderItem orderItem =
+        OrderItem.builder()
+            .orderId(123)
+            .productId(7)
+            .quantity(5)
+            .unitPrice(BigDecimal.TEN)
+            .build();
+    doThrow(new InsufficientStockException("Insufficient stock"))
+        .when(inventoryService)
+        .reserve(7L, 5);
+
+    // Assert
+    assertThrows(
+        InsufficientStockException.class, () -> orderItemService.createOrderItem(orderItem));
+    verify(orderItemRepository, never()).save(any());
+    verifyNoInteractions(orderRepository);
+  }
+
+  @Test
+  public void shouldRejectOrderItemWithoutQuantity() {
+    // Arrange
+    OrderItem orderItem = OrderItem.builder().orderId(123).productId(7).build();
+
+    // Assert
+    assertThrows(
+        InvalidRequestException.class, () -> orderItemService.createOrderItem(orderItem));
+    verifyNoInteractions(inventoryService, orderItemRepository);
+  }
+
+  @Test
+  public void shouldSaveOrderItemsInOneBatch() {
+    // Arrange
+    List<OrderItem> orderItems =
+        List.of(
+            OrderItem.builder()
+                .id(9L)
+                .orderId(123)
+                .productId(123)
+                .quantity(1)
+                .unitPrice(BigDecimal.TEN)
+                .build(),
+            OrderItem.builder()
+                .orderId(123)
+                .productId(124)
+                .quantity(2)
+                .unitPrice(BigDecimal.ONE)
+                .build());
+    when(orderItemRepository.saveAll(orderItems)).thenReturn(orderItems);
+
+    // Act
+    List<OrderItem> savedOrderItems = orderItemService.createOrderItems(orderItems);
+
+    // Assert
+    verify(inventoryService).reserve(123L, 1);
+    verify(inventoryService).reserve(124L, 2);
+    verify(orderItemRepository).saveAll(orderItems);
+    verify(orderRepository).addToTotal(123L, new BigDecimal("12"));
+    assertEquals(orderItems, savedOrderItems);
+    assertNull(orderItems.get(0).getId());
+  }
+
+  @Test
+  public void shouldReserveStockOncePerProductInBatch() {
+    // Arrange
+    List<OrderItem> orderItems =
+        List.of(
+            OrderItem.builder()
+                .orderId(1)
+                .productId(7)
+                .quantity(2)
+                .unitPrice(BigDecimal.ONE)
+                .build(),
+            OrderItem.builder()
+                .orderId(2)
+                .productId(7)
+                .quantity(3)
+                .unitPrice(BigDecimal.ONE)
+                .build());
+    when(orderItemRepository.saveAll(orderItems)).thenReturn(orderItems);
+
+    // Act
+    orderItemService.createOrderItems(orderItems);
+
+    // Assert
+    verify(inventoryService).reserve(7L, 5);
+    verifyNoMoreInteractions(inventoryService);
+  }
+
+  @Test
+  public void shouldRejectOversizedOrderItemBatch() {
+    // Arrange
+    List<OrderItem> orderItems = Collections.nCopies(10001, new OrderItem());
+
+    // Assert
+    assertThrows(
+        InvalidRequestException.class, () -> orderItemService.createOrderItems(orderItems));
+    verifyNoInteractions(orderItemRepository);
   }
 
   @Test
@@ -114,14 +274,15 @@ class OrderItemServiceTest {
     // Set updated data
 
     when(orderItemRepository.findById(id)).thenReturn(Optional.of(existingOrderItem));
-    when(orderItemRepository.save(updatedOrderItem)).thenReturn(updatedOrderItem);
+    when(orderItemRepository.saveAndFlush(updatedOrderItem)).thenReturn(updatedOrderItem);
 
     // Act
     OrderItem actualOrderItem = orderItemService.updateOrderItem(updatedOrderItem);
 
     // Assert
     verify(orderItemRepository).findById(id);
-    verify(orderItemRepository).save(updatedOrderItem);
+    verify(orderItemRepository).saveAndFlush(updatedOrderItem);
+    verify(orderRepository).addToTotal(123L, new BigDecimal("-1085"));
     assertEquals(updatedOrderItem, actualOrderItem);
   }
 
@@ -135,6 +296,46 @@ class OrderItemServiceTest {
 
     // Assert
     verify(orderItemRepository).deleteById(id);
+    verifyNoInteractions(orderRepository);
+  }
+
+  @Test
+  public void shouldSubtractTotalsBeforeDeletingOrderItemsInBulk() {
+    // Arrange
+    Long[] ids = {4L, 5L};
+    when(orderItemRepository.deleteAllByIds(aryEq(ids))).thenReturn(2);
+
+    // Act
+    BulkDeleteReport report = orderItemService.deleteOrderItems(List.of(4L, 5L));
+
+    // Assert
+    assertEquals(2, report.getDeleted());
+    InOrder inOrder = inOrder(orderRepository, orderItemRepository);
+    inOrder.verify(orderRepository).subtractItemTotals(aryEq(ids));
+    inOrder.verify(orderItemRepository).deleteAllByIds(aryEq(ids));
+  }
+
+  @Test
+  public void shouldSubtractDeletedOrderItemFromOrderTotal() {
+    // Arrange
+    Long id = 1L;
+    OrderItem existingOrderItem =
+        OrderItem.builder()
+            .id(id)
+            .orderId(123)
+            .productId(7)
+            .quantity(3)
+            .unitPrice(BigDecimal.TEN)
+            .build();
+    when(orderItemRepository.findById(id)).thenReturn(Optional.of(existingOrderItem));
+
+    // Act
+    orderItemService.deleteOrderItem(id);
+
+    // Assert
+    verify(orderItemRepository).deleteById(id);
+    verify(orderRepository).addToTotal(123L, new BigDecimal("-30"));
+    verify(productSalesService).itemRemoved(existingOrderItem);
   }
 
   @Test
@@ -147,6 +348,17 @@ class OrderItemServiceTest {
     assertEquals(expectedOrderItems, actualOrderItems);
   }
 
+  @Test
+  void findOrderItems() {
+    Slice<OrderItem> expectedSlice = new SliceImpl<>(List.of(new OrderItem()));
+    when(orderItemRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.ofSize(50)))
+        .thenReturn(expectedSlice);
+
+    Slice<OrderItem> actualSlice = orderItemService.findOrderItems(0L, 50);
+
+    assertEquals(expectedSlice, actualSlice);
+  }
+
   @Test
   void findOrderItemById_found() {
     Long id = 1L;
@@ -168,7 +380,8 @@ class OrderItemServiceTest {
 
   @Test
   void createOrderItem() {
-    OrderItem orderItem = new OrderItem();
+    OrderItem orderItem =
+        OrderItem.builder().orderId(1).productId(2).quantity(3).unitPrice(BigDecimal.ONE).build();
     when(orderItemRepository.save(orderItem)).thenReturn(orderItem);
 
     OrderItem savedOrderItem = orderItemService.createOrderItem(orderItem);
@@ -182,7 +395,7 @@ class OrderItemServiceTest {
     OrderItem updatedOrderItem = new OrderItem();
     updatedOrderItem.setId(id);
     when(orderItemRepository.findById(id)).thenReturn(Optional.of(updatedOrderItem));
-    when(orderItemRepository.save(updatedOrderItem)).thenReturn(updatedOrderItem);
+    when(orderItemRepository.saveAndFlush(updatedOrderItem)).thenReturn(updatedOrderItem);
 
     OrderItem savedOrderItem = orderItemService.updateOrderItem(updatedOrderItem);
 
@@ -196,4 +409,71 @@ class OrderItemServiceTest {
 
     verify(orderItemRepository, times(1)).deleteById(id);
   }
+
+  @Test
+  public void shouldPatchQuantityAndMoveOrderTotal() {
+    // Arrange
+    OrderItemLineView line =
+        new SpelAwareProxyProjectionFactory()
+            .createProjection(
+                OrderItemLineView.class,
+                Map.of("orderId", 4, "quantity", 2, "unitPrice", BigDecimal.TEN, "version", 1L));
+    when(orderItemRepository.findLineById(9L)).thenReturn(Optional.of(line));
+    when(orderItemRepository.updatePartially(OrderItem.class, 9L, 1L, Map.of("quantity", 5)))
+        .thenReturn(1);
+
+    // Act
+    Long version =
+        orderItemService.patchOrderItem(9L, OrderItem.builder().quantity(5).build(), null);
+
+    // Assert
+    assertEquals(2L, version);
+    verify(orderRepository).addToTotal(4L, new BigDecimal("30"));
+    verify(outboxService)
+        .recordPatch(OutboxEvent.Aggregate.ORDER_ITEM, 9L, Map.of("quantity", 5), 2L);
+    verify(orderItemRepository, never()).findById(any());
+  }
+
+  @Test
+  public void shouldPatchProductIdAndMoveSalesToIt() {
+    // Arrange
+    OrderItemLineView line =
+        new SpelAwareProxyProjectionFactory()
+            .createProjection(
+                OrderItemLineView.class,
+                Map.of(
+                    "orderId", 4,
+                    "productId", 7,
+                    "quantity", 2,
+                    "unitPrice", BigDecimal.TEN,
+                    "version", 1L));
+    when(orderItemRepository.findLineById(9L)).thenReturn(Optional.of(line));
+    when(orderItemRepository.updatePartially(OrderItem.class, 9L, 1L, Map.of("productId", 8)))
+        .thenReturn(1);
+
+    // Act
+    Long version =
+        orderItemService.patchOrderItem(9L, OrderItem.builder().productId(8).build(), null);
+
+    // Assert
+    assertEquals(2L, version);
+    verify(productSalesService).itemChanged(7, 2, BigDecimal.TEN, 8, 2, BigDecimal.TEN);
+    verifyNoInteractions(orderRepository);
+  }
+
+  @Test
+  public void shouldTakeSalesOffProductsBeforeDeletingOrderItemsInBulk() {
+    // Arrange
+    Long[] ids = {4L, 5L};
+    when(orderItemRepository.sumSalesByIds(aryEq(ids))).thenReturn(Collections.emptyList());
+
+    // Act
+    orderItemService.deleteOrderItems(List.of(4L, 5L));
+
+    // Assert
+    InOrder inOrder = inOrder(productSalesService, orderItemRepository);
+    inOrder.verify(orderItemRepository).sumSalesByIds(aryEq(ids));
+    inOrder.verify(productSalesService).salesRemoved(Collections.emptyList());
+    inOrder.verify(orderItemRepository).deleteAllByIds(aryEq(ids));
+  }
 }
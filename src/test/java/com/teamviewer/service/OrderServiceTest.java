@@ -1,53 +1,174 @@
 package com.teamviewer.service;
 
+import com.teamviewer.dto.BulkDeleteReport;
+import com.teamviewer.dto.OrderCreateRequest;
+import com.teamviewer.dto.OrderLineRequest;
+import com.teamviewer.dto.OrderWithItemsDto;
 import com.teamviewer.entity.Order;
+import com.teamviewer.entity.OrderItem;
+import com.teamviewer.entity.OutboxEvent;
+import com.teamviewer.entity.Product;
+import com.teamviewer.exception.InvalidRequestException;
 import com.teamviewer.exception.ResourceNotFoundException;
+import com.teamviewer.repository.OrderItemRepository;
 import com.teamviewer.repository.OrderRepository;
+import com.teamviewer.repository.ProductRepository;
+import com.teamviewer.repository.projection.OrderItemView;
+import com.teamviewer.repository.projection.VersionView;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.LongStream;
 
+import static com.teamviewer.util.Constants.DELETE_CHUNK_SIZE;
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.reset;
-import static org.mockito.Mockito.verify;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.Mockito.*;
 
 @TestInstance(value = TestInstance.Lifecycle.PER_CLASS)
 class OrderServiceTest {
 
   private OrderRepository orderRepository;
 
+  private OrderItemRepository orderItemRepository;
+
+  private ProductRepository productRepository;
+
+  private InventoryService inventoryService;
+
+  private ProductSalesService productSalesService;
+
+  private OutboxService outboxService;
+
   @Mock private OrderService orderService;
 
   @BeforeAll
   void setUp() {
     orderRepository = Mockito.mock(OrderRepository.class);
-    orderService = new OrderService(orderRepository);
+    orderItemRepository = Mockito.mock(OrderItemRepository.class);
+    productRepository = Mockito.mock(ProductRepository.class);
+    inventoryService = Mockito.mock(InventoryService.class);
+    productSalesService = Mockito.mock(ProductSalesService.class);
+    outboxService = Mockito.mock(OutboxService.class);
+    orderService =
+        new OrderService(
+            orderRepository,
+            orderItemRepository,
+            productRepository,
+            inventoryService,
+            productSalesService,
+            outboxService);
   }
 
   @AfterEach
   void afterEach() {
-    reset(orderRepository);
+    reset(
+        orderRepository,
+        orderItemRepository,
+        productRepository,
+        inventoryService,
+        productSalesService,
+        outboxService);
   }
 
   @Test
   public void shouldSaveOrder() {
     // Arrange
     Order order = Order.builder().totalamount(BigDecimal.TEN).id(1l).build();
-    // Set order data
+    when(orderRepository.save(order)).thenReturn(order);
 
     // Act
     orderService.createOrder(order);
 
     // Assert
     verify(orderRepository).save(order);
+    assertEquals(BigDecimal.ZERO, order.getTotalamount());
+    verify(outboxService)
+        .record(OutboxEvent.Aggregate.ORDER, 1L, OutboxEvent.ChangeType.CREATED, order);
+  }
+
+  @Test
+  public void shouldCreateOrderWithItemsAndServerSideTotal() {
+    // Arrange
+    OrderCreateRequest request =
+        OrderCreateRequest.builder()
+            .items(
+                List.of(
+                    OrderLineRequest.builder().productId(2).quantity(3).build(),
+                    OrderLineRequest.builder().productId(1).quantity(1).build(),
+                    OrderLineRequest.builder().productId(2).quantity(1).build()))
+            .build();
+    Mockito.when(productRepository.findAllById(any()))
+        .thenReturn(
+            List.of(
+                Product.builder().id(1L).price(new BigDecimal("5.50")).build(),
+                Product.builder().id(2L).price(BigDecimal.TEN).build()));
+    Mockito.when(orderRepository.save(any(Order.class)))
+        .thenAnswer(
+            invocation -> {
+              Order order = invocation.getArgument(0);
+              order.setId(7L);
+              return order;
+            });
+    Mockito.when(orderItemRepository.saveAll(anyList()))
+        .thenAnswer(invocation -> invocation.getArgument(0));
+
+    // Act
+    OrderWithItemsDto created = orderService.createOrderWithItems(request);
+
+    // Assert
+    assertEquals(7L, created.getId());
+    assertEquals(new BigDecimal("45.50"), created.getTotalamount());
+    assertEquals(3, created.getItems().size());
+    for (OrderItem item : created.getItems()) {
+      assertEquals(7, item.getOrderId());
+    }
+    assertEquals(new BigDecimal("5.50"), created.getItems().get(1).getUnitPrice());
+    InOrder reservations = inOrder(inventoryService);
+    reservations.verify(inventoryService).reserve(1L, 1);
+    reservations.verify(inventoryService).reserve(2L, 4);
+    verify(productRepository, times(1)).findAllById(any());
+  }
+
+  @Test
+  public void shouldRejectOrderWithUnknownProduct() {
+    // Arrange
+    OrderCreateRequest request =
+        OrderCreateRequest.builder()
+            .items(List.of(OrderLineRequest.builder().productId(9).quantity(1).build()))
+            .build();
+    Mockito.when(productRepository.findAllById(any())).thenReturn(List.of());
+
+    // Assert
+    assertThrows(
+        ResourceNotFoundException.class, () -> orderService.createOrderWithItems(request));
+    verifyNoInteractions(orderRepository, orderItemRepository, inventoryService);
+  }
+
+  @Test
+  public void shouldRejectOrderWithoutItems() {
+    assertThrows(
+        InvalidRequestException.class,
+        () -> orderService.createOrderWithItems(new OrderCreateRequest(List.of())));
+    assertThrows(
+        InvalidRequestException.class,
+        () ->
+            orderService.createOrderWithItems(
+                new OrderCreateRequest(List.of(new OrderLineRequest(1, 0)))));
   }
 
   @Test
@@ -67,6 +188,44 @@ class OrderServiceTest {
     assertEquals(expectedOrder, actualOrder);
   }
 
+  @Test
+  public void shouldFindOrderItemsWithoutLoadingOrder() {
+    // Arrange
+    OrderItemView item =
+        new SpelAwareProxyProjectionFactory()
+            .createProjection(
+                OrderItemView.class,
+                Map.of("id", 5L, "productId", 7, "quantity", 2, "unitPrice", BigDecimal.TEN));
+    when(orderItemRepository.findByOrderIdOrderByIdAsc(1)).thenReturn(List.of(item));
+
+    // Act
+    List<OrderItemView> items = orderService.findOrderItems(1L);
+
+    // Assert
+    assertEquals(List.of(item), items);
+    verifyNoInteractions(orderRepository);
+  }
+
+  @Test
+  public void shouldReturnNoItemsForEmptyOrder() {
+    // Arrange
+    when(orderItemRepository.findByOrderIdOrderByIdAsc(1)).thenReturn(List.of());
+    when(orderRepository.existsById(1L)).thenReturn(true);
+
+    // Assert
+    assertTrue(orderService.findOrderItems(1L).isEmpty());
+  }
+
+  @Test
+  public void shouldThrowExceptionWhenOrderOfItemsNotFound() {
+    // Arrange
+    when(orderItemRepository.findByOrderIdOrderByIdAsc(1)).thenReturn(List.of());
+    when(orderRepository.existsById(1L)).thenReturn(false);
+
+    // Assert
+    assertThrows(ResourceNotFoundException.class, () -> orderService.findOrderItems(1L));
+  }
+
   @Test
   public void shouldThrowExceptionWhenOrderNotFound() {
     // Arrange
@@ -81,31 +240,39 @@ class OrderServiceTest {
   }
 
   @Test
-  public void shouldUpdateOrder() {
+  public void shouldIgnoreTotalOnUpdate() {
     // Arrange
     Long id = 1L;
     Order existingOrder = Order.builder().totalamount(BigDecimal.TEN).id(id).build();
-    existingOrder.setId(id);
-    // Set other existingOrder data
-
     Order updatedOrder = Order.builder().totalamount(BigDecimal.ONE).id(id).build();
-    updatedOrder.setId(id);
-    // Set updated data
-
     Mockito.when(orderRepository.findById(id)).thenReturn(Optional.of(existingOrder));
-    Mockito.when(orderRepository.save(updatedOrder)).thenReturn(updatedOrder);
 
     // Act
     Order actualOrder = orderService.updateOrder(updatedOrder);
 
     // Assert
-    //    verify(orderItemRepository).findById(id);
-    verify(orderRepository).save(updatedOrder);
-    assertEquals(updatedOrder, actualOrder);
+    assertEquals(BigDecimal.TEN, actualOrder.getTotalamount());
+    verify(orderRepository, Mockito.never()).saveAndFlush(any());
+    Mockito.verifyNoInteractions(outboxService);
+  }
+
+  @Test
+  public void shouldRefuseToPatchTotal() {
+    // Act
+    InvalidRequestException exception =
+        assertThrows(
+            InvalidRequestException.class,
+            () ->
+                orderService.patchOrder(
+                    1L, Order.builder().totalamount(BigDecimal.ONE).build(), null));
+
+    // Assert
+    assertTrue(exception.getMessage().contains("cannot be set"));
+    Mockito.verifyNoInteractions(orderRepository, outboxService);
   }
 
   @Test
-  public void shouldDeleteOrder() {
+  public void shouldDeleteOrderWithItsItems() {
     // Arrange
     Long id = 1L;
 
@@ -113,7 +280,58 @@ class OrderServiceTest {
     orderService.deleteOrder(id);
 
     // Assert
-    verify(orderRepository).deleteById(id);
+    InOrder inOrder = inOrder(orderItemRepository, orderRepository);
+    inOrder.verify(orderItemRepository).lockByOrderIds(aryEq(new Long[] {id}));
+    inOrder.verify(orderRepository).findVersionsForUpdate(aryEq(new Long[] {id}));
+    inOrder.verify(orderItemRepository).sumSalesByOrderIds(aryEq(new Long[] {id}));
+    inOrder.verify(orderItemRepository).deleteAllByOrderIds(aryEq(new Long[] {id}));
+    inOrder.verify(orderRepository).deleteAllByIds(aryEq(new Long[] {id}));
+  }
+
+  @Test
+  public void shouldDeleteOrdersAndTheirItemsInBulk() {
+    // Arrange
+    Long[] ids = {1L, 2L, 3L};
+    when(orderItemRepository.deleteAllByOrderIds(aryEq(ids))).thenReturn(7);
+    when(orderRepository.deleteAllByIds(aryEq(ids))).thenReturn(2);
+    List<VersionView> existing = List.of(version(1L, 4L), version(3L, 0L));
+    when(orderRepository.findVersionsForUpdate(aryEq(ids))).thenReturn(existing);
+
+    // Act
+    BulkDeleteReport report = orderService.deleteOrders(List.of(1L, 2L, 3L));
+
+    // Assert
+    assertEquals(BulkDeleteReport.builder().deleted(2).deletedItems(7).build(), report);
+    verify(orderRepository, never()).deleteById(any());
+    verify(outboxService)
+        .recordDeleted(eq(OutboxEvent.Aggregate.ORDER), eq(existing), any(), any());
+  }
+
+  private static VersionView version(Long id, Long version) {
+    return new SpelAwareProxyProjectionFactory()
+        .createProjection(VersionView.class, Map.of("id", id, "version", version));
+  }
+
+  @Test
+  public void shouldDeleteLargeBulkInChunks() {
+    // Arrange
+    List<Long> ids = LongStream.rangeClosed(1, DELETE_CHUNK_SIZE + 1).boxed().toList();
+    when(orderRepository.deleteAllByIds(any())).thenReturn(DELETE_CHUNK_SIZE, 1);
+
+    // Act
+    BulkDeleteReport report = orderService.deleteOrders(ids);
+
+    // Assert
+    assertEquals(DELETE_CHUNK_SIZE + 1, report.getDeleted());
+    verify(orderItemRepository, times(2)).deleteAllByOrderIds(any());
+    verify(orderItemRepository).deleteAllByOrderIds(aryEq(new Long[] {DELETE_CHUNK_SIZE + 1L}));
+  }
+
+  @Test
+  public void shouldRejectEmptyBulkDelete() {
+    // Act & Assert
+    assertThrows(InvalidRequestException.class, () -> orderService.deleteOrders(List.of()));
+    verifyNoInteractions(orderRepository, orderItemRepository);
   }
 
   @Test
@@ -130,4 +348,18 @@ class OrderServiceTest {
     // Assert
     assertEquals(expectedOrders, actualOrders);
   }
+
+  @Test
+  public void shouldCapPageSizeWhenFindingOrders() {
+    // Arrange
+    Slice<Order> expectedSlice = new SliceImpl<>(new ArrayList<>());
+    Mockito.when(orderRepository.findByIdGreaterThanOrderByIdAsc(5L, PageRequest.ofSize(1000)))
+        .thenReturn(expectedSlice);
+
+    // Act
+    Slice<Order> actualSlice = orderService.findOrders(5L, 1_000_000);
+
+    // Assert
+    assertEquals(expectedSlice, actualSlice);
+  }
 }
@@ -0,0 +1,121 @@
+package com.teamviewer.service;
+
+import com.teamviewer.dto.OrderTotalsReport;
+import com.teamviewer.entity.Order;
+import com.teamviewer.entity.OrderItem;
+import com.teamviewer.repository.OrderItemRepository;
+import com.teamviewer.repository.OrderRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Runs the totals rebuild against an embedded database across several batches. */
+@DataJpaTest(
+    properties = {
+      "spring.datasource.url=jdbc:h2:mem:totals",
+      "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+    })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(OrderTotalsService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderTotalsServiceTest {
+
+  @Autowired private OrderTotalsService orderTotalsService;
+
+  @Autowired private OrderRepository orderRepository;
+
+  @Autowired private OrderItemRepository orderItemRepository;
+
+  @AfterEach
+  void afterEach() {
+    orderItemRepository.deleteAll();
+    orderRepository.deleteAll();
+  }
+
+  @Test
+  void shouldCorrectDriftedTotalsAcrossBatches() {
+    // Arrange
+    int orderCount = OrderTotalsService.BATCH_SIZE + 10;
+    List<Order> orders = new ArrayList<>();
+    for (int i = 0; i < orderCount; i++) {
+      // Every third order carries a stale total
+      orders.add(Order.builder().totalamount(new BigDecimal(i % 3 == 0 ? "99" : "25")).build());
+    }
+    orders = orderRepository.saveAll(orders);
+    List<OrderItem> items = new ArrayList<>();
+    for (Order order : orders) {
+      items.add(item(order, 2, "10"));
+      items.add(item(order, 1, "5"));
+    }
+    orderItemRepository.saveAll(items);
+
+    // Act
+    OrderTotalsReport report = orderTotalsService.rebuildTotals();
+
+    // Assert
+    assertEquals(orderCount, report.getChecked());
+    assertEquals((orderCount + 2) / 3, report.getCorrected());
+    orderRepository
+        .findAll()
+        .forEach(order -> assertEquals(0, new BigDecimal("25").compareTo(order.getTotalamount())));
+  }
+
+  @Test
+  void shouldZeroTotalOfOrderWithoutItems() {
+    // Arrange
+    Long id = orderRepository.save(Order.builder().totalamount(BigDecimal.TEN).build()).getId();
+
+    // Act
+    OrderTotalsReport report = orderTotalsService.rebuildTotals();
+
+    // Assert
+    assertEquals(1, report.getCorrected());
+    assertEquals(0, orderRepository.findById(id).orElseThrow().getTotalamount().signum());
+  }
+
+  @Test
+  void shouldRebuildInBackgroundAndPublishStatus() throws InterruptedException {
+    // Arrange
+    orderRepository.save(Order.builder().totalamount(BigDecimal.TEN).build());
+
+    // Act
+    OrderTotalsReport started = orderTotalsService.startRebuild();
+    OrderTotalsReport status = orderTotalsService.getRebuildStatus();
+    for (int i = 0; i < 100 && status.isRunning(); i++) {
+      Thread.sleep(50);
+      status = orderTotalsService.getRebuildStatus();
+    }
+
+    // Assert
+    assertTrue(started.isRunning());
+    assertFalse(status.isRunning());
+    assertEquals(1, status.getChecked());
+    assertEquals(1, status.getCorrected());
+    assertNotNull(status.getFinishedAt());
+    assertNull(status.getFailure());
+  }
+
+  private static OrderItem item(Order order, int quantity, String unitPrice) {
+    return OrderItem.builder()
+        .orderId(order.getId().intValue())
+        .productId(1)
+        .quantity(quantity)
+        .unitPrice(new BigDecimal(unitPrice))
+        .build();
+  }
+}
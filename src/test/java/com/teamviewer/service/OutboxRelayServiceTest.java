@@ -0,0 +1,101 @@
+package com.teamviewer.service;
+
+import com.teamviewer.entity.OutboxEvent;
+import com.teamviewer.outbox.OutboxSink;
+import com.teamviewer.repository.OutboxEventRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class OutboxRelayServiceTest {
+
+  private final OutboxEventRepository outboxEventRepository =
+      Mockito.mock(OutboxEventRepository.class);
+
+  private final OutboxSink outboxSink = Mockito.mock(OutboxSink.class);
+
+  @Test
+  void shouldPublishAndDeleteBatchesUntilOutboxIsEmpty() {
+    // Arrange
+    OutboxRelayService relayService = relayService(true, 2);
+    List<OutboxEvent> first = events(1, 2);
+    List<OutboxEvent> second = events(3);
+    when(outboxEventRepository.findOldestForUpdate(PageRequest.ofSize(2)))
+        .thenReturn(first, second);
+
+    // Act
+    int published = relayService.relay();
+
+    // Assert
+    assertEquals(3, published);
+    var inOrder = inOrder(outboxSink, outboxEventRepository);
+    inOrder.verify(outboxSink).publish(first);
+    inOrder.verify(outboxEventRepository).deleteAllByIds(aryEq(new Long[] {1L, 2L}));
+    inOrder.verify(outboxSink).publish(second);
+    inOrder.verify(outboxEventRepository).deleteAllByIds(aryEq(new Long[] {3L}));
+  }
+
+  @Test
+  void shouldKeepEventsWhenSinkFails() {
+    // Arrange
+    OutboxRelayService relayService = relayService(true, 2);
+    List<OutboxEvent> batch = events(1);
+    when(outboxEventRepository.findOldestForUpdate(any())).thenReturn(batch);
+    doThrow(new IllegalStateException("sink down")).when(outboxSink).publish(batch);
+
+    // Act & Assert
+    assertThrows(IllegalStateException.class, relayService::relay);
+    verify(outboxEventRepository, never()).deleteAllByIds(any());
+  }
+
+  @Test
+  void shouldNotRelayWhenDisabled() {
+    // Arrange
+    OutboxRelayService relayService = relayService(false, 2);
+
+    // Act
+    relayService.relayScheduled();
+
+    // Assert
+    verifyNoInteractions(outboxEventRepository, outboxSink);
+  }
+
+  private OutboxRelayService relayService(boolean enabled, int batchSize) {
+    return new OutboxRelayService(
+        outboxEventRepository,
+        outboxSink,
+        Mockito.mock(PlatformTransactionManager.class),
+        enabled,
+        batchSize);
+  }
+
+  private static List<OutboxEvent> events(long... ids) {
+    return LongStream.of(ids)
+        .mapToObj(
+            id ->
+                OutboxEvent.builder()
+                    .id(id)
+                    .aggregate(OutboxEvent.Aggregate.PRODUCT)
+                    .aggregateId(id)
+                    .changeType(OutboxEvent.ChangeType.DELETED)
+                    .createdAt(Instant.EPOCH)
+                    .build())
+        .toList();
+  }
+}
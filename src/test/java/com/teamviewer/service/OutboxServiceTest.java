@@ -0,0 +1,61 @@
+package com.teamviewer.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.teamviewer.entity.OutboxEvent;
+import com.teamviewer.entity.Product;
+import com.teamviewer.repository.OutboxEventRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.verify;
+
+class OutboxServiceTest {
+
+  private final OutboxEventRepository outboxEventRepository =
+      Mockito.mock(OutboxEventRepository.class);
+
+  private final OutboxService outboxService =
+      new OutboxService(outboxEventRepository, new ObjectMapper());
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void shouldWriteLastVersionIntoDeletedEvents() {
+    // Arrange
+    List<Product> products =
+        List.of(
+            Product.builder().id(4L).version(2L).build(),
+            Product.builder().id(9L).version(0L).build());
+    ArgumentCaptor<List<OutboxEvent>> events = ArgumentCaptor.forClass(List.class);
+
+    // Act
+    outboxService.recordDeleted(
+        OutboxEvent.Aggregate.PRODUCT, products, Product::getId, Product::getVersion);
+
+    // Assert
+    verify(outboxEventRepository).saveAll(events.capture());
+    assertEquals(
+        List.of("4 DELETED {\"version\":2}", "9 DELETED {\"version\":0}"),
+        events.getValue().stream()
+            .map(e -> e.getAggregateId() + " " + e.getChangeType() + " " + e.getPayload())
+            .toList());
+  }
+
+  @Test
+  void shouldWriteNewVersionIntoPatchEvents() {
+    // Arrange
+    ArgumentCaptor<OutboxEvent> event = ArgumentCaptor.forClass(OutboxEvent.class);
+
+    // Act
+    outboxService.recordPatch(OutboxEvent.Aggregate.ORDER, 3L, Map.of("totalamount", 5), 8L);
+
+    // Assert
+    verify(outboxEventRepository).save(event.capture());
+    assertEquals(OutboxEvent.ChangeType.UPDATED, event.getValue().getChangeType());
+    assertEquals("{\"totalamount\":5,\"version\":8}", event.getValue().getPayload());
+  }
+}
@@ -0,0 +1,196 @@
+package com.teamviewer.service;
+
+import com.teamviewer.analytics.ProductSalesCounters;
+import com.teamviewer.entity.OrderItem;
+import com.teamviewer.entity.ProductSales;
+import com.teamviewer.repository.ProductSalesRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductSalesServiceTest {
+
+  private ProductSalesRepository productSalesRepository;
+
+  private HotInventoryService hotInventoryService;
+
+  private ProductSalesService productSalesService;
+
+  @BeforeEach
+  void setUp() {
+    productSalesRepository = Mockito.mock(ProductSalesRepository.class);
+    hotInventoryService = Mockito.mock(HotInventoryService.class);
+    productSalesService =
+        new ProductSalesService(
+            productSalesRepository,
+            hotInventoryService,
+            Mockito.mock(PlatformTransactionManager.class));
+  }
+
+  @AfterEach
+  void afterEach() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  void shouldApplySalesToCountersOnlyOnceCommitted() {
+    // Arrange
+    TransactionSynchronizationManager.initSynchronization();
+
+    // Act
+    productSalesService.itemsAdded(List.of(item(7, 2, "1.50"), item(7, 1, "1.50")));
+    ProductSalesCounters.Sales beforeCommit = productSalesService.getSales(7);
+    complete(TransactionSynchronization.STATUS_COMMITTED);
+
+    // Assert
+    assertEquals(new ProductSalesCounters.Sales(7, 0, 0, 0), beforeCommit);
+    assertEquals(new ProductSalesCounters.Sales(7, 3, 450, 2), productSalesService.getSales(7));
+    verify(productSalesRepository).upsertSales(7L, 3, new BigDecimal("4.50"), 2);
+  }
+
+  @Test
+  void shouldDropSalesOfRolledBackTransaction() {
+    // Arrange
+    TransactionSynchronizationManager.initSynchronization();
+
+    // Act
+    productSalesService.itemRemoved(item(7, 2, "1.50"));
+    complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+    // Assert
+    assertEquals(new ProductSalesCounters.Sales(7, 0, 0, 0), productSalesService.getSales(7));
+    verify(productSalesRepository).upsertSales(7L, -2, new BigDecimal("-3.00"), -1);
+  }
+
+  @Test
+  void shouldMoveSalesOfChangedItemInProductOrder() {
+    // Act
+    productSalesService.itemChanged(9, 2, BigDecimal.ONE, 4, 3, BigDecimal.ONE);
+
+    // Assert
+    assertEquals(new ProductSalesCounters.Sales(4, 3, 300, 1), productSalesService.getSales(4));
+    assertEquals(new ProductSalesCounters.Sales(9, -2, -200, -1), productSalesService.getSales(9));
+    var inOrder = inOrder(productSalesRepository);
+    inOrder.verify(productSalesRepository).upsertSales(4L, 3, new BigDecimal("3.00"), 1);
+    inOrder.verify(productSalesRepository).upsertSales(9L, -2, new BigDecimal("-2.00"), -1);
+  }
+
+  @Test
+  void shouldSkipChangeThatLeavesSalesAsTheyWere() {
+    // Act
+    productSalesService.itemChanged(9, 2, BigDecimal.ONE, 9, 2, new BigDecimal("1.00"));
+
+    // Assert
+    Mockito.verifyNoInteractions(productSalesRepository);
+  }
+
+  @Test
+  void shouldRebuildTableAndReloadCounters() {
+    // Arrange
+    when(productSalesRepository.insertFromOrderItems()).thenReturn(1);
+    when(productSalesRepository.count()).thenReturn(1L);
+    when(productSalesRepository.streamAll())
+        .thenReturn(
+            Stream.of(
+                ProductSales.builder()
+                    .productId(5L)
+                    .quantity(6)
+                    .revenue(new BigDecimal("12.34"))
+                    .orderLines(2)
+                    .build()));
+
+    // Act
+    int products = productSalesService.rebuild();
+
+    // Assert
+    assertEquals(1, products);
+    assertEquals(new ProductSalesCounters.Sales(5, 6, 1234, 2), productSalesService.getSales(5));
+    var inOrder = inOrder(productSalesRepository);
+    inOrder.verify(productSalesRepository).deleteAllSales();
+    inOrder.verify(productSalesRepository).insertFromOrderItems();
+  }
+
+  @Test
+  void shouldBufferSalesOfHotProductUntilFlushed() {
+    // Arrange
+    when(hotInventoryService.isHot(7L)).thenReturn(true);
+    TransactionSynchronizationManager.initSynchronization();
+
+    // Act
+    productSalesService.itemsAdded(List.of(item(7, 2, "1.50"), item(8, 1, "1.00")));
+    complete(TransactionSynchronization.STATUS_COMMITTED);
+    productSalesService.itemsAdded(List.of(item(7, 1, "1.50")));
+    Mockito.verify(productSalesRepository, Mockito.never())
+        .upsertSales(Mockito.eq(7L), anyLong(), any(), anyLong());
+    productSalesService.flush();
+    productSalesService.flush();
+
+    // Assert
+    assertEquals(new ProductSalesCounters.Sales(7, 3, 450, 2), productSalesService.getSales(7));
+    verify(productSalesRepository).upsertSales(8L, 1, new BigDecimal("1.00"), 1);
+    verify(productSalesRepository).upsertSales(7L, 3, new BigDecimal("4.50"), 2);
+  }
+
+  @Test
+  void shouldReplaySalesCommittedWhileReloading() {
+    // Arrange
+    when(productSalesRepository.count()).thenReturn(1L);
+    when(productSalesRepository.streamAll())
+        .thenAnswer(
+            invocation -> {
+              // Committed by another thread while the table is read, and not in what is read
+              productSalesService.itemsAdded(List.of(item(5, 1, "2.00")));
+              return Stream.of(
+                  ProductSales.builder()
+                      .productId(5L)
+                      .quantity(6)
+                      .revenue(new BigDecimal("12.34"))
+                      .orderLines(2)
+                      .build());
+            });
+
+    // Act
+    productSalesService.reload();
+
+    // Assert
+    assertEquals(new ProductSalesCounters.Sales(5, 7, 1434, 3), productSalesService.getSales(5));
+  }
+
+  private static OrderItem item(int productId, int quantity, String unitPrice) {
+    return OrderItem.builder()
+        .orderId(1)
+        .productId(productId)
+        .quantity(quantity)
+        .unitPrice(new BigDecimal(unitPrice))
+        .build();
+  }
+
+  /** Ends the current transaction the way the transaction manager would. */
+  private static void complete(int status) {
+    List<TransactionSynchronization> synchronizations =
+        TransactionSynchronizationManager.getSynchronizations();
+    if (status == TransactionSynchronization.STATUS_COMMITTED) {
+      TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+    }
+    TransactionSynchronizationManager.clearSynchronization();
+    TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, status);
+  }
+}
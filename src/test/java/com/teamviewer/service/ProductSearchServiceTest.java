@@ -0,0 +1,162 @@
+package com.teamviewer.service;
+
+import com.teamviewer.entity.Product;
+import com.teamviewer.repository.ProductRepository;
+import com.teamviewer.repository.projection.ProductTextView;
+import com.teamviewer.search.ProductSearchIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.AdditionalMatchers.aryEq;
+
+class ProductSearchServiceTest {
+
+  private ProductRepository productRepository;
+
+  private ProductSearchService productSearchService;
+
+  @BeforeEach
+  void setUp() {
+    productRepository = Mockito.mock(ProductRepository.class);
+    productSearchService =
+        new ProductSearchService(
+            productRepository, Mockito.mock(PlatformTransactionManager.class));
+    productSearchService.productCreated(product("Red kettle"));
+  }
+
+  @AfterEach
+  void afterEach() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  void shouldApplyChangesInCommitOrderWhenCallbacksRunOutOfOrder() {
+    // Arrange
+    List<TransactionSynchronization> first =
+        inTransaction(
+            () -> productSearchService.productUpdated(product("Blue kettle"), "Red kettle", null));
+    List<TransactionSynchronization> second =
+        inTransaction(
+            () ->
+                productSearchService.productUpdated(product("Green kettle"), "Blue kettle", null));
+
+    // Act
+    complete(second, TransactionSynchronization.STATUS_COMMITTED);
+    List<Long> beforeFirstCompleted = ids("green");
+    complete(first, TransactionSynchronization.STATUS_COMMITTED);
+
+    // Assert
+    assertEquals(List.of(), beforeFirstCompleted);
+    assertEquals(List.of(1L), ids("green kettle"));
+    assertEquals(List.of(), ids("red"));
+    assertEquals(List.of(), ids("blue"));
+  }
+
+  @Test
+  void shouldApplyLaterChangeWhenEarlierOneRollsBack() {
+    // Arrange
+    List<TransactionSynchronization> rolledBack =
+        inTransaction(() -> productSearchService.productDeleted(product("Red kettle")));
+    List<TransactionSynchronization> committed =
+        inTransaction(
+            () -> productSearchService.productUpdated(product("Blue kettle"), "Red kettle", null));
+
+    // Act
+    complete(committed, TransactionSynchronization.STATUS_COMMITTED);
+    complete(rolledBack, TransactionSynchronization.STATUS_ROLLED_BACK);
+
+    // Assert
+    assertEquals(List.of(1L), ids("blue kettle"));
+    assertEquals(List.of(), ids("red"));
+  }
+
+  @Test
+  void shouldPickUpChangesOfOtherInstancesOnRebuild() {
+    // Arrange
+    Mockito.when(productRepository.streamAllText())
+        .thenReturn(Stream.of(text(1L, "Blue kettle"), text(2L, "Toaster")));
+
+    // Act
+    productSearchService.rebuildIndex();
+
+    // Assert
+    assertEquals(List.of(1L), ids("blue kettle"));
+    assertEquals(List.of(), ids("red"));
+    assertEquals(List.of(2L), ids("toaster"));
+    assertEquals(2, productSearchService.getIndex().documents());
+  }
+
+  @Test
+  void shouldKeepChangesAppliedWhileRebuilding() {
+    // Arrange
+    Mockito.when(productRepository.streamAllText())
+        .thenAnswer(
+            invocation -> {
+              productSearchService.productUpdated(product("Blue kettle"), "Red kettle", null);
+              return Stream.of(text(1L, "Red kettle"));
+            });
+    Mockito.when(productRepository.findTextByIds(aryEq(new Long[] {1L})))
+        .thenAnswer(
+            invocation -> {
+              productSearchService.productUpdated(product("Green kettle"), "Blue kettle", null);
+              return List.of(text(1L, "Blue kettle"));
+            });
+
+    // Act
+    productSearchService.rebuildIndex();
+
+    // Assert
+    assertEquals(List.of(1L), ids("green kettle"));
+    assertEquals(List.of(), ids("red"));
+    assertEquals(List.of(), ids("blue"));
+    assertEquals(1, productSearchService.getIndex().documents());
+  }
+
+  private List<Long> ids(String query) {
+    return productSearchService.getIndex().search(query, 10).stream()
+        .map(ProductSearchIndex.Hit::id)
+        .toList();
+  }
+
+  private static ProductTextView text(Long id, String name) {
+    return new SpelAwareProxyProjectionFactory()
+        .createProjection(
+            ProductTextView.class, Map.of("id", id, "name", name, "version", 0L));
+  }
+
+  private static Product product(String name) {
+    return Product.builder().id(1L).name(name).build();
+  }
+
+  /** Runs {@code work} in a new transaction and returns its synchronizations, still pending. */
+  private static List<TransactionSynchronization> inTransaction(Runnable work) {
+    TransactionSynchronizationManager.initSynchronization();
+    work.run();
+    List<TransactionSynchronization> synchronizations =
+        TransactionSynchronizationManager.getSynchronizations();
+    TransactionSynchronizationManager.clearSynchronization();
+    return synchronizations;
+  }
+
+  /** Ends a transaction the way the transaction manager would. */
+  private static void complete(List<TransactionSynchronization> synchronizations, int status) {
+    if (status == TransactionSynchronization.STATUS_COMMITTED) {
+      TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+    }
+    TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, status);
+  }
+}
@@ -0,0 +1,116 @@
+package com.teamviewer.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.teamviewer.entity.Product;
+import com.teamviewer.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static com.teamviewer.util.Constants.PRODUCTS_CACHE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.*;
+
+@SpringJUnitConfig
+class ProductServiceCacheTest {
+
+  @Configuration
+  @EnableCaching
+  static class Config {
+
+    @Bean
+    ProductRepository productRepository() {
+      return Mockito.mock(ProductRepository.class);
+    }
+
+    @Bean
+    ProductService productService(ProductRepository productRepository) {
+      return new ProductService(
+          productRepository,
+          Mockito.mock(ProductSearchService.class),
+          Mockito.mock(HotInventoryService.class),
+          Mockito.mock(OutboxService.class));
+    }
+
+    @Bean
+    CacheManager cacheManager() {
+      CaffeineCacheManager cacheManager = new CaffeineCacheManager(PRODUCTS_CACHE);
+      cacheManager.setCaffeine(Caffeine.newBuilder().maximumSize(100));
+      return cacheManager;
+    }
+  }
+
+  @Autowired private ProductService productService;
+
+  @Autowired private ProductRepository productRepository;
+
+  @Autowired private CacheManager cacheManager;
+
+  @AfterEach
+  void afterEach() {
+    reset(productRepository);
+    cacheManager.getCache(PRODUCTS_CACHE).clear();
+  }
+
+  @Test
+  void shouldServeRepeatedLookupsFromCache() {
+    // Arrange
+    Long id = 1L;
+    Product product = Product.builder().id(id).name("test-name").price(BigDecimal.TEN).build();
+    when(productRepository.findById(id)).thenReturn(Optional.of(product));
+
+    // Act
+    productService.findProductById(id);
+    productService.getProductById(id);
+    Product cached = productService.findProductById(id);
+
+    // Assert
+    assertEquals(product, cached);
+    verify(productRepository, times(1)).findById(id);
+  }
+
+  @Test
+  void shouldEvictOnUpdate() {
+    // Arrange
+    Long id = 2L;
+    Product product = Product.builder().id(id).name("old-name").build();
+    Product updated = Product.builder().id(id).name("new-name").build();
+    when(productRepository.findById(id)).thenReturn(Optional.of(product));
+    when(productRepository.saveAndFlush(any(Product.class))).thenReturn(updated);
+    productService.findProductById(id);
+
+    // Act
+    productService.updateProduct(updated);
+
+    // Assert
+    assertNull(cacheManager.getCache(PRODUCTS_CACHE).get(id));
+  }
+
+  @Test
+  void shouldEvictOnDelete() {
+    // Arrange
+    Long id = 3L;
+    when(productRepository.findById(id))
+        .thenReturn(Optional.of(Product.builder().id(id).name("test-name").build()));
+    productService.findProductById(id);
+
+    // Act
+    productService.deleteProduct(id);
+    clearInvocations(productRepository);
+    productService.findProductById(id);
+
+    // Assert
+    verify(productRepository).findById(id);
+  }
+}
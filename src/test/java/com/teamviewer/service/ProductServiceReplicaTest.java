@@ -0,0 +1,110 @@
+package com.teamviewer.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.teamviewer.entity.Product;
+import com.teamviewer.jdbc.ReplicaRoutingDataSource;
+import com.teamviewer.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.List;
+
+import static com.teamviewer.util.Constants.PRODUCTS_CACHE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Product lookups against a primary and a replica that never catches up: a lookup after a write
+ * must return, and cache, the written product.
+ */
+@DataJpaTest(
+    properties = {
+      "spring.jpa.hibernate.ddl-auto=create-drop",
+      "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+    })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductServiceReplicaTest {
+
+  private static final DataSource REPLICA =
+      new DriverManagerDataSource("jdbc:h2:mem:lagging-replica;DB_CLOSE_DELAY=-1", "sa", "");
+
+  @TestConfiguration
+  @EnableCaching
+  static class Config {
+
+    @Bean
+    DataSource dataSource() {
+      new JdbcTemplate(REPLICA)
+          .execute(
+              "create table if not exists tb_product (id bigint primary key, name varchar(255),"
+                  + " description varchar(255), stock integer, price numeric(38, 2),"
+                  + " version bigint not null)");
+      ReplicaRoutingDataSource routingDataSource =
+          new ReplicaRoutingDataSource(
+              new DriverManagerDataSource("jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1", "sa", ""),
+              List.of(REPLICA),
+              1);
+      routingDataSource.checkReplicas();
+      return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Bean
+    CacheManager cacheManager() {
+      CaffeineCacheManager cacheManager = new CaffeineCacheManager(PRODUCTS_CACHE);
+      cacheManager.setCaffeine(Caffeine.newBuilder().maximumSize(100));
+      return cacheManager;
+    }
+
+    @Bean
+    ProductService productService(ProductRepository productRepository) {
+      return new ProductService(
+          productRepository,
+          Mockito.mock(ProductSearchService.class),
+          Mockito.mock(HotInventoryService.class),
+          Mockito.mock(OutboxService.class));
+    }
+  }
+
+  @Autowired private ProductService productService;
+
+  @Autowired private ProductRepository productRepository;
+
+  @Test
+  void shouldCacheWrittenProductWhileReplicaLags() {
+    // Arrange
+    Product product =
+        productRepository.save(Product.builder().name("old-name").price(BigDecimal.TEN).build());
+    new JdbcTemplate(REPLICA)
+        .update(
+            "merge into tb_product (id, name, price, version) values (?, 'old-name', 10, 0)",
+            product.getId());
+    productService.getProductById(product.getId());
+
+    // Act
+    productService.updateProduct(
+        Product.builder().id(product.getId()).name("new-name").price(BigDecimal.TEN).build());
+    Product afterWrite = productService.getProductById(product.getId());
+    Product cached = productService.getProductById(product.getId());
+
+    // Assert
+    assertEquals("new-name", afterWrite.getName());
+    assertEquals(1L, afterWrite.getVersion());
+    assertEquals("new-name", cached.getName());
+    assertEquals(1L, cached.getVersion());
+  }
+}
@@ -1,39 +1,65 @@
 package com.teamviewer.service;
 
+import com.teamviewer.dto.BulkDeleteReport;
+import com.teamviewer.entity.OutboxEvent;
 import com.teamviewer.entity.Product;
+import com.teamviewer.exception.InvalidRequestException;
+import com.teamviewer.exception.PreconditionFailedException;
 import com.teamviewer.exception.ResourceNotFoundException;
 import com.teamviewer.repository.ProductRepository;
+import com.teamviewer.repository.projection.ProductTextView;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.mockito.Mockito;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 
 import java.math.BigDecimal;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 
 @TestInstance(value = TestInstance.Lifecycle.PER_CLASS)
 class ProductServiceTest {
 
   private ProductRepository productRepository;
 
+  private ProductSearchService productSearchService;
+
+  private HotInventoryService hotInventoryService;
+
+  private OutboxService outboxService;
+
   private ProductService productService;
 
   @BeforeAll
   void setUp() {
     productRepository = Mockito.mock(ProductRepository.class);
-    productService = new ProductService(productRepository);
+    productSearchService = Mockito.mock(ProductSearchService.class);
+    hotInventoryService = Mockito.mock(HotInventoryService.class);
+    outboxService = Mockito.mock(OutboxService.class);
+    productService =
+        new ProductService(
+            productRepository, productSearchService, hotInventoryService, outboxService);
   }
 
   @AfterEach
   void afterEach() {
-    reset(productRepository);
+    reset(productRepository, productSearchService, hotInventoryService, outboxService);
   }
 
   @Test
@@ -48,13 +74,43 @@ class ProductServiceTest {
             .price(BigDecimal.TEN)
             .stock(10)
             .build();
-    // Set product data
+    Mockito.when(productRepository.save(product)).thenReturn(product);
 
     // Act
     productService.createProduct(product);
 
     // Assert
     verify(productRepository).save(product);
+    verify(outboxService)
+        .record(OutboxEvent.Aggregate.PRODUCT, id, OutboxEvent.ChangeType.CREATED, product);
+  }
+
+  @Test
+  public void shouldSaveProductsInOneBatch() {
+    // Arrange
+    List<Product> products =
+        List.of(
+            Product.builder().id(5L).name("test-name").price(BigDecimal.TEN).build(),
+            Product.builder().name("test-name-2").price(BigDecimal.ONE).build());
+    Mockito.when(productRepository.saveAll(products)).thenReturn(products);
+
+    // Act
+    List<Product> savedProducts = productService.createProducts(products);
+
+    // Assert
+    verify(productRepository).saveAll(products);
+    assertEquals(products, savedProducts);
+    assertNull(products.get(0).getId());
+  }
+
+  @Test
+  public void shouldRejectOversizedProductBatch() {
+    // Arrange
+    List<Product> products = Collections.nCopies(10001, Product.builder().build());
+
+    // Assert
+    assertThrows(InvalidRequestException.class, () -> productService.createProducts(products));
+    Mockito.verifyNoInteractions(productRepository);
   }
 
   @Test
@@ -121,27 +177,102 @@ class ProductServiceTest {
     // Set updated data
 
     Mockito.when(productRepository.findById(id)).thenReturn(Optional.of(existingProduct));
-    Mockito.when(productRepository.save(updatedProduct)).thenReturn(updatedProduct);
+    Mockito.when(productRepository.saveAndFlush(updatedProduct)).thenReturn(updatedProduct);
 
     // Act
     Product actualProduct = productService.updateProduct(updatedProduct);
 
     // Assert
     verify(productRepository).findById(id);
-    verify(productRepository).save(updatedProduct);
+    verify(productRepository).saveAndFlush(updatedProduct);
+    verify(productSearchService).productUpdated(updatedProduct, "test-name", "test");
     assertEquals(updatedProduct, actualProduct);
   }
 
+  @Test
+  public void shouldRejectUpdateBasedOnStaleVersion() {
+    // Arrange
+    Long id = 1L;
+    Product existingProduct = Product.builder().id(id).name("test-name").version(5L).build();
+    Product updatedProduct = Product.builder().id(id).name("test-name-changed").version(4L).build();
+    Mockito.when(productRepository.findById(id)).thenReturn(Optional.of(existingProduct));
+
+    // Act & Assert
+    assertThrows(
+        PreconditionFailedException.class, () -> productService.updateProduct(updatedProduct));
+    verify(productRepository, Mockito.never()).save(Mockito.any());
+  }
+
+  @Test
+  public void shouldRejectStockChangeOfHotProductOnUpdate() {
+    // Arrange
+    Product existingProduct = Product.builder().id(5L).name("lamp").stock(3).version(1L).build();
+    Mockito.when(productRepository.findById(5L)).thenReturn(Optional.of(existingProduct));
+    Mockito.when(productRepository.saveAndFlush(any())).thenAnswer(call -> call.getArgument(0));
+    Mockito.when(hotInventoryService.isHot(5L)).thenReturn(true);
+
+    // Act & Assert
+    assertThrows(
+        InvalidRequestException.class,
+        () ->
+            productService.updateProduct(Product.builder().id(5L).name("lamp").stock(10).build()));
+    verifyNoInteractions(outboxService);
+  }
+
+  @Test
+  public void shouldUpdateHotProductWhenStockIsUnchanged() {
+    // Arrange
+    Product existingProduct = Product.builder().id(5L).name("lamp").stock(3).version(1L).build();
+    Mockito.when(productRepository.findById(5L)).thenReturn(Optional.of(existingProduct));
+    Mockito.when(productRepository.saveAndFlush(any())).thenAnswer(call -> call.getArgument(0));
+    Mockito.when(hotInventoryService.isHot(5L)).thenReturn(true);
+
+    // Act
+    Product updated =
+        productService.updateProduct(Product.builder().id(5L).name("lamp 2").stock(3).build());
+
+    // Assert
+    assertEquals("lamp 2", updated.getName());
+  }
+
   @Test
   public void shouldDeleteProduct() {
     // Arrange
     Long id = 1L;
+    Product product = Product.builder().id(id).name("lamp").version(2L).build();
+    Mockito.when(productRepository.findById(id)).thenReturn(Optional.of(product));
 
     // Act
     productService.deleteProduct(id);
 
     // Assert
-    verify(productRepository).deleteById(id);
+    var inOrder = Mockito.inOrder(productRepository, hotInventoryService);
+    inOrder.verify(productRepository).deleteById(id);
+    inOrder.verify(productRepository).flush();
+    inOrder.verify(hotInventoryService).productDeleted(id);
+    verify(productSearchService).productDeleted(product);
+  }
+
+  @Test
+  public void shouldDeleteProductsInBulkAndDropThemFromSearchIndex() {
+    // Arrange
+    Long[] ids = {5L, 6L};
+    ProductTextView text =
+        new SpelAwareProxyProjectionFactory()
+            .createProjection(
+                ProductTextView.class,
+                Map.of("id", 5L, "name", "lamp", "description", "red", "version", 0L));
+    Mockito.when(productRepository.findTextByIdsForUpdate(aryEq(ids))).thenReturn(List.of(text));
+    Mockito.when(productRepository.deleteAllByIds(aryEq(ids))).thenReturn(1);
+
+    // Act
+    BulkDeleteReport report = productService.deleteProducts(List.of(5L, 6L));
+
+    // Assert
+    assertEquals(1, report.getDeleted());
+    verify(hotInventoryService).productDeleted(5L);
+    verify(productSearchService)
+        .productDeleted(Product.builder().id(5L).name("lamp").description("red").build());
   }
 
   @Test
@@ -166,4 +297,111 @@ class ProductServiceTest {
     // Assert
     assertEquals(expectedProducts, actualProducts);
   }
+
+  @Test
+  public void shouldFindProductsAfterCursor() {
+    // Arrange
+    Slice<Product> expectedSlice =
+        new SliceImpl<>(Collections.singletonList(Product.builder().id(8L).build()));
+    Mockito.when(productRepository.findByIdGreaterThanOrderByIdAsc(7L, PageRequest.ofSize(1)))
+        .thenReturn(expectedSlice);
+
+    // Act
+    Slice<Product> actualSlice = productService.findProducts(7L, 0);
+
+    // Assert
+    assertEquals(expectedSlice, actualSlice);
+  }
+
+  @Test
+  public void shouldPatchPriceInOneUpdate() {
+    // Arrange
+    Mockito.when(
+            productRepository.updatePartially(
+                Product.class, 5L, 3L, Map.of("price", BigDecimal.ONE)))
+        .thenReturn(1);
+
+    // Act
+    Long version =
+        productService.patchProduct(5L, Product.builder().price(BigDecimal.ONE).build(), 3L);
+
+    // Assert
+    assertEquals(4L, version);
+    verify(productRepository, never()).findById(any());
+    verify(productRepository, never()).findTextById(any());
+    verifyNoInteractions(productSearchService);
+  }
+
+  @Test
+  public void shouldTakeVersionOfPatchWithoutIfMatchFromTheUpdate() {
+    // Arrange
+    Mockito.when(
+            productRepository.updatePartiallyReturningVersion(
+                Product.class, 5L, Map.of("price", BigDecimal.ONE)))
+        .thenReturn(6L);
+
+    // Act
+    Long version =
+        productService.patchProduct(5L, Product.builder().price(BigDecimal.ONE).build(), null);
+
+    // Assert
+    assertEquals(6L, version);
+    verify(productRepository, never()).updatePartially(any(), any(), any(), any());
+    verify(outboxService)
+        .recordPatch(OutboxEvent.Aggregate.PRODUCT, 5L, Map.of("price", BigDecimal.ONE), 6L);
+  }
+
+  @Test
+  public void shouldPatchNameAndUpdateSearchIndex() {
+    // Arrange
+    ProductTextView oldText =
+        new SpelAwareProxyProjectionFactory()
+            .createProjection(
+                ProductTextView.class,
+                Map.of("id", 5L, "name", "old name", "description", "text", "version", 7L));
+    Mockito.when(productRepository.findTextById(5L)).thenReturn(Optional.of(oldText));
+    Mockito.when(
+            productRepository.updatePartially(Product.class, 5L, 7L, Map.of("name", "new name")))
+        .thenReturn(1);
+
+    // Act
+    Long version =
+        productService.patchProduct(5L, Product.builder().name("new name").build(), null);
+
+    // Assert
+    assertEquals(8L, version);
+    verify(productSearchService)
+        .productUpdated(
+            Product.builder().id(5L).name("new name").description("text").build(),
+            "old name",
+            "text");
+  }
+
+  @Test
+  public void shouldRejectStockPatchOfHotProduct() {
+    // Arrange
+    Mockito.when(
+            productRepository.updatePartiallyReturningVersion(eq(Product.class), eq(5L), any()))
+        .thenReturn(4L);
+    Mockito.when(hotInventoryService.isHot(5L)).thenReturn(true);
+
+    // Assert
+    assertThrows(
+        InvalidRequestException.class,
+        () -> productService.patchProduct(5L, Product.builder().stock(10).build(), null));
+  }
+
+  @Test
+  public void shouldThrowNotFoundWhenPatchedProductIsMissing() {
+    // Arrange
+    Mockito.when(productRepository.updatePartially(eq(Product.class), eq(5L), any(), any()))
+        .thenReturn(0);
+    Mockito.when(productRepository.existsById(5L)).thenReturn(false);
+
+    // Assert
+    assertThrows(
+        ResourceNotFoundException.class,
+        () ->
+            productService.patchProduct(5L, Product.builder().price(BigDecimal.ONE).build(), 3L));
+  }
 }
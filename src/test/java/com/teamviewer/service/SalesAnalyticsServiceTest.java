@@ -0,0 +1,197 @@
+package com.teamviewer.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.teamviewer.analytics.ProductSalesCounters;
+import com.teamviewer.dto.ProductSalesDto;
+import com.teamviewer.dto.RevenueBucketDto;
+import com.teamviewer.exception.InvalidRequestException;
+import com.teamviewer.repository.OrderItemRepository;
+import com.teamviewer.repository.ProductRepository;
+import com.teamviewer.repository.projection.ProductTextView;
+import com.teamviewer.repository.projection.RevenueBucketView;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static com.teamviewer.util.Constants.ANALYTICS_CACHE;
+import static com.teamviewer.util.Constants.MAX_PAGE_SIZE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.Mockito.*;
+
+@SpringJUnitConfig
+class SalesAnalyticsServiceTest {
+
+  @Configuration
+  @EnableCaching
+  static class Config {
+
+    @Bean
+    OrderItemRepository orderItemRepository() {
+      return Mockito.mock(OrderItemRepository.class);
+    }
+
+    @Bean
+    ProductRepository productRepository() {
+      return Mockito.mock(ProductRepository.class);
+    }
+
+    @Bean
+    ProductSalesService productSalesService() {
+      return Mockito.mock(ProductSalesService.class);
+    }
+
+    @Bean
+    SalesAnalyticsService salesAnalyticsService(
+        OrderItemRepository orderItemRepository,
+        ProductRepository productRepository,
+        ProductSalesService productSalesService) {
+      return new SalesAnalyticsService(
+          orderItemRepository, productRepository, productSalesService);
+    }
+
+    @Bean
+    CacheManager cacheManager() {
+      CaffeineCacheManager cacheManager = new CaffeineCacheManager(ANALYTICS_CACHE);
+      cacheManager.setCaffeine(Caffeine.newBuilder().maximumSize(100));
+      return cacheManager;
+    }
+  }
+
+  private final SpelAwareProxyProjectionFactory projectionFactory =
+      new SpelAwareProxyProjectionFactory();
+
+  @Autowired private SalesAnalyticsService salesAnalyticsService;
+
+  @Autowired private OrderItemRepository orderItemRepository;
+
+  @Autowired private ProductRepository productRepository;
+
+  @Autowired private ProductSalesService productSalesService;
+
+  @Autowired private CacheManager cacheManager;
+
+  @AfterEach
+  void afterEach() {
+    reset(orderItemRepository, productRepository, productSalesService);
+    cacheManager.getCache(ANALYTICS_CACHE).clear();
+  }
+
+  @Test
+  void shouldServeRepeatedTopProductsFromCache() {
+    // Arrange
+    ProductTextView text =
+        projectionFactory.createProjection(
+            ProductTextView.class, Map.of("id", 7L, "name", "test-name"));
+    when(productSalesService.findTop(ProductSalesCounters.Ranking.REVENUE, 5))
+        .thenReturn(List.of(new ProductSalesCounters.Sales(7, 12, 1000, 3)));
+    when(productRepository.findTextByIds(any())).thenReturn(List.of(text));
+
+    // Act
+    salesAnalyticsService.findTopProducts("revenue", 5);
+    List<ProductSalesDto> cached = salesAnalyticsService.findTopProducts("revenue", 5);
+
+    // Assert
+    assertEquals(
+        List.of(
+            ProductSalesDto.builder()
+                .productId(7L)
+                .name("test-name")
+                .quantity(12)
+                .revenue(new BigDecimal("10.00"))
+                .orderLines(3)
+                .build()),
+        cached);
+    verify(productSalesService, times(1)).findTop(ProductSalesCounters.Ranking.REVENUE, 5);
+    verifyNoInteractions(orderItemRepository);
+  }
+
+  @Test
+  void shouldLookUpNameOfSingleProduct() {
+    // Arrange
+    ProductTextView text =
+        projectionFactory.createProjection(
+            ProductTextView.class, Map.of("id", 7L, "name", "test-name"));
+    when(productSalesService.getSales(anyLong()))
+        .thenAnswer(call -> new ProductSalesCounters.Sales(call.getArgument(0), 2, 300, 1));
+    when(productRepository.findTextByIds(aryEq(new Long[] {7L}))).thenReturn(List.of(text));
+
+    // Act
+    ProductSalesDto sales = salesAnalyticsService.getProductSales(7L);
+    ProductSalesDto deleted = salesAnalyticsService.getProductSales(8L);
+
+    // Assert
+    assertEquals("test-name", sales.getName());
+    assertEquals(new BigDecimal("3.00"), sales.getRevenue());
+    assertNull(deleted.getName());
+  }
+
+  @Test
+  void shouldClampTopProductsLimit() {
+    // Act
+    salesAnalyticsService.findTopProducts("quantity", MAX_PAGE_SIZE + 1);
+
+    // Assert
+    verify(productSalesService).findTop(ProductSalesCounters.Ranking.QUANTITY, MAX_PAGE_SIZE);
+  }
+
+  @Test
+  void shouldRejectUnknownRanking() {
+    // Act & Assert
+    assertThrows(
+        InvalidRequestException.class, () -> salesAnalyticsService.findTopProducts("price", 5));
+    verify(productSalesService, never()).findTop(any(), anyInt());
+  }
+
+  @Test
+  void shouldReturnBucketBoundsOfOrderTotals() {
+    // Arrange
+    BigDecimal width = new BigDecimal("50");
+    RevenueBucketView bucket =
+        projectionFactory.createProjection(
+            RevenueBucketView.class,
+            Map.of("bucket", new BigDecimal("2"), "orders", 3L, "revenue", new BigDecimal("330")));
+    when(orderItemRepository.sumRevenueByOrderTotalBucket(width, MAX_PAGE_SIZE))
+        .thenReturn(List.of(bucket));
+
+    // Act
+    List<RevenueBucketDto> buckets = salesAnalyticsService.findRevenueByOrderTotal(width);
+
+    // Assert
+    assertEquals(
+        List.of(
+            RevenueBucketDto.builder()
+                .from(new BigDecimal("100"))
+                .to(new BigDecimal("150"))
+                .orders(3)
+                .revenue(new BigDecimal("330"))
+                .build()),
+        buckets);
+  }
+
+  @Test
+  void shouldRejectBucketWidthBelowOneCent() {
+    // Act & Assert
+    assertThrows(
+        InvalidRequestException.class,
+        () -> salesAnalyticsService.findRevenueByOrderTotal(new BigDecimal("0.005")));
+    assertThrows(
+        InvalidRequestException.class,
+        () -> salesAnalyticsService.findRevenueByOrderTotal(BigDecimal.ZERO));
+    verifyNoInteractions(orderItemRepository);
+  }
+}
@@ -0,0 +1,267 @@
+package com.teamviewer;
+
+import jakarta.servlet.Filter;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.core.Ordered;
+import org.springframework.core.PriorityOrdered;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares platform-thread and virtual-thread request handling while every JDBC connection
+ * checkout takes {@value #DB_LATENCY_MS}ms. A burst of database-bound requests is followed by a
+ * burst of requests served from the product cache; the cached requests should not queue behind
+ * the slow ones once handlers are virtual threads.
+ */
+@Slf4j
+@EnabledForJreRange(min = JRE.JAVA_21)
+class VirtualThreadLoadTest {
+
+  private static final int DB_LATENCY_MS = 500;
+
+  private static final int POOL_SIZE = 10;
+
+  private static final int PLATFORM_THREADS = 20;
+
+  private static final int SLOW_REQUESTS = 100;
+
+  private static final int FAST_REQUESTS = 50;
+
+  private static final int WARMUP_REQUESTS = 100;
+
+  private static final Pattern ID = Pattern.compile("\"id\":(\\d+)");
+
+  @Test
+  void virtualThreadsShouldKeepServingCachedReadsDuringDatabaseLatencySpike() throws Exception {
+    Result platform = run(false);
+    Result virtual = run(true);
+
+    log.info(
+        "platform threads: max in-flight {}, cached read p99 {} ms, db read p99 {} ms",
+        platform.maxInFlight(),
+        platform.fastP99Ms(),
+        platform.slowP99Ms());
+    log.info(
+        "virtual threads: max in-flight {}, cached read p99 {} ms, db read p99 {} ms",
+        virtual.maxInFlight(),
+        virtual.fastP99Ms(),
+        virtual.slowP99Ms());
+
+    assertTrue(platform.maxInFlight() <= PLATFORM_THREADS);
+    assertTrue(virtual.maxInFlight() > PLATFORM_THREADS);
+    assertTrue(virtual.fastP99Ms() < platform.fastP99Ms());
+  }
+
+  private Result run(boolean virtualThreads) throws Exception {
+    InFlight.reset();
+    try (ConfigurableApplicationContext context =
+            new SpringApplicationBuilder(LoadTestApplication.class)
+                .run(
+                    "--server.port=0",
+                    "--spring.threads.virtual.enabled=" + virtualThreads,
+                    "--server.tomcat.threads.max=" + PLATFORM_THREADS,
+                    "--server.tomcat.accept-count=" + (SLOW_REQUESTS + FAST_REQUESTS),
+                    "--logging.level.root=WARN",
+                    "--logging.level." + VirtualThreadLoadTest.class.getName() + "=INFO",
+                    "--spring.datasource.url=jdbc:h2:mem:load-" + virtualThreads,
+                    "--spring.datasource.username=sa",
+                    "--spring.datasource.password=",
+                    "--spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE,
+                    "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                    "--spring.jpa.hibernate.ddl-auto=create-drop");
+        HttpClient client =
+            HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build()) {
+      String base =
+          "http://localhost:"
+              + ((WebServerApplicationContext) context).getWebServer().getPort();
+      String productId =
+          id(post(client, base + "/api/products", "{\"name\":\"p\",\"price\":1,\"stock\":10}"));
+      String orderId =
+          id(
+              post(
+                  client,
+                  base + "/api/orders/with-items",
+                  "{\"items\":[{\"productId\":" + productId + ",\"quantity\":1}]}"));
+      for (int i = 0; i < WARMUP_REQUESTS; i += POOL_SIZE) {
+        List<CompletableFuture<Long>> warmup = new ArrayList<>();
+        for (int j = 0; j < POOL_SIZE; j++) {
+          warmup.add(send(client, base + "/api/products/" + productId));
+          warmup.add(send(client, base + "/api/orders/" + orderId + "/items"));
+        }
+        warmup.forEach(CompletableFuture::join);
+      }
+      InFlight.reset();
+
+      List<CompletableFuture<Long>> slow = new ArrayList<>();
+      for (int i = 0; i < SLOW_REQUESTS; i++) {
+        slow.add(send(client, base + "/api/orders/" + orderId + "/items"));
+      }
+      Thread.sleep(100);
+      List<CompletableFuture<Long>> fast = new ArrayList<>();
+      for (int i = 0; i < FAST_REQUESTS; i++) {
+        fast.add(send(client, base + "/api/products/" + productId));
+      }
+      long fastP99Ms = p99(fast);
+      long slowP99Ms = p99(slow);
+      return new Result(InFlight.max(), fastP99Ms, slowP99Ms);
+    }
+  }
+
+  private static CompletableFuture<Long> send(HttpClient client, String uri) {
+    long start = System.nanoTime();
+    return client
+        .sendAsync(
+            HttpRequest.newBuilder(URI.create(uri)).build(), HttpResponse.BodyHandlers.ofString())
+        .thenApply(
+            response -> {
+              assertEquals(200, response.statusCode(), response.body());
+              return (System.nanoTime() - start) / 1_000_000;
+            });
+  }
+
+  private static String post(HttpClient client, String uri, String body) throws Exception {
+    HttpResponse<String> response =
+        client.send(
+            HttpRequest.newBuilder(URI.create(uri))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(),
+            HttpResponse.BodyHandlers.ofString());
+    assertEquals(200, response.statusCode(), response.body());
+    return response.body();
+  }
+
+  private static String id(String json) {
+    Matcher matcher = ID.matcher(json);
+    assertTrue(matcher.find(), json);
+    return matcher.group(1);
+  }
+
+  private static long p99(List<CompletableFuture<Long>> latencies) {
+    List<Long> sorted = latencies.stream().map(CompletableFuture::join).sorted().toList();
+    return sorted.get((int) Math.ceil(sorted.size() * 0.99) - 1);
+  }
+
+  private record Result(int maxInFlight, long fastP99Ms, long slowP99Ms) {}
+
+  /** Tracks how many requests are inside the servlet filter chain at once. */
+  static final class InFlight {
+
+    private static final AtomicInteger current = new AtomicInteger();
+
+    private static final AtomicInteger max = new AtomicInteger();
+
+    static void enter() {
+      max.accumulateAndGet(current.incrementAndGet(), Math::max);
+    }
+
+    static void exit() {
+      current.decrementAndGet();
+    }
+
+    static int max() {
+      return max.get();
+    }
+
+    static void reset() {
+      current.set(0);
+      max.set(0);
+    }
+  }
+
+  /** The application as {@link EcommerceApplication} wires it, without other tests' configs. */
+  @Configuration
+  @EnableAutoConfiguration
+  @EnableJpaRepositories
+  @EnableCaching
+  @EnableScheduling
+  @ComponentScan(
+      excludeFilters = {
+        @ComponentScan.Filter(
+            type = FilterType.ASSIGNABLE_TYPE,
+            classes = EcommerceApplication.class),
+        @ComponentScan.Filter(type = FilterType.REGEX, pattern = ".*Tests?(\\$.*)?")
+      })
+  static class LoadTestApplication {
+
+    @Bean
+    Filter inFlightFilter() {
+      return (request, response, chain) -> {
+        InFlight.enter();
+        try {
+          chain.doFilter(request, response);
+        } finally {
+          InFlight.exit();
+        }
+      };
+    }
+
+    /** Holds every checked-out connection for the injected latency before handing it out. */
+    @Bean
+    static BeanPostProcessor dbLatencyInjector() {
+      return new LatencyInjector();
+    }
+  }
+
+  static class LatencyInjector implements BeanPostProcessor, PriorityOrdered {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+      if (!(bean instanceof DataSource dataSource)) {
+        return bean;
+      }
+      return new DelegatingDataSource(dataSource) {
+        @Override
+        public Connection getConnection() throws SQLException {
+          Connection connection = super.getConnection();
+          try {
+            Thread.sleep(DB_LATENCY_MS);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          return connection;
+        }
+      };
+    }
+
+    @Override
+    public int getOrder() {
+      return Ordered.HIGHEST_PRECEDENCE;
+    }
+  }
+}